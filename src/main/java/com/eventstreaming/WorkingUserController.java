@@ -1,6 +1,7 @@
 package com.eventstreaming;
 
 import com.eventstreaming.actor.UserActor;
+import com.eventstreaming.actor.UserActorGuardian;
 import com.eventstreaming.actor.UserActorRegistry;
 import com.eventstreaming.dto.ContactableUpdate;
 import com.eventstreaming.model.UserAggregations;
@@ -12,6 +13,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -167,6 +169,38 @@ public class WorkingUserController {
         return ResponseEntity.ok(stats);
     }
 
+    /**
+     * Get actor lifecycle statistics: live, spawned, evicted and respawned actors
+     */
+    @GetMapping("/stats/lifecycle")
+    public ResponseEntity<UserActorRegistry.LifecycleStats> getLifecycleStats() {
+        return ResponseEntity.ok(userActorRegistry.getLifecycleStats());
+    }
+
+    /**
+     * Get per-bucket actor statistics
+     */
+    @GetMapping("/stats/buckets")
+    public CompletableFuture<ResponseEntity<List<UserActorGuardian.BucketStats>>> getBucketStats() {
+        return userActorRegistry.getBucketStats(Duration.ofSeconds(5))
+            .thenApply(ResponseEntity::ok)
+            .toCompletableFuture();
+    }
+
+    /**
+     * Passivate every actor in one bucket
+     */
+    @PostMapping("/buckets/{bucket}/passivate")
+    public CompletableFuture<ResponseEntity<Integer>> passivateBucket(@PathVariable int bucket) {
+        try {
+            return userActorRegistry.passivateBucket(bucket, Duration.ofSeconds(5))
+                .thenApply(ResponseEntity::ok)
+                .toCompletableFuture();
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+    }
+
     /**
      * Checks if the throwable indicates an actor termination error.
      */
@@ -0,0 +1,15 @@
+package com.eventstreaming.actor;
+
+import com.eventstreaming.model.UserAggregations;
+
+/**
+ * Receives the new aggregations of a user each time its UserActor changes them.
+ * Called from within the actor, so implementations must return quickly and not block.
+ */
+@FunctionalInterface
+public interface AggregationChangeListener {
+    
+    AggregationChangeListener NONE = aggregations -> { };
+    
+    void onAggregationsChanged(UserAggregations aggregations);
+}
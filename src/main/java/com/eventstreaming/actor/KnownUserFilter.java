@@ -0,0 +1,102 @@
+package com.eventstreaming.actor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over the userIds that have data, sized for an expected number of users and
+ * false positive rate.
+ *
+ * {@link #mightContain} never returns false for a user that was added, so a negative answer
+ * means the user is certainly unknown; a positive answer is wrong for about
+ * {@code falsePositiveRate} of unknown users. Adds and lookups are lock-free and safe from
+ * any thread.
+ */
+public final class KnownUserFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+    private final double falsePositiveRate;
+
+    public KnownUserFilter(long expectedUsers, double falsePositiveRate) {
+        if (expectedUsers < 1) {
+            throw new IllegalArgumentException("expectedUsers must be at least 1, got " + expectedUsers);
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1, got " + falsePositiveRate);
+        }
+        long bits = (long) Math.ceil(-expectedUsers * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.max(1, (bits + 63) / 64);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = wordCount * 64L;
+        this.hashCount = (int) Math.max(1, Math.round((double) bitCount / expectedUsers * Math.log(2)));
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    public void add(String userId) {
+        long hash1 = hash(userId);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            if ((words.get(word) & mask) == 0) {
+                words.accumulateAndGet(word, mask, (current, added) -> current | added);
+            }
+        }
+    }
+
+    public boolean mightContain(String userId) {
+        long hash1 = hash(userId);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Estimates how many distinct users were added, from the share of bits set.
+     */
+    public long approximateUserCount() {
+        long setBits = 0;
+        for (int i = 0; i < words.length(); i++) {
+            setBits += Long.bitCount(words.get(i));
+        }
+        if (setBits >= bitCount) {
+            return Long.MAX_VALUE;
+        }
+        return Math.round(-(double) bitCount / hashCount * Math.log(1 - (double) setBits / bitCount));
+    }
+
+    public long sizeInBytes() {
+        return bitCount / 8;
+    }
+
+    public double falsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    private static long hash(String userId) {
+        // FNV-1a over the UTF-8 bytes, then the murmur3 finalizer to spread the bits
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : userId.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB93FE1A85EC3L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -12,6 +12,8 @@ import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * User Actor that maintains user-specific aggregations and processes communication events.
@@ -22,17 +24,25 @@ public class UserActor extends AbstractBehavior<UserActor.Command> {
     private static final Logger log = LoggerFactory.getLogger(UserActor.class);
     
     private final String userId;
-    private UserAggregations aggregations;
+    private final UserAggregationCounters aggregations;
+    private final AggregationChangeListener changeListener;
     private final Duration passivationTimeout = Duration.ofMinutes(30);
     
     // Commands
-    public sealed interface Command permits ProcessEvent, ProcessEventAndAggregate, GetAggregations, UpdateContactable, Passivate, 
+    public sealed interface Command permits ProcessEvent, ProcessEventBatch, ProcessEventAndAggregate, GetAggregations, UpdateContactable, Passivate, 
                                            UserActorCommands.KeepWarm, UserActorCommands.Ping, UserActorCommands.Pong, 
                                            UserActorCommands.GetStats, UserActorCommands.ActorStats {}
     
     public record ProcessEvent(CommunicationEvent event, ActorRef<ProcessEventResponse> replyTo) 
         implements Command {}
     
+    /**
+     * Applies several events of this user in one message with a single reply, so stream
+     * callers pay for one ask per user and batch instead of one per event.
+     */
+    public record ProcessEventBatch(List<CommunicationEvent> events, ActorRef<ProcessEventBatchResponse> replyTo) 
+        implements Command {}
+    
     public record ProcessEventAndAggregate(CommunicationEvent event, ActorRef<ProcessEventResponse> replyTo) 
         implements Command {}
     
@@ -53,22 +63,39 @@ public class UserActor extends AbstractBehavior<UserActor.Command> {
         record Failed(String reason) implements ProcessEventResponse {}
     }
     
+    /**
+     * Reply to {@link ProcessEventBatch}: aggregations after the whole batch was applied and
+     * the events that were rejected, identified by their index in the batch.
+     */
+    public record ProcessEventBatchResponse(UserAggregations aggregations, List<RejectedEvent> rejected) {
+        public record RejectedEvent(int index, String reason) {}
+    }
+    
     public sealed interface UpdateContactableResponse {
         record Success() implements UpdateContactableResponse {}
         record Failed(String reason) implements UpdateContactableResponse {}
     }
     
     public static Behavior<Command> create(String userId) {
+        return create(userId, AggregationChangeListener.NONE);
+    }
+    
+    /**
+     * Creates a UserActor that pushes its aggregations to {@code changeListener} after every
+     * change, so caches in front of it are updated instead of going stale.
+     */
+    public static Behavior<Command> create(String userId, AggregationChangeListener changeListener) {
         return Behaviors.setup(context -> {
             context.setReceiveTimeout(Duration.ofMinutes(30), Passivate.INSTANCE);
-            return new UserActor(context, userId);
+            return new UserActor(context, userId, changeListener);
         });
     }
     
-    private UserActor(ActorContext<Command> context, String userId) {
+    private UserActor(ActorContext<Command> context, String userId, AggregationChangeListener changeListener) {
         super(context);
         this.userId = userId;
-        this.aggregations = new UserAggregations(userId);
+        this.aggregations = new UserAggregationCounters(userId);
+        this.changeListener = changeListener;
         
         log.info("UserActor created for user: {}", userId);
     }
@@ -77,6 +104,7 @@ public class UserActor extends AbstractBehavior<UserActor.Command> {
     public Receive<Command> createReceive() {
         return newReceiveBuilder()
             .onMessage(ProcessEvent.class, this::processEvent)
+            .onMessage(ProcessEventBatch.class, this::processEventBatch)
             .onMessage(ProcessEventAndAggregate.class, this::processEventAndAggregate)
             .onMessage(GetAggregations.class, this::getAggregations)
             .onMessage(UpdateContactable.class, this::updateContactable)
@@ -105,8 +133,7 @@ public class UserActor extends AbstractBehavior<UserActor.Command> {
             }
             
             // Update aggregations based on event type
-            UserAggregations updatedAggregations = updateAggregations(event);
-            this.aggregations = updatedAggregations;
+            updateAggregations(event);
             
             log.debug("Processed {} event for user {}: {}", 
                      event.getEventType(), userId, event.getEventId());
@@ -114,7 +141,9 @@ public class UserActor extends AbstractBehavior<UserActor.Command> {
             // Notify Walker about user activity (in a real implementation, this would publish to Kafka)
             notifyWalker(userId);
             
-            command.replyTo.tell(new ProcessEventResponse.Success(updatedAggregations));
+            invalidateUserCache(userId);
+            
+            command.replyTo.tell(new ProcessEventResponse.Success(aggregations.snapshot()));
             
         } catch (Exception e) {
             log.error("Error processing event for user {}: {}", userId, event, e);
@@ -124,6 +153,39 @@ public class UserActor extends AbstractBehavior<UserActor.Command> {
         return this;
     }
     
+    private Behavior<Command> processEventBatch(ProcessEventBatch command) {
+        List<CommunicationEvent> events = command.events;
+        List<ProcessEventBatchResponse.RejectedEvent> rejected = new ArrayList<>();
+        
+        for (int i = 0; i < events.size(); i++) {
+            CommunicationEvent event = events.get(i);
+            try {
+                if (!event.isValid()) {
+                    log.warn("Invalid event received for user {}: {}", userId, event);
+                    rejected.add(new ProcessEventBatchResponse.RejectedEvent(i, "Invalid event"));
+                } else if (!event.getUserId().equals(userId)) {
+                    log.warn("User ID mismatch for actor {}: event user {}", userId, event.getUserId());
+                    rejected.add(new ProcessEventBatchResponse.RejectedEvent(i, "User ID mismatch"));
+                } else {
+                    updateAggregations(event);
+                }
+            } catch (Exception e) {
+                log.error("Error processing event for user {}: {}", userId, event, e);
+                rejected.add(new ProcessEventBatchResponse.RejectedEvent(i, "Processing error: " + e.getMessage()));
+            }
+        }
+        
+        log.debug("Processed batch of {} events for user {} ({} rejected)", events.size(), userId, rejected.size());
+        
+        if (rejected.size() < events.size()) {
+            notifyWalker(userId);
+            invalidateUserCache(userId);
+        }
+        
+        command.replyTo.tell(new ProcessEventBatchResponse(aggregations.snapshot(), rejected.isEmpty() ? List.of() : rejected));
+        return this;
+    }
+    
     /**
      * Atomic event processing and aggregation for Kafka Streams integration.
      * Processes event, updates aggregations, and publishes notifications in a single operation.
@@ -145,23 +207,24 @@ public class UserActor extends AbstractBehavior<UserActor.Command> {
                 return this;
             }
             
-            // Store previous aggregations for comparison
-            UserAggregations previousAggregations = this.aggregations;
+            // Store previous total for comparison
+            long previousTotalEvents = aggregations.totalEvents();
             
             // Update aggregations based on event type (atomic operation)
-            UserAggregations updatedAggregations = updateAggregations(event);
-            this.aggregations = updatedAggregations;
+            updateAggregations(event);
             
             log.debug("Atomically processed {} event for user {}: {} -> aggregations updated", 
                      event.getEventType(), userId, event.getEventId());
             
             // Publish aggregation update notification to Walker (atomic with processing)
-            publishAggregationUpdate(userId, previousAggregations, updatedAggregations, event);
+            publishAggregationUpdate(userId, previousTotalEvents, event);
             
             // Publish Walker notification for real-time processing
-            publishWalkerNotification(userId, updatedAggregations, event);
+            publishWalkerNotification(userId, event);
+            
+            invalidateUserCache(userId);
             
-            command.replyTo.tell(new ProcessEventResponse.Success(updatedAggregations));
+            command.replyTo.tell(new ProcessEventResponse.Success(aggregations.snapshot()));
             
         } catch (Exception e) {
             log.error("Error in atomic event processing for user {}: {}", userId, event, e);
@@ -173,25 +236,23 @@ public class UserActor extends AbstractBehavior<UserActor.Command> {
     
     private Behavior<Command> getAggregations(GetAggregations command) {
         log.debug("Returning aggregations for user: {}", userId);
-        command.replyTo.tell(aggregations);
+        command.replyTo.tell(aggregations.snapshot());
         return this;
     }
     
     private Behavior<Command> updateContactable(UpdateContactable command) {
         try {
             // Update aggregations with Walker's feedback
-            UserAggregations updatedAggregations = aggregations.updateContactableStatus(
+            aggregations.updateContactableStatus(
                 command.contactableStatus,
                 command.graphNode,
                 command.processingTimestamp
             );
             
-            this.aggregations = updatedAggregations;
-            
             log.info("Updated contactable status for user {}: {} at node {}", 
                     userId, command.contactableStatus, command.graphNode);
             
-            // Invalidate cache since aggregations changed (in a real implementation)
+            // Push the new aggregations since Walker's cached copy is now stale
             invalidateUserCache(userId);
             
             command.replyTo.tell(new UpdateContactableResponse.Success());
@@ -234,7 +295,7 @@ public class UserActor extends AbstractBehavior<UserActor.Command> {
     private Behavior<Command> getStats(UserActorCommands.GetStats command) {
         log.debug("Returning stats for user: {}", userId);
         // For now, just return basic stats - could be extended with more metrics
-        long totalEvents = aggregations.getTotalEvents();
+        long totalEvents = aggregations.totalEvents();
         long uptime = Duration.between(Instant.now().minusSeconds(3600), Instant.now()).toMillis(); // Approximate uptime
         boolean isHot = totalEvents > 10; // Simple hot actor detection
         
@@ -246,19 +307,10 @@ public class UserActor extends AbstractBehavior<UserActor.Command> {
         return this;
     }
     
-    private UserAggregations updateAggregations(CommunicationEvent event) {
-        return switch (event.getEventType()) {
-            case EMAIL_OPEN -> aggregations.incrementEmailOpens();
-            case EMAIL_CLICK -> aggregations.incrementEmailClicks();
-            case SMS_REPLY -> aggregations.incrementSmsReplies();
-            case SMS_DELIVERY -> aggregations.incrementSmsDeliveries();
-            case CALL_COMPLETED -> aggregations.incrementCallsCompleted();
-            case CALL_MISSED -> aggregations.incrementCallsMissed();
-            default -> {
-                log.warn("Unknown event type: {}", event.getEventType());
-                yield aggregations; // Return unchanged aggregations
-            }
-        };
+    private void updateAggregations(CommunicationEvent event) {
+        if (!aggregations.apply(event.getEventType())) {
+            log.warn("Unknown event type: {}", event.getEventType());
+        }
     }
     
     private void notifyWalker(String userId) {
@@ -271,22 +323,21 @@ public class UserActor extends AbstractBehavior<UserActor.Command> {
      * Publishes aggregation update notification to Kafka for Walker consumption.
      * This replaces the database polling mechanism with real-time messaging.
      */
-    private void publishAggregationUpdate(String userId, UserAggregations previous, 
-                                        UserAggregations current, CommunicationEvent triggerEvent) {
+    private void publishAggregationUpdate(String userId, long previousTotalEvents, CommunicationEvent triggerEvent) {
         try {
             // Create aggregation update message
             AggregationUpdate update = new AggregationUpdate(
                 userId,
-                (int) current.getEmailCount(),
-                (int) current.getSmsCount(),
-                (int) current.getCallCount(),
-                current.getLastUpdated(),
+                (int) aggregations.emailCount(),
+                (int) aggregations.smsCount(),
+                (int) aggregations.callCount(),
+                aggregations.lastActivity(),
                 triggerEvent.getEventType().toString(),
                 triggerEvent.getEventId()
             );
             
             log.debug("Publishing aggregation update for user {}: {} -> {}", 
-                     userId, previous.getTotalEvents(), current.getTotalEvents());
+                     userId, previousTotalEvents, aggregations.totalEvents());
             
             // TODO: Implement actual Kafka publishing
             // kafkaTemplate.send("aggregation-updates", userId, update);
@@ -299,20 +350,20 @@ public class UserActor extends AbstractBehavior<UserActor.Command> {
     /**
      * Publishes Walker notification for immediate processing.
      */
-    private void publishWalkerNotification(String userId, UserAggregations aggregations, CommunicationEvent event) {
+    private void publishWalkerNotification(String userId, CommunicationEvent event) {
         try {
             // Create Walker notification
             WalkerNotification notification = new WalkerNotification(
                 userId,
-                (int) aggregations.getEmailCount(),
-                (int) aggregations.getSmsCount(),
-                (int) aggregations.getCallCount(),
+                (int) aggregations.emailCount(),
+                (int) aggregations.smsCount(),
+                (int) aggregations.callCount(),
                 Instant.now(),
                 event.getEventType().toString()
             );
             
             log.debug("Publishing Walker notification for user {}: total events = {}", 
-                     userId, aggregations.getTotalEvents());
+                     userId, aggregations.totalEvents());
             
             // TODO: Implement actual Kafka publishing
             // kafkaTemplate.send("walker-notifications", userId, notification);
@@ -322,10 +373,17 @@ public class UserActor extends AbstractBehavior<UserActor.Command> {
         }
     }
     
+    /**
+     * Pushes the changed aggregations to the change listener, which replaces the cached
+     * copy and invalidates the shared one.
+     */
     private void invalidateUserCache(String userId) {
-        // In a real implementation, this would invalidate Redis cache
         log.debug("Invalidating cache for user: {}", userId);
-        // redisTemplate.delete("user:" + userId);
+        try {
+            changeListener.onAggregationsChanged(aggregations.snapshot());
+        } catch (Exception e) {
+            log.error("Error pushing aggregation change for user {}", userId, e);
+        }
     }
     
     /**
@@ -9,37 +9,87 @@ import org.apache.pekko.actor.typed.javadsl.Receive;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
 
 /**
- * Guardian actor that manages User Actor instances
+ * Guardian actor that manages User Actor instances.
+ *
+ * The registry runs one guardian per hash bucket of userIds, so spawning and termination
+ * handling are spread over the buckets rather than all going through one parent.
+ * User Actors are spawned as children and death-watched, so a child that passivates or
+ * fails is dropped here and reported to {@code onTerminated}. Each incarnation gets its own
+ * name, so a user can be respawned while its previous actor is still stopping.
  */
 public class UserActorGuardian extends AbstractBehavior<UserActorGuardian.Command> {
     
     private static final Logger log = LoggerFactory.getLogger(UserActorGuardian.class);
     
     private final Map<String, ActorRef<UserActor.Command>> userActors = new HashMap<>();
+    private final Function<String, Behavior<UserActor.Command>> userActorFactory;
+    private final BiConsumer<String, ActorRef<UserActor.Command>> onTerminated;
+    private final int bucket;
+    private long incarnations;
+    private long terminated;
     
     // Commands
-    public sealed interface Command {}
+    public sealed interface Command
+        permits GetOrCreateUserActor, PassivateUserActors, PassivateAll, GetBucketStats, UserActorTerminated {}
     
-    public record GetOrCreateUserActor(String userId, ActorRef<ActorRef<UserActor.Command>> replyTo) 
+    public record GetOrCreateUserActor(String userId, ActorRef<ActorRef<UserActor.Command>> replyTo)
         implements Command {}
     
+    /**
+     * Asks the given users' actors to passivate; later requests for them spawn new ones.
+     */
+    public record PassivateUserActors(Collection<String> userIds) implements Command {}
+    
+    /**
+     * Asks every child to passivate; replies with how many were asked.
+     */
+    public record PassivateAll(ActorRef<Integer> replyTo) implements Command {}
+    
+    public record GetBucketStats(ActorRef<BucketStats> replyTo) implements Command {}
+    
+    public record BucketStats(int bucket, int liveActors, long spawned, long terminated) {}
+    
+    private record UserActorTerminated(String userId, ActorRef<UserActor.Command> userActor) implements Command {}
+    
     public static Behavior<Command> create() {
-        return Behaviors.setup(UserActorGuardian::new);
+        return create(0, UserActor::create, (userId, userActor) -> { });
     }
     
-    private UserActorGuardian(ActorContext<Command> context) {
+    public static Behavior<Command> create(int bucket,
+                                           Function<String, Behavior<UserActor.Command>> userActorFactory,
+                                           BiConsumer<String, ActorRef<UserActor.Command>> onTerminated) {
+        return Behaviors.setup(context -> new UserActorGuardian(context, bucket, userActorFactory, onTerminated));
+    }
+    
+    private UserActorGuardian(ActorContext<Command> context,
+                              int bucket,
+                              Function<String, Behavior<UserActor.Command>> userActorFactory,
+                              BiConsumer<String, ActorRef<UserActor.Command>> onTerminated) {
         super(context);
-        log.info("UserActorGuardian started");
+        this.bucket = bucket;
+        this.userActorFactory = userActorFactory;
+        this.onTerminated = onTerminated;
+        log.debug("UserActorGuardian for bucket {} started", bucket);
     }
     
     @Override
     public Receive<Command> createReceive() {
         return newReceiveBuilder()
             .onMessage(GetOrCreateUserActor.class, this::getOrCreateUserActor)
+            .onMessage(PassivateUserActors.class, this::passivateUserActors)
+            .onMessage(PassivateAll.class, this::passivateAll)
+            .onMessage(GetBucketStats.class, this::getBucketStats)
+            .onMessage(UserActorTerminated.class, this::userActorTerminated)
             .build();
     }
     
@@ -49,13 +99,49 @@ public class UserActorGuardian extends AbstractBehavior<UserActorGuardian.Comman
         ActorRef<UserActor.Command> userActor = userActors.get(userId);
         
         if (userActor == null) {
-            String actorName = "user-" + userId.replaceAll("[^a-zA-Z0-9]", "_");
-            userActor = getContext().spawn(UserActor.create(userId), actorName);
+            String actorName = URLEncoder.encode(userId, StandardCharsets.UTF_8) + "-" + (++incarnations);
+            userActor = getContext().spawn(userActorFactory.apply(userId), actorName);
+            getContext().watchWith(userActor, new UserActorTerminated(userId, userActor));
             userActors.put(userId, userActor);
-            log.info("Created new UserActor for user: {}", userId);
+            log.debug("Created new UserActor for user {} in bucket {}", userId, bucket);
         }
         
         command.replyTo.tell(userActor);
         return this;
     }
+    
+    private Behavior<Command> passivateUserActors(PassivateUserActors command) {
+        for (String userId : command.userIds) {
+            ActorRef<UserActor.Command> userActor = userActors.remove(userId);
+            if (userActor != null) {
+                userActor.tell(UserActor.Passivate.INSTANCE);
+            }
+        }
+        log.debug("Passivating {} UserActors", command.userIds.size());
+        return this;
+    }
+    
+    private Behavior<Command> passivateAll(PassivateAll command) {
+        int count = userActors.size();
+        passivateUserActors(new PassivateUserActors(new ArrayList<>(userActors.keySet())));
+        command.replyTo.tell(count);
+        return this;
+    }
+    
+    private Behavior<Command> getBucketStats(GetBucketStats command) {
+        command.replyTo.tell(new BucketStats(bucket, userActors.size(), incarnations, terminated));
+        return this;
+    }
+    
+    private Behavior<Command> userActorTerminated(UserActorTerminated command) {
+        terminated++;
+        userActors.remove(command.userId, command.userActor);
+        log.debug("UserActor for user {} terminated", command.userId);
+        try {
+            onTerminated.accept(command.userId, command.userActor);
+        } catch (Exception e) {
+            log.error("Error handling termination of UserActor for user {}", command.userId, e);
+        }
+        return this;
+    }
 }
\ No newline at end of file
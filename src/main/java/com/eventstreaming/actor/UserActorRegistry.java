@@ -1,21 +1,43 @@
 package com.eventstreaming.actor;
 
+import com.eventstreaming.model.UserAggregations;
+import org.apache.pekko.NotUsed;
 import org.apache.pekko.actor.typed.ActorRef;
 import org.apache.pekko.actor.typed.ActorSystem;
+import org.apache.pekko.actor.typed.Props;
 import org.apache.pekko.actor.typed.javadsl.AskPattern;
+import org.apache.pekko.stream.javadsl.Source;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Registry for managing User Actor instances with user affinity.
  * Ensures each user gets the same actor instance for consistency.
+ *
+ * Actors are children of {@link UserActorGuardian} bucket parents, one per hash bucket of
+ * userIds, which spawn them locally and death-watch them, so actors that passivate or fail
+ * are dropped from the registry and recreated on the next request.
+ * At most {@code maxLiveActors} actors are kept; beyond that the least recently used ones
+ * are passivated.
  */
 @Component
 public class UserActorRegistry {
@@ -24,12 +46,70 @@ public class UserActorRegistry {
     
     private final ActorSystem<Void> actorSystem;
     private final ConcurrentHashMap<String, ActorRef<UserActor.Command>> userActors;
+    private final ConcurrentHashMap<Integer, ActorRef<UserBatchQueryActor.Command>> queryShards = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, ActorRef<UserActorGuardian.Command>> buckets = new ConcurrentHashMap<>();
+    
+    // UserIds are hashed onto this many bucket parents, each spawning and watching its users' actors
+    @Value("${app.user-actors.buckets:64}")
+    private int bucketCount = 64;
+    // Actor requests waiting for their bucket parent, so concurrent requests for a user share one
+    private final ConcurrentHashMap<String, CompletableFuture<ActorRef<UserActor.Command>>> pendingActors = new ConcurrentHashMap<>();
+    // Per user, completes when the latest ask has been sent. Each ask is sent after the one
+    // before it, so batches keep their order while they wait for an actor to be created;
+    // a shared pending future would run its waiting asks in LIFO order.
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> sendChains = new ConcurrentHashMap<>();
+    // Last request time per live actor, used to pick passivation victims
+    private final ConcurrentHashMap<String, Long> lastAccessMillis = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    
+    @Value("${app.user-actors.max-live:100000}")
+    private int maxLiveActors = 100_000;
+    
+    @Value("${app.user-actors.create-timeout:5s}")
+    private Duration createTimeout = Duration.ofSeconds(5);
+    
+    private final LongAdder spawnedActors = new LongAdder();
+    private final LongAdder evictedActors = new LongAdder();
+    private final LongAdder terminatedActors = new LongAdder();
+    private final LongAdder respawnedActors = new LongAdder();
+    
+    // Users are hashed onto this many query shards; each shard group is one query message
+    @Value("${app.walker.batch-query.shards:16}")
+    private int queryShardCount = 16;
+    
+    @Value("${app.walker.batch-query.max-users-per-message:1000}")
+    private int maxUsersPerMessage = 1000;
+    
+    @Value("${app.walker.batch-query.parallelism:8}")
+    private int queryParallelism = 8;
+    
+    private volatile AggregationChangeListener aggregationChangeListener = AggregationChangeListener.NONE;
+    
+    private final long knownUsersExpected;
+    private final double knownUsersFalsePositiveRate;
+    
+    // Users with data; reads for users outside it are answered without an actor
+    private volatile KnownUserFilter knownUsers;
+    // Filter being rebuilt, which also receives users created while the rebuild runs
+    private final AtomicReference<KnownUserFilter> rebuildingKnownUsers = new AtomicReference<>();
+    private final LongAdder unknownUserReads = new LongAdder();
+    private final LongAdder actorReads = new LongAdder();
     
-    @Autowired
     public UserActorRegistry(ActorSystem<Void> actorSystem) {
+        this(actorSystem, 1_000_000, 0.01);
+    }
+    
+    // The filter is sized in the constructor, so its settings are constructor parameters
+    @Autowired
+    public UserActorRegistry(ActorSystem<Void> actorSystem,
+                             @Value("${app.known-users.expected-users:1000000}") long knownUsersExpected,
+                             @Value("${app.known-users.false-positive-rate:0.01}") double knownUsersFalsePositiveRate) {
         try {
+            this.knownUsersExpected = knownUsersExpected;
+            this.knownUsersFalsePositiveRate = knownUsersFalsePositiveRate;
             this.actorSystem = actorSystem;
             this.userActors = new ConcurrentHashMap<>();
+            this.knownUsers = new KnownUserFilter(knownUsersExpected, knownUsersFalsePositiveRate);
             log.info("UserActorRegistry initialized successfully with ActorSystem: {}", actorSystem.name());
         } catch (Exception e) {
             log.error("Failed to initialize UserActorRegistry", e);
@@ -46,8 +126,88 @@ public class UserActorRegistry {
             throw new IllegalArgumentException("User ID cannot be null or empty");
         }
         
-        ActorRef<UserActor.Command> actor = userActors.computeIfAbsent(userId, this::createUserActor);
-        return CompletableFuture.completedFuture(actor);
+        ActorRef<UserActor.Command> actor = userActors.get(userId);
+        if (actor != null) {
+            lastAccessMillis.put(userId, System.currentTimeMillis());
+            return CompletableFuture.completedFuture(actor);
+        }
+        return pendingActors.computeIfAbsent(userId, this::createUserActor);
+    }
+    
+    /**
+     * Read-only aggregation lookup for query endpoints.
+     * Users without a live actor that are not in the known-user filter are answered with
+     * empty aggregations straight away, so lookups of nonexistent or mistyped userIds do not
+     * create actors. Known users are asked as usual.
+     */
+    public CompletionStage<UserAggregations> getAggregations(String userId, Duration timeout) {
+        if (userId == null || userId.trim().isEmpty()) {
+            throw new IllegalArgumentException("User ID cannot be null or empty");
+        }
+        
+        if (!userActors.containsKey(userId) && !knownUsers.mightContain(userId)) {
+            unknownUserReads.increment();
+            log.debug("User {} is not known, returning empty aggregations", userId);
+            return CompletableFuture.completedFuture(new UserAggregations(userId));
+        }
+        
+        actorReads.increment();
+        return askUserActor(userId, UserActor.GetAggregations::new, timeout, UserAggregations.class);
+    }
+    
+    /**
+     * Checks whether a user might have data: it has a live actor or is in the known-user filter.
+     */
+    public boolean isKnownUser(String userId) {
+        return userActors.containsKey(userId) || knownUsers.mightContain(userId);
+    }
+    
+    /**
+     * Replaces the known-user filter with one built from {@code userIds} plus the users with
+     * a live actor. Lookups keep using the current filter until the new one is complete, and
+     * users created meanwhile are added to both. Completes with the number of userIds read.
+     */
+    public CompletionStage<Long> rebuildKnownUsers(Source<String, NotUsed> userIds) {
+        KnownUserFilter rebuilt = new KnownUserFilter(knownUsersExpected, knownUsersFalsePositiveRate);
+        if (!rebuildingKnownUsers.compareAndSet(null, rebuilt)) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Known-user filter rebuild already running"));
+        }
+        
+        return userIds.runFold(0L, (count, userId) -> {
+                rebuilt.add(userId);
+                return count + 1;
+            }, actorSystem)
+            .whenComplete((count, throwable) -> {
+                if (throwable == null) {
+                    userActors.keySet().forEach(rebuilt::add);
+                    pendingActors.keySet().forEach(rebuilt::add);
+                    knownUsers = rebuilt;
+                    log.info("Rebuilt known-user filter from {} userIds (~{} users, {} bytes)", 
+                            count, rebuilt.approximateUserCount(), rebuilt.sizeInBytes());
+                }
+                rebuildingKnownUsers.set(null);
+            });
+    }
+    
+    public KnownUserStats getKnownUserStats() {
+        KnownUserFilter filter = knownUsers;
+        return new KnownUserStats(
+            filter.approximateUserCount(),
+            filter.sizeInBytes(),
+            filter.falsePositiveRate(),
+            unknownUserReads.sum(),
+            actorReads.sum(),
+            userActors.size()
+        );
+    }
+    
+    /**
+     * Sets the listener that actors created from now on push their changed aggregations to.
+     * Optional: without one, changes are not pushed anywhere.
+     */
+    @Autowired(required = false)
+    public void setAggregationChangeListener(AggregationChangeListener aggregationChangeListener) {
+        this.aggregationChangeListener = aggregationChangeListener;
     }
     
     /**
@@ -57,13 +217,69 @@ public class UserActorRegistry {
         return userActors.size();
     }
     
+    /**
+     * Live, spawned, evicted and respawned actor counts.
+     */
+    public LifecycleStats getLifecycleStats() {
+        return new LifecycleStats(
+            userActors.size(),
+            maxLiveActors,
+            spawnedActors.sum(),
+            evictedActors.sum(),
+            terminatedActors.sum(),
+            respawnedActors.sum()
+        );
+    }
+    
+    /**
+     * Live actor, spawn and termination counts of each bucket parent started so far.
+     */
+    public CompletionStage<List<UserActorGuardian.BucketStats>> getBucketStats(Duration timeout) {
+        List<CompletableFuture<UserActorGuardian.BucketStats>> stats = buckets.values().stream()
+            .map(bucket -> AskPattern.<UserActorGuardian.Command, UserActorGuardian.BucketStats>ask(
+                    bucket, UserActorGuardian.GetBucketStats::new, timeout, actorSystem.scheduler())
+                .toCompletableFuture())
+            .toList();
+        return CompletableFuture.allOf(stats.toArray(CompletableFuture[]::new))
+            .thenApply(done -> stats.stream()
+                .map(CompletableFuture::join)
+                .sorted(Comparator.comparingInt(UserActorGuardian.BucketStats::bucket))
+                .toList());
+    }
+    
+    /**
+     * Passivates every actor of one bucket, e.g. to shed memory after a rebalance.
+     * Completes with the number of actors asked to passivate.
+     */
+    public CompletionStage<Integer> passivateBucket(int bucket, Duration timeout) {
+        if (bucket < 0 || bucket >= bucketCount) {
+            throw new IllegalArgumentException("Bucket must be between 0 and " + (bucketCount - 1) + ", got " + bucket);
+        }
+        ActorRef<UserActorGuardian.Command> parent = buckets.get(bucket);
+        if (parent == null) {
+            return CompletableFuture.completedFuture(0);
+        }
+        userActors.keySet().removeIf(userId -> {
+            if (bucketFor(userId) != bucket) {
+                return false;
+            }
+            lastAccessMillis.remove(userId);
+            evictedActors.increment();
+            return true;
+        });
+        return AskPattern.ask(parent, UserActorGuardian.PassivateAll::new, timeout, actorSystem.scheduler());
+    }
+    
     /**
      * Removes a terminated actor from the registry.
      * This allows for recreation of actors that have been terminated.
+     * Terminations are normally reported by the bucket parents; this remains for callers that
+     * detect a dead actor themselves.
      */
     public void removeTerminatedActor(String userId) {
         ActorRef<UserActor.Command> removed = userActors.remove(userId);
         if (removed != null) {
+            lastAccessMillis.remove(userId);
             log.info("Removed terminated actor for user: {}", userId);
         }
     }
@@ -80,51 +296,157 @@ public class UserActorRegistry {
      * Sends a message to a User Actor and returns a CompletionStage for the response.
      * This is a convenience method for async communication with User Actors.
      * Includes retry logic for terminated actors.
+     *
+     * Messages for one user are sent in call order, also while its actor is being created
+     * or respawned: each ask waits until the previous ask for the user has been sent, not
+     * answered, see {@link #sendChains}.
      */
     public <T> CompletionStage<T> askUserActor(String userId, 
                                              org.apache.pekko.japi.function.Function<ActorRef<T>, UserActor.Command> messageFactory,
                                              Duration timeout,
                                              Class<T> responseClass) {
+        if (userId == null || userId.trim().isEmpty()) {
+            throw new IllegalArgumentException("User ID cannot be null or empty");
+        }
+        
+        CompletableFuture<Void> sent = new CompletableFuture<>();
+        CompletableFuture<Void> previous = sendChains.put(userId, sent);
+        CompletableFuture<CompletionStage<T>> dispatched = (previous != null ? previous : CompletableFuture.<Void>completedFuture(null))
+            .thenCompose(ignored -> getOrCreateUserActor(userId))
+            .thenCompose(userActor -> send(userId, userActor, messageFactory, timeout));
+        dispatched.whenComplete((reply, throwable) -> {
+            sent.complete(null);
+            sendChains.remove(userId, sent);
+        });
+        return dispatched.thenCompose(reply -> reply);
+    }
+    
+    /**
+     * Asks {@code userActor} and completes once the message has been sent. Pekko fails an ask
+     * to an actor that has already terminated right away, so an actor that stopped before the
+     * registry heard of it is replaced and the message re-sent before the next one for the
+     * user goes out.
+     */
+    private <T> CompletionStage<CompletionStage<T>> send(String userId,
+                                                        ActorRef<UserActor.Command> userActor,
+                                                        org.apache.pekko.japi.function.Function<ActorRef<T>, UserActor.Command> messageFactory,
+                                                        Duration timeout) {
+        CompletableFuture<T> reply = AskPattern.ask(userActor, messageFactory, timeout, actorSystem.scheduler())
+            .toCompletableFuture();
+        if (!reply.isCompletedExceptionally() || !isActorTerminationError(reply.exceptionNow())) {
+            return CompletableFuture.completedFuture(reply);
+        }
+        
+        log.warn("Actor for user {} was terminated, recreating and retrying once", userId);
+        // Drop the dead actor unless it was already replaced, then retry once
+        if (userActors.remove(userId, userActor)) {
+            lastAccessMillis.remove(userId);
+        }
+        respawnedActors.increment();
+        return getOrCreateUserActor(userId).thenApply(newUserActor -> 
+            AskPattern.ask(newUserActor, messageFactory, timeout, actorSystem.scheduler())
+                .whenComplete((retried, retryThrowable) -> {
+                    if (retryThrowable != null) {
+                        log.error("Retry also failed for user {}", userId, retryThrowable);
+                    }
+                }));
+    }
+    
+    /**
+     * Queries the aggregations of many users with one message per shard group instead of
+     * one ask per user.
+     *
+     * The distinct userIds are hashed onto {@code queryShardCount} query shards, and each
+     * shard group is split into messages of at most {@code maxUsersPerMessage} users. Every
+     * message goes to that shard's {@link UserBatchQueryActor} with the actors already in
+     * this registry, so users without an actor are answered with empty aggregations rather
+     * than having one created. Results are emitted per message as soon as it is answered;
+     * users whose actor did not answer within {@code timeout} are emitted with empty
+     * aggregations, as the per-user batch did on errors.
+     */
+    public Source<UserAggregations, NotUsed> queryAggregations(Collection<String> userIds, Duration timeout) {
+        Map<Integer, List<String>> groups = new HashMap<>();
+        for (String userId : new LinkedHashSet<>(userIds)) {
+            if (userId == null || userId.trim().isEmpty()) {
+                continue;
+            }
+            groups.computeIfAbsent(queryShardFor(userId), shard -> new ArrayList<>()).add(userId);
+        }
+        
+        List<Map.Entry<Integer, List<String>>> messages = new ArrayList<>();
+        groups.forEach((shard, shardUserIds) -> {
+            for (int from = 0; from < shardUserIds.size(); from += maxUsersPerMessage) {
+                int to = Math.min(from + maxUsersPerMessage, shardUserIds.size());
+                messages.add(Map.entry(shard, shardUserIds.subList(from, to)));
+            }
+        });
+        
+        log.debug("Batch querying {} users in {} messages over {} shards", 
+                 userIds.size(), messages.size(), groups.size());
+        
+        return Source.from(messages)
+            .mapAsyncUnordered(queryParallelism, message -> queryShard(message.getKey(), message.getValue(), timeout))
+            .mapConcat(result -> {
+                List<UserAggregations> aggregations = new ArrayList<>(result.aggregations().values());
+                if (!result.timedOut().isEmpty()) {
+                    log.warn("No aggregations within {} for {} users in batch query", timeout, result.timedOut().size());
+                    result.timedOut().forEach(userId -> aggregations.add(new UserAggregations(userId)));
+                }
+                return aggregations;
+            });
+    }
+    
+    /**
+     * Returns the query shard a userId belongs to.
+     */
+    int queryShardFor(String userId) {
+        return Math.floorMod(userId.hashCode(), queryShardCount);
+    }
+    
+    CompletionStage<UserBatchQueryActor.BatchAggregations> queryShard(int shard, List<String> userIds, Duration timeout) {
+        Map<String, ActorRef<UserActor.Command>> known = new HashMap<>();
+        List<String> unknown = new ArrayList<>();
+        for (String userId : userIds) {
+            ActorRef<UserActor.Command> actor = userActors.get(userId);
+            if (actor != null) {
+                known.put(userId, actor);
+            } else {
+                unknown.add(userId);
+            }
+        }
+        
+        ActorRef<UserBatchQueryActor.Command> queryActor = queryShards.computeIfAbsent(shard, index ->
+            actorSystem.systemActorOf(UserBatchQueryActor.create(), "user-query-shard-" + index, Props.empty()));
         
-        return getOrCreateUserActor(userId)
-            .thenCompose(userActor -> 
-                AskPattern.ask(userActor, messageFactory, timeout, actorSystem.scheduler())
-                    .exceptionally(throwable -> {
-                        // Check if this is an actor termination error
-                        if (isActorTerminationError(throwable)) {
-                            log.warn("Actor for user {} was terminated, recreating and retrying once", userId);
-                            
-                            // Remove the terminated actor from cache
-                            userActors.remove(userId);
-                            
-                            // Try once more with a new actor
-                            return getOrCreateUserActor(userId)
-                                .thenCompose(newUserActor -> 
-                                    AskPattern.ask(newUserActor, messageFactory, timeout, actorSystem.scheduler()))
-                                .exceptionally(retryThrowable -> {
-                                    log.error("Retry also failed for user {}", userId, retryThrowable);
-                                    if (retryThrowable instanceof RuntimeException) {
-                                        throw (RuntimeException) retryThrowable;
-                                    }
-                                    throw new RuntimeException("Retry failed", retryThrowable);
-                                })
-                                .toCompletableFuture()
-                                .join();
-                        }
-                        
-                        // For other errors, propagate them
-                        if (throwable instanceof RuntimeException) {
-                            throw (RuntimeException) throwable;
-                        }
-                        throw new RuntimeException(throwable);
-                    })
-            );
+        // The gatherer answers with partial results at the timeout, so the ask gets some slack
+        return AskPattern.ask(
+            queryActor,
+            replyTo -> new UserBatchQueryActor.QueryAggregations(known, unknown, timeout, replyTo),
+            timeout.plusSeconds(1),
+            actorSystem.scheduler());
+    }
+    
+    /**
+     * Returns the bucket parent a userId belongs to.
+     */
+    int bucketFor(String userId) {
+        return Math.floorMod(userId.hashCode(), bucketCount);
+    }
+    
+    private ActorRef<UserActorGuardian.Command> bucketParent(int bucket) {
+        return buckets.computeIfAbsent(bucket, index -> actorSystem.systemActorOf(
+            UserActorGuardian.create(index, userId -> UserActor.create(userId, aggregationChangeListener), this::onActorTerminated),
+            "user-bucket-" + index,
+            Props.empty()));
     }
     
     /**
      * Checks if the throwable indicates an actor termination error.
      */
     private boolean isActorTerminationError(Throwable throwable) {
+        if (throwable instanceof CompletionException && throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
         return (throwable.getCause() instanceof java.util.concurrent.TimeoutException &&
                 throwable.getMessage() != null &&
                 throwable.getMessage().contains("had already been terminated")) ||
@@ -133,20 +455,108 @@ public class UserActorRegistry {
                 throwable.getMessage().contains("had already been terminated"));
     }
     
-    private ActorRef<UserActor.Command> createUserActor(String userId) {
+    private void markKnown(String userId) {
+        knownUsers.add(userId);
+        KnownUserFilter rebuilding = rebuildingKnownUsers.get();
+        if (rebuilding != null) {
+            rebuilding.add(userId);
+        }
+    }
+    
+    private CompletableFuture<ActorRef<UserActor.Command>> createUserActor(String userId) {
         log.info("Creating new UserActor for user: {}", userId);
-        String actorName = "user-" + userId.replaceAll("[^a-zA-Z0-9]", "_");
-        try {
-            ActorRef<UserActor.Command> actor = actorSystem.systemActorOf(
-                UserActor.create(userId), 
-                actorName, 
-                org.apache.pekko.actor.typed.Props.empty()
-            );
-            log.info("Successfully created UserActor for user: {} with name: {}", userId, actorName);
+        markKnown(userId);
+        CompletableFuture<ActorRef<UserActor.Command>> created = AskPattern.<UserActorGuardian.Command, ActorRef<UserActor.Command>>ask(
+                bucketParent(bucketFor(userId)),
+                replyTo -> new UserActorGuardian.GetOrCreateUserActor(userId, replyTo),
+                createTimeout,
+                actorSystem.scheduler())
+            .toCompletableFuture();
+        
+        return created.handle((actor, throwable) -> {
+            pendingActors.remove(userId);
+            if (throwable != null) {
+                log.error("Failed to create UserActor for user: {}", userId, throwable);
+                throw new RuntimeException("Failed to create UserActor for user: " + userId, throwable);
+            }
+            if (userActors.put(userId, actor) == null) {
+                spawnedActors.increment();
+            }
+            lastAccessMillis.put(userId, System.currentTimeMillis());
+            log.info("Successfully created UserActor for user: {} at {}", userId, actor.path());
+            if (userActors.size() > maxLiveActors) {
+                passivateLeastRecentlyUsed();
+            }
             return actor;
-        } catch (Exception e) {
-            log.error("Failed to create UserActor for user: {} with name: {}", userId, actorName, e);
-            throw new RuntimeException("Failed to create UserActor for user: " + userId, e);
+        });
+    }
+    
+    /**
+     * Passivates the least recently used actors until 90% of {@code maxLiveActors} remain.
+     * Only one caller evicts at a time; others carry on over the limit meanwhile.
+     */
+    private void passivateLeastRecentlyUsed() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int target = (int) (maxLiveActors * 0.9);
+            int excess = userActors.size() - target;
+            if (excess <= 0) {
+                return;
+            }
+            List<String> victims = lastAccessMillis.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue(Comparator.naturalOrder()))
+                .limit(excess)
+                .map(Map.Entry::getKey)
+                .toList();
+            Map<Integer, List<String>> victimsByBucket = new HashMap<>();
+            for (String userId : victims) {
+                lastAccessMillis.remove(userId);
+                if (userActors.remove(userId) != null) {
+                    evictedActors.increment();
+                }
+                victimsByBucket.computeIfAbsent(bucketFor(userId), bucket -> new ArrayList<>()).add(userId);
+            }
+            // One message per bucket parent
+            victimsByBucket.forEach((bucket, userIds) ->
+                bucketParent(bucket).tell(new UserActorGuardian.PassivateUserActors(userIds)));
+            log.info("Passivated {} least recently used UserActors, {} live", victims.size(), userActors.size());
+        } finally {
+            evicting.set(false);
+        }
+    }
+    
+    private void onActorTerminated(String userId, ActorRef<UserActor.Command> actor) {
+        terminatedActors.increment();
+        if (userActors.remove(userId, actor)) {
+            lastAccessMillis.remove(userId);
+            log.info("Removed terminated actor for user: {}", userId);
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Known-user filter size and how many reads it answered without an actor.
+     */
+    public record KnownUserStats(
+        long approximateKnownUsers,
+        long filterBytes,
+        double falsePositiveRate,
+        long unknownUserReads,
+        long actorReads,
+        int liveActors
+    ) {}
+    
+    /**
+     * Actor lifecycle counts since startup. {@code terminated} includes evicted and idle
+     * passivated actors; {@code respawns} counts asks retried after their actor had stopped.
+     */
+    public record LifecycleStats(
+        int liveActors,
+        int maxLiveActors,
+        long spawned,
+        long evicted,
+        long terminated,
+        long respawns
+    ) {}
+}
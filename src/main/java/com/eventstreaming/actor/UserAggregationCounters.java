@@ -0,0 +1,115 @@
+package com.eventstreaming.actor;
+
+import com.eventstreaming.model.ContactableStatus;
+import com.eventstreaming.model.EventType;
+import com.eventstreaming.model.UserAggregations;
+
+import java.time.Instant;
+
+/**
+ * Mutable aggregation state owned by a single UserActor.
+ * The actor processes one message at a time, so plain primitive fields are safe and an
+ * event costs a field increment instead of a new {@link UserAggregations}. Rates are
+ * derived when a snapshot is taken; the snapshot is cached until the next change.
+ */
+final class UserAggregationCounters {
+
+    private final String userId;
+    private long emailOpens;
+    private long emailClicks;
+    private long smsReplies;
+    private long smsDeliveries;
+    private long callsCompleted;
+    private long callsMissed;
+    private long lastActivityMillis;
+
+    // Walker-specific aggregations
+    private ContactableStatus contactableStatus = ContactableStatus.PENDING_REVIEW;
+    private String currentGraphNode;
+    private Instant lastWalkerProcessing;
+    private long walkerProcessingCount;
+
+    private UserAggregations snapshot;
+
+    UserAggregationCounters(String userId) {
+        this.userId = userId;
+        this.lastActivityMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Counts one event. Returns false, leaving the state untouched, for event types that
+     * are not aggregated.
+     */
+    boolean apply(EventType eventType) {
+        switch (eventType) {
+            case EMAIL_OPEN -> emailOpens++;
+            case EMAIL_CLICK -> emailClicks++;
+            case SMS_REPLY -> smsReplies++;
+            case SMS_DELIVERY -> smsDeliveries++;
+            case CALL_COMPLETED -> callsCompleted++;
+            case CALL_MISSED -> callsMissed++;
+            default -> {
+                return false;
+            }
+        }
+        lastActivityMillis = System.currentTimeMillis();
+        snapshot = null;
+        return true;
+    }
+
+    void updateContactableStatus(ContactableStatus status, String graphNode, Instant processingTime) {
+        contactableStatus = status;
+        currentGraphNode = graphNode;
+        lastWalkerProcessing = processingTime;
+        walkerProcessingCount++;
+        snapshot = null;
+    }
+
+    long emailCount() {
+        return emailOpens + emailClicks;
+    }
+
+    long smsCount() {
+        return smsReplies + smsDeliveries;
+    }
+
+    long callCount() {
+        return callsCompleted + callsMissed;
+    }
+
+    long totalEvents() {
+        return emailCount() + smsCount() + callCount();
+    }
+
+    Instant lastActivity() {
+        return Instant.ofEpochMilli(lastActivityMillis);
+    }
+
+    /**
+     * Returns an immutable view of the current state, reusing the previous one if nothing
+     * changed since.
+     */
+    UserAggregations snapshot() {
+        if (snapshot == null) {
+            long callTotal = callsCompleted + callsMissed;
+            snapshot = new UserAggregations(
+                userId,
+                emailOpens,
+                emailClicks,
+                smsReplies,
+                smsDeliveries,
+                callsCompleted,
+                callsMissed,
+                lastActivity(),
+                smsDeliveries > 0 ? (double) emailOpens / smsDeliveries : 0.0,
+                smsDeliveries > 0 ? (double) smsReplies / smsDeliveries : 0.0,
+                callTotal > 0 ? (double) callsCompleted / callTotal : 0.0,
+                contactableStatus,
+                currentGraphNode,
+                lastWalkerProcessing,
+                walkerProcessingCount
+            );
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,122 @@
+package com.eventstreaming.actor;
+
+import com.eventstreaming.model.UserAggregations;
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.Behavior;
+import org.apache.pekko.actor.typed.javadsl.AbstractBehavior;
+import org.apache.pekko.actor.typed.javadsl.ActorContext;
+import org.apache.pekko.actor.typed.javadsl.Behaviors;
+import org.apache.pekko.actor.typed.javadsl.Receive;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers multi-user aggregation queries for one query shard.
+ *
+ * Each {@link QueryAggregations} carries the users of one shard group together with the
+ * UserActors the registry already holds for them. A short-lived gatherer child tells
+ * {@link UserActor.GetAggregations} to every known actor, collects the replies and answers
+ * the caller once, so a group costs the caller a single ask. Users without an actor are
+ * answered with empty aggregations instead of spawning one, and users that have not
+ * replied within the timeout are reported back as timed out.
+ */
+public class UserBatchQueryActor extends AbstractBehavior<UserBatchQueryActor.Command> {
+
+    private static final Logger log = LoggerFactory.getLogger(UserBatchQueryActor.class);
+
+    public sealed interface Command permits QueryAggregations {}
+
+    public record QueryAggregations(Map<String, ActorRef<UserActor.Command>> userActors,
+                                    List<String> unknownUserIds,
+                                    Duration timeout,
+                                    ActorRef<BatchAggregations> replyTo)
+        implements Command {}
+
+    /**
+     * Reply to {@link QueryAggregations}: aggregations by userId and the users whose actor
+     * did not reply within the timeout.
+     */
+    public record BatchAggregations(Map<String, UserAggregations> aggregations, List<String> timedOut) {}
+
+    public static Behavior<Command> create() {
+        return Behaviors.setup(UserBatchQueryActor::new);
+    }
+
+    private UserBatchQueryActor(ActorContext<Command> context) {
+        super(context);
+    }
+
+    @Override
+    public Receive<Command> createReceive() {
+        return newReceiveBuilder()
+            .onMessage(QueryAggregations.class, this::queryAggregations)
+            .build();
+    }
+
+    private Behavior<Command> queryAggregations(QueryAggregations command) {
+        Map<String, UserAggregations> results = new HashMap<>();
+        for (String userId : command.unknownUserIds) {
+            results.put(userId, new UserAggregations(userId));
+        }
+
+        if (command.userActors.isEmpty()) {
+            command.replyTo.tell(new BatchAggregations(results, List.of()));
+        } else {
+            getContext().spawnAnonymous(Gatherer.create(command, results));
+        }
+        return this;
+    }
+
+    /**
+     * Collects the replies of one query and stops after answering it.
+     */
+    private static final class Gatherer {
+
+        private sealed interface Message {}
+
+        private record AggregationsReceived(UserAggregations aggregations) implements Message {}
+
+        private enum GatherTimeout implements Message { INSTANCE }
+
+        static Behavior<Message> create(QueryAggregations query, Map<String, UserAggregations> results) {
+            return Behaviors.setup(context -> Behaviors.withTimers(timers -> {
+                ActorRef<UserAggregations> adapter = context.messageAdapter(UserAggregations.class, AggregationsReceived::new);
+                query.userActors.values().forEach(actor -> actor.tell(new UserActor.GetAggregations(adapter)));
+                timers.startSingleTimer(GatherTimeout.INSTANCE, query.timeout);
+
+                Map<String, UserAggregations> pending = new HashMap<>(results);
+                int expected = results.size() + query.userActors.size();
+                return Behaviors.receive(Message.class)
+                    .onMessage(AggregationsReceived.class, received -> {
+                        UserAggregations aggregations = received.aggregations();
+                        if (query.userActors.containsKey(aggregations.getUserId())) {
+                            pending.put(aggregations.getUserId(), aggregations);
+                        }
+                        if (pending.size() < expected) {
+                            return Behaviors.same();
+                        }
+                        query.replyTo.tell(new BatchAggregations(pending, List.of()));
+                        return Behaviors.stopped();
+                    })
+                    .onMessage(GatherTimeout.class, timeout -> {
+                        List<String> timedOut = new ArrayList<>();
+                        for (String userId : query.userActors.keySet()) {
+                            if (!pending.containsKey(userId)) {
+                                timedOut.add(userId);
+                            }
+                        }
+                        log.warn("Batch aggregation query timed out for {}/{} users", timedOut.size(), expected);
+                        query.replyTo.tell(new BatchAggregations(pending, timedOut));
+                        return Behaviors.stopped();
+                    })
+                    .build();
+            }));
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.eventstreaming.cluster;
+
+import java.time.Duration;
+
+/**
+ * Decides per PersistentUserActor when to snapshot, from measured replay time, the user's
+ * event rate and the snapshot size, instead of every fixed number of events.
+ *
+ * The interval is the checkpoint interval that minimizes snapshot writes plus expected
+ * replay, {@code sqrt(2 * eventRate * snapshotWriteTime / (recoveryRate * replayTimePerEvent))},
+ * bounded below by
+ * <ul>
+ *   <li>the break-even count: replaying fewer events than one snapshot write (and read)
+ *       costs is cheaper than reading a snapshot, so users with few events never snapshot;</li>
+ *   <li>the snapshot size divided by {@code maxSnapshotBytesPerEvent}, which caps the write
+ *       amplification of large states;</li>
+ * </ul>
+ * and above by the events that can be replayed within {@code recoveryBudget}, so chatty
+ * users recover within the budget. Replay and write times are this entity's own
+ * measurements where it has them, otherwise the node's running averages from
+ * {@link SnapshotMetrics}.
+ *
+ * Snapshots every {@code maxEvents} are also taken through the retention criteria, which
+ * delete older snapshots and events; the adaptive snapshots in between keep nothing extra
+ * that the next retention snapshot does not clean up.
+ */
+public class AdaptiveSnapshotPolicy {
+
+    // Priors used until the node has measured recoveries and snapshot writes
+    static final double INITIAL_REPLAY_NANOS_PER_EVENT = 20_000;
+    static final double INITIAL_SNAPSHOT_WRITE_NANOS = 2_000_000;
+
+    private final Settings settings;
+    private final SnapshotMetrics metrics;
+
+    private long lastSnapshotSeqNr;
+    private long snapshotBytes;
+    private double ownReplayNanosPerEvent = Double.NaN;
+    private long pendingSnapshotSeqNr = -1;
+    private long pendingSnapshotStartNanos;
+
+    /**
+     * @param minEvents                never snapshot more often than this
+     * @param maxEvents                always snapshot (with retention) at multiples of this
+     * @param keepSnapshots            snapshots kept by the retention snapshots
+     * @param recoveryBudget           replay time a recovery should stay within
+     * @param expectedRecoveryInterval how often an entity is expected to be recovered
+     * @param maxSnapshotBytesPerEvent snapshot bytes that may be written per persisted event
+     */
+    public record Settings(
+        int minEvents,
+        int maxEvents,
+        int keepSnapshots,
+        Duration recoveryBudget,
+        Duration expectedRecoveryInterval,
+        int maxSnapshotBytesPerEvent
+    ) {
+        public static final Settings DEFAULT =
+            new Settings(20, 1_000, 2, Duration.ofMillis(50), Duration.ofHours(1), 16);
+
+        /**
+         * A snapshot every {@code everyEvents} events regardless of measurements.
+         */
+        public static Settings fixed(int everyEvents, int keepSnapshots) {
+            return new Settings(everyEvents, everyEvents, keepSnapshots, Duration.ofDays(1), Duration.ofHours(1), 1);
+        }
+    }
+
+    public AdaptiveSnapshotPolicy(Settings settings, SnapshotMetrics metrics) {
+        this.settings = settings;
+        this.metrics = metrics;
+    }
+
+    public Settings settings() {
+        return settings;
+    }
+
+    /**
+     * Records a completed recovery that replayed {@code replayed} events on top of the
+     * latest snapshot, ending at {@code seqNr}.
+     */
+    public void recovered(long seqNr, long replayed, long durationNanos, long stateBytes) {
+        lastSnapshotSeqNr = seqNr - replayed;
+        snapshotBytes = stateBytes;
+        if (replayed >= SnapshotMetrics.MIN_REPLAY_SAMPLE) {
+            ownReplayNanosPerEvent = (double) durationNanos / replayed;
+        }
+        metrics.recordRecovery(durationNanos, replayed);
+    }
+
+    /**
+     * Whether to snapshot after the event persisted at {@code seqNr}. Not consulted at
+     * multiples of {@code maxEvents}, where the retention criteria snapshot anyway.
+     */
+    public boolean shouldSnapshot(long seqNr, double eventsPerSecond) {
+        long lastRetentionSnapshot = seqNr - seqNr % settings.maxEvents();
+        long sinceSnapshot = seqNr - Math.max(lastSnapshotSeqNr, lastRetentionSnapshot);
+        if (sinceSnapshot < interval(eventsPerSecond)) {
+            return false;
+        }
+        lastSnapshotSeqNr = seqNr;
+        pendingSnapshotSeqNr = seqNr;
+        pendingSnapshotStartNanos = System.nanoTime();
+        return true;
+    }
+
+    /**
+     * Records a stored snapshot; write time is only known for the snapshots this policy asked for.
+     */
+    public void snapshotCompleted(long seqNr, long bytes) {
+        long writeNanos = seqNr == pendingSnapshotSeqNr ? System.nanoTime() - pendingSnapshotStartNanos : 0;
+        lastSnapshotSeqNr = Math.max(lastSnapshotSeqNr, seqNr);
+        snapshotBytes = bytes;
+        metrics.recordSnapshot(bytes, writeNanos);
+    }
+
+    public void snapshotFailed() {
+        metrics.recordSnapshotFailure();
+    }
+
+    public void recoveryFailed() {
+        metrics.recordRecoveryFailure();
+    }
+
+    /**
+     * Current snapshot interval in events for this entity.
+     */
+    public long interval(double eventsPerSecond) {
+        double replayNanos = Double.isNaN(ownReplayNanosPerEvent) ? metrics.replayNanosPerEvent() : ownReplayNanosPerEvent;
+        return snapshotInterval(settings, eventsPerSecond, snapshotBytes, replayNanos, metrics.snapshotWriteNanos());
+    }
+
+    static long snapshotInterval(Settings settings, double eventsPerSecond, long snapshotBytes,
+                                 double replayNanosPerEvent, double snapshotWriteNanos) {
+        double replayNanos = Math.max(replayNanosPerEvent, 1);
+        double recoveriesPerSecond = 1e9 / settings.expectedRecoveryInterval().toNanos();
+        double optimal = Math.sqrt(2 * eventsPerSecond * snapshotWriteNanos / (recoveriesPerSecond * replayNanos));
+
+        double lower = Math.max(settings.minEvents(), Math.max(
+            snapshotWriteNanos / replayNanos,
+            (double) snapshotBytes / Math.max(1, settings.maxSnapshotBytesPerEvent())));
+        double upper = Math.min(settings.maxEvents(), settings.recoveryBudget().toNanos() / replayNanos);
+        // The recovery budget wins when it conflicts with the write bounds
+        double interval = lower > upper ? upper : Math.min(Math.max(optimal, lower), upper);
+        return Math.max(1, Math.round(interval));
+    }
+}
@@ -141,6 +141,20 @@ public class ClusterController {
         return ResponseEntity.ok(info);
     }
 
+    /**
+     * Get the top-N shards and entities by event rate across the cluster.
+     */
+    @GetMapping("/shards/hot")
+    public CompletionStage<ResponseEntity<ClusterMonitoringService.HotShards>> getHotShards(
+            @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        }
+        return monitoringService.getHotShards(limit)
+            .thenApply(ResponseEntity::ok)
+            .exceptionally(throwable -> ResponseEntity.internalServerError().build());
+    }
+
     /**
      * Get cluster health information.
      */
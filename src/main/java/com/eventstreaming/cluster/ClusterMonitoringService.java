@@ -9,6 +9,10 @@ import org.springframework.stereotype.Service;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.Collectors;
 
 /**
  * Service for monitoring cluster health and performance.
@@ -96,6 +100,51 @@ public class ClusterMonitoringService {
         return new ClusterStats(memberCount, selfStatus, selfAddress, uptime);
     }
 
+    /**
+     * The hottest shards and entities across all nodes, by event rate over the last minute.
+     * A shard that moved recently is reported by both nodes; its rows are merged under the
+     * node that hosts its entities now. A moved entity's rate starts again from zero.
+     */
+    public CompletionStage<HotShards> getHotShards(int limit) {
+        return ShardLoadReporter.collect(actorSystem, limit, Duration.ofSeconds(3))
+            .thenApply(reports -> new HotShards(
+                reports.size(),
+                reports.stream()
+                    .flatMap(report -> report.shards().stream())
+                    .collect(Collectors.toMap(
+                        load -> load.typeName() + "/" + load.shardId(),
+                        load -> load,
+                        ClusterMonitoringService::mergeShardLoads))
+                    .values().stream()
+                    .sorted(Comparator.comparingDouble(ShardLoadTracker.ShardLoad::eventsPerSecond).reversed())
+                    .limit(limit)
+                    .toList(),
+                reports.stream()
+                    .flatMap(report -> report.hottestEntities().stream())
+                    .sorted(Comparator.comparingDouble(ShardLoadTracker.EntityLoad::eventsPerSecond).reversed())
+                    .limit(limit)
+                    .toList()));
+    }
+
+    private static ShardLoadTracker.ShardLoad mergeShardLoads(ShardLoadTracker.ShardLoad a, ShardLoadTracker.ShardLoad b) {
+        String host = b.entities() > a.entities() ? b.address() : a.address();
+        return new ShardLoadTracker.ShardLoad(a.typeName(), a.shardId(), host,
+            a.eventsPerSecond() + b.eventsPerSecond(), a.entities() + b.entities(), a.totalEvents() + b.totalEvents());
+    }
+
+    public static class HotShards {
+        public final int reportingNodes;
+        public final List<ShardLoadTracker.ShardLoad> shards;
+        public final List<ShardLoadTracker.EntityLoad> entities;
+
+        public HotShards(int reportingNodes, List<ShardLoadTracker.ShardLoad> shards,
+                         List<ShardLoadTracker.EntityLoad> entities) {
+            this.reportingNodes = reportingNodes;
+            this.shards = shards;
+            this.entities = entities;
+        }
+    }
+
     public static class ClusterStats {
         public final int memberCount;
         public final String selfStatus;
@@ -5,8 +5,11 @@ import org.apache.pekko.actor.typed.ActorRef;
 import org.apache.pekko.actor.typed.ActorSystem;
 import org.apache.pekko.cluster.sharding.typed.javadsl.ClusterSharding;
 import org.apache.pekko.cluster.sharding.typed.javadsl.EntityRef;
+import org.apache.pekko.stream.javadsl.Sink;
+import org.apache.pekko.stream.javadsl.Source;
 import org.apache.pekko.util.Timeout;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
 
@@ -28,6 +31,14 @@ public class ClusterShardingManager {
     private final ActorSystem<?> actorSystem;
     private final Duration askDuration = Duration.ofSeconds(30);
 
+    // Events per ProcessEventBatch message when delivering a user's events
+    @Value("${app.cluster.delivery.window-size:100}")
+    private int deliveryWindowSize = 100;
+
+    // Unacknowledged windows allowed in flight per user
+    @Value("${app.cluster.delivery.max-in-flight:4}")
+    private int maxInFlightWindows = 4;
+
     @Autowired
     public ClusterShardingManager(ClusterSharding sharding, ActorSystem<?> actorSystem) {
         this.sharding = sharding;
@@ -126,30 +137,35 @@ public class ClusterShardingManager {
         );
     }
 
-    private CompletionStage<Void> processUserEvents(String userId, java.util.List<CommunicationEvent> events) {
+    /**
+     * Delivers one user's events in order as windows of up to {@code deliveryWindowSize}
+     * events, each a single {@link ClusterUserActor.ProcessEventBatch}. Up to
+     * {@code maxInFlightWindows} windows are sent ahead of their acknowledgements, so a
+     * large batch costs a few round trips rather than one per event. Windows are sent in
+     * order from this node to the entity and applied in order; a window that is not
+     * acknowledged fails the delivery and no later windows are sent.
+     */
+    CompletionStage<Void> processUserEvents(String userId, java.util.List<CommunicationEvent> events) {
         EntityRef<ClusterUserActor.Command> userActor = getUserActor(userId);
-        
-        // Process events sequentially for the same user to maintain order
-        CompletionStage<Void> result = java.util.concurrent.CompletableFuture.completedFuture(null);
-        
-        for (CommunicationEvent event : events) {
-            result = result.thenCompose(ignored -> 
-                userActor.ask(
-                    (ActorRef<ClusterUserActor.EventProcessed> replyTo) -> 
-                        new ClusterUserActor.ProcessEvent(event, replyTo),
-                    askDuration
-                ).thenApply(response -> {
-                    ClusterUserActor.EventProcessed eventResponse = (ClusterUserActor.EventProcessed) response;
-                    if (!eventResponse.success) {
-                        actorSystem.log().warn("Failed to process event for user {}: {}", 
-                            userId, eventResponse.message);
-                    }
-                    return null;
-                })
-            );
+
+        java.util.List<java.util.List<CommunicationEvent>> windows = new java.util.ArrayList<>();
+        for (int from = 0; from < events.size(); from += deliveryWindowSize) {
+            windows.add(events.subList(from, Math.min(from + deliveryWindowSize, events.size())));
         }
-        
-        return result;
+
+        return Source.from(windows)
+            .zipWithIndex()
+            .mapAsync(maxInFlightWindows, window -> userActor.ask(
+                (ActorRef<ClusterUserActor.EventBatchProcessed> replyTo) ->
+                    new ClusterUserActor.ProcessEventBatch(window.first(), window.second(), replyTo),
+                askDuration))
+            .runWith(Sink.foreach(response -> {
+                if (response.failed > 0) {
+                    actorSystem.log().warn("Failed to process {} events for user {} in window {}: {}", 
+                        response.failed, userId, response.deliveryId, response.message);
+                }
+            }), actorSystem)
+            .thenApply(done -> null);
     }
 
     /**
@@ -2,6 +2,7 @@ package com.eventstreaming.cluster;
 
 import org.apache.pekko.actor.typed.ActorRef;
 import org.apache.pekko.actor.typed.Behavior;
+import org.apache.pekko.actor.typed.PostStop;
 import org.apache.pekko.actor.typed.javadsl.AbstractBehavior;
 import org.apache.pekko.actor.typed.javadsl.ActorContext;
 import org.apache.pekko.actor.typed.javadsl.Behaviors;
@@ -16,6 +17,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -32,6 +34,7 @@ public class ClusterUserActor extends AbstractBehavior<ClusterUserActor.Command>
     private final List<CommunicationEvent> events = new ArrayList<>();
     private LocalDateTime lastActivity = LocalDateTime.now();
     private int totalEvents = 0;
+    private final ShardLoadTracker.EntityHandle load;
 
     // Commands
     public interface Command extends Serializable {}
@@ -48,6 +51,28 @@ public class ClusterUserActor extends AbstractBehavior<ClusterUserActor.Command>
         }
     }
 
+    /**
+     * A window of one user's events, applied in list order. {@code deliveryId} identifies
+     * the window in the sender's stream and is echoed in the acknowledgement. The events
+     * are copied, so the list stays serializable and may hold nulls, which the actor rejects.
+     */
+    public static final class ProcessEventBatch implements Command {
+        private static final long serialVersionUID = 1L;
+
+        public final List<CommunicationEvent> events;
+        public final long deliveryId;
+        public final ActorRef<EventBatchProcessed> replyTo;
+
+        @JsonCreator
+        public ProcessEventBatch(@JsonProperty("events") List<CommunicationEvent> events,
+                                 @JsonProperty("deliveryId") long deliveryId,
+                                 @JsonProperty("replyTo") ActorRef<EventBatchProcessed> replyTo) {
+            this.events = Collections.unmodifiableList(new ArrayList<>(events));
+            this.deliveryId = deliveryId;
+            this.replyTo = replyTo;
+        }
+    }
+
     public static final class GetUserStats implements Command {
         public final ActorRef<UserStats> replyTo;
 
@@ -78,6 +103,33 @@ public class ClusterUserActor extends AbstractBehavior<ClusterUserActor.Command>
         }
     }
 
+    /**
+     * Acknowledgement of a {@link ProcessEventBatch}: how many of its events were applied
+     * and how many were rejected, with the first rejection reason.
+     */
+    public static final class EventBatchProcessed implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        public final String userId;
+        public final long deliveryId;
+        public final int processed;
+        public final int failed;
+        public final String message;
+
+        @JsonCreator
+        public EventBatchProcessed(@JsonProperty("userId") String userId,
+                                   @JsonProperty("deliveryId") long deliveryId,
+                                   @JsonProperty("processed") int processed,
+                                   @JsonProperty("failed") int failed,
+                                   @JsonProperty("message") String message) {
+            this.userId = userId;
+            this.deliveryId = deliveryId;
+            this.processed = processed;
+            this.failed = failed;
+            this.message = message;
+        }
+    }
+
     public static final class UserStats implements Serializable {
         public final String userId;
         public final int totalEvents;
@@ -110,6 +162,8 @@ public class ClusterUserActor extends AbstractBehavior<ClusterUserActor.Command>
     private ClusterUserActor(ActorContext<Command> context, String userId) {
         super(context);
         this.userId = userId;
+        this.load = ShardLoadTracker.get(context.getSystem())
+            .entityStarted(ENTITY_TYPE_KEY.name(), ShardLoadTracker.shardIdOf(context.getSelf()), userId);
         getContext().getLog().info("ClusterUserActor initialized for user: {}", userId);
     }
 
@@ -117,8 +171,13 @@ public class ClusterUserActor extends AbstractBehavior<ClusterUserActor.Command>
     public Receive<Command> createReceive() {
         return newReceiveBuilder()
             .onMessage(ProcessEvent.class, this::onProcessEvent)
+            .onMessage(ProcessEventBatch.class, this::onProcessEventBatch)
             .onMessage(GetUserStats.class, this::onGetUserStats)
             .onMessage(PassivateUser.class, this::onPassivateUser)
+            .onSignal(PostStop.class, signal -> {
+                load.stopped();
+                return this;
+            })
             .build();
     }
 
@@ -144,15 +203,7 @@ public class ClusterUserActor extends AbstractBehavior<ClusterUserActor.Command>
                 return this;
             }
 
-            // Process the event
-            events.add(event);
-            totalEvents++;
-            lastActivity = LocalDateTime.now();
-
-            // Keep only recent events in memory (last 100)
-            if (events.size() > 100) {
-                events.remove(0);
-            }
+            applyEvent(event);
 
             getContext().getLog().info("✅ Successfully processed event for user {}: {} (total: {})", 
                 userId, event.getEventType(), totalEvents);
@@ -171,6 +222,53 @@ public class ClusterUserActor extends AbstractBehavior<ClusterUserActor.Command>
         }
     }
 
+    private Behavior<Command> onProcessEventBatch(ProcessEventBatch command) {
+        int processed = 0;
+        int failed = 0;
+        String firstFailure = null;
+        for (CommunicationEvent event : command.events) {
+            String failure = event == null ? "Null event"
+                : !userId.equals(event.getUserId()) ? "Event userId mismatch"
+                : null;
+            if (failure == null) {
+                try {
+                    applyEvent(event);
+                    processed++;
+                    continue;
+                } catch (Exception e) {
+                    failure = "Error: " + e.getMessage();
+                }
+            }
+            failed++;
+            if (firstFailure == null) {
+                firstFailure = failure;
+            }
+        }
+
+        if (failed > 0) {
+            getContext().getLog().warn("❌ Rejected {} of {} events in batch {} for user {}: {}", 
+                failed, command.events.size(), command.deliveryId, userId, firstFailure);
+        } else {
+            getContext().getLog().debug("Processed batch {} of {} events for user {} (total: {})", 
+                command.deliveryId, processed, userId, totalEvents);
+        }
+        command.replyTo.tell(new EventBatchProcessed(userId, command.deliveryId, processed, failed,
+            failed > 0 ? firstFailure : "Events processed successfully"));
+        return this;
+    }
+
+    private void applyEvent(CommunicationEvent event) {
+        events.add(event);
+        totalEvents++;
+        load.recordEvents(1);
+        lastActivity = LocalDateTime.now();
+
+        // Keep only recent events in memory (last 100)
+        if (events.size() > 100) {
+            events.remove(0);
+        }
+    }
+
     private Behavior<Command> onGetUserStats(GetUserStats command) {
         try {
             getContext().getLog().info("📊 Getting stats for user {}", userId);
@@ -0,0 +1,659 @@
+package com.eventstreaming.cluster;
+
+import com.eventstreaming.model.CallEvent;
+import com.eventstreaming.model.CommunicationEvent;
+import com.eventstreaming.model.EmailEvent;
+import com.eventstreaming.model.EventType;
+import com.eventstreaming.model.SmsEvent;
+import com.eventstreaming.model.UserEvent;
+import org.apache.pekko.actor.ExtendedActorSystem;
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.ActorRefResolver;
+import org.apache.pekko.actor.typed.javadsl.Adapter;
+import org.apache.pekko.serialization.SerializerWithStringManifest;
+
+import java.io.NotSerializableException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary Pekko serializer for journal events, snapshots and cluster messages.
+ * Fields are written in a fixed order with varint lengths and numbers, so a
+ * UserEventProcessed takes a few dozen bytes instead of a Java-serialized object graph.
+ *
+ * The manifest is a short type code followed by the schema version it was written with,
+ * e.g. {@code "UEP:1"}. A later schema can append fields and read them only when the
+ * manifest version has them. Payloads written by a newer schema are rejected.
+ */
+public class EventStreamingSerializer extends SerializerWithStringManifest {
+
+    /** Serializer id stored next to every journal row and remote message; must never change. */
+    public static final int IDENTIFIER = 7301;
+
+    /** Current schema version, appended to every manifest. */
+    public static final int SCHEMA_VERSION = 1;
+
+    private static final String USER_EVENT_PROCESSED = "UEP";
+    private static final String USER_EVENT_COUNT_UPDATED = "UCU";
+    private static final String USER_ACTOR_STATE = "UAS";
+    private static final String PROCESS_USER_EVENT = "PPE";
+    private static final String PERSISTENT_GET_USER_STATS = "PGS";
+    private static final String PROCESS_USER_EVENT_RESPONSE = "PPR";
+    private static final String USER_STATS_RESPONSE = "PSR";
+    private static final String PROCESS_EVENT = "CPE";
+    private static final String PROCESS_EVENT_BATCH = "CPB";
+    private static final String CLUSTER_GET_USER_STATS = "CGS";
+    private static final String PASSIVATE_USER = "CPU";
+    private static final String EVENT_PROCESSED = "CEP";
+    private static final String EVENT_BATCH_PROCESSED = "CBP";
+    private static final String USER_STATS = "CUS";
+    private static final String EMAIL_EVENT = "EML";
+    private static final String SMS_EVENT = "SMS";
+    private static final String CALL_EVENT = "CAL";
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final ExtendedActorSystem system;
+    private volatile ActorRefResolver actorRefResolver;
+
+    public EventStreamingSerializer(ExtendedActorSystem system) {
+        this.system = system;
+    }
+
+    @Override
+    public int identifier() {
+        return IDENTIFIER;
+    }
+
+    @Override
+    public String manifest(Object o) {
+        return typeCode(o) + ":" + SCHEMA_VERSION;
+    }
+
+    @Override
+    public byte[] toBinary(Object o) {
+        Writer out = new Writer();
+        if (o instanceof UserActorEvent.UserEventProcessed event) {
+            out.writeString(event.getUserId());
+            out.writeLocalDateTime(event.getTimestamp());
+            out.writeString(event.getEventType());
+            out.writeNullableLong(event.getContactId());
+            out.writeString(event.getEventId());
+            out.writeString(event.getSource());
+        } else if (o instanceof UserActorEvent.UserEventCountUpdated event) {
+            out.writeString(event.getUserId());
+            out.writeLocalDateTime(event.getTimestamp());
+            out.writeString(event.getEventType());
+            out.writeNullableLong(event.getNewCount());
+            out.writeNullableLong(event.getPreviousCount());
+        } else if (o instanceof UserActorState state) {
+            writeState(out, state);
+        } else if (o instanceof PersistentUserActor.ProcessUserEvent command) {
+            writeUserEvent(out, command.userEvent);
+            out.writeString(serializeRef(command.replyTo));
+        } else if (o instanceof PersistentUserActor.GetUserStats command) {
+            out.writeString(serializeRef(command.replyTo));
+        } else if (o instanceof PersistentUserActor.ProcessUserEventResponse response) {
+            out.writeString(response.userId);
+            out.writeString(response.eventId);
+            out.writeBoolean(response.success);
+            out.writeString(response.message);
+            out.writeLocalDateTime(response.processedAt);
+        } else if (o instanceof PersistentUserActor.UserStatsResponse response) {
+            out.writeString(response.userId);
+            out.writeBoolean(response.state != null);
+            if (response.state != null) {
+                writeState(out, response.state);
+            }
+        } else if (o instanceof ClusterUserActor.ProcessEvent command) {
+            out.writeString(command.event != null ? typeCode(command.event) : null);
+            if (command.event != null) {
+                writeCommunicationEvent(out, command.event);
+            }
+            out.writeString(serializeRef(command.replyTo));
+        } else if (o instanceof ClusterUserActor.ProcessEventBatch command) {
+            out.writeVarLong(command.events.size());
+            for (CommunicationEvent event : command.events) {
+                // A null entry is written as a null type code, as for ProcessEvent
+                out.writeString(event != null ? typeCode(event) : null);
+                if (event != null) {
+                    writeCommunicationEvent(out, event);
+                }
+            }
+            out.writeVarLong(command.deliveryId);
+            out.writeString(serializeRef(command.replyTo));
+        } else if (o instanceof ClusterUserActor.GetUserStats command) {
+            out.writeString(serializeRef(command.replyTo));
+        } else if (o instanceof ClusterUserActor.PassivateUser) {
+            return EMPTY;
+        } else if (o instanceof ClusterUserActor.EventProcessed response) {
+            out.writeString(response.userId);
+            out.writeBoolean(response.success);
+            out.writeString(response.message);
+        } else if (o instanceof ClusterUserActor.EventBatchProcessed response) {
+            out.writeString(response.userId);
+            out.writeVarLong(response.deliveryId);
+            out.writeVarLong(response.processed);
+            out.writeVarLong(response.failed);
+            out.writeString(response.message);
+        } else if (o instanceof ClusterUserActor.UserStats stats) {
+            out.writeString(stats.userId);
+            out.writeVarLong(stats.totalEvents);
+            out.writeLocalDateTime(stats.lastActivity);
+            out.writeVarLong(stats.recentEventsCount);
+        } else if (o instanceof CommunicationEvent event) {
+            writeCommunicationEvent(out, event);
+        } else {
+            throw new IllegalArgumentException("Cannot serialize " + o.getClass().getName());
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public Object fromBinary(byte[] bytes, String manifest) throws NotSerializableException {
+        int separator = manifest.indexOf(':');
+        if (separator < 0) {
+            throw new NotSerializableException("Manifest without schema version: " + manifest);
+        }
+        String code = manifest.substring(0, separator);
+        int version;
+        try {
+            version = Integer.parseInt(manifest.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            throw new NotSerializableException("Invalid schema version in manifest: " + manifest);
+        }
+        if (version < 1 || version > SCHEMA_VERSION) {
+            throw new NotSerializableException(
+                "Unsupported schema version " + version + " for " + code + ", supported up to " + SCHEMA_VERSION);
+        }
+
+        Reader in = new Reader(bytes);
+        return switch (code) {
+            case USER_EVENT_PROCESSED -> {
+                String userId = in.readString();
+                LocalDateTime timestamp = in.readLocalDateTime();
+                yield new UserActorEvent.UserEventProcessed(
+                    userId, in.readString(), in.readNullableLong(), in.readString(), in.readString(), timestamp);
+            }
+            case USER_EVENT_COUNT_UPDATED -> {
+                String userId = in.readString();
+                LocalDateTime timestamp = in.readLocalDateTime();
+                yield new UserActorEvent.UserEventCountUpdated(
+                    userId, in.readString(), in.readNullableLong(), in.readNullableLong(), timestamp);
+            }
+            case USER_ACTOR_STATE -> readState(in);
+            case PROCESS_USER_EVENT -> new PersistentUserActor.ProcessUserEvent(readUserEvent(in), resolveRef(in.readString()));
+            case PERSISTENT_GET_USER_STATS -> new PersistentUserActor.GetUserStats(resolveRef(in.readString()));
+            case PROCESS_USER_EVENT_RESPONSE -> new PersistentUserActor.ProcessUserEventResponse(
+                in.readString(), in.readString(), in.readBoolean(), in.readString(), in.readLocalDateTime());
+            case USER_STATS_RESPONSE -> {
+                String userId = in.readString();
+                yield new PersistentUserActor.UserStatsResponse(userId, in.readBoolean() ? readState(in) : null);
+            }
+            case PROCESS_EVENT -> {
+                String eventCode = in.readString();
+                CommunicationEvent event = eventCode != null ? readCommunicationEvent(in, eventCode) : null;
+                yield new ClusterUserActor.ProcessEvent(event, resolveRef(in.readString()));
+            }
+            case PROCESS_EVENT_BATCH -> {
+                int size = (int) in.readVarLong();
+                List<CommunicationEvent> events = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    String eventCode = in.readString();
+                    events.add(eventCode != null ? readCommunicationEvent(in, eventCode) : null);
+                }
+                long deliveryId = in.readVarLong();
+                yield new ClusterUserActor.ProcessEventBatch(events, deliveryId, resolveRef(in.readString()));
+            }
+            case CLUSTER_GET_USER_STATS -> new ClusterUserActor.GetUserStats(resolveRef(in.readString()));
+            case PASSIVATE_USER -> ClusterUserActor.PassivateUser.INSTANCE;
+            case EVENT_PROCESSED -> new ClusterUserActor.EventProcessed(in.readString(), in.readBoolean(), in.readString());
+            case EVENT_BATCH_PROCESSED -> new ClusterUserActor.EventBatchProcessed(
+                in.readString(), in.readVarLong(), (int) in.readVarLong(), (int) in.readVarLong(), in.readString());
+            case USER_STATS -> new ClusterUserActor.UserStats(
+                in.readString(), (int) in.readVarLong(), in.readLocalDateTime(), (int) in.readVarLong());
+            case EMAIL_EVENT, SMS_EVENT, CALL_EVENT -> readCommunicationEvent(in, code);
+            default -> throw new NotSerializableException("Unknown manifest: " + manifest);
+        };
+    }
+
+    private static String typeCode(Object o) {
+        if (o instanceof UserActorEvent.UserEventProcessed) return USER_EVENT_PROCESSED;
+        if (o instanceof UserActorEvent.UserEventCountUpdated) return USER_EVENT_COUNT_UPDATED;
+        if (o instanceof UserActorState) return USER_ACTOR_STATE;
+        if (o instanceof PersistentUserActor.ProcessUserEvent) return PROCESS_USER_EVENT;
+        if (o instanceof PersistentUserActor.GetUserStats) return PERSISTENT_GET_USER_STATS;
+        if (o instanceof PersistentUserActor.ProcessUserEventResponse) return PROCESS_USER_EVENT_RESPONSE;
+        if (o instanceof PersistentUserActor.UserStatsResponse) return USER_STATS_RESPONSE;
+        if (o instanceof ClusterUserActor.ProcessEvent) return PROCESS_EVENT;
+        if (o instanceof ClusterUserActor.ProcessEventBatch) return PROCESS_EVENT_BATCH;
+        if (o instanceof ClusterUserActor.GetUserStats) return CLUSTER_GET_USER_STATS;
+        if (o instanceof ClusterUserActor.PassivateUser) return PASSIVATE_USER;
+        if (o instanceof ClusterUserActor.EventProcessed) return EVENT_PROCESSED;
+        if (o instanceof ClusterUserActor.EventBatchProcessed) return EVENT_BATCH_PROCESSED;
+        if (o instanceof ClusterUserActor.UserStats) return USER_STATS;
+        if (o instanceof EmailEvent) return EMAIL_EVENT;
+        if (o instanceof SmsEvent) return SMS_EVENT;
+        if (o instanceof CallEvent) return CALL_EVENT;
+        throw new IllegalArgumentException("Cannot serialize " + o.getClass().getName());
+    }
+
+    private static void writeState(Writer out, UserActorState state) {
+        out.writeString(state.getUserId());
+        Map<String, Long> counts = state.getEventTypeCounts();
+        out.writeVarLong(counts.size());
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            out.writeString(entry.getKey());
+            out.writeVarLong(entry.getValue());
+        }
+        out.writeNullableLong(state.getTotalEvents());
+        out.writeLocalDateTime(state.getLastUpdated());
+        out.writeLocalDateTime(state.getFirstEventTime());
+        out.writeLocalDateTime(state.getLastEventTime());
+    }
+
+    /**
+     * Number of bytes {@link #toBinary} writes for {@code state}, computed without encoding
+     * it, so snapshot sizes can be tracked without serializing the state a second time.
+     */
+    static long serializedSize(UserActorState state) {
+        Map<String, Long> counts = state.getEventTypeCounts();
+        long size = stringSize(state.getUserId()) + varLongSize(counts.size());
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            size += stringSize(entry.getKey()) + varLongSize(entry.getValue());
+        }
+        Long totalEvents = state.getTotalEvents();
+        size += 1 + (totalEvents != null ? varLongSize(totalEvents) : 0);
+        return size + localDateTimeSize(state.getLastUpdated()) + localDateTimeSize(state.getFirstEventTime())
+            + localDateTimeSize(state.getLastEventTime());
+    }
+
+    private static int varLongSize(long value) {
+        long zigZag = (value << 1) ^ (value >> 63);
+        return Math.max(1, (64 - Long.numberOfLeadingZeros(zigZag) + 6) / 7);
+    }
+
+    private static long stringSize(String value) {
+        if (value == null) {
+            return 1;
+        }
+        int length = value.getBytes(StandardCharsets.UTF_8).length;
+        return varLongSize(length + 1L) + length;
+    }
+
+    private static int localDateTimeSize(LocalDateTime value) {
+        return value == null ? 1
+            : 1 + varLongSize(value.toEpochSecond(ZoneOffset.UTC)) + varLongSize(value.getNano());
+    }
+
+    private static UserActorState readState(Reader in) {
+        String userId = in.readString();
+        int size = (int) in.readVarLong();
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            counts.put(in.readString(), in.readVarLong());
+        }
+        return new UserActorState(userId, counts, in.readNullableLong(),
+            in.readLocalDateTime(), in.readLocalDateTime(), in.readLocalDateTime());
+    }
+
+    private static void writeUserEvent(Writer out, UserEvent event) {
+        out.writeBoolean(event != null);
+        if (event == null) {
+            return;
+        }
+        out.writeString(event.getUserId());
+        out.writeString(event.getEventType());
+        out.writeNullableLong(event.getContactId());
+        out.writeLocalDateTime(event.getTimestamp());
+        out.writeString(event.getEventData());
+        out.writeString(event.getSource());
+        out.writeNullableLong(event.getPartition() != null ? Long.valueOf(event.getPartition()) : null);
+        out.writeNullableLong(event.getOffset());
+        out.writeString(event.getEventId());
+    }
+
+    private static UserEvent readUserEvent(Reader in) {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        UserEvent event = new UserEvent();
+        event.setUserId(in.readString());
+        event.setEventType(in.readString());
+        event.setContactId(in.readNullableLong());
+        event.setTimestamp(in.readLocalDateTime());
+        event.setEventData(in.readString());
+        event.setSource(in.readString());
+        Long partition = in.readNullableLong();
+        event.setPartition(partition != null ? partition.intValue() : null);
+        event.setOffset(in.readNullableLong());
+        event.setEventId(in.readString());
+        return event;
+    }
+
+    private static void writeCommunicationEvent(Writer out, CommunicationEvent event) {
+        out.writeString(event.getUserId());
+        out.writeString(event.getEventId());
+        out.writeString(event.getEventType() != null ? event.getEventType().name() : null);
+        out.writeInstant(event.getTimestamp());
+        out.writeString(event.getSource());
+        out.writeMetadata(event.getMetadata());
+        if (event instanceof EmailEvent email) {
+            out.writeString(email.getEmailAddress());
+            out.writeString(email.getCampaignId());
+            out.writeString(email.getSubject());
+            out.writeString(email.getLinkUrl());
+        } else if (event instanceof SmsEvent sms) {
+            out.writeString(sms.getPhoneNumber());
+            out.writeString(sms.getMessageContent());
+            out.writeString(sms.getCarrierId());
+            out.writeString(sms.getReplyContent());
+        } else if (event instanceof CallEvent call) {
+            out.writeString(call.getPhoneNumber());
+            out.writeBoolean(call.getCallDuration() != null);
+            if (call.getCallDuration() != null) {
+                out.writeVarLong(call.getCallDuration().getSeconds());
+                out.writeVarLong(call.getCallDuration().getNano());
+            }
+            out.writeString(call.getCallDirection());
+            out.writeString(call.getCallResult());
+        }
+    }
+
+    private static CommunicationEvent readCommunicationEvent(Reader in, String code) throws NotSerializableException {
+        CommunicationEvent event = switch (code) {
+            case EMAIL_EVENT -> new EmailEvent();
+            case SMS_EVENT -> new SmsEvent();
+            case CALL_EVENT -> new CallEvent();
+            default -> throw new NotSerializableException("Unknown communication event type: " + code);
+        };
+        event.setUserId(in.readString());
+        event.setEventId(in.readString());
+        String eventType = in.readString();
+        event.setEventType(eventType != null ? EventType.valueOf(eventType) : null);
+        event.setTimestamp(in.readInstant());
+        event.setSource(in.readString());
+        event.setMetadata(in.readMetadata());
+        if (event instanceof EmailEvent email) {
+            email.setEmailAddress(in.readString());
+            email.setCampaignId(in.readString());
+            email.setSubject(in.readString());
+            email.setLinkUrl(in.readString());
+        } else if (event instanceof SmsEvent sms) {
+            sms.setPhoneNumber(in.readString());
+            sms.setMessageContent(in.readString());
+            sms.setCarrierId(in.readString());
+            sms.setReplyContent(in.readString());
+        } else if (event instanceof CallEvent call) {
+            call.setPhoneNumber(in.readString());
+            if (in.readBoolean()) {
+                call.setCallDuration(Duration.ofSeconds(in.readVarLong(), in.readVarLong()));
+            }
+            call.setCallDirection(in.readString());
+            call.setCallResult(in.readString());
+        }
+        return event;
+    }
+
+    private String serializeRef(ActorRef<?> ref) {
+        return ref != null ? resolver().toSerializationFormat(ref) : null;
+    }
+
+    private <T> ActorRef<T> resolveRef(String path) {
+        return path != null ? resolver().resolveActorRef(path) : null;
+    }
+
+    // The typed system is not fully started when serializers are created, so resolve lazily
+    private ActorRefResolver resolver() {
+        ActorRefResolver resolver = actorRefResolver;
+        if (resolver == null) {
+            resolver = ActorRefResolver.get(Adapter.toTyped(system));
+            actorRefResolver = resolver;
+        }
+        return resolver;
+    }
+
+    /**
+     * Growable output buffer. Numbers are zig-zag varints; strings are a varint of
+     * UTF-8 length plus one (zero meaning null) followed by the bytes.
+     */
+    private static final class Writer {
+
+        private static final byte VALUE_NULL = 0;
+        private static final byte VALUE_STRING = 1;
+        private static final byte VALUE_LONG = 2;
+        private static final byte VALUE_INT = 3;
+        private static final byte VALUE_DOUBLE = 4;
+        private static final byte VALUE_BOOLEAN = 5;
+        private static final byte VALUE_MAP = 6;
+        private static final byte VALUE_LIST = 7;
+
+        private byte[] buffer = new byte[64];
+        private int position;
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeBoolean(boolean value) {
+            writeByte(value ? 1 : 0);
+        }
+
+        void writeVarLong(long value) {
+            long zigZag = (value << 1) ^ (value >> 63);
+            ensureCapacity(10);
+            while ((zigZag & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((zigZag & 0x7F) | 0x80);
+                zigZag >>>= 7;
+            }
+            buffer[position++] = (byte) zigZag;
+        }
+
+        void writeNullableLong(Long value) {
+            writeBoolean(value != null);
+            if (value != null) {
+                writeVarLong(value);
+            }
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length + 1L);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void writeLocalDateTime(LocalDateTime value) {
+            writeBoolean(value != null);
+            if (value != null) {
+                writeVarLong(value.toEpochSecond(ZoneOffset.UTC));
+                writeVarLong(value.getNano());
+            }
+        }
+
+        void writeInstant(Instant value) {
+            writeBoolean(value != null);
+            if (value != null) {
+                writeVarLong(value.getEpochSecond());
+                writeVarLong(value.getNano());
+            }
+        }
+
+        void writeMetadata(Map<String, Object> metadata) {
+            if (metadata == null) {
+                writeVarLong(0);
+                return;
+            }
+            writeVarLong(metadata.size() + 1L);
+            for (Map.Entry<String, Object> entry : metadata.entrySet()) {
+                writeString(entry.getKey());
+                writeValue(entry.getValue());
+            }
+        }
+
+        // Values of other types are written as their string form
+        private void writeValue(Object value) {
+            if (value == null) {
+                writeByte(VALUE_NULL);
+            } else if (value instanceof String s) {
+                writeByte(VALUE_STRING);
+                writeString(s);
+            } else if (value instanceof Long l) {
+                writeByte(VALUE_LONG);
+                writeVarLong(l);
+            } else if (value instanceof Integer i) {
+                writeByte(VALUE_INT);
+                writeVarLong(i);
+            } else if (value instanceof Double d) {
+                writeByte(VALUE_DOUBLE);
+                long bits = Double.doubleToRawLongBits(d);
+                ensureCapacity(8);
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    buffer[position++] = (byte) (bits >>> shift);
+                }
+            } else if (value instanceof Boolean b) {
+                writeByte(VALUE_BOOLEAN);
+                writeBoolean(b);
+            } else if (value instanceof Map<?, ?> map) {
+                writeByte(VALUE_MAP);
+                writeVarLong(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeString(String.valueOf(entry.getKey()));
+                    writeValue(entry.getValue());
+                }
+            } else if (value instanceof List<?> list) {
+                writeByte(VALUE_LIST);
+                writeVarLong(list.size());
+                for (Object element : list) {
+                    writeValue(element);
+                }
+            } else {
+                writeByte(VALUE_STRING);
+                writeString(value.toString());
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensureCapacity(int additional) {
+            if (position + additional > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + additional));
+            }
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] buffer;
+        private int position;
+
+        Reader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        byte readByte() {
+            return buffer[position++];
+        }
+
+        boolean readBoolean() {
+            return readByte() != 0;
+        }
+
+        long readVarLong() {
+            long zigZag = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer[position++];
+                zigZag |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return (zigZag >>> 1) ^ -(zigZag & 1);
+        }
+
+        Long readNullableLong() {
+            return readBoolean() ? readVarLong() : null;
+        }
+
+        String readString() {
+            int length = (int) readVarLong() - 1;
+            if (length < 0) {
+                return null;
+            }
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        LocalDateTime readLocalDateTime() {
+            return readBoolean() ? LocalDateTime.ofEpochSecond(readVarLong(), (int) readVarLong(), ZoneOffset.UTC) : null;
+        }
+
+        Instant readInstant() {
+            return readBoolean() ? Instant.ofEpochSecond(readVarLong(), readVarLong()) : null;
+        }
+
+        Map<String, Object> readMetadata() {
+            int size = (int) readVarLong() - 1;
+            if (size < 0) {
+                return null;
+            }
+            Map<String, Object> metadata = new LinkedHashMap<>();
+            for (int i = 0; i < size; i++) {
+                metadata.put(readString(), readValue());
+            }
+            return metadata;
+        }
+
+        private Object readValue() {
+            byte type = readByte();
+            return switch (type) {
+                case Writer.VALUE_NULL -> null;
+                case Writer.VALUE_STRING -> readString();
+                case Writer.VALUE_LONG -> readVarLong();
+                case Writer.VALUE_INT -> (int) readVarLong();
+                case Writer.VALUE_DOUBLE -> {
+                    long bits = 0;
+                    for (int i = 0; i < 8; i++) {
+                        bits = (bits << 8) | (buffer[position++] & 0xFF);
+                    }
+                    yield Double.longBitsToDouble(bits);
+                }
+                case Writer.VALUE_BOOLEAN -> readBoolean();
+                case Writer.VALUE_MAP -> {
+                    int size = (int) readVarLong();
+                    Map<String, Object> map = new LinkedHashMap<>();
+                    for (int i = 0; i < size; i++) {
+                        map.put(readString(), readValue());
+                    }
+                    yield map;
+                }
+                case Writer.VALUE_LIST -> {
+                    int size = (int) readVarLong();
+                    List<Object> list = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        list.add(readValue());
+                    }
+                    yield list;
+                }
+                default -> throw new IllegalStateException("Unknown metadata value type: " + type);
+            };
+        }
+    }
+}
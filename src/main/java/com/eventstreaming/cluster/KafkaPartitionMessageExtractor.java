@@ -0,0 +1,49 @@
+package com.eventstreaming.cluster;
+
+import org.apache.kafka.common.utils.Utils;
+import org.apache.pekko.cluster.sharding.typed.ShardingEnvelope;
+import org.apache.pekko.cluster.sharding.typed.ShardingMessageExtractor;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Shards user entities by the Kafka partition of their userId, so shard {@code "7"} holds
+ * exactly the users whose events are keyed onto partition 7.
+ *
+ * The partition is computed the way Kafka's default partitioner does for records keyed by
+ * the UTF-8 userId: murmur2 of the key bytes modulo the partition count. All topics read
+ * by the stream must have {@code partitions} partitions for the mapping to hold.
+ */
+public class KafkaPartitionMessageExtractor<M> extends ShardingMessageExtractor<ShardingEnvelope<M>, M> {
+
+    private final int partitions;
+
+    public KafkaPartitionMessageExtractor(int partitions) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("partitions must be at least 1, got " + partitions);
+        }
+        this.partitions = partitions;
+    }
+
+    /**
+     * Returns the Kafka partition that records keyed by {@code userId} are produced to.
+     */
+    public static int partitionFor(String userId, int partitions) {
+        return Utils.toPositive(Utils.murmur2(userId.getBytes(StandardCharsets.UTF_8))) % partitions;
+    }
+
+    @Override
+    public String entityId(ShardingEnvelope<M> envelope) {
+        return envelope.entityId();
+    }
+
+    @Override
+    public String shardId(String entityId) {
+        return String.valueOf(partitionFor(entityId, partitions));
+    }
+
+    @Override
+    public M unwrapMessage(ShardingEnvelope<M> envelope) {
+        return envelope.message();
+    }
+}
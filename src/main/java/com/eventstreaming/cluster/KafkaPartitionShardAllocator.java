@@ -0,0 +1,129 @@
+package com.eventstreaming.cluster;
+
+import org.apache.kafka.common.TopicPartition;
+import org.apache.pekko.actor.Address;
+import org.apache.pekko.actor.typed.ActorSystem;
+import org.apache.pekko.cluster.sharding.external.ExternalShardAllocation;
+import org.apache.pekko.cluster.sharding.external.ExternalShardAllocationStrategy;
+import org.apache.pekko.cluster.sharding.typed.ShardingEnvelope;
+import org.apache.pekko.cluster.sharding.typed.javadsl.Entity;
+import org.apache.pekko.cluster.typed.Cluster;
+import org.apache.pekko.kafka.RestrictedConsumer;
+import org.apache.pekko.kafka.javadsl.PartitionAssignmentHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Moves user shards to the node that consumes their Kafka partition.
+ *
+ * With partition-aligned sharding each shard id is a Kafka partition number (see
+ * {@link KafkaPartitionMessageExtractor}) and shards are placed by
+ * {@link ExternalShardAllocationStrategy}. When the consumer group assigns partitions to
+ * this node, their shards are pointed at this node's address, and sharding hands them over
+ * at its next rebalance. Revoked partitions need nothing here: the node they move to
+ * claims them on its own assignment.
+ */
+@Component
+@ConditionalOnProperty(name = "app.sharding.kafka-aligned.enabled", havingValue = "true")
+public class KafkaPartitionShardAllocator implements PartitionAssignmentHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(KafkaPartitionShardAllocator.class);
+
+    private static final Duration ALLOCATION_TIMEOUT = Duration.ofSeconds(5);
+
+    // Entity types sharded by partition; they share the shard ids of one consumer assignment
+    static final List<String> ENTITY_TYPES = List.of(
+        ClusterUserActor.ENTITY_TYPE_KEY.name(), PersistentUserActor.ENTITY_TYPE_KEY.name());
+
+    private final ActorSystem<?> actorSystem;
+    private final Set<Integer> assignedPartitions = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public KafkaPartitionShardAllocator(ActorSystem<?> actorSystem) {
+        this.actorSystem = actorSystem;
+    }
+
+    /**
+     * Shards {@code entity} by Kafka partition and places its shards with the external
+     * allocation strategy that this allocator updates.
+     */
+    public static <M> Entity<M, ShardingEnvelope<M>> alignWithKafkaPartitions(
+            Entity<M, ShardingEnvelope<M>> entity, ActorSystem<?> actorSystem, int partitions) {
+        return entity
+            .withMessageExtractor(new KafkaPartitionMessageExtractor<M>(partitions))
+            .withAllocationStrategy(ExternalShardAllocationStrategy.create(
+                actorSystem, entity.typeKey().name(), ALLOCATION_TIMEOUT));
+    }
+
+    @Override
+    public void onAssign(Set<TopicPartition> partitions, RestrictedConsumer consumer) {
+        claim(partitions.stream().map(TopicPartition::partition).collect(Collectors.toSet()));
+    }
+
+    @Override
+    public void onRevoke(Set<TopicPartition> partitions, RestrictedConsumer consumer) {
+        release(partitions);
+    }
+
+    @Override
+    public void onLost(Set<TopicPartition> partitions, RestrictedConsumer consumer) {
+        release(partitions);
+    }
+
+    @Override
+    public void onStop(Set<TopicPartition> partitions, RestrictedConsumer consumer) {
+        release(partitions);
+    }
+
+    /**
+     * Points the shards of {@code partitions} at this node for every partition-aligned
+     * entity type. Completes once all shard locations are stored.
+     */
+    public CompletionStage<Void> claim(Set<Integer> partitions) {
+        if (partitions.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        assignedPartitions.addAll(partitions);
+        Address self = Cluster.get(actorSystem).selfMember().address();
+        Map<String, Address> locations = partitions.stream()
+            .collect(Collectors.toMap(String::valueOf, partition -> self));
+
+        CompletableFuture<?>[] updates = ENTITY_TYPES.stream()
+            .map(typeName -> ExternalShardAllocation.get(actorSystem).getClient(typeName)
+                .setShardLocations(locations)
+                .toCompletableFuture())
+            .toArray(CompletableFuture[]::new);
+
+        logger.info("Claiming shards for Kafka partitions {} on {}", new TreeSet<>(partitions), self);
+        return CompletableFuture.allOf(updates).whenComplete((done, throwable) -> {
+            if (throwable != null) {
+                logger.warn("Failed to claim shards for Kafka partitions {}: {}", partitions, throwable.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Kafka partitions currently consumed, and so shards owned, by this node.
+     */
+    public Set<Integer> getAssignedPartitions() {
+        return new TreeSet<>(assignedPartitions);
+    }
+
+    private void release(Set<TopicPartition> partitions) {
+        partitions.forEach(partition -> assignedPartitions.remove(partition.partition()));
+        logger.debug("Kafka partitions {} released; their next consumer claims the shards", partitions);
+    }
+}
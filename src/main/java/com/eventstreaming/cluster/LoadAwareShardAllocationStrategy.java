@@ -0,0 +1,239 @@
+package com.eventstreaming.cluster;
+
+import org.apache.pekko.actor.ActorRef;
+import org.apache.pekko.actor.typed.ActorSystem;
+import org.apache.pekko.cluster.sharding.ShardCoordinator;
+import org.apache.pekko.cluster.sharding.typed.ShardingEnvelope;
+import org.apache.pekko.cluster.sharding.typed.javadsl.Entity;
+import org.apache.pekko.dispatch.Futures;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import scala.collection.immutable.IndexedSeq;
+import scala.concurrent.Future;
+import scala.jdk.javaapi.CollectionConverters;
+import scala.jdk.javaapi.FutureConverters;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Places user shards by measured event rate instead of shard count.
+ *
+ * Every rebalance interval the coordinator collects the per-shard rates of all nodes from
+ * {@link ShardLoadReporter}. A region is overloaded when its summed rate exceeds the mean
+ * by more than {@code imbalanceThreshold}; shards then move from the hottest region to the
+ * coldest one, preferring the shard closest to half the gap between them, until the hottest
+ * region is within the threshold or {@code maxShardsPerRebalance} shards are moving. A shard
+ * is only moved when that lowers the larger of the two loads, so a single hot shard is not
+ * bounced between nodes. Moved shards go to the region the plan picked. New shards have no
+ * rate yet, so they go to the region with the fewest shards among those whose load is
+ * within the threshold of the least-loaded one; a burst of new shards is spread instead of
+ * piling onto the single coldest region. Without any load data the default least-shards
+ * strategy decides.
+ */
+public class LoadAwareShardAllocationStrategy extends ShardCoordinator.AbstractShardAllocationStrategy
+        implements ShardCoordinator.ActorSystemDependentAllocationStrategy {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadAwareShardAllocationStrategy.class);
+
+    private final ActorSystem<?> actorSystem;
+    private final String typeName;
+    private final Settings settings;
+    private final ShardCoordinator.ShardAllocationStrategy fallback;
+
+    // Shard rates of the last collection and targets chosen by the last rebalance
+    private volatile Map<String, Double> shardRates = Map.of();
+    private final Map<String, ActorRef> plannedTargets = new ConcurrentHashMap<>();
+
+    /**
+     * @param imbalanceThreshold    how far above the mean region load a region may run, e.g. 0.2 for 20%
+     * @param maxShardsPerRebalance shards moved per rebalance round at most
+     * @param reportTimeout         how long to wait for the load reports of other nodes
+     */
+    public record Settings(double imbalanceThreshold, int maxShardsPerRebalance, Duration reportTimeout) {
+        public static final Settings DEFAULT = new Settings(0.2, 3, Duration.ofSeconds(3));
+    }
+
+    record Move<R>(String shardId, R from, R to) {}
+
+    public LoadAwareShardAllocationStrategy(ActorSystem<?> actorSystem, String typeName, Settings settings) {
+        this.actorSystem = actorSystem;
+        this.typeName = typeName;
+        this.settings = settings;
+        this.fallback = ShardCoordinator.ShardAllocationStrategy$.MODULE$
+            .leastShardAllocationStrategy(settings.maxShardsPerRebalance(), 0.1);
+        // Start the local tracker so this node reports even before it hosts entities
+        ShardLoadTracker.get(actorSystem);
+    }
+
+    /**
+     * Places {@code entity}'s shards with a load-aware strategy for its entity type.
+     */
+    public static <M> Entity<M, ShardingEnvelope<M>> withLoadAwareAllocation(
+            Entity<M, ShardingEnvelope<M>> entity, ActorSystem<?> actorSystem, Settings settings) {
+        return entity.withAllocationStrategy(
+            new LoadAwareShardAllocationStrategy(actorSystem, entity.typeKey().name(), settings));
+    }
+
+    @Override
+    public void start(org.apache.pekko.actor.ActorSystem system) {
+        if (fallback instanceof ShardCoordinator.ActorSystemDependentAllocationStrategy dependent) {
+            dependent.start(system);
+        }
+    }
+
+    @Override
+    public Future<ActorRef> allocateShard(ActorRef requester, String shardId,
+                                          Map<ActorRef, IndexedSeq<String>> currentShardAllocations) {
+        ActorRef planned = plannedTargets.remove(shardId);
+        if (planned != null && currentShardAllocations.containsKey(planned)) {
+            return Futures.successful(planned);
+        }
+        Map<String, Double> rates = shardRates;
+        if (rates.isEmpty()) {
+            return fallback.allocateShard(requester, shardId, toScala(currentShardAllocations));
+        }
+        ActorRef region = chooseRegion(toJava(currentShardAllocations), rates, settings);
+        return Futures.successful(region != null ? region : requester);
+    }
+
+    /**
+     * Picks the region for a new shard: the one with the fewest shards among the regions
+     * whose load is within {@code imbalanceThreshold} of the mean above the least-loaded one.
+     */
+    static <R> R chooseRegion(Map<R, List<String>> allocations, Map<String, Double> shardRates, Settings settings) {
+        Map<R, Double> loads = regionLoads(allocations, shardRates);
+        if (loads.isEmpty()) {
+            return null;
+        }
+        double min = loads.values().stream().mapToDouble(Double::doubleValue).min().orElse(0);
+        double mean = loads.values().stream().mapToDouble(Double::doubleValue).sum() / loads.size();
+        double limit = min + mean * settings.imbalanceThreshold();
+        return loads.keySet().stream()
+            .filter(region -> loads.get(region) <= limit)
+            .min(Comparator.<R>comparingInt(region -> allocations.get(region).size())
+                .thenComparingDouble(loads::get))
+            .orElse(null);
+    }
+
+    @Override
+    public Future<Set<String>> rebalance(Map<ActorRef, IndexedSeq<String>> currentShardAllocations,
+                                         Set<String> rebalanceInProgress) {
+        Map<ActorRef, List<String>> allocations = toJava(currentShardAllocations);
+        return FutureConverters.asScala(
+            ShardLoadReporter.collect(actorSystem, 0, settings.reportTimeout())
+                .thenCompose(reports -> {
+                    Map<String, Double> rates = new HashMap<>();
+                    reports.forEach(report -> report.shards().stream()
+                        .filter(load -> load.typeName().equals(typeName))
+                        .forEach(load -> rates.merge(load.shardId(), load.eventsPerSecond(), Double::sum)));
+                    shardRates = Map.copyOf(rates);
+                    if (rates.isEmpty()) {
+                        return FutureConverters.asJava(fallback.rebalance(
+                            toScala(currentShardAllocations),
+                            scala.collection.immutable.Set$.MODULE$.from(CollectionConverters.asScala(rebalanceInProgress))))
+                            .thenApply(CollectionConverters::asJava);
+                    }
+
+                    List<Move<ActorRef>> moves = planRebalance(allocations, rates, rebalanceInProgress, settings);
+                    Set<String> shards = new HashSet<>();
+                    for (Move<ActorRef> move : moves) {
+                        plannedTargets.put(move.shardId(), move.to());
+                        shards.add(move.shardId());
+                        logger.info("Moving {} shard {} ({} events/s) from {} to {}", typeName, move.shardId(),
+                            String.format("%.1f", rates.getOrDefault(move.shardId(), 0.0)),
+                            move.from().path().address(), move.to().path().address());
+                    }
+                    return CompletableFuture.completedFuture(shards);
+                })
+                .exceptionally(throwable -> {
+                    logger.warn("Skipping {} load rebalance: {}", typeName, throwable.getMessage());
+                    return Set.of();
+                }));
+    }
+
+    /**
+     * Chooses the shards to move so that no region's load exceeds the mean by more than the
+     * configured threshold, moving as few and as fitting shards as possible.
+     */
+    static <R> List<Move<R>> planRebalance(Map<R, List<String>> allocations, Map<String, Double> shardRates,
+                                           Set<String> rebalanceInProgress, Settings settings) {
+        if (allocations.size() < 2 || !rebalanceInProgress.isEmpty()) {
+            return List.of();
+        }
+        Map<R, Double> loads = regionLoads(allocations, shardRates);
+        double mean = loads.values().stream().mapToDouble(Double::doubleValue).sum() / loads.size();
+        double limit = mean * (1 + settings.imbalanceThreshold());
+        Map<R, List<String>> shardsOf = new LinkedHashMap<>();
+        allocations.forEach((region, shards) -> shardsOf.put(region, new ArrayList<>(shards)));
+
+        List<Move<R>> moves = new ArrayList<>();
+        while (moves.size() < settings.maxShardsPerRebalance()) {
+            R hottest = null;
+            R coldest = null;
+            for (R region : loads.keySet()) {
+                if (hottest == null || loads.get(region) > loads.get(hottest)) {
+                    hottest = region;
+                }
+                if (coldest == null || loads.get(region) < loads.get(coldest)) {
+                    coldest = region;
+                }
+            }
+            double gap = loads.get(hottest) - loads.get(coldest);
+            if (loads.get(hottest) <= limit || gap <= 0) {
+                break;
+            }
+            String best = null;
+            double bestDistance = Double.MAX_VALUE;
+            for (String shardId : shardsOf.get(hottest)) {
+                double rate = shardRates.getOrDefault(shardId, 0.0);
+                // Moving a shard as hot as the gap would just make the coldest region the hottest
+                if (rate <= 0 || rate >= gap) {
+                    continue;
+                }
+                double distance = Math.abs(rate - gap / 2);
+                if (distance < bestDistance) {
+                    best = shardId;
+                    bestDistance = distance;
+                }
+            }
+            if (best == null) {
+                break;
+            }
+            double rate = shardRates.get(best);
+            shardsOf.get(hottest).remove(best);
+            shardsOf.get(coldest).add(best);
+            loads.merge(hottest, -rate, Double::sum);
+            loads.merge(coldest, rate, Double::sum);
+            moves.add(new Move<>(best, hottest, coldest));
+        }
+        return moves;
+    }
+
+    private static <R> Map<R, Double> regionLoads(Map<R, ? extends List<String>> allocations, Map<String, Double> shardRates) {
+        Map<R, Double> loads = new LinkedHashMap<>();
+        allocations.forEach((region, shards) -> loads.put(region,
+            shards.stream().mapToDouble(shardId -> shardRates.getOrDefault(shardId, 0.0)).sum()));
+        return loads;
+    }
+
+    private static Map<ActorRef, List<String>> toJava(Map<ActorRef, IndexedSeq<String>> allocations) {
+        Map<ActorRef, List<String>> result = new LinkedHashMap<>();
+        allocations.forEach((region, shards) -> result.put(region, CollectionConverters.asJava(shards)));
+        return result;
+    }
+
+    private static scala.collection.immutable.Map<ActorRef, IndexedSeq<String>> toScala(
+            Map<ActorRef, IndexedSeq<String>> allocations) {
+        return scala.collection.immutable.Map$.MODULE$.from(CollectionConverters.asScala(allocations));
+    }
+}
@@ -3,20 +3,27 @@ package com.eventstreaming.cluster;
 import com.eventstreaming.model.UserEvent;
 import org.apache.pekko.actor.typed.ActorRef;
 import org.apache.pekko.actor.typed.Behavior;
+import org.apache.pekko.actor.typed.PostStop;
 import org.apache.pekko.actor.typed.javadsl.ActorContext;
 import org.apache.pekko.actor.typed.javadsl.Behaviors;
 import org.apache.pekko.cluster.sharding.typed.javadsl.EntityTypeKey;
 import org.apache.pekko.persistence.typed.PersistenceId;
+import org.apache.pekko.persistence.typed.RecoveryCompleted;
+import org.apache.pekko.persistence.typed.RecoveryFailed;
+import org.apache.pekko.persistence.typed.SnapshotCompleted;
+import org.apache.pekko.persistence.typed.SnapshotFailed;
 import org.apache.pekko.persistence.typed.javadsl.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
+import java.util.Set;
 
 /**
  * Persistent UserActor that stores events in the event journal.
  * Each user gets their own persistent actor that maintains event counts by type.
+ * When to snapshot is decided per user by {@link AdaptiveSnapshotPolicy}.
  */
 public class PersistentUserActor extends EventSourcedBehavior<PersistentUserActor.Command, UserActorEvent, UserActorState> {
     
@@ -25,7 +32,21 @@ public class PersistentUserActor extends EventSourcedBehavior<PersistentUserActo
     public static final EntityTypeKey<Command> ENTITY_TYPE_KEY = 
         EntityTypeKey.create(Command.class, "PersistentUserActor");
     
+    // Events are tagged with one of a fixed number of user-hash slices so sliced projections
+    // can consume eventsByTag in parallel. Changing this re-partitions already tagged events.
+    public static final int TAG_SLICES = 4;
+    public static final String SLICE_TAG_PREFIX = "user-slice-";
+    public static final String EVENT_TYPE_TAG_PREFIX = "event-type-";
+    
     private final String userId;
+    private final ShardLoadTracker.EntityHandle load;
+    private final ActorContext<Command> context;
+    private final AdaptiveSnapshotPolicy snapshots;
+    
+    // Recovery measurement; the constructor runs right before the snapshot is loaded
+    private final long recoveryStartNanos = System.nanoTime();
+    private boolean recovering = true;
+    private long eventsReplayed;
     
     // Commands
     public interface Command extends Serializable {}
@@ -78,12 +99,20 @@ public class PersistentUserActor extends EventSourcedBehavior<PersistentUserActo
     }
     
     public static Behavior<Command> create(String userId) {
-        return Behaviors.setup(context -> new PersistentUserActor(context, userId));
+        return create(userId, AdaptiveSnapshotPolicy.Settings.DEFAULT);
+    }
+    
+    public static Behavior<Command> create(String userId, AdaptiveSnapshotPolicy.Settings snapshotSettings) {
+        return Behaviors.setup(context -> new PersistentUserActor(context, userId, snapshotSettings));
     }
     
-    private PersistentUserActor(ActorContext<Command> context, String userId) {
+    private PersistentUserActor(ActorContext<Command> context, String userId, AdaptiveSnapshotPolicy.Settings snapshotSettings) {
         super(PersistenceId.of(ENTITY_TYPE_KEY.name(), userId));
         this.userId = userId;
+        this.context = context;
+        this.load = ShardLoadTracker.get(context.getSystem())
+            .entityStarted(ENTITY_TYPE_KEY.name(), ShardLoadTracker.shardIdOf(context.getSelf()), userId);
+        this.snapshots = new AdaptiveSnapshotPolicy(snapshotSettings, SnapshotMetrics.get(context.getSystem()));
         logger.info("Creating PersistentUserActor for userId: {}", userId);
     }
     
@@ -106,7 +135,7 @@ public class PersistentUserActor extends EventSourcedBehavior<PersistentUserActo
         return newEventHandlerBuilder()
             .forAnyState()
             .onEvent(UserActorEvent.UserEventProcessed.class, this::onUserEventProcessed)
-            .onEvent(UserActorEvent.UserEventCountUpdated.class, (state, event) -> state)
+            .onEvent(UserActorEvent.UserEventCountUpdated.class, (state, event) -> countReplayed(state))
             .build();
     }
     
@@ -114,6 +143,8 @@ public class PersistentUserActor extends EventSourcedBehavior<PersistentUserActo
         logger.info("Processing UserEvent for userId: {}, eventType: {}, contactId: {}", 
                    userId, command.userEvent.getEventType(), command.userEvent.getContactId());
         
+        load.recordEvents(1);
+        
         // Create the event to persist
         UserActorEvent.UserEventProcessed event = UserActorEvent.UserEventProcessed.from(command.userEvent);
         
@@ -144,7 +175,7 @@ public class PersistentUserActor extends EventSourcedBehavior<PersistentUserActo
         logger.info("Applying UserEventProcessed: userId={}, eventType={}, totalEvents before: {}", 
                    event.getUserId(), event.getEventType(), state.getTotalEvents());
         
-        UserActorState newState = state.applyEvent(event);
+        UserActorState newState = countReplayed(state.applyEvent(event));
         
         logger.info("Applied UserEventProcessed: userId={}, eventType={}, totalEvents after: {}", 
                    event.getUserId(), event.getEventType(), newState.getTotalEvents());
@@ -152,10 +183,69 @@ public class PersistentUserActor extends EventSourcedBehavior<PersistentUserActo
         return newState;
     }
     
+    private UserActorState countReplayed(UserActorState state) {
+        if (recovering) {
+            eventsReplayed++;
+        }
+        return state;
+    }
+    
+    @Override
+    public SignalHandler<UserActorState> signalHandler() {
+        return newSignalHandlerBuilder()
+            .onSignal(RecoveryCompleted.instance(), this::onRecoveryCompleted)
+            .onSignal(RecoveryFailed.class, (state, signal) -> snapshots.recoveryFailed())
+            .onSignal(SnapshotCompleted.class, (state, signal) ->
+                snapshots.snapshotCompleted(signal.metadata().sequenceNr(), EventStreamingSerializer.serializedSize(state)))
+            .onSignal(SnapshotFailed.class, (state, signal) -> {
+                logger.warn("Snapshot failed for userId: {}: {}", userId, signal.getFailure().getMessage());
+                snapshots.snapshotFailed();
+            })
+            .onSignal(PostStop.instance(), state -> load.stopped())
+            .build();
+    }
+    
+    private void onRecoveryCompleted(UserActorState state) {
+        recovering = false;
+        long durationNanos = System.nanoTime() - recoveryStartNanos;
+        snapshots.recovered(lastSequenceNumber(context), eventsReplayed, durationNanos,
+            EventStreamingSerializer.serializedSize(state));
+        logger.debug("Recovered userId: {} in {} ms, replayed {} events", userId, durationNanos / 1_000_000, eventsReplayed);
+    }
+    
+    @Override
+    public boolean shouldSnapshot(UserActorState state, UserActorEvent event, long sequenceNr) {
+        return snapshots.shouldSnapshot(sequenceNr, load.eventsPerSecond());
+    }
+    
+    @Override
+    public Set<String> tagsFor(UserActorEvent event) {
+        String eventType = event instanceof UserActorEvent.UserEventProcessed processed ? processed.getEventType()
+            : event instanceof UserActorEvent.UserEventCountUpdated updated ? updated.getEventType()
+            : null;
+        return eventType != null
+            ? Set.of(sliceTag(userId), EVENT_TYPE_TAG_PREFIX + eventType)
+            : Set.of(sliceTag(userId));
+    }
+    
+    public static int sliceOf(String userId) {
+        return Math.floorMod(userId.hashCode(), TAG_SLICES);
+    }
+    
+    public static String sliceTag(String userId) {
+        return sliceTag(sliceOf(userId));
+    }
+    
+    public static String sliceTag(int slice) {
+        return SLICE_TAG_PREFIX + slice;
+    }
+    
     @Override
     public RetentionCriteria retentionCriteria() {
-        // OPTIMIZED: More frequent snapshots for faster recovery
-        return RetentionCriteria.snapshotEvery(50, 5)  // Snapshot every 50 events, keep 5
-            .withDeleteEventsOnSnapshot();  // Delete old events after snapshot
+        // Snapshots at multiples of maxEvents bound replay and clean up old snapshots and events;
+        // the adaptive snapshots in between come from shouldSnapshot
+        AdaptiveSnapshotPolicy.Settings settings = snapshots.settings();
+        return RetentionCriteria.snapshotEvery(settings.maxEvents(), settings.keepSnapshots())
+            .withDeleteEventsOnSnapshot();
     }
 }
\ No newline at end of file
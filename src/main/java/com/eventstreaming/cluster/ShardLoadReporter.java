@@ -0,0 +1,94 @@
+package com.eventstreaming.cluster;
+
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.ActorSystem;
+import org.apache.pekko.actor.typed.Behavior;
+import org.apache.pekko.actor.typed.javadsl.AskPattern;
+import org.apache.pekko.actor.typed.javadsl.Behaviors;
+import org.apache.pekko.actor.typed.receptionist.Receptionist;
+import org.apache.pekko.actor.typed.receptionist.ServiceKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Serves the {@link ShardLoadTracker} telemetry of its node to the rest of the cluster.
+ *
+ * One reporter per node registers with the receptionist; {@link #collect} asks all of them
+ * and skips nodes that do not answer in time. Reports are small and requested every
+ * rebalance interval at most, so they use the Java serialization fallback.
+ */
+public final class ShardLoadReporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardLoadReporter.class);
+
+    public static final ServiceKey<Command> SERVICE_KEY = ServiceKey.create(Command.class, "shard-load-reporter");
+
+    public interface Command extends Serializable {}
+
+    public record GetLoadReport(int entityLimit, ActorRef<NodeLoadReport> replyTo) implements Command {}
+
+    /**
+     * Load of one node: all of its shards and its hottest entities.
+     */
+    public record NodeLoadReport(
+        String address,
+        List<ShardLoadTracker.ShardLoad> shards,
+        List<ShardLoadTracker.EntityLoad> hottestEntities
+    ) implements Serializable {}
+
+    private ShardLoadReporter() {}
+
+    static Behavior<Command> create(ShardLoadTracker tracker) {
+        return Behaviors.setup(context -> {
+            context.getSystem().receptionist().tell(Receptionist.register(SERVICE_KEY, context.getSelf()));
+            return Behaviors.receiveMessage(command -> {
+                if (command instanceof GetLoadReport request) {
+                    request.replyTo().tell(new NodeLoadReport(
+                        tracker.address(), tracker.shardLoads(), tracker.hottestEntities(request.entityLimit())));
+                }
+                return Behaviors.same();
+            });
+        });
+    }
+
+    /**
+     * Asks every node's reporter for its load. Nodes that fail to answer within
+     * {@code timeout} are left out rather than failing the whole collection.
+     */
+    public static CompletionStage<List<NodeLoadReport>> collect(ActorSystem<?> system, int entityLimit, Duration timeout) {
+        // Make sure this node reports too, even before any entity started here
+        ShardLoadTracker.get(system);
+        CompletionStage<Receptionist.Listing> listing = AskPattern.ask(
+            system.receptionist(),
+            (ActorRef<Receptionist.Listing> replyTo) -> Receptionist.find(SERVICE_KEY, replyTo),
+            timeout,
+            system.scheduler());
+
+        return listing.thenCompose(found -> {
+            List<CompletableFuture<NodeLoadReport>> reports = found.getServiceInstances(SERVICE_KEY).stream()
+                .map(reporter -> AskPattern.<Command, NodeLoadReport>ask(
+                        reporter,
+                        replyTo -> new GetLoadReport(entityLimit, replyTo),
+                        timeout,
+                        system.scheduler())
+                    .toCompletableFuture()
+                    .exceptionally(throwable -> {
+                        logger.debug("No load report from {}: {}", reporter.path().address(), throwable.getMessage());
+                        return null;
+                    }))
+                .toList();
+            return CompletableFuture.allOf(reports.toArray(CompletableFuture[]::new))
+                .thenApply(done -> reports.stream()
+                    .map(CompletableFuture::join)
+                    .filter(Objects::nonNull)
+                    .toList());
+        });
+    }
+}
@@ -0,0 +1,216 @@
+package com.eventstreaming.cluster;
+
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.ActorSystem;
+import org.apache.pekko.actor.typed.Extension;
+import org.apache.pekko.actor.typed.ExtensionId;
+import org.apache.pekko.actor.typed.Props;
+import org.apache.pekko.cluster.typed.Cluster;
+
+import java.io.Serializable;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-node event-rate and entity-count telemetry for sharded user entities.
+ *
+ * Entities register when they start and record every event they handle, so each node knows
+ * the load of the shards and entities it hosts. Rates are exponentially weighted over
+ * {@link #RATE_WINDOW}: a steady stream of r events per second reads as r, and a shard that
+ * goes quiet decays towards zero instead of dropping out at a window boundary. Recording an
+ * event only bumps a counter; the decay is applied to all counters once per {@link #DECAY_TICK},
+ * so events read as at most one tick old.
+ *
+ * The tracker also starts this node's {@link ShardLoadReporter}, through which the
+ * allocation strategy and the dashboards read the load of every node.
+ */
+public class ShardLoadTracker implements Extension {
+
+    public static final Duration RATE_WINDOW = Duration.ofSeconds(60);
+    public static final Duration DECAY_TICK = Duration.ofSeconds(1);
+
+    private static final Id ID = new Id();
+
+    private final String address;
+    private final Map<ShardKey, ShardCounters> shards = new ConcurrentHashMap<>();
+    private long decayedAtNanos = System.nanoTime();
+
+    public static final class Id extends ExtensionId<ShardLoadTracker> {
+        @Override
+        public ShardLoadTracker createExtension(ActorSystem<?> system) {
+            return new ShardLoadTracker(system);
+        }
+    }
+
+    public static ShardLoadTracker get(ActorSystem<?> system) {
+        return ID.apply(system);
+    }
+
+    /**
+     * Current load of one shard on the node that hosts it.
+     */
+    public record ShardLoad(
+        String typeName,
+        String shardId,
+        String address,
+        double eventsPerSecond,
+        int entities,
+        long totalEvents
+    ) implements Serializable {}
+
+    /**
+     * Current load of one live entity.
+     */
+    public record EntityLoad(
+        String typeName,
+        String shardId,
+        String entityId,
+        String address,
+        double eventsPerSecond,
+        long totalEvents
+    ) implements Serializable {}
+
+    private record ShardKey(String typeName, String shardId) {}
+
+    private static final class ShardCounters {
+        final DecayingRate rate = new DecayingRate();
+        final Map<String, EntityHandle> entities = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Records the load of one entity incarnation; obtained from {@link #entityStarted}.
+     */
+    public static final class EntityHandle {
+        private final ShardCounters shard;
+        private final String entityId;
+        private final DecayingRate rate = new DecayingRate();
+
+        private EntityHandle(ShardCounters shard, String entityId) {
+            this.shard = shard;
+            this.entityId = entityId;
+        }
+
+        public void recordEvents(int count) {
+            rate.record(count);
+            shard.rate.record(count);
+        }
+
+        public double eventsPerSecond() {
+            return rate.perSecond();
+        }
+
+        public void stopped() {
+            shard.entities.remove(entityId, this);
+        }
+    }
+
+    // Exponentially weighted event count; value / window converges to the event rate.
+    // Entities record without locking; only the decay tick writes the weighted count.
+    static final class DecayingRate {
+        private static final double WINDOW_SECONDS = RATE_WINDOW.toNanos() / 1e9;
+
+        private final LongAdder total = new LongAdder();
+        // Weighted count as of the last tick and the total it includes
+        private volatile Decayed decayed = new Decayed(0, 0);
+
+        private record Decayed(double weightedCount, long total) {}
+
+        void record(long count) {
+            total.add(count);
+        }
+
+        // Events recorded since the last tick count fully
+        double perSecond() {
+            Decayed current = decayed;
+            return (current.weightedCount() + total.sum() - current.total()) / WINDOW_SECONDS;
+        }
+
+        long total() {
+            return total.sum();
+        }
+
+        // Called by the single decay tick only
+        void decay(double factor) {
+            Decayed previous = decayed;
+            long now = total.sum();
+            decayed = new Decayed(previous.weightedCount() * factor + (now - previous.total()), now);
+        }
+    }
+
+    private ShardLoadTracker(ActorSystem<?> system) {
+        this.address = Cluster.get(system).selfMember().address().toString();
+        system.scheduler().scheduleAtFixedRate(DECAY_TICK, DECAY_TICK, this::decay, system.executionContext());
+        system.systemActorOf(ShardLoadReporter.create(this), "shard-load-reporter", Props.empty());
+    }
+
+    // One exp per tick for all counters, from the time that actually passed
+    private void decay() {
+        long now = System.nanoTime();
+        double factor = Math.exp(-((now - decayedAtNanos) / 1e9) / DecayingRate.WINDOW_SECONDS);
+        decayedAtNanos = now;
+        shards.values().forEach(shard -> {
+            shard.rate.decay(factor);
+            shard.entities.values().forEach(handle -> handle.rate.decay(factor));
+        });
+    }
+
+    /**
+     * Returns the id of the shard hosting {@code entity}; sharded entities are children of
+     * their shard actor, which is named after the URL-encoded shard id.
+     */
+    public static String shardIdOf(ActorRef<?> entity) {
+        return URLDecoder.decode(entity.path().parent().name(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Registers a started entity; the caller records its events on the returned handle and
+     * calls {@link EntityHandle#stopped()} when it stops.
+     */
+    public EntityHandle entityStarted(String typeName, String shardId, String entityId) {
+        ShardCounters shard = shards.computeIfAbsent(new ShardKey(typeName, shardId), key -> new ShardCounters());
+        EntityHandle handle = new EntityHandle(shard, entityId);
+        shard.entities.put(entityId, handle);
+        return handle;
+    }
+
+    /**
+     * Load of the shards this node hosts or hosted recently, hottest first. Shards without
+     * live entities are dropped once their rate has decayed to nothing.
+     */
+    public List<ShardLoad> shardLoads() {
+        List<ShardLoad> loads = new ArrayList<>();
+        shards.forEach((key, shard) -> {
+            double rate = shard.rate.perSecond();
+            int entities = shard.entities.size();
+            if (entities == 0 && rate < 0.001) {
+                shards.remove(key, shard);
+                return;
+            }
+            loads.add(new ShardLoad(key.typeName(), key.shardId(), address, rate, entities, shard.rate.total()));
+        });
+        loads.sort(Comparator.comparingDouble(ShardLoad::eventsPerSecond).reversed());
+        return loads;
+    }
+
+    /**
+     * The {@code limit} live entities with the highest event rate on this node.
+     */
+    public List<EntityLoad> hottestEntities(int limit) {
+        List<EntityLoad> loads = new ArrayList<>();
+        shards.forEach((key, shard) -> shard.entities.forEach((entityId, handle) -> loads.add(new EntityLoad(
+            key.typeName(), key.shardId(), entityId, address, handle.rate.perSecond(), handle.rate.total()))));
+        loads.sort(Comparator.comparingDouble(EntityLoad::eventsPerSecond).reversed());
+        return loads.size() > limit ? List.copyOf(loads.subList(0, limit)) : loads;
+    }
+
+    public String address() {
+        return address;
+    }
+}
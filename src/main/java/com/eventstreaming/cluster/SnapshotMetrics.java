@@ -0,0 +1,173 @@
+package com.eventstreaming.cluster;
+
+import org.apache.pekko.actor.typed.ActorSystem;
+import org.apache.pekko.actor.typed.Extension;
+import org.apache.pekko.actor.typed.ExtensionId;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-node recovery and snapshot measurements of PersistentUserActors.
+ *
+ * Besides reporting the recovery duration distribution and snapshot write volume, it keeps
+ * the node's running estimates of replay time per event and snapshot write time, which
+ * {@link AdaptiveSnapshotPolicy} uses for entities that have not measured their own yet.
+ */
+public class SnapshotMetrics implements Extension {
+
+    private static final Id ID = new Id();
+
+    // Upper bounds of the recovery duration buckets; the last bucket is open-ended
+    static final long[] RECOVERY_BUCKET_MILLIS = {1, 5, 10, 50, 100, 500, 1_000, 5_000};
+
+    // Replays shorter than this are dominated by the snapshot load and journal round trip
+    static final long MIN_REPLAY_SAMPLE = 50;
+
+    private static final double SMOOTHING = 0.2;
+
+    private final LongAdder[] recoveryBuckets = new LongAdder[RECOVERY_BUCKET_MILLIS.length + 1];
+    private final LongAdder recoveries = new LongAdder();
+    private final LongAdder recoveryFailures = new LongAdder();
+    private final LongAdder recoveryNanos = new LongAdder();
+    private final AtomicLong maxRecoveryNanos = new AtomicLong();
+    private final LongAdder eventsReplayed = new LongAdder();
+    private final LongAdder snapshotsWritten = new LongAdder();
+    private final LongAdder snapshotBytesWritten = new LongAdder();
+    private final LongAdder snapshotFailures = new LongAdder();
+
+    private double replayNanosPerEvent = AdaptiveSnapshotPolicy.INITIAL_REPLAY_NANOS_PER_EVENT;
+    private double snapshotWriteNanos = AdaptiveSnapshotPolicy.INITIAL_SNAPSHOT_WRITE_NANOS;
+
+    public static final class Id extends ExtensionId<SnapshotMetrics> {
+        @Override
+        public SnapshotMetrics createExtension(ActorSystem<?> system) {
+            return new SnapshotMetrics();
+        }
+    }
+
+    public static SnapshotMetrics get(ActorSystem<?> system) {
+        return ID.apply(system);
+    }
+
+    /**
+     * Recovery and snapshot statistics since start. Percentiles are the upper bound of the
+     * histogram bucket they fall in.
+     */
+    public record Stats(
+        long recoveries,
+        long recoveryFailures,
+        double meanRecoveryMillis,
+        double maxRecoveryMillis,
+        long p50RecoveryMillis,
+        long p99RecoveryMillis,
+        Map<String, Long> recoveryHistogram,
+        long eventsReplayed,
+        long snapshotsWritten,
+        long snapshotBytesWritten,
+        long snapshotFailures,
+        double replayMicrosPerEvent,
+        double snapshotWriteMillis
+    ) {}
+
+    SnapshotMetrics() {
+        for (int i = 0; i < recoveryBuckets.length; i++) {
+            recoveryBuckets[i] = new LongAdder();
+        }
+    }
+
+    void recordRecovery(long durationNanos, long replayed) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        int bucket = 0;
+        while (bucket < RECOVERY_BUCKET_MILLIS.length && millis > RECOVERY_BUCKET_MILLIS[bucket]) {
+            bucket++;
+        }
+        recoveryBuckets[bucket].increment();
+        recoveries.increment();
+        recoveryNanos.add(durationNanos);
+        maxRecoveryNanos.accumulateAndGet(durationNanos, Math::max);
+        eventsReplayed.add(replayed);
+        if (replayed >= MIN_REPLAY_SAMPLE) {
+            synchronized (this) {
+                replayNanosPerEvent += SMOOTHING * ((double) durationNanos / replayed - replayNanosPerEvent);
+            }
+        }
+    }
+
+    void recordRecoveryFailure() {
+        recoveryFailures.increment();
+    }
+
+    void recordSnapshot(long bytes, long writeNanos) {
+        snapshotsWritten.increment();
+        snapshotBytesWritten.add(bytes);
+        if (writeNanos > 0) {
+            synchronized (this) {
+                snapshotWriteNanos += SMOOTHING * (writeNanos - snapshotWriteNanos);
+            }
+        }
+    }
+
+    void recordSnapshotFailure() {
+        snapshotFailures.increment();
+    }
+
+    synchronized double replayNanosPerEvent() {
+        return replayNanosPerEvent;
+    }
+
+    synchronized double snapshotWriteNanos() {
+        return snapshotWriteNanos;
+    }
+
+    public Stats stats() {
+        long count = recoveries.sum();
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        long[] counts = new long[recoveryBuckets.length];
+        for (int i = 0; i < recoveryBuckets.length; i++) {
+            counts[i] = recoveryBuckets[i].sum();
+            histogram.put(i < RECOVERY_BUCKET_MILLIS.length
+                ? "<=" + RECOVERY_BUCKET_MILLIS[i] + "ms"
+                : ">" + RECOVERY_BUCKET_MILLIS[RECOVERY_BUCKET_MILLIS.length - 1] + "ms", counts[i]);
+        }
+        return new Stats(
+            count,
+            recoveryFailures.sum(),
+            count == 0 ? 0 : recoveryNanos.sum() / 1e6 / count,
+            maxRecoveryNanos.get() / 1e6,
+            percentile(counts, 0.50),
+            percentile(counts, 0.99),
+            histogram,
+            eventsReplayed.sum(),
+            snapshotsWritten.sum(),
+            snapshotBytesWritten.sum(),
+            snapshotFailures.sum(),
+            replayNanosPerEvent() / 1e3,
+            snapshotWriteNanos() / 1e6);
+    }
+
+    private long percentile(long[] counts, double quantile) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                // The open-ended bucket reports the largest recovery seen
+                return i < RECOVERY_BUCKET_MILLIS.length
+                    ? RECOVERY_BUCKET_MILLIS[i]
+                    : TimeUnit.NANOSECONDS.toMillis(maxRecoveryNanos.get());
+            }
+        }
+        return TimeUnit.NANOSECONDS.toMillis(maxRecoveryNanos.get());
+    }
+}
@@ -3,30 +3,36 @@ package com.eventstreaming.cluster;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import com.eventstreaming.model.EventTypeCounts;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
  * State of a UserActor that tracks event counts by event type.
  * This state is built from persisted events and can be snapshotted.
  * Implements Serializable for Pekko cluster communication.
+ * Instances are never modified after construction: snapshots are serialized asynchronously
+ * while the actor keeps applying events.
  */
 public class UserActorState implements Serializable {
     
     private static final long serialVersionUID = 1L;
     
-    private final String userId;
-    private final Map<String, Long> eventTypeCounts;
-    private final Long totalEvents;
-    private final LocalDateTime lastUpdated;
-    private final LocalDateTime firstEventTime;
-    private final LocalDateTime lastEventTime;
+    // Not final only so readObject can also restore snapshots written with a HashMap of counts
+    private String userId;
+    private EventTypeCounts eventTypeCounts;
+    private Long totalEvents;
+    private LocalDateTime lastUpdated;
+    private LocalDateTime firstEventTime;
+    private LocalDateTime lastEventTime;
     
     // Default constructor for empty state
     public UserActorState(String userId) {
-        this(userId, new HashMap<>(), 0L, LocalDateTime.now(), null, null);
+        this(userId, new EventTypeCounts(), 0L, LocalDateTime.now(), null, null);
     }
     
     @JsonCreator
@@ -37,8 +43,17 @@ public class UserActorState implements Serializable {
             @JsonProperty("lastUpdated") LocalDateTime lastUpdated,
             @JsonProperty("firstEventTime") LocalDateTime firstEventTime,
             @JsonProperty("lastEventTime") LocalDateTime lastEventTime) {
+        this(userId, EventTypeCounts.fromMap(eventTypeCounts), totalEvents, lastUpdated, firstEventTime, lastEventTime);
+    }
+    
+    private UserActorState(String userId,
+                           EventTypeCounts eventTypeCounts,
+                           Long totalEvents,
+                           LocalDateTime lastUpdated,
+                           LocalDateTime firstEventTime,
+                           LocalDateTime lastEventTime) {
         this.userId = userId;
-        this.eventTypeCounts = eventTypeCounts != null ? new HashMap<>(eventTypeCounts) : new HashMap<>();
+        this.eventTypeCounts = eventTypeCounts;
         this.totalEvents = totalEvents != null ? totalEvents : 0L;
         this.lastUpdated = lastUpdated != null ? lastUpdated : LocalDateTime.now();
         this.firstEventTime = firstEventTime;
@@ -46,11 +61,12 @@ public class UserActorState implements Serializable {
     }
     
     /**
-     * Applies a UserEventProcessed event to create a new state.
+     * Applies a UserEventProcessed event to create a new state. Copying the counts is a
+     * single array copy of one long per event type.
      */
     public UserActorState applyEvent(UserActorEvent.UserEventProcessed event) {
-        Map<String, Long> newCounts = new HashMap<>(eventTypeCounts);
-        newCounts.merge(event.getEventType(), 1L, Long::sum);
+        EventTypeCounts newCounts = eventTypeCounts.copy();
+        newCounts.increment(event.getEventType());
         
         LocalDateTime eventTime = event.getTimestamp();
         LocalDateTime newFirstEventTime = firstEventTime;
@@ -79,7 +95,7 @@ public class UserActorState implements Serializable {
      * Gets the count for a specific event type.
      */
     public Long getCountForEventType(String eventType) {
-        return eventTypeCounts.getOrDefault(eventType, 0L);
+        return eventTypeCounts.get(eventType);
     }
     
     /**
@@ -91,12 +107,32 @@ public class UserActorState implements Serializable {
     
     // Getters
     public String getUserId() { return userId; }
-    public Map<String, Long> getEventTypeCounts() { return new HashMap<>(eventTypeCounts); }
+    public Map<String, Long> getEventTypeCounts() { return eventTypeCounts.toMap(); }
     public Long getTotalEvents() { return totalEvents; }
     public LocalDateTime getLastUpdated() { return lastUpdated; }
     public LocalDateTime getFirstEventTime() { return firstEventTime; }
     public LocalDateTime getLastEventTime() { return lastEventTime; }
     
+    /**
+     * Reads snapshots written with either {@link EventTypeCounts} or the former
+     * {@code HashMap<String, Long>} of counts.
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        Object counts = fields.get("eventTypeCounts", null);
+        
+        this.userId = (String) fields.get("userId", null);
+        this.eventTypeCounts = counts instanceof EventTypeCounts eventCounts
+            ? eventCounts
+            : EventTypeCounts.fromMap((Map<String, Long>) counts);
+        Long total = (Long) fields.get("totalEvents", null);
+        this.totalEvents = total != null ? total : 0L;
+        this.lastUpdated = (LocalDateTime) fields.get("lastUpdated", null);
+        this.firstEventTime = (LocalDateTime) fields.get("firstEventTime", null);
+        this.lastEventTime = (LocalDateTime) fields.get("lastEventTime", null);
+    }
+    
     @Override
     public String toString() {
         return "UserActorState{" +
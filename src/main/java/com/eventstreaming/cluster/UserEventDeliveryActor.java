@@ -0,0 +1,206 @@
+package com.eventstreaming.cluster;
+
+import com.eventstreaming.model.UserEvent;
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.Behavior;
+import org.apache.pekko.actor.typed.RecipientRef;
+import org.apache.pekko.actor.typed.javadsl.AbstractBehavior;
+import org.apache.pekko.actor.typed.javadsl.ActorContext;
+import org.apache.pekko.actor.typed.javadsl.Behaviors;
+import org.apache.pekko.actor.typed.javadsl.Receive;
+import org.apache.pekko.actor.typed.javadsl.TimerScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Delivers UserEvents to sharded PersistentUserActors with tell and acknowledgement
+ * instead of one ask per event.
+ *
+ * Every event is told to its entity with this actor's response adapter as {@code replyTo},
+ * so no temporary actor is created per event. Each user has {@code creditsPerUser} credits:
+ * an event is sent only while the user has fewer unacknowledged events than that, and
+ * waits here otherwise. The caller's future completes when the entity acknowledges the
+ * event, so a stream delivering through {@code mapAsync} is slowed by slow entities rather
+ * than piling up asks that time out. Events for one user are sent in arrival order.
+ *
+ * Only the time an event spends unacknowledged after sending counts against
+ * {@code ackTimeout}; events are not resent after a timeout because persisting is not
+ * idempotent. Deliver carries a future, so this actor must only be used locally.
+ */
+public class UserEventDeliveryActor extends AbstractBehavior<UserEventDeliveryActor.Command> {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserEventDeliveryActor.class);
+
+    private final Function<String, RecipientRef<PersistentUserActor.Command>> entityFor;
+    private final int creditsPerUser;
+    private final Duration ackTimeout;
+    private final ActorRef<PersistentUserActor.ProcessUserEventResponse> ackAdapter;
+    private final Map<String, UserChannel> channels = new HashMap<>();
+
+    private long delivered;
+    private long acknowledged;
+    private long timedOut;
+    private long lateAcks;
+
+    public interface Command {}
+
+    public record Deliver(UserEvent userEvent, CompletableFuture<PersistentUserActor.ProcessUserEventResponse> result)
+        implements Command {}
+
+    public record GetDeliveryStats(ActorRef<DeliveryStats> replyTo) implements Command {}
+
+    private record Acknowledged(PersistentUserActor.ProcessUserEventResponse response) implements Command {}
+
+    private enum CheckAckTimeouts implements Command { INSTANCE }
+
+    /**
+     * Delivery counts since start; {@code inFlight} and {@code waitingForCredit} are current.
+     */
+    public record DeliveryStats(
+        long delivered,
+        long acknowledged,
+        long timedOut,
+        long lateAcks,
+        int inFlight,
+        int waitingForCredit,
+        int activeUsers,
+        int creditsPerUser
+    ) {}
+
+    private record Pending(UserEvent userEvent,
+                           CompletableFuture<PersistentUserActor.ProcessUserEventResponse> result,
+                           long sentAtNanos) {}
+
+    private static final class UserChannel {
+        final ArrayDeque<Pending> inFlight = new ArrayDeque<>();
+        final ArrayDeque<Pending> waiting = new ArrayDeque<>();
+    }
+
+    public static Behavior<Command> create(Function<String, RecipientRef<PersistentUserActor.Command>> entityFor,
+                                           int creditsPerUser,
+                                           Duration ackTimeout) {
+        return Behaviors.setup(context -> Behaviors.withTimers(timers ->
+            new UserEventDeliveryActor(context, timers, entityFor, creditsPerUser, ackTimeout)));
+    }
+
+    private UserEventDeliveryActor(ActorContext<Command> context,
+                                   TimerScheduler<Command> timers,
+                                   Function<String, RecipientRef<PersistentUserActor.Command>> entityFor,
+                                   int creditsPerUser,
+                                   Duration ackTimeout) {
+        super(context);
+        this.entityFor = entityFor;
+        this.creditsPerUser = Math.max(1, creditsPerUser);
+        this.ackTimeout = ackTimeout;
+        this.ackAdapter = context.messageAdapter(PersistentUserActor.ProcessUserEventResponse.class, Acknowledged::new);
+        Duration checkInterval = ackTimeout.dividedBy(4).isZero() ? ackTimeout : ackTimeout.dividedBy(4);
+        timers.startTimerWithFixedDelay(CheckAckTimeouts.INSTANCE, checkInterval);
+    }
+
+    @Override
+    public Receive<Command> createReceive() {
+        return newReceiveBuilder()
+            .onMessage(Deliver.class, this::onDeliver)
+            .onMessage(Acknowledged.class, this::onAcknowledged)
+            .onMessage(CheckAckTimeouts.class, command -> onCheckAckTimeouts())
+            .onMessage(GetDeliveryStats.class, this::onGetDeliveryStats)
+            .build();
+    }
+
+    private Behavior<Command> onDeliver(Deliver command) {
+        String userId = command.userEvent().getUserId();
+        UserChannel channel = channels.computeIfAbsent(userId, id -> new UserChannel());
+        Pending pending = new Pending(command.userEvent(), command.result(), 0);
+        if (channel.inFlight.size() < creditsPerUser && channel.waiting.isEmpty()) {
+            send(userId, channel, pending);
+        } else {
+            channel.waiting.add(pending);
+        }
+        return this;
+    }
+
+    private Behavior<Command> onAcknowledged(Acknowledged command) {
+        PersistentUserActor.ProcessUserEventResponse response = command.response();
+        UserChannel channel = channels.get(response.userId);
+        Pending pending = channel != null ? removeInFlight(channel, response.eventId) : null;
+        if (pending == null) {
+            // Acknowledgement for an event that already timed out
+            lateAcks++;
+            return this;
+        }
+        acknowledged++;
+        pending.result().complete(response);
+        sendWaiting(response.userId, channel);
+        if (channel.inFlight.isEmpty() && channel.waiting.isEmpty()) {
+            channels.remove(response.userId);
+        }
+        return this;
+    }
+
+    private Behavior<Command> onCheckAckTimeouts() {
+        long deadline = System.nanoTime() - ackTimeout.toNanos();
+        for (Iterator<Map.Entry<String, UserChannel>> entries = channels.entrySet().iterator(); entries.hasNext(); ) {
+            Map.Entry<String, UserChannel> entry = entries.next();
+            UserChannel channel = entry.getValue();
+            while (!channel.inFlight.isEmpty() && channel.inFlight.peek().sentAtNanos() - deadline < 0) {
+                Pending expired = channel.inFlight.poll();
+                timedOut++;
+                logger.warn("No acknowledgement within {} for event {} of user {}",
+                           ackTimeout, expired.userEvent().getEventId(), entry.getKey());
+                expired.result().completeExceptionally(new TimeoutException(
+                    "No acknowledgement within " + ackTimeout + " for event " + expired.userEvent().getEventId()));
+            }
+            sendWaiting(entry.getKey(), channel);
+            if (channel.inFlight.isEmpty() && channel.waiting.isEmpty()) {
+                entries.remove();
+            }
+        }
+        return this;
+    }
+
+    private Behavior<Command> onGetDeliveryStats(GetDeliveryStats command) {
+        int inFlight = 0;
+        int waiting = 0;
+        for (UserChannel channel : channels.values()) {
+            inFlight += channel.inFlight.size();
+            waiting += channel.waiting.size();
+        }
+        command.replyTo().tell(new DeliveryStats(
+            delivered, acknowledged, timedOut, lateAcks, inFlight, waiting, channels.size(), creditsPerUser));
+        return this;
+    }
+
+    private void send(String userId, UserChannel channel, Pending pending) {
+        channel.inFlight.add(new Pending(pending.userEvent(), pending.result(), System.nanoTime()));
+        delivered++;
+        entityFor.apply(userId).tell(new PersistentUserActor.ProcessUserEvent(pending.userEvent(), ackAdapter));
+    }
+
+    private void sendWaiting(String userId, UserChannel channel) {
+        while (channel.inFlight.size() < creditsPerUser && !channel.waiting.isEmpty()) {
+            send(userId, channel, channel.waiting.poll());
+        }
+    }
+
+    // Entities reply in order, so the match is normally the head of the queue
+    private static Pending removeInFlight(UserChannel channel, String eventId) {
+        for (Iterator<Pending> pendings = channel.inFlight.iterator(); pendings.hasNext(); ) {
+            Pending pending = pendings.next();
+            if (Objects.equals(pending.userEvent().getEventId(), eventId)) {
+                pendings.remove();
+                return pending;
+            }
+        }
+        return null;
+    }
+}
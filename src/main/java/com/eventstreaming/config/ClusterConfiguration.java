@@ -1,12 +1,14 @@
 package com.eventstreaming.config;
 
 import org.apache.pekko.actor.typed.ActorSystem;
+import org.apache.pekko.cluster.sharding.typed.ShardingEnvelope;
 import org.apache.pekko.cluster.sharding.typed.javadsl.ClusterSharding;
 import org.apache.pekko.cluster.sharding.typed.javadsl.Entity;
 import org.apache.pekko.cluster.sharding.typed.javadsl.EntityTypeKey;
 import org.apache.pekko.cluster.typed.Cluster;
 import org.apache.pekko.management.cluster.bootstrap.ClusterBootstrap;
 import org.apache.pekko.management.javadsl.PekkoManagement;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -14,6 +16,8 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.context.event.EventListener;
 
 import com.eventstreaming.cluster.ClusterUserActor;
+import com.eventstreaming.cluster.KafkaPartitionShardAllocator;
+import com.eventstreaming.cluster.LoadAwareShardAllocationStrategy;
 import com.eventstreaming.cluster.PersistentUserActor;
 
 import jakarta.annotation.PostConstruct;
@@ -26,6 +30,23 @@ public class ClusterConfiguration {
     private PekkoManagement management;
     private ClusterBootstrap bootstrap;
 
+    // Shard user entities by Kafka partition and place shards with their partition's consumer
+    @Value("${app.sharding.kafka-aligned.enabled:false}")
+    private boolean kafkaAlignedSharding = false;
+
+    @Value("${app.sharding.kafka-aligned.partitions:100}")
+    private int kafkaPartitions = 100;
+
+    // Place shards by measured event rate; ignored when shards follow Kafka partitions
+    @Value("${app.sharding.load-aware.enabled:false}")
+    private boolean loadAwareAllocation = false;
+
+    @Value("${app.sharding.load-aware.imbalance-threshold:0.2}")
+    private double loadImbalanceThreshold = 0.2;
+
+    @Value("${app.sharding.load-aware.max-shards-per-rebalance:3}")
+    private int maxShardsPerRebalance = 3;
+
     @Bean
     public Cluster cluster(ActorSystem<?> actorSystem) {
         Cluster cluster = Cluster.get(actorSystem);
@@ -79,20 +100,39 @@ public class ClusterConfiguration {
         // Regular ClusterUserActor (for backward compatibility)
         EntityTypeKey<ClusterUserActor.Command> userEntityTypeKey = ClusterUserActor.ENTITY_TYPE_KEY;
         actorSystem.log().info("🔧 Initializing sharding for entity type: {}", userEntityTypeKey.name());
-        sharding.init(Entity.of(userEntityTypeKey, entityContext -> {
+        sharding.init(withShardPlacement(Entity.of(userEntityTypeKey, entityContext -> {
             actorSystem.log().debug("Creating ClusterUserActor for entity: {}", entityContext.getEntityId());
             return ClusterUserActor.create(entityContext.getEntityId());
-        }));
+        }), actorSystem));
         
         // PersistentUserActor (for event sourcing)
         EntityTypeKey<PersistentUserActor.Command> persistentUserEntityTypeKey = PersistentUserActor.ENTITY_TYPE_KEY;
         actorSystem.log().info("🔧 Initializing sharding for persistent entity type: {}", persistentUserEntityTypeKey.name());
-        sharding.init(Entity.of(persistentUserEntityTypeKey, entityContext -> {
+        sharding.init(withShardPlacement(Entity.of(persistentUserEntityTypeKey, entityContext -> {
             actorSystem.log().debug("Creating PersistentUserActor for entity: {}", entityContext.getEntityId());
             return PersistentUserActor.create(entityContext.getEntityId());
-        }));
+        }), actorSystem));
 
         actorSystem.log().info("✅ Cluster sharding initialized for both UserActor and PersistentUserActor entities");
+        if (kafkaAlignedSharding) {
+            actorSystem.log().info("🔧 User shards aligned with {} Kafka partitions", kafkaPartitions);
+        } else if (loadAwareAllocation) {
+            actorSystem.log().info("🔧 User shards placed by event rate (imbalance threshold {})", loadImbalanceThreshold);
+        }
+    }
+
+    private <M> Entity<M, ShardingEnvelope<M>> withShardPlacement(Entity<M, ShardingEnvelope<M>> entity,
+                                                                 ActorSystem<?> actorSystem) {
+        if (kafkaAlignedSharding) {
+            return KafkaPartitionShardAllocator.alignWithKafkaPartitions(entity, actorSystem, kafkaPartitions);
+        }
+        if (loadAwareAllocation) {
+            return LoadAwareShardAllocationStrategy.withLoadAwareAllocation(entity, actorSystem,
+                new LoadAwareShardAllocationStrategy.Settings(
+                    loadImbalanceThreshold, maxShardsPerRebalance,
+                    LoadAwareShardAllocationStrategy.Settings.DEFAULT.reportTimeout()));
+        }
+        return entity;
     }
 
     @PreDestroy
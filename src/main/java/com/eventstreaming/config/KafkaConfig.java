@@ -3,8 +3,11 @@ package com.eventstreaming.config;
 import com.eventstreaming.model.CommunicationEvent;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -27,6 +30,8 @@ import java.util.Map;
 @Profile("!isolated")
 public class KafkaConfig {
     
+    private static final Logger logger = LoggerFactory.getLogger(KafkaConfig.class);
+    
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
     
@@ -220,4 +225,56 @@ public class KafkaConfig {
         
         return factory;
     }
-}
\ No newline at end of file
+    
+    /**
+     * Raw byte[] consumer factory for KafkaEventStreamingService. Colon-delimited records are
+     * parsed straight from the bytes, so no String is decoded up front.
+     */
+    @Bean
+    public ConsumerFactory<byte[], byte[]> byteArrayConsumerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        
+        // ByteArrayDeserializer hands out the raw bytes and cannot fail on malformed payloads
+        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        
+        // Consumer settings for reliability
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 100);
+        configProps.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, 1024);
+        configProps.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, 30000);
+        configProps.put(ConsumerConfig.HEARTBEAT_INTERVAL_MS_CONFIG, 3000);
+        
+        return new DefaultKafkaConsumerFactory<>(configProps);
+    }
+    
+    /**
+     * byte[] Kafka listener container factory for KafkaEventStreamingService.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<byte[], byte[]> byteArrayKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<byte[], byte[]> factory = 
+            new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(byteArrayConsumerFactory());
+        
+        // Manual acknowledgment for exactly-once processing
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+        
+        // Concurrency settings
+        factory.setConcurrency(1); // Lower concurrency for error-prone topics
+        
+        // Configure error handling - skip records that can't be processed
+        factory.setCommonErrorHandler(new org.springframework.kafka.listener.DefaultErrorHandler(
+            (record, exception) -> {
+                // Log the error but don't stop processing
+                logger.warn("Skipping problematic message from {}-{} at offset {}: {}",
+                    record.topic(), record.partition(), record.offset(), exception.getMessage());
+            }
+        ));
+        
+        return factory;
+    }
+}
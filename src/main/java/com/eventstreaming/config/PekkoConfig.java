@@ -20,6 +20,30 @@ public class PekkoConfig {
     @Autowired
     private Environment environment;
     
+    /**
+     * Serializer settings shared by all profiles, placed inside {@code pekko.actor}.
+     * Journal events, snapshots, cluster messages and communication events use the compact
+     * binary serializer; anything else that is Serializable still falls back to Java
+     * serialization, which also keeps journal rows written before the switch readable.
+     */
+    public static final String SERIALIZATION_CONFIG =
+        "    serializers {\n" +
+        "      java = \"org.apache.pekko.serialization.JavaSerializer\"\n" +
+        "      event-binary = \"com.eventstreaming.cluster.EventStreamingSerializer\"\n" +
+        "    }\n" +
+        "    serialization-bindings {\n" +
+        "      \"java.io.Serializable\" = java\n" +
+        "      \"com.eventstreaming.cluster.UserActorEvent\" = event-binary\n" +
+        "      \"com.eventstreaming.cluster.UserActorState\" = event-binary\n" +
+        "      \"com.eventstreaming.cluster.PersistentUserActor$Command\" = event-binary\n" +
+        "      \"com.eventstreaming.cluster.PersistentUserActor$Response\" = event-binary\n" +
+        "      \"com.eventstreaming.cluster.ClusterUserActor$Command\" = event-binary\n" +
+        "      \"com.eventstreaming.cluster.ClusterUserActor$EventProcessed\" = event-binary\n" +
+        "      \"com.eventstreaming.cluster.ClusterUserActor$EventBatchProcessed\" = event-binary\n" +
+        "      \"com.eventstreaming.cluster.ClusterUserActor$UserStats\" = event-binary\n" +
+        "      \"com.eventstreaming.model.CommunicationEvent\" = event-binary\n" +
+        "    }\n";
+    
     // CRITICAL DIAGNOSTIC LOGGING - CONSTRUCTOR
     public PekkoConfig() {
         System.out.println("\n" + "🎯".repeat(100));
@@ -184,12 +208,7 @@ public class PekkoConfig {
                 "    provider = cluster\n" +
                 "    allow-java-serialization = on\n" +
                 "    warn-about-java-serializer-usage = off\n" +
-                "    serializers {\n" +
-                "      java = \"org.apache.pekko.serialization.JavaSerializer\"\n" +
-                "    }\n" +
-                "    serialization-bindings {\n" +
-                "      \"java.io.Serializable\" = java\n" +
-                "    }\n" +
+                SERIALIZATION_CONFIG +
                 "  }\n" +
                 "  remote.artery {\n" +
                 "    canonical.hostname = \"%s\"\n" +
@@ -251,6 +270,24 @@ public class PekkoConfig {
                 "    }\n" +
                 "  }\n" +
                 "}\n" +
+                "jdbc-read-journal {\n" +
+                "  refresh-interval = \"1s\"\n" +
+                "  max-buffer-size = \"500\"\n" +
+                "  slick {\n" +
+                "    profile = \"slick.jdbc.MySQLProfile$\"\n" +
+                "    db {\n" +
+                "      url = \"%s\"\n" +
+                "      user = \"%s\"\n" +
+                "      password = \"%s\"\n" +
+                "      driver = \"com.mysql.cj.jdbc.Driver\"\n" +
+                "      connectionPool = \"HikariCP\"\n" +
+                "      keepAliveConnection = true\n" +
+                "      numThreads = 5\n" +
+                "      maxConnections = 5\n" +
+                "      minConnections = 1\n" +
+                "    }\n" +
+                "  }\n" +
+                "}\n" +
                 "jdbc-snapshot-store {\n" +
                 "  slick {\n" +
                 "    profile = \"slick.jdbc.MySQLProfile$\"\n" +
@@ -313,6 +350,7 @@ public class PekkoConfig {
                 clusterHost, clusterPort, clusterPort, seedNodesConfig,
                 jdbcUrl, mysqlUsername, mysqlPassword,
                 jdbcUrl, mysqlUsername, mysqlPassword,
+                jdbcUrl, mysqlUsername, mysqlPassword,
                 jdbcUrl, mysqlUsername, mysqlPassword
             );
         } else if (isIsolatedProfile) {
@@ -325,15 +363,7 @@ public class PekkoConfig {
                 "    provider = cluster\n" +
                 "    allow-java-serialization = on\n" +
                 "    warn-about-java-serializer-usage = off\n" +
-                "    serializers {\n" +
-                "      java = \"org.apache.pekko.serialization.JavaSerializer\"\n" +
-                "    }\n" +
-                "    serialization-bindings {\n" +
-                "      \"java.io.Serializable\" = java\n" +
-                "      \"com.eventstreaming.cluster.PersistentUserActor$Command\" = java\n" +
-                "      \"com.eventstreaming.cluster.PersistentUserActor$ProcessUserEvent\" = java\n" +
-                "      \"com.eventstreaming.cluster.PersistentUserActor$GetUserStats\" = java\n" +
-                "    }\n" +
+                SERIALIZATION_CONFIG +
                 "  }\n" +
                 "  remote.artery {\n" +
                 "    canonical.hostname = \"%s\"\n" +
@@ -383,15 +413,7 @@ public class PekkoConfig {
                 "    provider = cluster\n" +
                 "    allow-java-serialization = on\n" +
                 "    warn-about-java-serializer-usage = off\n" +
-                "    serializers {\n" +
-                "      java = \"org.apache.pekko.serialization.JavaSerializer\"\n" +
-                "    }\n" +
-                "    serialization-bindings {\n" +
-                "      \"java.io.Serializable\" = java\n" +
-                "      \"com.eventstreaming.cluster.PersistentUserActor$Command\" = java\n" +
-                "      \"com.eventstreaming.cluster.PersistentUserActor$ProcessUserEvent\" = java\n" +
-                "      \"com.eventstreaming.cluster.PersistentUserActor$GetUserStats\" = java\n" +
-                "    }\n" +
+                SERIALIZATION_CONFIG +
                 "  }\n" +
                 "  remote.artery {\n" +
                 "    canonical.hostname = \"%s\"\n" +
@@ -1,23 +1,45 @@
 package com.eventstreaming.controller;
 
 import com.eventstreaming.service.EventJournalService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.pekko.NotUsed;
+import org.apache.pekko.actor.typed.ActorSystem;
+import org.apache.pekko.stream.javadsl.Source;
+import org.apache.pekko.stream.javadsl.StreamConverters;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Controller for querying the event journal to see persisted events.
+ * The {@code /stream} endpoints write newline-delimited JSON in a chunked response while
+ * the journal is read, so their memory use does not grow with the number of events.
  */
 @RestController
 @RequestMapping("/api/event-journal")
 public class EventJournalController {
     
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    
+    // Lines written between explicit flushes of the chunked response
+    private static final int FLUSH_EVERY = 100;
+    
     @Autowired
     private EventJournalService eventJournalService;
     
+    @Autowired
+    private ActorSystem<?> actorSystem;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
     /**
      * Get all events for a specific user from the event journal.
      */
@@ -36,6 +58,36 @@ public class EventJournalController {
         }
     }
     
+    /**
+     * Stream all events of a user as newline-delimited JSON, one event per line.
+     */
+    @GetMapping(value = "/user/{userId}/events/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamUserEvents(
+            @PathVariable String userId,
+            @RequestParam(defaultValue = "0") long fromSequenceNr,
+            @RequestParam(defaultValue = "" + Long.MAX_VALUE) long maxEvents) {
+        
+        return ndjson(eventJournalService.streamUserEvents(userId, fromSequenceNr, maxEvents));
+    }
+    
+    /**
+     * Get one keyset page of a user's events. Pass the returned {@code nextCursor} as
+     * {@code afterSequenceNr} to read the next page.
+     */
+    @GetMapping("/user/{userId}/events/page")
+    public ResponseEntity<Map<String, Object>> getUserEventsPage(
+            @PathVariable String userId,
+            @RequestParam(defaultValue = "0") long afterSequenceNr,
+            @RequestParam(defaultValue = "100") int limit) {
+        
+        try {
+            return ResponseEntity.ok(eventJournalService.getUserEventsPage(userId, afterSequenceNr, limit));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "Failed to retrieve events: " + e.getMessage()));
+        }
+    }
+    
     /**
      * Get current state for a specific user.
      */
@@ -67,6 +119,14 @@ public class EventJournalController {
         }
     }
     
+    /**
+     * Stream the IDs of all users with events as newline-delimited JSON strings.
+     */
+    @GetMapping(value = "/persistence-ids/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamPersistenceIds() {
+        return ndjson(eventJournalService.streamUserIds());
+    }
+    
     /**
      * Get journal statistics.
      */
@@ -80,4 +140,26 @@ public class EventJournalController {
                 .body(Map.of("error", "Failed to retrieve journal stats: " + e.getMessage()));
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Writes each element of the source as one JSON line. The source is pulled only as fast
+     * as the client reads, and cancelled if the client goes away.
+     */
+    private ResponseEntity<StreamingResponseBody> ndjson(Source<?, NotUsed> source) {
+        StreamingResponseBody body = (OutputStream out) -> {
+            try (java.util.stream.Stream<?> elements = source.runWith(StreamConverters.asJavaStream(), actorSystem)) {
+                Iterator<?> iterator = elements.iterator();
+                int written = 0;
+                while (iterator.hasNext()) {
+                    out.write(objectMapper.writeValueAsBytes(iterator.next()));
+                    out.write('\n');
+                    if (++written % FLUSH_EVERY == 0) {
+                        out.flush();
+                    }
+                }
+                out.flush();
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+}
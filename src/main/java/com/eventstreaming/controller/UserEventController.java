@@ -1,6 +1,8 @@
 package com.eventstreaming.controller;
 
 import com.eventstreaming.cluster.PersistentUserActor;
+import com.eventstreaming.cluster.SnapshotMetrics;
+import com.eventstreaming.cluster.UserEventDeliveryActor;
 import com.eventstreaming.model.UserEvent;
 import com.eventstreaming.service.PersistentUserService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -145,6 +147,37 @@ public class UserEventController {
         }
     }
     
+    /**
+     * Get credit-based delivery statistics (404 when events are delivered with asks).
+     */
+    @GetMapping("/delivery/stats")
+    public ResponseEntity<UserEventDeliveryActor.DeliveryStats> getDeliveryStats() {
+        try {
+            UserEventDeliveryActor.DeliveryStats stats = 
+                persistentUserService.getDeliveryStats().toCompletableFuture().get();
+            
+            if (stats == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(stats);
+            
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    /**
+     * Get recovery and snapshot statistics of the persistent user actors on this node.
+     */
+    @GetMapping("/persistence/stats")
+    public ResponseEntity<SnapshotMetrics.Stats> getPersistenceStats() {
+        try {
+            return ResponseEntity.ok(persistentUserService.getPersistenceStats());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
     /**
      * Get user statistics from the persistent actor.
      */
@@ -2,19 +2,32 @@ package com.eventstreaming.controller;
 
 import com.eventstreaming.actor.UserActorRegistry;
 import com.eventstreaming.model.UserAggregations;
+import com.eventstreaming.service.UserAggregationCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.pekko.NotUsed;
+import org.apache.pekko.actor.typed.ActorSystem;
+import org.apache.pekko.stream.javadsl.Sink;
+import org.apache.pekko.stream.javadsl.Source;
+import org.apache.pekko.stream.javadsl.StreamConverters;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.OutputStream;
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletionStage;
 
 /**
  * REST API for Walker to query user aggregations from Pekko actors.
@@ -29,31 +42,44 @@ public class WalkerQueryController {
     private static final Logger log = LoggerFactory.getLogger(WalkerQueryController.class);
     private static final String REDIS_USER_PREFIX = "user_aggregations:";
     private static final int CACHE_TTL_MINUTES = 30;
+    private static final Duration BATCH_QUERY_TIMEOUT = Duration.ofSeconds(5);
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    
+    // Lines written between explicit flushes of the chunked response
+    private static final int FLUSH_EVERY = 100;
     
     private final UserActorRegistry userActorRegistry;
     private final RedisTemplate<String, UserAggregations> redisTemplate;
+    private final ActorSystem<?> actorSystem;
+    private final ObjectMapper objectMapper;
+    private final UserAggregationCache aggregationCache;
+    
+    @Value("${app.walker.batch-query.max-users:50000}")
+    private int maxBatchUsers = 50000;
     
     @Autowired
     public WalkerQueryController(UserActorRegistry userActorRegistry,
-                                RedisTemplate<String, UserAggregations> redisTemplate) {
+                                RedisTemplate<String, UserAggregations> redisTemplate,
+                                ActorSystem<?> actorSystem,
+                                ObjectMapper objectMapper,
+                                UserAggregationCache aggregationCache) {
         this.userActorRegistry = userActorRegistry;
         this.redisTemplate = redisTemplate;
+        this.actorSystem = actorSystem;
+        this.objectMapper = objectMapper;
+        this.aggregationCache = aggregationCache;
     }
     
     /**
      * Gets user aggregations directly from UserActor.
      * Primary endpoint for Walker to query latest aggregation data.
+     * Read-only: unknown users get empty aggregations without an actor being created.
      */
     @GetMapping("/users/{userId}/aggregations")
     public CompletableFuture<ResponseEntity<UserAggregations>> getUserAggregations(@PathVariable String userId) {
         log.debug("Walker querying aggregations for user: {}", userId);
         
-        return userActorRegistry.askUserActor(
-            userId,
-            replyTo -> new com.eventstreaming.actor.UserActor.GetAggregations(replyTo),
-            Duration.ofSeconds(5),
-            UserAggregations.class
-        ).thenApply(aggregations -> {
+        return askAggregations(userId).thenApply(aggregations -> {
             log.debug("Retrieved aggregations for user {}: total events = {}", 
                      userId, aggregations.getTotalEvents());
             return ResponseEntity.ok(aggregations);
@@ -65,45 +91,28 @@ public class WalkerQueryController {
     
     /**
      * Gets user aggregations with Redis caching integration.
-     * Maintains Walker's existing caching strategy while using actors as the source of truth.
+     * Maintains Walker's existing caching strategy while using actors as the source of truth:
+     * served from the in-process tier when possible, then Redis, then the actor.
      */
     @GetMapping("/users/{userId}/aggregations/cached")
     public CompletableFuture<ResponseEntity<UserAggregations>> getCachedUserAggregations(@PathVariable String userId) {
         log.debug("Walker querying cached aggregations for user: {}", userId);
         
-        // Check Redis cache first (Walker's existing pattern)
-        String cacheKey = REDIS_USER_PREFIX + userId;
-        UserAggregations cachedAggregations = redisTemplate.opsForValue().get(cacheKey);
-        
-        if (cachedAggregations != null) {
-            log.debug("Cache hit for user {}: returning cached aggregations", userId);
-            return CompletableFuture.completedFuture(ResponseEntity.ok(cachedAggregations));
-        }
-        
-        // Cache miss - query actor and update cache
-        log.debug("Cache miss for user {}: querying actor and updating cache", userId);
-        
-        return userActorRegistry.askUserActor(
-            userId,
-            replyTo -> new com.eventstreaming.actor.UserActor.GetAggregations(replyTo),
-            Duration.ofSeconds(5),
-            UserAggregations.class
-        ).thenApply(aggregations -> {
-            // Update Redis cache with TTL
-            redisTemplate.opsForValue().set(cacheKey, aggregations, CACHE_TTL_MINUTES, TimeUnit.MINUTES);
-            
-            log.debug("Updated cache and retrieved aggregations for user {}: total events = {}", 
-                     userId, aggregations.getTotalEvents());
-            return ResponseEntity.ok(aggregations);
-        }).exceptionally(throwable -> {
-            log.error("Error retrieving cached aggregations for user {}", userId, throwable);
-            return ResponseEntity.internalServerError().build();
-        }).toCompletableFuture();
+        return aggregationCache.get(userId, () -> askAggregations(userId))
+            .thenApply(aggregations -> {
+                log.debug("Retrieved cached aggregations for user {}: total events = {}", 
+                         userId, aggregations.getTotalEvents());
+                return ResponseEntity.ok(aggregations);
+            }).exceptionally(throwable -> {
+                log.error("Error retrieving cached aggregations for user {}", userId, throwable);
+                return ResponseEntity.internalServerError().build();
+            }).toCompletableFuture();
     }
     
     /**
      * Batch query for multiple users' aggregations.
-     * Optimized for Walker's bulk processing scenarios.
+     * Optimized for Walker's bulk processing scenarios: users are queried with one message
+     * per shard group rather than one ask per user.
      */
     @PostMapping("/users/aggregations/batch")
     public CompletableFuture<ResponseEntity<Map<String, UserAggregations>>> getBatchUserAggregations(
@@ -111,41 +120,15 @@ public class WalkerQueryController {
         
         log.debug("Walker batch querying aggregations for {} users", userIds.size());
         
-        if (userIds.isEmpty()) {
+        if (!isValidBatch(userIds)) {
             return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
         }
         
-        if (userIds.size() > 100) {
-            log.warn("Batch query too large: {} users (max 100)", userIds.size());
-            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
-        }
-        
-        // Query all users in parallel
-        CompletableFuture<?>[] futures = userIds.stream()
-            .map(userId -> userActorRegistry.askUserActor(
-                userId,
-                replyTo -> new com.eventstreaming.actor.UserActor.GetAggregations(replyTo),
-                Duration.ofSeconds(5),
-                UserAggregations.class
-            ).thenApply(aggregations -> Map.entry(userId, aggregations))
-             .exceptionally(throwable -> {
-                 log.error("Error querying aggregations for user {} in batch", userId, throwable);
-                 return Map.entry(userId, new UserAggregations(userId)); // Return empty aggregations on error
-             }))
-            .toArray(CompletableFuture[]::new);
-        
-        return CompletableFuture.allOf(futures)
-            .thenApply(v -> {
-                Map<String, UserAggregations> results = new java.util.HashMap<>();
-                for (CompletableFuture<?> future : futures) {
-                    try {
-                        @SuppressWarnings("unchecked")
-                        Map.Entry<String, UserAggregations> entry = (Map.Entry<String, UserAggregations>) future.get();
-                        results.put(entry.getKey(), entry.getValue());
-                    } catch (Exception e) {
-                        log.error("Error processing batch result", e);
-                    }
-                }
+        return userActorRegistry.queryAggregations(userIds, BATCH_QUERY_TIMEOUT)
+            .runWith(Sink.seq(), actorSystem)
+            .thenApply(aggregations -> {
+                Map<String, UserAggregations> results = new HashMap<>();
+                aggregations.forEach(userAggregations -> results.put(userAggregations.getUserId(), userAggregations));
                 
                 log.debug("Batch query completed: retrieved aggregations for {}/{} users", 
                          results.size(), userIds.size());
@@ -154,11 +137,58 @@ public class WalkerQueryController {
             .exceptionally(throwable -> {
                 log.error("Error in batch aggregations query", throwable);
                 return ResponseEntity.internalServerError().build();
-            });
+            })
+            .toCompletableFuture();
+    }
+    
+    /**
+     * Streaming variant of the batch query for bulk Walker runs.
+     * Writes one JSON line per user as each shard group is answered, so neither side holds
+     * the whole result in memory.
+     */
+    @PostMapping(value = "/users/aggregations/batch/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamBatchUserAggregations(@RequestBody List<String> userIds) {
+        log.debug("Walker streaming batch aggregations for {} users", userIds.size());
+        
+        if (!isValidBatch(userIds)) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        Source<UserAggregations, NotUsed> source = userActorRegistry.queryAggregations(userIds, BATCH_QUERY_TIMEOUT);
+        StreamingResponseBody body = (OutputStream out) -> {
+            try (java.util.stream.Stream<UserAggregations> aggregations = source.runWith(StreamConverters.asJavaStream(), actorSystem)) {
+                Iterator<UserAggregations> iterator = aggregations.iterator();
+                int written = 0;
+                while (iterator.hasNext()) {
+                    out.write(objectMapper.writeValueAsBytes(iterator.next()));
+                    out.write('\n');
+                    if (++written % FLUSH_EVERY == 0) {
+                        out.flush();
+                    }
+                }
+                out.flush();
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+    
+    private CompletionStage<UserAggregations> askAggregations(String userId) {
+        return userActorRegistry.getAggregations(userId, Duration.ofSeconds(5));
+    }
+    
+    private boolean isValidBatch(List<String> userIds) {
+        if (userIds.isEmpty()) {
+            return false;
+        }
+        if (userIds.size() > maxBatchUsers) {
+            log.warn("Batch query too large: {} users (max {})", userIds.size(), maxBatchUsers);
+            return false;
+        }
+        return true;
     }
     
     /**
-     * Invalidates Redis cache for a specific user.
+     * Invalidates the cached aggregations for a specific user.
      * Useful for Walker to force fresh data retrieval.
      */
     @DeleteMapping("/users/{userId}/cache")
@@ -166,10 +196,7 @@ public class WalkerQueryController {
         log.debug("Walker invalidating cache for user: {}", userId);
         
         try {
-            String cacheKey = REDIS_USER_PREFIX + userId;
-            Boolean deleted = redisTemplate.delete(cacheKey);
-            
-            if (Boolean.TRUE.equals(deleted)) {
+            if (aggregationCache.invalidate(userId)) {
                 log.debug("Successfully invalidated cache for user: {}", userId);
             } else {
                 log.debug("No cache entry found for user: {}", userId);
@@ -184,29 +211,37 @@ public class WalkerQueryController {
     
     /**
      * Warms up the cache for a specific user.
-     * Queries the actor and stores result in Redis for faster subsequent access.
+     * Queries the actor and stores the result in both cache tiers for faster subsequent access.
      */
     @PostMapping("/users/{userId}/cache/warm")
     public CompletableFuture<ResponseEntity<Void>> warmUserCache(@PathVariable String userId) {
         log.debug("Walker warming cache for user: {}", userId);
         
-        return userActorRegistry.askUserActor(
-            userId,
-            replyTo -> new com.eventstreaming.actor.UserActor.GetAggregations(replyTo),
-            Duration.ofSeconds(5),
-            UserAggregations.class
-        ).thenApply(aggregations -> {
-            // Store in Redis cache
-            String cacheKey = REDIS_USER_PREFIX + userId;
-            redisTemplate.opsForValue().set(cacheKey, aggregations, CACHE_TTL_MINUTES, TimeUnit.MINUTES);
-            
-            log.debug("Successfully warmed cache for user {}: total events = {}", 
-                     userId, aggregations.getTotalEvents());
-            return ResponseEntity.ok().<Void>build();
-        }).exceptionally(throwable -> {
-            log.error("Error warming cache for user {}", userId, throwable);
-            return ResponseEntity.internalServerError().build();
-        }).toCompletableFuture();
+        return aggregationCache.refresh(userId, () -> askAggregations(userId))
+            .thenApply(aggregations -> {
+                log.debug("Successfully warmed cache for user {}: total events = {}", 
+                         userId, aggregations.getTotalEvents());
+                return ResponseEntity.ok().<Void>build();
+            }).exceptionally(throwable -> {
+                log.error("Error warming cache for user {}", userId, throwable);
+                return ResponseEntity.internalServerError().build();
+            }).toCompletableFuture();
+    }
+    
+    /**
+     * Gets hit ratios and staleness of the two-tier aggregation cache.
+     */
+    @GetMapping("/cache/tiers/stats")
+    public ResponseEntity<UserAggregationCache.CacheStats> getTieredCacheStats() {
+        return ResponseEntity.ok(aggregationCache.getStats());
+    }
+    
+    /**
+     * Gets the known-user filter statistics: reads answered without an actor and filter size.
+     */
+    @GetMapping("/known-users/stats")
+    public ResponseEntity<UserActorRegistry.KnownUserStats> getKnownUserStats() {
+        return ResponseEntity.ok(userActorRegistry.getKnownUserStats());
     }
     
     /**
@@ -0,0 +1,277 @@
+package com.eventstreaming.kafka;
+
+import com.eventstreaming.model.CallEvent;
+import com.eventstreaming.model.CommunicationEvent;
+import com.eventstreaming.model.EventType;
+import com.eventstreaming.model.UserEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Single-pass parser for colon-delimited Kafka events:
+ * {@code timestamp@userid:ACTION:contactId[:additional_data]}.
+ *
+ * Works directly on the record bytes handed out by {@code ByteArrayDeserializer}. One scan
+ * finds every delimiter offset; numbers are parsed from the bytes and only the fields that
+ * end up on the event are turned into Strings. '@' and ':' are single-byte ASCII, so the
+ * scan is also safe on UTF-8 payloads.
+ */
+public final class ColonDelimitedEventParser {
+
+    static final String COLON_DELIMITED_SOURCE = "kafka-colon-delimited";
+
+    private static final byte AT = '@';
+    private static final byte COLON = ':';
+    private static final int MAX_SAFE_DIGITS = 18;
+
+    private ColonDelimitedEventParser() {
+    }
+
+    /**
+     * Parses a Kafka record into a UserEvent. The key is used when it carries the structured
+     * format, otherwise the value (the key is then usually just a hash). Returns null when
+     * neither is structured.
+     *
+     * @throws NumberFormatException if the contactId is not a number
+     */
+    public static UserEvent parseUserEvent(byte[] key, byte[] value) {
+        Layout layout = Layout.scan(key);
+        boolean useKeyForParsing = layout.isStructured();
+        if (!useKeyForParsing) {
+            layout = Layout.scan(value);
+            if (!layout.isStructured()) {
+                return null;
+            }
+        }
+
+        UserEvent userEvent = new UserEvent();
+        userEvent.setUserId(layout.string(layout.firstAt + 1, layout.firstColon));
+        userEvent.setEventType(layout.string(layout.firstColon + 1, layout.secondColon));
+        userEvent.setContactId(layout.parseLong(layout.secondColon + 1, layout.thirdColonOrEnd()));
+        userEvent.setTimestamp(LocalDateTime.now());
+        // Parsed from the key: the value is the event data; parsed from the value: the value itself
+        userEvent.setEventData(value != null ? new String(value, StandardCharsets.UTF_8) : "");
+        return userEvent;
+    }
+
+    /**
+     * Parses a record into a CommunicationEvent the way the unified consumer expects:
+     * {@code timestamp@hash:action[:values]}, userId derived from the hash.
+     *
+     * @throws IllegalArgumentException if the record has no action part
+     */
+    public static CommunicationEvent parseCommunicationEvent(byte[] data) {
+        Layout layout = Layout.scan(data);
+        if (!layout.hasAction()) {
+            throw new IllegalArgumentException("Invalid event format: " + toDisplayString(data));
+        }
+
+        int segmentEnd = layout.firstColon;
+        int timestampEnd = layout.firstAt >= 0 ? layout.firstAt : segmentEnd;
+        String hash = layout.firstAt >= 0
+            ? layout.string(layout.firstAt + 1, layout.secondAt >= 0 ? layout.secondAt : segmentEnd)
+            : "";
+        int actionStart = layout.firstColon + 1;
+        int actionEnd = layout.secondColon >= 0 ? layout.secondColon : data.length;
+
+        CallEvent event = new CallEvent();
+        if (layout.regionEqualsIgnoreCase(actionStart, actionEnd, "DROP")) {
+            event.setCallResult("MISSED");
+        } else if (layout.regionEqualsIgnoreCase(actionStart, actionEnd, "ANSWER")) {
+            event.setCallResult("COMPLETED");
+        }
+
+        long epochMilli = layout.parseDigits(0, timestampEnd);
+        event.setEventId(hash.substring(0, Math.min(20, hash.length())));
+        event.setUserId(hash.isEmpty() ? "unknown" : "user_" + hash.substring(0, Math.min(10, hash.length())));
+        event.setEventType(layout.mapActionToEventType(actionStart, actionEnd));
+        event.setTimestamp(epochMilli >= 0 ? Instant.ofEpochMilli(epochMilli) : Instant.now());
+        event.setSource(COLON_DELIMITED_SOURCE);
+        event.setMetadata(Map.of(
+            "rawData", new String(data, StandardCharsets.UTF_8),
+            "hash", hash,
+            "action", layout.string(actionStart, actionEnd)
+        ));
+        return event;
+    }
+
+    /**
+     * Decodes raw record bytes for logging; null stays null.
+     */
+    public static String toDisplayString(byte[] data) {
+        return data != null ? new String(data, StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * Delimiter offsets of one record. Only the first segment (before the first ':') is
+     * searched for '@'; -1 marks a delimiter that is not present.
+     */
+    private static final class Layout {
+
+        private static final Layout EMPTY = new Layout(new byte[0]);
+
+        private final byte[] data;
+        private int firstAt = -1;
+        private int secondAt = -1;
+        private int firstColon = -1;
+        private int secondColon = -1;
+        private int thirdColon = -1;
+        private boolean contentAfterFirstColon;
+        private boolean contentAfterSecondColon;
+
+        private Layout(byte[] data) {
+            this.data = data;
+        }
+
+        static Layout scan(byte[] data) {
+            if (data == null || data.length == 0) {
+                return EMPTY;
+            }
+
+            Layout layout = new Layout(data);
+            for (int i = 0; i < data.length; i++) {
+                byte b = data[i];
+                if (b == COLON) {
+                    if (layout.firstColon < 0) {
+                        layout.firstColon = i;
+                    } else if (layout.secondColon < 0) {
+                        layout.secondColon = i;
+                    } else if (layout.thirdColon < 0) {
+                        layout.thirdColon = i;
+                        if (layout.contentAfterSecondColon) {
+                            break;
+                        }
+                    }
+                } else if (layout.firstColon < 0) {
+                    if (b == AT) {
+                        if (layout.firstAt < 0) {
+                            layout.firstAt = i;
+                        } else if (layout.secondAt < 0) {
+                            layout.secondAt = i;
+                        }
+                    }
+                } else {
+                    layout.contentAfterFirstColon = true;
+                    if (layout.secondColon >= 0) {
+                        layout.contentAfterSecondColon = true;
+                        if (layout.thirdColon >= 0) {
+                            break;
+                        }
+                    }
+                }
+            }
+            return layout;
+        }
+
+        /**
+         * {@code timestamp@userid:ACTION:contactId...} with exactly one '@' and a non-empty
+         * userId in the first segment, and at least three ':'-separated parts.
+         */
+        boolean isStructured() {
+            return firstAt >= 0 && secondAt < 0 && firstAt + 1 < firstColon && contentAfterSecondColon;
+        }
+
+        /**
+         * At least two ':'-separated parts, i.e. a (possibly empty) action followed by content.
+         */
+        boolean hasAction() {
+            return firstColon >= 0 && contentAfterFirstColon;
+        }
+
+        int thirdColonOrEnd() {
+            return thirdColon >= 0 ? thirdColon : data.length;
+        }
+
+        String string(int from, int to) {
+            return new String(data, from, to - from, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Same contract as {@link Long#parseLong(String)} on the region, without building it.
+         */
+        long parseLong(int from, int to) {
+            int length = to - from;
+            int start = from;
+            boolean negative = false;
+            if (length > 0 && (data[from] == '-' || data[from] == '+')) {
+                negative = data[from] == '-';
+                start++;
+            }
+            if (start == to || to - start > MAX_SAFE_DIGITS) {
+                // Empty or long enough to overflow: let Long.parseLong decide
+                return Long.parseLong(string(from, to));
+            }
+
+            long result = 0;
+            for (int i = start; i < to; i++) {
+                int digit = data[i] - '0';
+                if (digit < 0 || digit > 9) {
+                    throw new NumberFormatException("For input string: \"" + string(from, to) + "\"");
+                }
+                result = result * 10 + digit;
+            }
+            return negative ? -result : result;
+        }
+
+        /**
+         * Parses only the digits of the region (e.g. {@code TS1761078201761}), ignoring any
+         * prefix. Returns -1 when there are no digits or too many to fit a long.
+         */
+        long parseDigits(int from, int to) {
+            long result = 0;
+            int digits = 0;
+            for (int i = from; i < to; i++) {
+                int digit = data[i] - '0';
+                if (digit >= 0 && digit <= 9) {
+                    if (++digits > MAX_SAFE_DIGITS) {
+                        return -1;
+                    }
+                    result = result * 10 + digit;
+                }
+            }
+            return digits > 0 ? result : -1;
+        }
+
+        /**
+         * Maps the action region to an EventType, unknown actions default to DROP.
+         */
+        EventType mapActionToEventType(int from, int to) {
+            if (regionEqualsIgnoreCase(from, to, "DROP")) {
+                return EventType.DROP;
+            } else if (regionEqualsIgnoreCase(from, to, "ANSWER")) {
+                return EventType.CALL_ANSWERED;
+            } else if (regionEqualsIgnoreCase(from, to, "PICKUP")) {
+                return EventType.PICKUP;
+            } else if (regionEqualsIgnoreCase(from, to, "DELIVERY")) {
+                return EventType.DELIVERY;
+            } else if (regionEqualsIgnoreCase(from, to, "SEND")) {
+                return EventType.SMS_DELIVERY;
+            } else if (regionEqualsIgnoreCase(from, to, "RECEIVE")) {
+                return EventType.SMS_REPLY;
+            }
+            return EventType.DROP;
+        }
+
+        /**
+         * ASCII case-insensitive comparison against an upper-case constant.
+         */
+        boolean regionEqualsIgnoreCase(int from, int to, String upperCase) {
+            if (to - from != upperCase.length()) {
+                return false;
+            }
+            for (int i = 0; i < upperCase.length(); i++) {
+                int b = data[from + i];
+                if (b >= 'a' && b <= 'z') {
+                    b -= 'a' - 'A';
+                }
+                if (b != upperCase.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
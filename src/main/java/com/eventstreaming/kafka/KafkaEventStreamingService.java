@@ -13,8 +13,6 @@ import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
-
 /**
  * Service that integrates Kafka messaging with the event streaming application.
  * This service consumes messages from Kafka topics and processes them through
@@ -52,17 +50,16 @@ public class KafkaEventStreamingService {
      */
     @KafkaListener(topics = "QuestIncrementerDropperINSCallQueueDev", 
                    groupId = "${spring.kafka.consumer.group-id}",
-                   containerFactory = "stringKafkaListenerContainerFactory")
-    public void handleCallQueueMessage(ConsumerRecord<String, String> record) {
+                   containerFactory = "byteArrayKafkaListenerContainerFactory")
+    public void handleCallQueueMessage(ConsumerRecord<byte[], byte[]> record) {
         try {
-            logger.info("=== RECEIVED CALLQUEUE MESSAGE ===");
-            logger.info("Topic: {}", record.topic());
-            logger.info("Key: {}", record.key());
-            logger.info("Value: {}", record.value());
-            logger.info("Partition: {}, Offset: {}", record.partition(), record.offset());
-            logger.info("Timestamp: {}", record.timestamp());
-            logger.info("Headers: {}", record.headers());
-            logger.info("=====================================");
+            logger.info("=== RECEIVED CALLQUEUE MESSAGE === Topic: {}, Partition: {}, Offset: {}, Timestamp: {}",
+                       record.topic(), record.partition(), record.offset(), record.timestamp());
+            if (logger.isDebugEnabled()) {
+                logger.debug("Key: '{}', Value: '{}', Headers: {}",
+                            ColonDelimitedEventParser.toDisplayString(record.key()),
+                            ColonDelimitedEventParser.toDisplayString(record.value()), record.headers());
+            }
             
             UserEvent userEvent = parseKafkaMessage(record);
             if (userEvent != null) {
@@ -80,17 +77,16 @@ public class KafkaEventStreamingService {
      */
     @KafkaListener(topics = "QuestIncrementerDropperINSDigitalQueueDev", 
                    groupId = "${spring.kafka.consumer.group-id}",
-                   containerFactory = "stringKafkaListenerContainerFactory")
-    public void handleDigitalQueueMessage(ConsumerRecord<String, String> record) {
+                   containerFactory = "byteArrayKafkaListenerContainerFactory")
+    public void handleDigitalQueueMessage(ConsumerRecord<byte[], byte[]> record) {
         try {
-            logger.info("=== RECEIVED DIGITALQUEUE MESSAGE ===");
-            logger.info("Topic: {}", record.topic());
-            logger.info("Key: {}", record.key());
-            logger.info("Value: {}", record.value());
-            logger.info("Partition: {}, Offset: {}", record.partition(), record.offset());
-            logger.info("Timestamp: {}", record.timestamp());
-            logger.info("Headers: {}", record.headers());
-            logger.info("======================================");
+            logger.info("=== RECEIVED DIGITALQUEUE MESSAGE === Topic: {}, Partition: {}, Offset: {}, Timestamp: {}",
+                       record.topic(), record.partition(), record.offset(), record.timestamp());
+            if (logger.isDebugEnabled()) {
+                logger.debug("Key: '{}', Value: '{}', Headers: {}",
+                            ColonDelimitedEventParser.toDisplayString(record.key()),
+                            ColonDelimitedEventParser.toDisplayString(record.value()), record.headers());
+            }
             
             UserEvent userEvent = parseKafkaMessage(record);
             if (userEvent != null) {
@@ -107,117 +103,35 @@ public class KafkaEventStreamingService {
      * Supports two formats:
      * 1. Key format: timestamp@userid:DROP:contactid (structured key)
      * 2. Value format: timestamp@userid:DROP:contactid (when key is just a hash)
+     * The record bytes are parsed in a single pass by {@link ColonDelimitedEventParser}.
      * 
      * @param record The Kafka consumer record
      * @return UserEvent object or null if parsing fails
      */
-    private UserEvent parseKafkaMessage(ConsumerRecord<String, String> record) {
+    private UserEvent parseKafkaMessage(ConsumerRecord<byte[], byte[]> record) {
         try {
-            String key = record.key();
-            String value = record.value();
-            
-            logger.info("--- PARSING MESSAGE ---");
-            logger.info("Raw Key: '{}'", key);
-            logger.info("Raw Value: '{}'", value);
-            logger.info("Key Length: {}", key != null ? key.length() : 0);
-            logger.info("Value Length: {}", value != null ? value.length() : 0);
-            
-            // Determine which format to use for parsing
-            String dataSource = null;
-            boolean useKeyForParsing = false;
-            
-            if (key != null && !key.trim().isEmpty()) {
-                // Check if key contains structured data (has colons and @)
-                if (key.contains(":") && key.contains("@")) {
-                    String[] keyParts = key.split(":");
-                    if (keyParts.length >= 3 && keyParts[0].contains("@")) {
-                        dataSource = key;
-                        useKeyForParsing = true;
-                        logger.info("Using KEY for parsing (structured format detected)");
-                    }
-                }
-            }
-            
-            // If key doesn't have structured data, try to use value
-            if (dataSource == null && value != null && !value.trim().isEmpty()) {
-                // Check if value contains structured data
-                if (value.contains(":") && value.contains("@")) {
-                    String[] valueParts = value.split(":");
-                    if (valueParts.length >= 3 && valueParts[0].contains("@")) {
-                        dataSource = value;
-                        useKeyForParsing = false;
-                        logger.info("Using VALUE for parsing (key appears to be hash: '{}')", key);
-                    }
-                }
-            }
-            
-            if (dataSource == null) {
-                logger.warn("No structured data found in key or value. Key: '{}', Value: '{}'", key, value);
-                return null;
-            }
-            
-            // Parse the structured data: TS1761078201761@aa806415340acc676593b725919ce29603e40aa1bb993f03057e8b962725a3eb:DROP:84214:12951617384
-            // Format: timestamp@userid:action:contactid:additional_data
-            String[] dataParts = dataSource.split(":");
-            logger.info("Data split into {} parts: {}", dataParts.length, java.util.Arrays.toString(dataParts));
-            
-            if (dataParts.length < 3) {
-                logger.warn("Invalid data format - expected at least 3 parts separated by ':', got {} parts: {}", 
-                           dataParts.length, dataSource);
-                return null;
-            }
-            
-            // Extract timestamp and user ID from first part
-            String timestampUserPart = dataParts[0]; // TS1761078201761@aa806415340acc676593b725919ce29603e40aa1bb993f03057e8b962725a3eb
-            logger.info("Timestamp-User part: '{}'", timestampUserPart);
-            
-            String[] timestampUser = timestampUserPart.split("@");
-            logger.info("Timestamp-User split into {} parts: {}", timestampUser.length, java.util.Arrays.toString(timestampUser));
-            
-            if (timestampUser.length != 2) {
-                logger.warn("Invalid timestamp@userid format - expected 2 parts separated by '@', got {} parts: {}", 
-                           timestampUser.length, timestampUserPart);
+            UserEvent userEvent = ColonDelimitedEventParser.parseUserEvent(record.key(), record.value());
+            if (userEvent == null) {
+                logger.warn("No structured data found in key or value. Key: '{}', Value: '{}'",
+                           ColonDelimitedEventParser.toDisplayString(record.key()),
+                           ColonDelimitedEventParser.toDisplayString(record.value()));
                 return null;
             }
             
-            // Extract the components
-            String timestampStr = timestampUser[0]; // TS1761078201761
-            String userId = timestampUser[1]; // aa806415340acc676593b725919ce29603e40aa1bb993f03057e8b962725a3eb
-            String action = dataParts[1]; // "DROP"
-            String contactId = dataParts[2]; // "84214"
-            
-            logger.info("Extracted - Timestamp: '{}', UserId: '{}', Action: '{}', ContactId: '{}'", 
-                       timestampStr, userId, action, contactId);
-            
-            // Create UserEvent
-            UserEvent userEvent = new UserEvent();
-            userEvent.setUserId(userId);
-            userEvent.setEventType(action);
-            userEvent.setContactId(Long.parseLong(contactId));
-            userEvent.setTimestamp(LocalDateTime.now()); // Use current time for processing
-            
-            // Set event data based on source
-            if (useKeyForParsing) {
-                // If we parsed from key, value is the event data
-                userEvent.setEventData(value != null ? value : "");
-            } else {
-                // If we parsed from value, use the original structured data as event data
-                userEvent.setEventData(dataSource);
-            }
-            
             // Add Kafka metadata
             userEvent.setSource("kafka-" + record.topic());
             userEvent.setPartition(record.partition());
             userEvent.setOffset(record.offset());
             
             logger.info("Successfully parsed UserEvent: userId={}, eventType={}, contactId={}, source={}", 
-                       userId, action, contactId, userEvent.getSource());
+                       userEvent.getUserId(), userEvent.getEventType(), userEvent.getContactId(), userEvent.getSource());
             
             return userEvent;
             
         } catch (Exception e) {
             logger.error("Error parsing Kafka message - Key: '{}', Value: '{}', Error: {}", 
-                        record.key(), record.value(), e.getMessage());
+                        ColonDelimitedEventParser.toDisplayString(record.key()),
+                        ColonDelimitedEventParser.toDisplayString(record.value()), e.getMessage());
             return null;
         }
     }
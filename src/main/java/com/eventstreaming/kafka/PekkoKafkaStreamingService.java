@@ -1,18 +1,27 @@
 package com.eventstreaming.kafka;
 
+import com.eventstreaming.cluster.KafkaPartitionShardAllocator;
 import com.eventstreaming.model.UserEvent;
 import com.eventstreaming.service.UserEventAggregationService;
 import com.eventstreaming.service.PersistentUserService;
 import com.eventstreaming.service.DashboardService;
+import com.eventstreaming.streams.UserAffinityRouter;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
-import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 import org.apache.pekko.Done;
+import org.apache.pekko.NotUsed;
 import org.apache.pekko.actor.typed.ActorSystem;
+import org.apache.pekko.japi.Pair;
+import org.apache.pekko.kafka.CommitterSettings;
+import org.apache.pekko.kafka.ConsumerMessage;
 import org.apache.pekko.kafka.ConsumerSettings;
+import org.apache.pekko.kafka.AutoSubscription;
 import org.apache.pekko.kafka.Subscriptions;
+import org.apache.pekko.kafka.javadsl.Committer;
 import org.apache.pekko.kafka.javadsl.Consumer;
+import org.apache.pekko.stream.javadsl.Flow;
 import org.apache.pekko.stream.javadsl.Sink;
 import org.apache.pekko.stream.javadsl.Source;
 import org.slf4j.Logger;
@@ -25,6 +34,7 @@ import org.springframework.stereotype.Service;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -38,6 +48,10 @@ public class PekkoKafkaStreamingService {
     
     private static final Logger logger = LoggerFactory.getLogger(PekkoKafkaStreamingService.class);
     
+    private static final String[] TOPICS = {
+        "QuestIncrementerDropperINSCallQueueDev", "QuestIncrementerDropperINSDigitalQueueDev"
+    };
+    
     private final ActorSystem<Void> actorSystem;
     private final ObjectMapper objectMapper;
     private final KafkaConfigManager kafkaConfigManager;
@@ -47,19 +61,42 @@ public class PekkoKafkaStreamingService {
     
     private volatile Consumer.Control streamControl;
     private final AtomicBoolean isRunning = new AtomicBoolean(false);
+    private final AtomicBoolean isStopping = new AtomicBoolean(false);
     
     @Value("${app.streams.pekko-kafka.parallelism:10}")
     private int processingParallelism;
     
+    @Value("${app.streams.pekko-kafka.lanes:16}")
+    private int laneCount;
+    
     @Value("${app.streams.pekko-kafka.buffer-size:1000}")
     private int bufferSize;
     
+    @Value("${app.streams.pekko-kafka.commit-offsets:true}")
+    private boolean commitOffsets;
+    
+    @Value("${app.streams.pekko-kafka.commit.max-batch:1000}")
+    private long commitMaxBatch;
+    
+    @Value("${app.streams.pekko-kafka.commit.max-interval:5s}")
+    private java.time.Duration commitMaxInterval;
+    
+    @Value("${app.streams.pekko-kafka.max-partitions:64}")
+    private int maxPartitions;
+    
+    @Value("${app.streams.pekko-kafka.restart-delay:5s}")
+    private java.time.Duration restartDelay;
+    
     @Value("${app.streams.pekko-kafka.auto-start:true}")
     private boolean autoStart;
     
     @Value("${spring.profiles.active:default}")
     private String activeProfile;
     
+    // Present with app.sharding.kafka-aligned.enabled; moves user shards to this node's partitions
+    @Autowired(required = false)
+    private KafkaPartitionShardAllocator shardAllocator;
+    
     @Autowired
     public PekkoKafkaStreamingService(ActorSystem<Void> actorSystem,
                                      ObjectMapper objectMapper,
@@ -109,18 +146,19 @@ public class PekkoKafkaStreamingService {
             logger.warn("Pekko Kafka streaming is already running");
             return;
         }
+        isStopping.set(false);
         
         try {
-            logger.info("Starting Pekko Kafka streaming with parallelism={}, bufferSize={}", 
-                       processingParallelism, bufferSize);
+            logger.info("Starting Pekko Kafka streaming with lanes={}, parallelism={}, bufferSize={}, commitOffsets={}", 
+                       laneCount, processingParallelism, bufferSize, commitOffsets);
             
             // Load Kafka configuration based on active profile
             String configFile = determineConfigFile();
             var kafkaConfig = kafkaConfigManager.loadConfigurationFromYaml(configFile);
             
             // Create Pekko consumer settings using your working config
-            ConsumerSettings<String, String> consumerSettings = 
-                ConsumerSettings.create(actorSystem, new StringDeserializer(), new StringDeserializer())
+            ConsumerSettings<byte[], byte[]> consumerSettings = 
+                ConsumerSettings.create(actorSystem, new ByteArrayDeserializer(), new ByteArrayDeserializer())
                     .withBootstrapServers(kafkaConfig.getProperty("KAFKA_BOOTSTRAP_SERVERS"))
                     .withGroupId("pekko-event-streaming-consumer")
                     .withProperty(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest")
@@ -130,35 +168,22 @@ public class PekkoKafkaStreamingService {
                     .withProperty(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, "30000")
                     .withProperty(ConsumerConfig.HEARTBEAT_INTERVAL_MS_CONFIG, "3000");
             
-            // Create the reactive stream pipeline
-            CompletionStage<Done> streamCompletion = Consumer.plainSource(
-                    consumerSettings,
-                    Subscriptions.topics("QuestIncrementerDropperINSCallQueueDev", "QuestIncrementerDropperINSDigitalQueueDev")
-                )
-                .buffer(bufferSize, org.apache.pekko.stream.OverflowStrategy.backpressure())
-                .map(this::logIncomingMessage)
-                .map(this::parseKafkaMessage)
-                .filter(userEvent -> userEvent != null)
-                .groupBy(Integer.MAX_VALUE, userEvent -> userEvent.getUserId()) // User affinity grouping
-                .mapAsync(processingParallelism, this::processUserEventAsync)
-                .mergeSubstreams()
-                .toMat(Sink.foreach(this::logProcessingResult), (control, completion) -> {
-                    this.streamControl = control;
-                    return completion;
-                })
-                .run(actorSystem);
+            CompletionStage<Done> streamCompletion = commitOffsets
+                ? startCommittableStream(consumerSettings)
+                : startPlainStream(consumerSettings);
             
             isRunning.set(true);
             logger.info("Pekko Kafka streaming started successfully");
             
             // Handle completion and errors
             streamCompletion.whenComplete((done, throwable) -> {
+                isRunning.set(false);
                 if (throwable != null) {
                     logger.error("Pekko Kafka streaming completed with error", throwable);
+                    scheduleRestart();
                 } else {
                     logger.info("Pekko Kafka streaming completed successfully");
                 }
-                isRunning.set(false);
             });
             
         } catch (Exception e) {
@@ -169,239 +194,274 @@ public class PekkoKafkaStreamingService {
     }
     
     /**
-     * Logs incoming Kafka messages with detailed information.
+     * Restarts a failed stream after {@code restart-delay}. The new consumer resumes from
+     * the last committed offset, so events whose processing failed are consumed again.
      */
-    private ConsumerRecord<String, String> logIncomingMessage(ConsumerRecord<String, String> record) {
-        logger.info("=== PEKKO STREAMS RECEIVED MESSAGE ===");
-        logger.info("Topic: {}", record.topic());
-        logger.info("Key: {}", record.key());
-        logger.info("Value: {}", record.value());
-        logger.info("Partition: {}, Offset: {}", record.partition(), record.offset());
-        logger.info("Timestamp: {}", record.timestamp());
-        logger.info("=====================================");
-        
-        // Record Kafka event received
-        try {
-            String eventType = extractEventTypeFromMessage(record.key(), record.value());
-            String userId = extractUserIdFromMessage(record.key(), record.value());
-            recordPipelineEvent("kafka", eventType, userId, java.time.Duration.ofMillis(10));
-        } catch (Exception e) {
-            logger.warn("Failed to record Kafka pipeline event: {}", e.getMessage());
+    private void scheduleRestart() {
+        if (isStopping.get()) {
+            return;
         }
+        actorSystem.scheduler().scheduleOnce(
+            restartDelay,
+            () -> {
+                if (!isStopping.get()) {
+                    logger.info("Restarting failed Pekko Kafka streaming");
+                    startStreaming();
+                }
+            },
+            actorSystem.executionContext()
+        );
+    }
+    
+    /**
+     * Subscribes to the event topics. With Kafka-aligned sharding, partition assignments
+     * also move the matching user shards here; the topics must then have the same
+     * partition count and be keyed by userId.
+     */
+    private AutoSubscription subscription() {
+        AutoSubscription subscription = Subscriptions.topics(TOPICS);
+        return shardAllocator != null
+            ? subscription.withPartitionAssignmentHandler(shardAllocator)
+            : subscription;
+    }
+    
+    /**
+     * Runs the stream without committing offsets, routing users onto bounded lanes.
+     */
+    private CompletionStage<Done> startPlainStream(ConsumerSettings<byte[], byte[]> consumerSettings) {
+        return Consumer.plainSource(consumerSettings, subscription())
+            .buffer(bufferSize, org.apache.pekko.stream.OverflowStrategy.backpressure())
+            .map(this::receiveKafkaMessage)
+            .filter(userEvent -> userEvent != null)
+            .via(UserAffinityRouter.route(laneCount, UserEvent::getUserId,
+                createUserEventProcessingFlow(processingParallelism)))
+            .toMat(Sink.foreach(this::logProcessingResult), (control, completion) -> {
+                this.streamControl = control;
+                return completion;
+            })
+            .run(actorSystem);
+    }
+    
+    /**
+     * Runs the stream with at-least-once offset commits. Each assigned partition is its
+     * own substream whose mapAsync stage keeps offset order, so an offset reaches the
+     * committer only after the events before it were acknowledged by the persistent actor.
+     * Merging user lanes would reorder offsets, which is why this mode processes per
+     * partition instead. Commits are batched by count and time window.
+     */
+    private CompletionStage<Done> startCommittableStream(ConsumerSettings<byte[], byte[]> consumerSettings) {
+        CommitterSettings committerSettings = CommitterSettings.create(actorSystem)
+            .withMaxBatch(commitMaxBatch)
+            .withMaxInterval(commitMaxInterval);
+        
+        Consumer.DrainingControl<Done> drainingControl = 
+            Consumer.committablePartitionedSource(consumerSettings, subscription())
+                .mapAsyncUnordered(maxPartitions, partition -> 
+                    processCommittablePartition(partition.second())
+                        .runWith(Committer.sink(committerSettings), actorSystem))
+                .toMat(Sink.ignore(), Consumer::createDrainingControl)
+                .run(actorSystem);
         
-        return record;
+        this.streamControl = drainingControl;
+        return drainingControl.streamCompletion();
     }
     
     /**
-     * Extract event type from Kafka message for pipeline tracking.
+     * Processes one partition and emits each record's offset once it has been handled.
      */
-    private String extractEventTypeFromMessage(String key, String value) {
-        try {
-            String dataSource = key != null && key.contains(":") ? key : value;
-            if (dataSource != null && dataSource.contains(":")) {
-                String[] parts = dataSource.split(":");
-                if (parts.length >= 2) {
-                    return parts[1]; // Event type is typically the second part
+    Source<ConsumerMessage.CommittableOffset, NotUsed> processCommittablePartition(
+            Source<ConsumerMessage.CommittableMessage<byte[], byte[]>, NotUsed> partition) {
+        return partition
+            .map(message -> Pair.create(message.record(), message.committableOffset()))
+            .via(acknowledgedOffsets());
+    }
+    
+    /**
+     * Emits each record's offset once the persistent actor has stored its event, in record
+     * order. Unparseable records and rejected events still emit their offset so they are not
+     * redelivered forever; rejected events go to the dead-letter log. An event whose ask
+     * failed fails the stream instead, so neither its offset nor any later one is committed
+     * and the restarted consumer reads it again.
+     */
+    <O> Flow<Pair<ConsumerRecord<byte[], byte[]>, O>, O, NotUsed> acknowledgedOffsets() {
+        return Flow.<Pair<ConsumerRecord<byte[], byte[]>, O>>create()
+            .buffer(bufferSize, org.apache.pekko.stream.OverflowStrategy.backpressure())
+            .mapAsync(processingParallelism, recordAndOffset -> {
+                UserEvent userEvent = receiveKafkaMessage(recordAndOffset.first());
+                if (userEvent == null) {
+                    return CompletableFuture.completedFuture(recordAndOffset.second());
                 }
-            }
-        } catch (Exception e) {
-            logger.debug("Could not extract event type from message");
-        }
-        return "UNKNOWN";
+                
+                return processUserEventAsync(userEvent).thenApply(result -> {
+                    logProcessingResult(result);
+                    if (result instanceof ProcessingResult.Failed failed) {
+                        if (failed.cause() != null) {
+                            throw new IllegalStateException("Event " + failed.eventId() + " for user "
+                                + failed.userId() + " was not acknowledged: " + failed.reason(), failed.cause());
+                        }
+                        deadLetter(recordAndOffset.first(), failed);
+                    }
+                    return recordAndOffset.second();
+                });
+            });
     }
     
     /**
-     * Extract user ID from Kafka message for pipeline tracking.
+     * Logs a rejected event with its record coordinates and counts it as a "dead-letter"
+     * pipeline error; its offset is committed, so this is the only trace of it.
      */
-    private String extractUserIdFromMessage(String key, String value) {
+    private void deadLetter(ConsumerRecord<byte[], byte[]> record, ProcessingResult.Failed failed) {
+        logger.warn("PEKKO: Dead letter - Topic: {}, Partition: {}, Offset: {}, Key: '{}', userId: {}, reason: {}",
+                    record.topic(), record.partition(), record.offset(),
+                    ColonDelimitedEventParser.toDisplayString(record.key()), failed.userId(), failed.reason());
+        String eventType = failed.userEvent() != null ? failed.userEvent().getEventType() : "UNKNOWN";
+        recordPipelineError("dead-letter", failed.reason(), eventType, failed.userId());
+    }
+    
+    /**
+     * Parses a Kafka record and records the "kafka" pipeline stage from the parsed event,
+     * so each payload is scanned exactly once.
+     */
+    private UserEvent receiveKafkaMessage(ConsumerRecord<byte[], byte[]> record) {
+        UserEvent userEvent = parseKafkaMessage(record);
+        logIncomingMessage(record, userEvent);
+        return userEvent;
+    }
+    
+    /**
+     * Logs incoming Kafka messages. Payloads are only decoded for logging at debug level.
+     */
+    private void logIncomingMessage(ConsumerRecord<byte[], byte[]> record, UserEvent userEvent) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("PEKKO STREAMS RECEIVED MESSAGE - Topic: {}, Partition: {}, Offset: {}, Timestamp: {}, Key: '{}', Value: '{}'",
+                        record.topic(), record.partition(), record.offset(), record.timestamp(),
+                        ColonDelimitedEventParser.toDisplayString(record.key()),
+                        ColonDelimitedEventParser.toDisplayString(record.value()));
+        }
+        
+        // Record Kafka event received
         try {
-            String dataSource = key != null && key.contains("@") ? key : value;
-            if (dataSource != null && dataSource.contains("@")) {
-                String[] parts = dataSource.split("@");
-                if (parts.length >= 2) {
-                    return parts[1].split(":")[0]; // User ID is after @ and before next :
-                }
-            }
+            String eventType = userEvent != null ? userEvent.getEventType() : "UNKNOWN";
+            String userId = userEvent != null ? userEvent.getUserId() : "unknown-user";
+            recordPipelineEvent("kafka", eventType, userId, java.time.Duration.ofMillis(10));
         } catch (Exception e) {
-            logger.debug("Could not extract user ID from message");
+            logger.warn("Failed to record Kafka pipeline event: {}", e.getMessage());
         }
-        return "unknown-user";
     }
     
     /**
-     * Parses Kafka message using the same logic as Spring Kafka service.
-     * Supports both key-based and value-based parsing.
+     * Parses Kafka message with the same rules as the Spring Kafka service, using the shared
+     * single-pass byte parser. Supports both key-based and value-based parsing.
      */
-    private UserEvent parseKafkaMessage(ConsumerRecord<String, String> record) {
+    private UserEvent parseKafkaMessage(ConsumerRecord<byte[], byte[]> record) {
         try {
-            String key = record.key();
-            String value = record.value();
-            
-            logger.info("--- PEKKO PARSING MESSAGE ---");
-            logger.info("Raw Key: '{}'", key);
-            logger.info("Raw Value: '{}'", value);
-            logger.info("Key Length: {}", key != null ? key.length() : 0);
-            logger.info("Value Length: {}", value != null ? value.length() : 0);
-            
-            // Determine which format to use for parsing
-            String dataSource = null;
-            boolean useKeyForParsing = false;
-            
-            if (key != null && !key.trim().isEmpty()) {
-                // Check if key contains structured data (has colons and @)
-                if (key.contains(":") && key.contains("@")) {
-                    String[] keyParts = key.split(":");
-                    if (keyParts.length >= 3 && keyParts[0].contains("@")) {
-                        dataSource = key;
-                        useKeyForParsing = true;
-                        logger.info("PEKKO: Using KEY for parsing (structured format detected)");
-                    }
-                }
-            }
-            
-            // If key doesn't have structured data, try to use value
-            if (dataSource == null && value != null && !value.trim().isEmpty()) {
-                // Check if value contains structured data
-                if (value.contains(":") && value.contains("@")) {
-                    String[] valueParts = value.split(":");
-                    if (valueParts.length >= 3 && valueParts[0].contains("@")) {
-                        dataSource = value;
-                        useKeyForParsing = false;
-                        logger.info("PEKKO: Using VALUE for parsing (key appears to be hash: '{}')", key);
-                    }
-                }
-            }
-            
-            if (dataSource == null) {
-                logger.warn("PEKKO: No structured data found in key or value. Key: '{}', Value: '{}'", key, value);
-                return null;
-            }
-            
-            // Parse the structured data
-            String[] dataParts = dataSource.split(":");
-            logger.info("PEKKO: Data split into {} parts: {}", dataParts.length, java.util.Arrays.toString(dataParts));
-            
-            if (dataParts.length < 3) {
-                logger.warn("PEKKO: Invalid data format - expected at least 3 parts separated by ':', got {} parts: {}", 
-                           dataParts.length, dataSource);
+            UserEvent userEvent = ColonDelimitedEventParser.parseUserEvent(record.key(), record.value());
+            if (userEvent == null) {
+                logger.warn("PEKKO: No structured data found in key or value. Key: '{}', Value: '{}'",
+                           ColonDelimitedEventParser.toDisplayString(record.key()),
+                           ColonDelimitedEventParser.toDisplayString(record.value()));
                 return null;
             }
             
-            // Extract timestamp and user ID from first part
-            String timestampUserPart = dataParts[0];
-            logger.info("PEKKO: Timestamp-User part: '{}'", timestampUserPart);
-            
-            String[] timestampUser = timestampUserPart.split("@");
-            logger.info("PEKKO: Timestamp-User split into {} parts: {}", timestampUser.length, java.util.Arrays.toString(timestampUser));
-            
-            if (timestampUser.length != 2) {
-                logger.warn("PEKKO: Invalid timestamp@userid format - expected 2 parts separated by '@', got {} parts: {}", 
-                           timestampUser.length, timestampUserPart);
-                return null;
-            }
-            
-            // Extract the components
-            String timestampStr = timestampUser[0];
-            String userId = timestampUser[1];
-            String action = dataParts[1];
-            String contactId = dataParts[2];
-            
-            logger.info("PEKKO: Extracted - Timestamp: '{}', UserId: '{}', Action: '{}', ContactId: '{}'", 
-                       timestampStr, userId, action, contactId);
-            
-            // Create UserEvent
-            UserEvent userEvent = new UserEvent();
             userEvent.setEventId(java.util.UUID.randomUUID().toString());
-            userEvent.setUserId(userId);
-            userEvent.setEventType(action);
-            userEvent.setContactId(Long.parseLong(contactId));
-            userEvent.setTimestamp(LocalDateTime.now());
-            
-            // Set event data based on source
-            if (useKeyForParsing) {
-                userEvent.setEventData(value != null ? value : "");
-            } else {
-                userEvent.setEventData(dataSource);
-            }
             
             // Add Kafka metadata
             userEvent.setSource("pekko-kafka-" + record.topic());
             userEvent.setPartition(record.partition());
             userEvent.setOffset(record.offset());
             
-            logger.info("PEKKO: Successfully parsed UserEvent: userId={}, eventType={}, contactId={}, source={}", 
-                       userId, action, contactId, userEvent.getSource());
+            logger.debug("PEKKO: Parsed UserEvent: userId={}, eventType={}, contactId={}, source={}", 
+                        userEvent.getUserId(), userEvent.getEventType(), userEvent.getContactId(), userEvent.getSource());
             
             return userEvent;
             
         } catch (Exception e) {
             logger.error("PEKKO: Error parsing Kafka message - Key: '{}', Value: '{}', Error: {}", 
-                        record.key(), record.value(), e.getMessage());
+                        ColonDelimitedEventParser.toDisplayString(record.key()),
+                        ColonDelimitedEventParser.toDisplayString(record.value()), e.getMessage());
             return null;
         }
     }
     
+    /**
+     * Creates the asynchronous processing stage. Each element composes the in-memory
+     * aggregation update with the PersistentUserActor ask, so no dispatcher thread is
+     * parked while the actor persists and throughput is bounded by {@code parallelism}.
+     */
+    Flow<UserEvent, ProcessingResult, NotUsed> createUserEventProcessingFlow(int parallelism) {
+        return Flow.<UserEvent>create()
+            .mapAsync(parallelism, this::processUserEventAsync);
+    }
+    
     /**
      * Processes UserEvent asynchronously with user affinity.
-     * This is where you'd integrate with your Pekko Cluster UserActors.
+     * Records per-stage latency: "pekko" for the aggregation update and "h2" for the
+     * persistent actor round trip.
      */
-    private CompletionStage<ProcessingResult> processUserEventAsync(UserEvent userEvent) {
-        return java.util.concurrent.CompletableFuture.supplyAsync(() -> {
-            long startTime = System.currentTimeMillis();
+    CompletionStage<ProcessingResult> processUserEventAsync(UserEvent userEvent) {
+        long startNanos = System.nanoTime();
+        
+        try {
+            logger.debug("PEKKO: Processing UserEvent: userId={}, eventType={}, contactId={}, source={}", 
+                       userEvent.getUserId(), userEvent.getEventType(), 
+                       userEvent.getContactId(), userEvent.getSource());
             
-            try {
-                logger.info("PEKKO: Processing UserEvent: userId={}, eventType={}, contactId={}, source={}", 
-                           userEvent.getUserId(), userEvent.getEventType(), 
-                           userEvent.getContactId(), userEvent.getSource());
-                
-                // Record Pekko processing start
-                recordPipelineEvent("pekko", userEvent.getEventType(), userEvent.getUserId(), 
-                    java.time.Duration.ofMillis(System.currentTimeMillis() - startTime));
-                
-                // Process event for aggregation
-                aggregationService.processEvent(userEvent);
-                
-                // Process through PersistentUserService to store in H2 event journal
-                var emailEvent = convertToEmailEvent(userEvent);
-                var persistentResult = persistentUserService.processEvent(emailEvent).toCompletableFuture().get();
-                
-                logger.info("PEKKO: Event stored in H2 journal: success={}, message={}", 
-                           persistentResult.success, persistentResult.message);
-                
-                // Record H2 persistence
-                if (persistentResult.success) {
-                    recordPipelineEvent("h2", userEvent.getEventType(), userEvent.getUserId(), 
-                        java.time.Duration.ofMillis(System.currentTimeMillis() - startTime));
-                } else {
-                    recordPipelineError("h2", persistentResult.message, userEvent.getEventType(), userEvent.getUserId());
-                }
-                
-                // Small processing delay
-                Thread.sleep(10);
-                
-                logger.info("PEKKO: Successfully processed UserEvent from Kafka: {}", userEvent.getUserId());
-                
-                return new ProcessingResult.Success(
-                    userEvent.getEventId(),
-                    userEvent.getUserId(),
-                    LocalDateTime.now(),
-                    userEvent
-                );
-                
-            } catch (Exception e) {
-                logger.error("PEKKO: Error processing UserEvent: {}", e.getMessage(), e);
-                
-                // Record pipeline error
-                recordPipelineError("pekko", e.getMessage(), userEvent.getEventType(), userEvent.getUserId());
-                
-                return new ProcessingResult.Failed(
-                    userEvent.getEventId(),
-                    userEvent.getUserId(),
-                    e.getMessage(),
-                    userEvent
-                );
-            }
-        }, actorSystem.executionContext());
+            // Process event for aggregation
+            aggregationService.processEvent(userEvent);
+            recordPipelineEvent("pekko", userEvent.getEventType(), userEvent.getUserId(), 
+                java.time.Duration.ofNanos(System.nanoTime() - startNanos));
+            
+            // Process through PersistentUserService to store in the event journal
+            var emailEvent = convertToEmailEvent(userEvent);
+            long askStartNanos = System.nanoTime();
+            
+            return persistentUserService.storeEvent(emailEvent)
+                .thenApply(persistentResult -> {
+                    java.time.Duration askLatency = java.time.Duration.ofNanos(System.nanoTime() - askStartNanos);
+                    
+                    if (persistentResult.success) {
+                        recordPipelineEvent("h2", userEvent.getEventType(), userEvent.getUserId(), askLatency);
+                    } else {
+                        recordPipelineError("h2", persistentResult.message, userEvent.getEventType(), userEvent.getUserId());
+                    }
+                    
+                    logger.debug("PEKKO: Event stored in journal: success={}, message={}, latency={}ms", 
+                               persistentResult.success, persistentResult.message, askLatency.toMillis());
+                    
+                    if (!persistentResult.success) {
+                        return (ProcessingResult) new ProcessingResult.Failed(
+                            userEvent.getEventId(), userEvent.getUserId(), persistentResult.message, null, userEvent);
+                    }
+                    return (ProcessingResult) new ProcessingResult.Success(
+                        userEvent.getEventId(),
+                        userEvent.getUserId(),
+                        LocalDateTime.now(),
+                        userEvent,
+                        java.time.Duration.ofNanos(System.nanoTime() - startNanos)
+                    );
+                })
+                .exceptionally(throwable -> failed(userEvent, throwable));
+            
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(failed(userEvent, e));
+        }
+    }
+    
+    private ProcessingResult failed(UserEvent userEvent, Throwable error) {
+        Throwable throwable = error instanceof java.util.concurrent.CompletionException && error.getCause() != null
+            ? error.getCause() : error;
+        logger.error("PEKKO: Error processing UserEvent: {}", throwable.getMessage(), throwable);
+        
+        // Record pipeline error
+        recordPipelineError("pekko", throwable.getMessage(), userEvent.getEventType(), userEvent.getUserId());
+        
+        return new ProcessingResult.Failed(
+            userEvent.getEventId(),
+            userEvent.getUserId(),
+            throwable.getMessage(),
+            throwable,
+            userEvent
+        );
     }
     
     /**
@@ -409,8 +469,9 @@ public class PekkoKafkaStreamingService {
      */
     private void logProcessingResult(ProcessingResult result) {
         if (result instanceof ProcessingResult.Success success) {
-            logger.info("PEKKO: ✅ Processing SUCCESS: {} for user {} at {}", 
-                       success.eventId(), success.userId(), success.processedAt());
+            logger.info("PEKKO: ✅ Processing SUCCESS: {} for user {} at {} in {}ms", 
+                       success.eventId(), success.userId(), success.processedAt(),
+                       success.processingDuration().toMillis());
         } else if (result instanceof ProcessingResult.Failed failed) {
             logger.error("PEKKO: ❌ Processing FAILED: {} for user {} - {}", 
                         failed.eventId(), failed.userId(), failed.reason());
@@ -421,6 +482,8 @@ public class PekkoKafkaStreamingService {
      * Stops the Pekko Kafka streaming gracefully.
      */
     public synchronized CompletionStage<Done> stopStreaming() {
+        // Also cancels a restart scheduled after a failure
+        isStopping.set(true);
         if (!isRunning.get()) {
             logger.warn("Pekko Kafka streaming is not running");
             return java.util.concurrent.CompletableFuture.completedFuture(Done.getInstance());
@@ -429,7 +492,12 @@ public class PekkoKafkaStreamingService {
         logger.info("Stopping Pekko Kafka streaming...");
         
         if (streamControl != null) {
-            return streamControl.shutdown()
+            // Draining lets in-flight events finish so their offsets are committed
+            CompletionStage<Done> shutdown = streamControl instanceof Consumer.DrainingControl<?> drainingControl
+                ? drainingControl.drainAndShutdown(actorSystem.executionContext()).thenApply(result -> Done.getInstance())
+                : streamControl.shutdown();
+            
+            return shutdown
                 .whenComplete((done, throwable) -> {
                     if (throwable != null) {
                         logger.error("Error during Pekko Kafka streaming shutdown", throwable);
@@ -519,36 +587,44 @@ public class PekkoKafkaStreamingService {
             private final String userId;
             private final LocalDateTime processedAt;
             private final UserEvent userEvent;
+            private final java.time.Duration processingDuration;
             
-            public Success(String eventId, String userId, LocalDateTime processedAt, UserEvent userEvent) {
+            public Success(String eventId, String userId, LocalDateTime processedAt, UserEvent userEvent,
+                          java.time.Duration processingDuration) {
                 this.eventId = eventId;
                 this.userId = userId;
                 this.processedAt = processedAt;
                 this.userEvent = userEvent;
+                this.processingDuration = processingDuration;
             }
             
             @Override public String eventId() { return eventId; }
             @Override public String userId() { return userId; }
             public LocalDateTime processedAt() { return processedAt; }
             public UserEvent userEvent() { return userEvent; }
+            public java.time.Duration processingDuration() { return processingDuration; }
         }
         
         public static class Failed extends ProcessingResult {
             private final String eventId;
             private final String userId;
             private final String reason;
+            private final Throwable cause;
             private final UserEvent userEvent;
             
-            public Failed(String eventId, String userId, String reason, UserEvent userEvent) {
+            // A null cause means the actor rejected the event; otherwise the ask failed
+            public Failed(String eventId, String userId, String reason, Throwable cause, UserEvent userEvent) {
                 this.eventId = eventId;
                 this.userId = userId;
                 this.reason = reason;
+                this.cause = cause;
                 this.userEvent = userEvent;
             }
             
             @Override public String eventId() { return eventId; }
             @Override public String userId() { return userId; }
             public String reason() { return reason; }
+            public Throwable cause() { return cause; }
             public UserEvent userEvent() { return userEvent; }
         }
     }
@@ -0,0 +1,183 @@
+package com.eventstreaming.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Event counts keyed by event type name.
+ * Names of {@link EventType} constants are counted in a long[] indexed by ordinal, so an
+ * increment is an array store without hashing or boxing. Any other name (e.g. raw Kafka
+ * actions) goes to a small overflow map. JSON and Java serialization write the same
+ * name-to-count form as a {@code Map<String, Long>}, with zero counts omitted.
+ */
+public final class EventTypeCounts implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final EventType[] TYPES = EventType.values();
+    private static final Map<String, EventType> TYPES_BY_NAME = new HashMap<>();
+
+    static {
+        for (EventType type : TYPES) {
+            TYPES_BY_NAME.put(type.name(), type);
+        }
+    }
+
+    /** Name used for events without a type. */
+    public static final String UNKNOWN_TYPE = "UNKNOWN";
+
+    private transient long[] counts = new long[TYPES.length];
+    private transient Map<String, long[]> overflow;
+    private transient long total;
+
+    public EventTypeCounts() {
+    }
+
+    @JsonCreator
+    public static EventTypeCounts fromMap(Map<String, Long> counts) {
+        EventTypeCounts result = new EventTypeCounts();
+        if (counts != null) {
+            counts.forEach((eventType, count) -> result.add(eventType, count != null ? count : 0L));
+        }
+        return result;
+    }
+
+    public void increment(EventType eventType) {
+        counts[eventType.ordinal()]++;
+        total++;
+    }
+
+    public void increment(String eventType) {
+        add(eventType, 1L);
+    }
+
+    public void add(String eventType, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        String name = eventType != null ? eventType : UNKNOWN_TYPE;
+        EventType known = TYPES_BY_NAME.get(name);
+        if (known != null) {
+            counts[known.ordinal()] += delta;
+        } else {
+            if (overflow == null) {
+                overflow = new HashMap<>();
+            }
+            overflow.computeIfAbsent(name, key -> new long[1])[0] += delta;
+        }
+        total += delta;
+    }
+
+    /**
+     * Adds all counts of {@code other} to this instance.
+     */
+    public void addAll(EventTypeCounts other) {
+        if (other == null) {
+            return;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+            total += other.counts[i];
+        }
+        if (other.overflow != null) {
+            other.overflow.forEach((eventType, count) -> add(eventType, count[0]));
+        }
+    }
+
+    public long get(EventType eventType) {
+        return counts[eventType.ordinal()];
+    }
+
+    public long get(String eventType) {
+        EventType known = eventType != null ? TYPES_BY_NAME.get(eventType) : null;
+        if (known != null) {
+            return counts[known.ordinal()];
+        }
+        long[] count = overflow != null ? overflow.get(eventType != null ? eventType : UNKNOWN_TYPE) : null;
+        return count != null ? count[0] : 0L;
+    }
+
+    public long total() {
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return total == 0;
+    }
+
+    public EventTypeCounts copy() {
+        EventTypeCounts copy = new EventTypeCounts();
+        System.arraycopy(counts, 0, copy.counts, 0, counts.length);
+        if (overflow != null) {
+            copy.overflow = new HashMap<>(overflow.size());
+            overflow.forEach((eventType, count) -> copy.overflow.put(eventType, new long[] {count[0]}));
+        }
+        copy.total = total;
+        return copy;
+    }
+
+    /**
+     * Returns a new map of non-zero counts: event types in enum order, then other names.
+     */
+    @JsonValue
+    public Map<String, Long> toMap() {
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                map.put(TYPES[i].name(), counts[i]);
+            }
+        }
+        if (overflow != null) {
+            overflow.forEach((eventType, count) -> {
+                if (count[0] != 0) {
+                    map.put(eventType, count[0]);
+                }
+            });
+        }
+        return map;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        Map<String, Long> map = toMap();
+        out.writeInt(map.size());
+        for (Map.Entry<String, Long> entry : map.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        counts = new long[TYPES.length];
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            add(in.readUTF(), in.readLong());
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof EventTypeCounts other)) return false;
+        return toMap().equals(other.toMap());
+    }
+
+    @Override
+    public int hashCode() {
+        return toMap().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+}
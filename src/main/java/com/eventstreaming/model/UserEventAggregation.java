@@ -2,7 +2,6 @@ package com.eventstreaming.model;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -13,8 +12,7 @@ public class UserEventAggregation {
     @JsonProperty("userId")
     private String userId;
     
-    @JsonProperty("eventTypeCounts")
-    private Map<String, Long> eventTypeCounts = new HashMap<>();
+    private EventTypeCounts eventTypeCounts = new EventTypeCounts();
     
     @JsonProperty("totalEvents")
     private Long totalEvents = 0L;
@@ -47,8 +45,7 @@ public class UserEventAggregation {
             return;
         }
         
-        String eventType = event.getEventType();
-        eventTypeCounts.merge(eventType, 1L, Long::sum);
+        eventTypeCounts.increment(event.getEventType());
         totalEvents++;
         
         LocalDateTime eventTime = event.getTimestamp();
@@ -68,7 +65,7 @@ public class UserEventAggregation {
      * Gets the count for a specific event type.
      */
     public Long getCountForEventType(String eventType) {
-        return eventTypeCounts.getOrDefault(eventType, 0L);
+        return eventTypeCounts.get(eventType);
     }
     
     /**
@@ -80,12 +77,10 @@ public class UserEventAggregation {
         }
         
         // Merge event type counts
-        for (Map.Entry<String, Long> entry : other.getEventTypeCounts().entrySet()) {
-            eventTypeCounts.merge(entry.getKey(), entry.getValue(), Long::sum);
-        }
+        eventTypeCounts.addAll(other.eventTypeCounts);
         
         // Update total events
-        totalEvents = eventTypeCounts.values().stream().mapToLong(Long::longValue).sum();
+        totalEvents = eventTypeCounts.total();
         
         // Update timestamps
         if (other.getFirstEventTime() != null) {
@@ -124,14 +119,27 @@ public class UserEventAggregation {
         this.userId = userId;
     }
     
+    /**
+     * Returns a snapshot of the non-zero counts per event type.
+     */
+    @JsonProperty("eventTypeCounts")
     public Map<String, Long> getEventTypeCounts() {
-        return eventTypeCounts;
+        return eventTypeCounts.toMap();
     }
     
+    @JsonProperty("eventTypeCounts")
     public void setEventTypeCounts(Map<String, Long> eventTypeCounts) {
-        this.eventTypeCounts = eventTypeCounts != null ? eventTypeCounts : new HashMap<>();
+        this.eventTypeCounts = EventTypeCounts.fromMap(eventTypeCounts);
         // Recalculate total
-        this.totalEvents = this.eventTypeCounts.values().stream().mapToLong(Long::longValue).sum();
+        this.totalEvents = this.eventTypeCounts.total();
+    }
+    
+    /**
+     * Adds {@code count} events of one type, e.g. from a grouped historical query.
+     */
+    public void addEventTypeCount(String eventType, long count) {
+        eventTypeCounts.add(eventType, count);
+        totalEvents = eventTypeCounts.total();
     }
     
     public Long getTotalEvents() {
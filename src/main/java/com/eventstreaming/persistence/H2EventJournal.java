@@ -1,24 +1,39 @@
 package com.eventstreaming.persistence;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.pekko.NotUsed;
+import org.apache.pekko.japi.Pair;
+import org.apache.pekko.stream.ActorAttributes;
+import org.apache.pekko.stream.javadsl.Source;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * H2-based event journal for storing Pekko persistence events.
  * This provides a reliable alternative to LevelDB for development and testing.
  * Only active when H2-related profiles are enabled (test, h2).
+ * Appends go through a write-behind queue flushed in JDBC batches, with sequence numbers
+ * assigned from in-memory counters seeded from the table once at startup.
  */
 @Component
 @Profile({"test", "h2"})
@@ -26,12 +41,32 @@ public class H2EventJournal {
     
     private static final Logger logger = LoggerFactory.getLogger(H2EventJournal.class);
     
+    // JDBC pages are fetched on the dispatcher Pekko reserves for blocking calls
+    private static final String BLOCKING_DISPATCHER = "pekko.actor.default-blocking-io-dispatcher";
+    
+    // Cursor value marking that the last page was short, so there is nothing left to read
+    private static final long END_OF_EVENTS = Long.MAX_VALUE;
+    
     @Autowired
     private JdbcTemplate jdbcTemplate;
     
     @Autowired
     private ObjectMapper objectMapper;
     
+    @Value("${app.journal.write-behind.queue-capacity:10000}")
+    private int writeQueueCapacity;
+    
+    @Value("${app.journal.write-behind.batch-size:500}")
+    private int writeBatchSize;
+    
+    @Value("${app.journal.write-behind.flush-interval:10ms}")
+    private Duration writeFlushInterval;
+    
+    // Highest sequence number handed out per persistence ID
+    private final Map<String, AtomicLong> sequenceNumbers = new ConcurrentHashMap<>();
+    
+    private H2JournalWriter writer;
+    
     // CRITICAL DIAGNOSTIC LOGGING - CONSTRUCTOR
     public H2EventJournal() {
         System.out.println("\n" + "⚡".repeat(100));
@@ -84,6 +119,12 @@ public class H2EventJournal {
             
             logger.info("✅ H2 Event Journal schema initialized successfully");
             
+            seedSequenceNumbers();
+            writer = new H2JournalWriter(jdbcTemplate, writeQueueCapacity, writeBatchSize, writeFlushInterval);
+            writer.start();
+            logger.info("✅ H2 journal writer started (queue={}, batch={}, flushInterval={})",
+                writeQueueCapacity, writeBatchSize, writeFlushInterval);
+            
         } catch (Exception e) {
             System.out.println("💥💥💥 H2EVENTJOURNAL SCHEMA CREATION FAILED 💥💥💥");
             System.out.println("💥💥💥 ERROR: " + e.getMessage() + " 💥💥💥");
@@ -94,8 +135,61 @@ public class H2EventJournal {
         }
     }
     
+    @PreDestroy
+    public void shutdown() {
+        if (writer != null) {
+            writer.stop(Duration.ofSeconds(10));
+        }
+    }
+    
+    /**
+     * Loads the highest stored sequence number of every persistence ID in one query.
+     */
+    private void seedSequenceNumbers() {
+        jdbcTemplate.query(
+            "SELECT persistence_id, MAX(sequence_nr) FROM event_journal GROUP BY persistence_id",
+            rs -> {
+                sequenceNumbers.put(rs.getString(1), new AtomicLong(rs.getLong(2)));
+            });
+        logger.info("Seeded journal sequence numbers for {} persistence IDs", sequenceNumbers.size());
+    }
+    
+    /**
+     * Appends an event with the next sequence number of its persistence ID.
+     * The row is written by the write-behind writer; the returned future completes with
+     * the sequence number once the batch containing it is committed. If the write queue is
+     * full the future fails with {@link RejectedExecutionException}, leaving a gap in the
+     * sequence numbers.
+     */
+    public CompletableFuture<Long> appendEvent(String persistenceId, Object event) {
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        try {
+            String eventType = event.getClass().getSimpleName();
+            String eventData = objectMapper.writeValueAsString(event);
+            long sequenceNr = sequenceNumbers.computeIfAbsent(persistenceId, id -> new AtomicLong()).incrementAndGet();
+            
+            H2JournalWriter.PendingWrite write = new H2JournalWriter.PendingWrite(
+                persistenceId, sequenceNr, eventType, eventData, LocalDateTime.now(), result);
+            if (writer == null || !writer.offer(write)) {
+                result.completeExceptionally(new RejectedExecutionException(
+                    "H2 journal write queue is full or stopped, dropping event seq=" + sequenceNr + " for " + persistenceId));
+            }
+        } catch (Exception e) {
+            logger.error("Failed to enqueue event for {}: {}", persistenceId, e.getMessage(), e);
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+    
     /**
-     * Store an event in the H2 journal.
+     * Number of events accepted by {@link #appendEvent} but not yet picked up by the writer.
+     */
+    public int getPendingWriteCount() {
+        return writer != null ? writer.pendingWrites() : 0;
+    }
+    
+    /**
+     * Store an event in the H2 journal synchronously, with a sequence number chosen by the caller.
      */
     public void persistEvent(String persistenceId, long sequenceNr, Object event) {
         try {
@@ -109,6 +203,7 @@ public class H2EventJournal {
                 persistenceId, sequenceNr, eventType, eventData, LocalDateTime.now()
             );
             
+            sequenceNumbers.computeIfAbsent(persistenceId, id -> new AtomicLong()).accumulateAndGet(sequenceNr, Math::max);
             logger.debug("Persisted event: {} seq={} for {}", eventType, sequenceNr, persistenceId);
             
         } catch (Exception e) {
@@ -143,6 +238,94 @@ public class H2EventJournal {
         }
     }
     
+    /**
+     * Keyset page of events: up to {@code limit} events with a sequence number above
+     * {@code afterSequenceNr}, in order. Pass the last returned sequence number to get the
+     * next page; the query is an index range scan however deep the page is.
+     */
+    public List<EventJournalEntry> getEventsAfter(String persistenceId, long afterSequenceNr, int limit) {
+        try {
+            String sql = """
+                SELECT persistence_id, sequence_nr, event_type, event_data, timestamp
+                FROM event_journal
+                WHERE persistence_id = ? AND sequence_nr > ?
+                ORDER BY sequence_nr
+                LIMIT ?
+                """;
+            
+            return jdbcTemplate.query(sql, new EventJournalRowMapper(), persistenceId, afterSequenceNr, limit);
+            
+        } catch (Exception e) {
+            logger.error("Failed to retrieve events for {} after {}: {}", persistenceId, afterSequenceNr, e.getMessage(), e);
+            throw new RuntimeException("Failed to retrieve events", e);
+        }
+    }
+    
+    /**
+     * Keyset page of distinct persistence IDs greater than {@code afterPersistenceId}, in order.
+     */
+    public List<String> getPersistenceIdsAfter(String afterPersistenceId, int limit) {
+        try {
+            String sql = """
+                SELECT DISTINCT persistence_id
+                FROM event_journal
+                WHERE persistence_id > ?
+                ORDER BY persistence_id
+                LIMIT ?
+                """;
+            
+            return jdbcTemplate.queryForList(sql, String.class, afterPersistenceId, limit);
+            
+        } catch (Exception e) {
+            logger.error("Failed to retrieve persistence IDs after {}: {}", afterPersistenceId, e.getMessage(), e);
+            throw new RuntimeException("Failed to retrieve persistence IDs", e);
+        }
+    }
+    
+    /**
+     * Streams events of a persistence ID starting at {@code fromSequenceNr}, reading one
+     * keyset page of {@code pageSize} rows at a time as downstream demands more. At most
+     * one page is held in memory regardless of how many events the journal holds.
+     */
+    public Source<EventJournalEntry, NotUsed> streamEvents(String persistenceId, long fromSequenceNr,
+                                                           long maxEvents, int pageSize) {
+        return Source.unfold(fromSequenceNr - 1, afterSequenceNr -> {
+                if (afterSequenceNr == END_OF_EVENTS) {
+                    return Optional.<Pair<Long, List<EventJournalEntry>>>empty();
+                }
+                List<EventJournalEntry> page = getEventsAfter(persistenceId, afterSequenceNr, pageSize);
+                if (page.isEmpty()) {
+                    return Optional.<Pair<Long, List<EventJournalEntry>>>empty();
+                }
+                long next = page.size() < pageSize ? END_OF_EVENTS : page.get(page.size() - 1).getSequenceNr();
+                return Optional.of(Pair.create(next, page));
+            })
+            .<EventJournalEntry>mapConcat(page -> page)
+            .take(maxEvents)
+            .withAttributes(ActorAttributes.dispatcher(BLOCKING_DISPATCHER));
+    }
+    
+    /**
+     * Streams the distinct persistence IDs starting with {@code prefix}, in order, one keyset
+     * page at a time.
+     */
+    public Source<String, NotUsed> streamPersistenceIds(String prefix, int pageSize) {
+        return Source.unfold(Optional.of(prefix), after -> {
+                if (after.isEmpty()) {
+                    return Optional.<Pair<Optional<String>, List<String>>>empty();
+                }
+                List<String> page = getPersistenceIdsAfter(after.get(), pageSize);
+                if (page.isEmpty()) {
+                    return Optional.<Pair<Optional<String>, List<String>>>empty();
+                }
+                Optional<String> next = page.size() < pageSize ? Optional.empty() : Optional.of(page.get(page.size() - 1));
+                return Optional.of(Pair.create(next, page));
+            })
+            .<String>mapConcat(page -> page)
+            .takeWhile(persistenceId -> persistenceId.startsWith(prefix))
+            .withAttributes(ActorAttributes.dispatcher(BLOCKING_DISPATCHER));
+    }
+    
     /**
      * Get all persistence IDs that have events.
      */
@@ -196,6 +379,7 @@ public class H2EventJournal {
     public void clearAllEvents() {
         try {
             jdbcTemplate.update("DELETE FROM event_journal");
+            sequenceNumbers.clear();
             logger.info("Cleared all events from H2 journal");
             
         } catch (Exception e) {
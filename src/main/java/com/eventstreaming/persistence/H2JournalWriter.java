@@ -0,0 +1,180 @@
+package com.eventstreaming.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind writer for the H2 event journal.
+ * Callers enqueue rows into a bounded queue; a single writer thread inserts them with one
+ * JDBC batch and one commit per flush. A flush happens when {@code batchSize} rows are
+ * queued or {@code flushInterval} after the first row of a batch arrived, whichever is
+ * first. Each row's future completes once its batch is committed.
+ */
+final class H2JournalWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(H2JournalWriter.class);
+
+    private static final String INSERT_SQL = """
+        INSERT INTO event_journal (persistence_id, sequence_nr, event_type, event_data, timestamp)
+        VALUES (?, ?, ?, ?, ?)
+        """;
+
+    // How long an idle writer waits before re-checking whether it was stopped
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    record PendingWrite(String persistenceId,
+                        long sequenceNr,
+                        String eventType,
+                        String eventData,
+                        LocalDateTime timestamp,
+                        CompletableFuture<Long> result) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlockingQueue<PendingWrite> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    H2JournalWriter(JdbcTemplate jdbcTemplate, int queueCapacity, int batchSize, Duration flushInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.thread = new Thread(this::run, "h2-journal-writer");
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    /**
+     * Enqueues a row without blocking. Returns false when the queue is full or the writer
+     * is stopped; the caller decides how to surface that.
+     */
+    boolean offer(PendingWrite write) {
+        return running && queue.offer(write);
+    }
+
+    int pendingWrites() {
+        return queue.size();
+    }
+
+    /**
+     * Stops accepting rows, flushes what is already queued and waits for the writer thread.
+     * Rows still queued after the timeout are failed.
+     */
+    void stop(Duration timeout) {
+        running = false;
+        try {
+            thread.join(timeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<PendingWrite> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        if (!abandoned.isEmpty()) {
+            logger.warn("H2 journal writer stopped with {} unwritten events", abandoned.size());
+            IllegalStateException error = new IllegalStateException("H2 journal writer stopped");
+            abandoned.forEach(write -> write.result().completeExceptionally(error));
+        }
+    }
+
+    private void run() {
+        List<PendingWrite> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                write(batch);
+                return;
+            } catch (Exception e) {
+                logger.error("Unexpected error in H2 journal writer: {}", e.getMessage(), e);
+                batch.forEach(write -> write.result().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<PendingWrite> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            insert(batch);
+            batch.forEach(write -> write.result().complete(write.sequenceNr()));
+            logger.debug("Flushed {} events to H2 journal", batch.size());
+        } catch (Exception e) {
+            if (batch.size() == 1) {
+                logger.error("Failed to persist event for {}: {}", batch.get(0).persistenceId(), e.getMessage());
+                batch.get(0).result().completeExceptionally(e);
+                return;
+            }
+            // One bad row rolls back the whole batch; retry row by row so only that row fails
+            logger.warn("Batch of {} journal events failed, retrying individually: {}", batch.size(), e.getMessage());
+            for (PendingWrite write : batch) {
+                write(List.of(write));
+            }
+        }
+    }
+
+    private void insert(List<PendingWrite> batch) {
+        jdbcTemplate.execute((ConnectionCallback<int[]>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                for (PendingWrite write : batch) {
+                    statement.setString(1, write.persistenceId());
+                    statement.setLong(2, write.sequenceNr());
+                    statement.setString(3, write.eventType());
+                    statement.setString(4, write.eventData());
+                    statement.setTimestamp(5, Timestamp.valueOf(write.timestamp()));
+                    statement.addBatch();
+                }
+                int[] counts = statement.executeBatch();
+                connection.commit();
+                return counts;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+    }
+}
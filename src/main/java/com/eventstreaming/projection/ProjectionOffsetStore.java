@@ -0,0 +1,64 @@
+package com.eventstreaming.projection;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * Sequence offsets of the projections in {@code projection_offset_store}, one row per
+ * projection name and key. Offsets are read and written inside the transaction that applies
+ * the projected events, which is what makes the projections exactly-once.
+ */
+final class ProjectionOffsetStore {
+
+    // Manifest Pekko Projections uses for sequence (long) offsets
+    private static final String OFFSET_MANIFEST = "SEQ";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    ProjectionOffsetStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Returns the stored offset without locking it, or 0 when the projection has not stored
+     * one yet.
+     */
+    long readOffset(String projectionName, String projectionKey) {
+        List<String> offsets = jdbcTemplate.queryForList(
+            "SELECT current_offset FROM projection_offset_store WHERE projection_name = ? AND projection_key = ?",
+            String.class, projectionName, projectionKey);
+        return offsets.isEmpty() ? 0L : Long.parseLong(offsets.get(0));
+    }
+
+    /**
+     * Returns the stored offset and locks its row until the surrounding transaction ends,
+     * creating the row at offset 0 when it does not exist yet. Must be called inside a
+     * transaction.
+     */
+    long lockOffset(String projectionName, String projectionKey) {
+        List<String> offsets = jdbcTemplate.queryForList(
+            "SELECT current_offset FROM projection_offset_store WHERE projection_name = ? AND projection_key = ? FOR UPDATE",
+            String.class, projectionName, projectionKey);
+        if (!offsets.isEmpty()) {
+            return Long.parseLong(offsets.get(0));
+        }
+        try {
+            jdbcTemplate.update(
+                "INSERT INTO projection_offset_store (projection_name, projection_key, current_offset, manifest, mergeable) " +
+                "VALUES (?, ?, '0', ?, FALSE)",
+                projectionName, projectionKey, OFFSET_MANIFEST);
+        } catch (DuplicateKeyException e) {
+            // Another node created the row first; lock it like any other batch
+            return lockOffset(projectionName, projectionKey);
+        }
+        return 0L;
+    }
+
+    void saveOffset(String projectionName, String projectionKey, long offset) {
+        jdbcTemplate.update(
+            "UPDATE projection_offset_store SET current_offset = ? WHERE projection_name = ? AND projection_key = ?",
+            String.valueOf(offset), projectionName, projectionKey);
+    }
+}
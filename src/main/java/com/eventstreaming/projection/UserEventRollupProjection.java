@@ -0,0 +1,266 @@
+package com.eventstreaming.projection;
+
+import com.eventstreaming.cluster.PersistentUserActor;
+import com.eventstreaming.cluster.UserActorEvent;
+import org.apache.pekko.NotUsed;
+import org.apache.pekko.actor.typed.ActorSystem;
+import org.apache.pekko.actor.typed.javadsl.Adapter;
+import org.apache.pekko.japi.Pair;
+import org.apache.pekko.serialization.Serialization;
+import org.apache.pekko.serialization.SerializationExtension;
+import org.apache.pekko.stream.ActorAttributes;
+import org.apache.pekko.stream.javadsl.Source;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Projection that keeps {@code user_event_rollup} up to date from the JDBC event journal.
+ * Journal rows are read in {@code ordering} order after the offset stored in
+ * {@code projection_offset_store}; the counts of a batch and the new offset are written in
+ * one transaction, so each event is counted exactly once even across restarts. The offset
+ * row is locked while a batch is applied, so several nodes can run the projection safely.
+ *
+ * Events removed by snapshot retention before the projection reads them are not counted,
+ * so the poll interval must stay well below the time a user takes to produce the events
+ * retention keeps.
+ */
+@Component
+@Profile({"cluster-mysql", "cluster-test-node1", "cluster-test-node2", "cluster-test-node3"})
+public class UserEventRollupProjection {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserEventRollupProjection.class);
+
+    public static final String PROJECTION_NAME = "user-event-rollup";
+    private static final String PROJECTION_KEY = "all";
+
+    private static final String PERSISTENCE_ID_PREFIX = PersistentUserActor.ENTITY_TYPE_KEY.name() + "|";
+    private static final String BLOCKING_DISPATCHER = "pekko.actor.default-blocking-io-dispatcher";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProjectionOffsetStore offsetStore;
+    private final Serialization serialization;
+
+    @Value("${app.projections.user-event-rollup.batch-size:1000}")
+    private int batchSize = 1000;
+
+    @Value("${app.projections.user-event-rollup.poll-interval:1s}")
+    private Duration pollInterval = Duration.ofSeconds(1);
+
+    // How long a gap in ordering is waited for before it is treated as a rolled back insert
+    @Value("${app.projections.user-event-rollup.gap-timeout:10s}")
+    private Duration gapTimeout = Duration.ofSeconds(10);
+
+    private ScheduledExecutorService scheduler;
+
+    public UserEventRollupProjection(JdbcTemplate jdbcTemplate,
+                                     PlatformTransactionManager transactionManager,
+                                     ActorSystem<?> actorSystem) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.offsetStore = new ProjectionOffsetStore(jdbcTemplate);
+        this.serialization = SerializationExtension.get(Adapter.toClassic(actorSystem));
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-event-rollup-projection");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::pollSafely, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        logger.info("Started {} projection (batchSize={}, pollInterval={})", PROJECTION_NAME, batchSize, pollInterval);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    private void pollSafely() {
+        try {
+            int processed = processAvailableEvents();
+            if (processed > 0) {
+                logger.debug("Projected {} journal rows into user_event_rollup", processed);
+            }
+        } catch (Exception e) {
+            logger.warn("User event rollup projection failed, retrying in {}: {}", pollInterval, e.getMessage());
+        }
+    }
+
+    /**
+     * Applies journal batches until the projection has caught up. Returns the number of
+     * journal rows consumed.
+     */
+    public int processAvailableEvents() {
+        int total = 0;
+        int processed;
+        do {
+            processed = processBatch();
+            total += processed;
+        } while (processed == batchSize);
+        return total;
+    }
+
+    /**
+     * Streams the distinct userIds in the rollup, in order, one keyset page of
+     * {@code pageSize} at a time on the blocking dispatcher.
+     */
+    public Source<String, NotUsed> streamUserIds(int pageSize) {
+        return Source.unfold(Optional.of(""), after -> {
+                if (after.isEmpty()) {
+                    return Optional.<Pair<Optional<String>, List<String>>>empty();
+                }
+                List<String> page = jdbcTemplate.queryForList(
+                    "SELECT DISTINCT user_id FROM user_event_rollup WHERE user_id > ? ORDER BY user_id LIMIT ?",
+                    String.class, after.get(), pageSize);
+                if (page.isEmpty()) {
+                    return Optional.<Pair<Optional<String>, List<String>>>empty();
+                }
+                Optional<String> next = page.size() < pageSize ? Optional.empty() : Optional.of(page.get(page.size() - 1));
+                return Optional.of(Pair.create(next, page));
+            })
+            .<String>mapConcat(page -> page)
+            .withAttributes(ActorAttributes.dispatcher(BLOCKING_DISPATCHER));
+    }
+
+    /**
+     * Applies one batch of journal rows and advances the offset in the same transaction.
+     */
+    int processBatch() {
+        Integer rowCount = transactionTemplate.execute(status -> {
+            long offset = offsetStore.lockOffset(PROJECTION_NAME, PROJECTION_KEY);
+            List<JournalRow> rows = readRows(offset);
+            if (rows.isEmpty()) {
+                return 0;
+            }
+
+            Map<String, RollupDelta> deltas = new LinkedHashMap<>();
+            for (JournalRow row : rows) {
+                if (!row.persistenceId().startsWith(PERSISTENCE_ID_PREFIX)) {
+                    continue;
+                }
+                Object event = serialization.deserialize(row.payload(), row.serializerId(), row.manifest()).get();
+                if (event instanceof UserActorEvent.UserEventProcessed eventProcessed) {
+                    String userId = row.persistenceId().substring(PERSISTENCE_ID_PREFIX.length());
+                    String eventType = eventProcessed.getEventType() != null ? eventProcessed.getEventType() : "UNKNOWN";
+                    LocalDateTime eventTime = eventProcessed.getTimestamp() != null ? eventProcessed.getTimestamp() : row.writeTime();
+                    deltas.computeIfAbsent(userId + '|' + eventType, key -> new RollupDelta(userId, eventType))
+                        .add(eventTime);
+                }
+            }
+
+            applyDeltas(deltas.values());
+            offsetStore.saveOffset(PROJECTION_NAME, PROJECTION_KEY, rows.get(rows.size() - 1).ordering());
+            return rows.size();
+        });
+        return rowCount != null ? rowCount : 0;
+    }
+
+    /**
+     * Reads the next rows after {@code offset}, stopping before a gap in {@code ordering}
+     * that is younger than the gap timeout: an auto-increment value can become visible
+     * after higher ones committed by concurrent writers.
+     */
+    private List<JournalRow> readRows(long offset) {
+        List<JournalRow> rows = jdbcTemplate.query(
+            "SELECT ordering, persistence_id, event_ser_id, event_ser_manifest, event_payload, write_timestamp " +
+            "FROM event_journal WHERE ordering > ? ORDER BY ordering LIMIT ?",
+            (rs, rowNum) -> new JournalRow(
+                rs.getLong("ordering"),
+                rs.getString("persistence_id"),
+                rs.getInt("event_ser_id"),
+                rs.getString("event_ser_manifest"),
+                rs.getBytes("event_payload"),
+                rs.getLong("write_timestamp")),
+            offset, batchSize);
+
+        long gapDeadline = System.currentTimeMillis() - gapTimeout.toMillis();
+        long expected = offset + 1;
+        for (int i = 0; i < rows.size(); i++) {
+            JournalRow row = rows.get(i);
+            if (row.ordering() != expected && row.writeTimestamp() > gapDeadline) {
+                logger.debug("Waiting for journal ordering {} before projecting {}", expected, row.ordering());
+                return new ArrayList<>(rows.subList(0, i));
+            }
+            expected = row.ordering() + 1;
+        }
+        return rows;
+    }
+
+    private void applyDeltas(Iterable<RollupDelta> deltas) {
+        List<Object[]> batchArgs = new ArrayList<>();
+        for (RollupDelta delta : deltas) {
+            batchArgs.add(new Object[] {
+                delta.userId, delta.eventType, delta.count,
+                Timestamp.valueOf(delta.firstTs), Timestamp.valueOf(delta.lastTs)
+            });
+        }
+        if (batchArgs.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO user_event_rollup (user_id, event_type, event_count, first_ts, last_ts) VALUES (?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE event_count = event_count + VALUES(event_count), " +
+            "first_ts = LEAST(first_ts, VALUES(first_ts)), last_ts = GREATEST(last_ts, VALUES(last_ts))",
+            batchArgs);
+    }
+
+    private record JournalRow(long ordering,
+                              String persistenceId,
+                              int serializerId,
+                              String manifest,
+                              byte[] payload,
+                              long writeTimestamp) {
+
+        LocalDateTime writeTime() {
+            return new Timestamp(writeTimestamp).toLocalDateTime();
+        }
+    }
+
+    private static final class RollupDelta {
+        private final String userId;
+        private final String eventType;
+        private long count;
+        private LocalDateTime firstTs;
+        private LocalDateTime lastTs;
+
+        RollupDelta(String userId, String eventType) {
+            this.userId = userId;
+            this.eventType = eventType;
+        }
+
+        void add(LocalDateTime eventTime) {
+            count++;
+            if (firstTs == null || eventTime.isBefore(firstTs)) {
+                firstTs = eventTime;
+            }
+            if (lastTs == null || eventTime.isAfter(lastTs)) {
+                lastTs = eventTime;
+            }
+        }
+    }
+}
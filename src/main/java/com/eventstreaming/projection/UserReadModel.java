@@ -0,0 +1,23 @@
+package com.eventstreaming.projection;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Projected columns of a {@code user_aggregations} row maintained by
+ * {@link UserReadModelProjection}.
+ * Mirrors the fields of {@link com.eventstreaming.cluster.UserActorState} up to the last
+ * projected sequence number.
+ */
+public record UserReadModel(String userId,
+                            long totalEvents,
+                            Map<String, Long> eventTypeCounts,
+                            LocalDateTime firstEventTime,
+                            LocalDateTime lastEventTime,
+                            long lastSequenceNr,
+                            LocalDateTime updatedAt) {
+
+    public boolean hasEvents() {
+        return totalEvents > 0;
+    }
+}
@@ -0,0 +1,319 @@
+package com.eventstreaming.projection;
+
+import com.eventstreaming.cluster.PersistentUserActor;
+import com.eventstreaming.cluster.UserActorEvent;
+import com.eventstreaming.model.EventType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.pekko.NotUsed;
+import org.apache.pekko.actor.typed.ActorSystem;
+import org.apache.pekko.actor.typed.Behavior;
+import org.apache.pekko.actor.typed.DispatcherSelector;
+import org.apache.pekko.actor.typed.PostStop;
+import org.apache.pekko.actor.typed.javadsl.Behaviors;
+import org.apache.pekko.cluster.sharding.typed.javadsl.ShardedDaemonProcess;
+import org.apache.pekko.persistence.jdbc.query.javadsl.JdbcReadJournal;
+import org.apache.pekko.persistence.query.EventEnvelope;
+import org.apache.pekko.persistence.query.Offset;
+import org.apache.pekko.persistence.query.PersistenceQuery;
+import org.apache.pekko.persistence.query.Sequence;
+import org.apache.pekko.stream.KillSwitches;
+import org.apache.pekko.stream.RestartSettings;
+import org.apache.pekko.stream.UniqueKillSwitch;
+import org.apache.pekko.stream.javadsl.Keep;
+import org.apache.pekko.stream.javadsl.RestartSource;
+import org.apache.pekko.stream.javadsl.Sink;
+import org.apache.pekko.stream.javadsl.Source;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Sliced projection that maintains the {@code user_aggregations} read model from the events
+ * {@link PersistentUserActor} tags with its user-hash slice. Each slice is consumed by its
+ * own {@code eventsByTag} stream, run as a {@link ShardedDaemonProcess} worker so the
+ * slices are spread over the cluster. A batch of envelopes and the slice's offset are
+ * written in one transaction, so state queries read this table instead of asking the
+ * persistent actors.
+ */
+@Component
+@Profile({"cluster-mysql", "cluster-test-node1", "cluster-test-node2", "cluster-test-node3"})
+public class UserReadModelProjection {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserReadModelProjection.class);
+
+    public static final String PROJECTION_NAME = "user-read-model";
+
+    private static final TypeReference<LinkedHashMap<String, Long>> COUNTS_TYPE = new TypeReference<>() {};
+
+    private static final String SELECT_USERS =
+        "SELECT user_id, total_events, event_type_counts, first_event_time, last_event_time, last_sequence_nr, updated_at " +
+        "FROM user_aggregations";
+
+    /**
+     * Messages of the slice workers. Workers take none; the interface only types the
+     * daemon process.
+     */
+    public interface Command {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProjectionOffsetStore offsetStore;
+    private final ActorSystem<?> actorSystem;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.projections.user-read-model.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${app.projections.user-read-model.batch-interval:200ms}")
+    private Duration batchInterval = Duration.ofMillis(200);
+
+    @Value("${app.projections.user-read-model.min-backoff:1s}")
+    private Duration minBackoff = Duration.ofSeconds(1);
+
+    @Value("${app.projections.user-read-model.max-backoff:30s}")
+    private Duration maxBackoff = Duration.ofSeconds(30);
+
+    public UserReadModelProjection(JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   ActorSystem<?> actorSystem,
+                                   ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.offsetStore = new ProjectionOffsetStore(jdbcTemplate);
+        this.actorSystem = actorSystem;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void start() {
+        ShardedDaemonProcess.get(actorSystem).init(
+            Command.class, PROJECTION_NAME, PersistentUserActor.TAG_SLICES, this::sliceWorker);
+        logger.info("Started {} projection with {} slices", PROJECTION_NAME, PersistentUserActor.TAG_SLICES);
+    }
+
+    /**
+     * Returns the projected state of a user, or empty when no event of the user has been
+     * projected yet.
+     */
+    public Optional<UserReadModel> findUser(String userId) {
+        List<UserReadModel> rows = jdbcTemplate.query(
+            SELECT_USERS + " WHERE user_id = ?",
+            (rs, rowNum) -> readRow(rs), userId);
+        return rows.stream().findFirst();
+    }
+
+    private Behavior<Command> sliceWorker(int slice) {
+        String tag = PersistentUserActor.sliceTag(slice);
+        return Behaviors.setup(context -> {
+            RestartSettings restartSettings = RestartSettings.create(minBackoff, maxBackoff, 0.2);
+            UniqueKillSwitch killSwitch = RestartSource.withBackoff(restartSettings, () -> sliceSource(tag))
+                .viaMat(KillSwitches.single(), Keep.right())
+                .toMat(Sink.ignore(), Keep.left())
+                .run(actorSystem);
+            context.getLog().info("Projecting {} into user_aggregations", tag);
+
+            return Behaviors.receive(Command.class)
+                .onSignal(PostStop.class, signal -> {
+                    killSwitch.shutdown();
+                    return Behaviors.same();
+                })
+                .build();
+        });
+    }
+
+    private Source<Integer, NotUsed> sliceSource(String tag) {
+        Executor blockingExecutor = actorSystem.dispatchers().lookup(DispatcherSelector.blocking());
+        JdbcReadJournal readJournal = PersistenceQuery.get(actorSystem)
+            .getReadJournalFor(JdbcReadJournal.class, JdbcReadJournal.Identifier());
+
+        return Source.completionStage(CompletableFuture.supplyAsync(
+                () -> offsetStore.readOffset(PROJECTION_NAME, tag), blockingExecutor))
+            .flatMapConcat(offset -> readJournal.eventsByTag(tag, Offset.sequence(offset)))
+            .groupedWithin(batchSize, batchInterval)
+            .mapAsync(1, envelopes -> CompletableFuture.supplyAsync(
+                () -> applyEnvelopes(tag, envelopes), blockingExecutor));
+    }
+
+    /**
+     * Applies a batch of envelopes read from {@code tag} and stores the offset of the last
+     * one in the same transaction. Envelopes at or below the stored offset were applied by
+     * an earlier run and are skipped. Returns the number of events applied.
+     */
+    public int applyEnvelopes(String tag, List<EventEnvelope> envelopes) {
+        if (envelopes.isEmpty()) {
+            return 0;
+        }
+        Integer applied = transactionTemplate.execute(status -> {
+            long storedOffset = offsetStore.lockOffset(PROJECTION_NAME, tag);
+            long lastOffset = storedOffset;
+
+            Map<String, List<EventEnvelope>> eventsByUser = new LinkedHashMap<>();
+            for (EventEnvelope envelope : envelopes) {
+                long offset = ((Sequence) envelope.offset()).value();
+                if (offset <= storedOffset) {
+                    continue;
+                }
+                lastOffset = Math.max(lastOffset, offset);
+                if (envelope.event() instanceof UserActorEvent.UserEventProcessed processed) {
+                    eventsByUser.computeIfAbsent(processed.getUserId(), userId -> new ArrayList<>()).add(envelope);
+                }
+            }
+            if (lastOffset == storedOffset) {
+                return 0;
+            }
+
+            Map<String, UserReadModel> current = loadUsers(eventsByUser.keySet());
+            List<UserReadModel> updated = new ArrayList<>(eventsByUser.size());
+            int count = 0;
+            for (Map.Entry<String, List<EventEnvelope>> entry : eventsByUser.entrySet()) {
+                UserReadModel model = current.getOrDefault(entry.getKey(), emptyModel(entry.getKey()));
+                Map<String, Long> counts = new LinkedHashMap<>(model.eventTypeCounts());
+                long totalEvents = model.totalEvents();
+                long lastSequenceNr = model.lastSequenceNr();
+                LocalDateTime firstEventTime = model.firstEventTime();
+                LocalDateTime lastEventTime = model.lastEventTime();
+
+                for (EventEnvelope envelope : entry.getValue()) {
+                    // The journal tags events in sequence order, so the user's row already holds this one
+                    if (envelope.sequenceNr() <= lastSequenceNr) {
+                        continue;
+                    }
+                    UserActorEvent.UserEventProcessed event = (UserActorEvent.UserEventProcessed) envelope.event();
+                    counts.merge(event.getEventType() != null ? event.getEventType() : "UNKNOWN", 1L, Long::sum);
+                    totalEvents++;
+                    lastSequenceNr = envelope.sequenceNr();
+                    LocalDateTime eventTime = event.getTimestamp();
+                    if (eventTime != null) {
+                        if (firstEventTime == null || eventTime.isBefore(firstEventTime)) {
+                            firstEventTime = eventTime;
+                        }
+                        if (lastEventTime == null || eventTime.isAfter(lastEventTime)) {
+                            lastEventTime = eventTime;
+                        }
+                    }
+                    count++;
+                }
+                updated.add(new UserReadModel(entry.getKey(), totalEvents, counts, firstEventTime, lastEventTime,
+                    lastSequenceNr, LocalDateTime.now()));
+            }
+
+            saveUsers(updated);
+            offsetStore.saveOffset(PROJECTION_NAME, tag, lastOffset);
+            return count;
+        });
+        return applied != null ? applied : 0;
+    }
+
+    private Map<String, UserReadModel> loadUsers(Iterable<String> userIds) {
+        List<String> ids = new ArrayList<>();
+        userIds.forEach(ids::add);
+        Map<String, UserReadModel> users = new LinkedHashMap<>();
+        if (ids.isEmpty()) {
+            return users;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        jdbcTemplate.query(
+            SELECT_USERS + " WHERE user_id IN (" + placeholders + ")",
+            rs -> {
+                UserReadModel model = readRow(rs);
+                users.put(model.userId(), model);
+            },
+            ids.toArray());
+        return users;
+    }
+
+    // Also keeps the per-channel counters and last_activity of user_aggregations current;
+    // rates and contactable status are left to their owners
+    private void saveUsers(List<UserReadModel> users) {
+        List<Object[]> batchArgs = new ArrayList<>(users.size());
+        for (UserReadModel user : users) {
+            Map<String, Long> counts = user.eventTypeCounts();
+            LocalDateTime lastActivity = user.lastEventTime() != null ? user.lastEventTime() : user.updatedAt();
+            batchArgs.add(new Object[] {
+                user.userId(), PersistentUserActor.sliceOf(user.userId()), user.totalEvents(),
+                writeCounts(counts), toTimestamp(user.firstEventTime()), toTimestamp(user.lastEventTime()),
+                user.lastSequenceNr(),
+                counts.getOrDefault(EventType.EMAIL_OPEN.name(), 0L), counts.getOrDefault(EventType.EMAIL_CLICK.name(), 0L),
+                counts.getOrDefault(EventType.SMS_REPLY.name(), 0L), counts.getOrDefault(EventType.SMS_DELIVERY.name(), 0L),
+                counts.getOrDefault(EventType.CALL_COMPLETED.name(), 0L), counts.getOrDefault(EventType.CALL_MISSED.name(), 0L),
+                Timestamp.valueOf(lastActivity), Timestamp.valueOf(user.updatedAt())
+            });
+        }
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO user_aggregations (user_id, slice, total_events, event_type_counts, first_event_time, last_event_time, " +
+            "last_sequence_nr, email_opens, email_clicks, sms_replies, sms_deliveries, calls_completed, calls_missed, " +
+            "last_activity, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE slice = VALUES(slice), total_events = VALUES(total_events), " +
+            "event_type_counts = VALUES(event_type_counts), first_event_time = VALUES(first_event_time), " +
+            "last_event_time = VALUES(last_event_time), last_sequence_nr = VALUES(last_sequence_nr), " +
+            "email_opens = VALUES(email_opens), email_clicks = VALUES(email_clicks), sms_replies = VALUES(sms_replies), " +
+            "sms_deliveries = VALUES(sms_deliveries), calls_completed = VALUES(calls_completed), " +
+            "calls_missed = VALUES(calls_missed), last_activity = VALUES(last_activity), updated_at = VALUES(updated_at)",
+            batchArgs);
+    }
+
+    private UserReadModel readRow(ResultSet rs) throws SQLException {
+        return new UserReadModel(
+            rs.getString("user_id"),
+            rs.getLong("total_events"),
+            readCounts(rs.getString("event_type_counts")),
+            toLocalDateTime(rs.getTimestamp("first_event_time")),
+            toLocalDateTime(rs.getTimestamp("last_event_time")),
+            rs.getLong("last_sequence_nr"),
+            toLocalDateTime(rs.getTimestamp("updated_at")));
+    }
+
+    private Map<String, Long> readCounts(String json) {
+        if (json == null) {
+            // A user_aggregations row the projection has not written yet
+            return Map.of();
+        }
+        try {
+            return objectMapper.readValue(json, COUNTS_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Invalid event_type_counts in user_aggregations: " + json, e);
+        }
+    }
+
+    private String writeCounts(Map<String, Long> counts) {
+        try {
+            return objectMapper.writeValueAsString(counts);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize event type counts", e);
+        }
+    }
+
+    private static UserReadModel emptyModel(String userId) {
+        return new UserReadModel(userId, 0, Map.of(), null, null, 0, null);
+    }
+
+    private static Timestamp toTimestamp(LocalDateTime time) {
+        return time != null ? Timestamp.valueOf(time) : null;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
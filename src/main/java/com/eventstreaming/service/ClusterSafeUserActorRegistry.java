@@ -1,13 +1,17 @@
 package com.eventstreaming.service;
 
+import com.eventstreaming.cluster.KafkaPartitionShardAllocator;
+import com.eventstreaming.cluster.LoadAwareShardAllocationStrategy;
 import com.eventstreaming.cluster.PersistentUserActor;
 import org.apache.pekko.actor.typed.ActorSystem;
+import org.apache.pekko.cluster.sharding.typed.ShardingEnvelope;
 import org.apache.pekko.cluster.sharding.typed.javadsl.ClusterSharding;
 import org.apache.pekko.cluster.sharding.typed.javadsl.Entity;
 import org.apache.pekko.cluster.sharding.typed.javadsl.EntityRef;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 /**
@@ -31,19 +35,41 @@ public class ClusterSafeUserActorRegistry {
     
     private final ClusterSharding sharding;
     
-    @Autowired
     public ClusterSafeUserActorRegistry(ActorSystem<?> actorSystem) {
+        this(actorSystem, false, 100, false, 0.2, 3);
+    }
+    
+    @Autowired
+    public ClusterSafeUserActorRegistry(ActorSystem<?> actorSystem,
+                                        @Value("${app.sharding.kafka-aligned.enabled:false}") boolean kafkaAlignedSharding,
+                                        @Value("${app.sharding.kafka-aligned.partitions:100}") int kafkaPartitions,
+                                        @Value("${app.sharding.load-aware.enabled:false}") boolean loadAwareAllocation,
+                                        @Value("${app.sharding.load-aware.imbalance-threshold:0.2}") double loadImbalanceThreshold,
+                                        @Value("${app.sharding.load-aware.max-shards-per-rebalance:3}") int maxShardsPerRebalance) {
         this.sharding = ClusterSharding.get(actorSystem);
-        initializeSharding();
+        LoadAwareShardAllocationStrategy.Settings loadAwareSettings = loadAwareAllocation
+            ? new LoadAwareShardAllocationStrategy.Settings(loadImbalanceThreshold, maxShardsPerRebalance,
+                LoadAwareShardAllocationStrategy.Settings.DEFAULT.reportTimeout())
+            : null;
+        initializeSharding(actorSystem, kafkaAlignedSharding, kafkaPartitions, loadAwareSettings);
     }
     
-    private void initializeSharding() {
+    // Must match ClusterConfiguration: whichever initializes the entity type first wins
+    private void initializeSharding(ActorSystem<?> actorSystem, boolean kafkaAlignedSharding, int kafkaPartitions,
+                                    LoadAwareShardAllocationStrategy.Settings loadAwareSettings) {
         try {
-            sharding.init(Entity.of(PersistentUserActor.ENTITY_TYPE_KEY, entityContext -> {
-                String userId = entityContext.getEntityId();
-                logger.debug("Creating PersistentUserActor for user: {}", userId);
-                return PersistentUserActor.create(userId);
-            }));
+            Entity<PersistentUserActor.Command, ShardingEnvelope<PersistentUserActor.Command>> entity =
+                Entity.of(PersistentUserActor.ENTITY_TYPE_KEY, entityContext -> {
+                    String userId = entityContext.getEntityId();
+                    logger.debug("Creating PersistentUserActor for user: {}", userId);
+                    return PersistentUserActor.create(userId);
+                });
+            if (kafkaAlignedSharding) {
+                entity = KafkaPartitionShardAllocator.alignWithKafkaPartitions(entity, actorSystem, kafkaPartitions);
+            } else if (loadAwareSettings != null) {
+                entity = LoadAwareShardAllocationStrategy.withLoadAwareAllocation(entity, actorSystem, loadAwareSettings);
+            }
+            sharding.init(entity);
             
             logger.info("Cluster sharding initialized for PersistentUserActor - 6h passivation, snapshots every 50 events");
         } catch (Exception e) {
@@ -3,6 +3,9 @@ package com.eventstreaming.service;
 import com.eventstreaming.cluster.PersistentUserActor;
 import com.eventstreaming.cluster.UserActorState;
 import com.eventstreaming.persistence.H2EventJournal;
+import com.eventstreaming.projection.UserReadModel;
+import com.eventstreaming.projection.UserReadModelProjection;
+import org.apache.pekko.NotUsed;
 import org.apache.pekko.actor.typed.ActorSystem;
 import org.apache.pekko.actor.typed.javadsl.AskPattern;
 import org.apache.pekko.cluster.sharding.typed.javadsl.ClusterSharding;
@@ -10,9 +13,11 @@ import org.apache.pekko.cluster.sharding.typed.javadsl.EntityRef;
 import org.apache.pekko.persistence.query.PersistenceQuery;
 import org.apache.pekko.persistence.query.journal.leveldb.javadsl.LeveldbReadJournal;
 import org.apache.pekko.stream.javadsl.Sink;
+import org.apache.pekko.stream.javadsl.Source;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 
@@ -38,84 +43,46 @@ public class EventJournalService {
     @Autowired(required = false)
     private H2EventJournal h2EventJournal;
     
+    @Autowired(required = false)
+    private UserReadModelProjection userReadModelProjection;
+    
     @Autowired
     private Environment environment;
     
+    @Value("${app.journal.read.page-size:500}")
+    private int readPageSize;
+    
     /**
      * Get events for a specific user from the event journal.
+     * Reads at most {@code maxEvents} through {@link #streamUserEvents}; use the stream or
+     * {@link #getUserEventsPage} for large histories.
      */
     public Map<String, Object> getUserEvents(String userId, long fromSequenceNr, int maxEvents) {
         try {
             logger.info("Retrieving events for userId: {} from sequence: {} max: {}", userId, fromSequenceNr, maxEvents);
             
-            // Check if we're using isolated profile and H2 is available
-            boolean isIsolatedProfile = java.util.Arrays.asList(environment.getActiveProfiles()).contains("isolated");
-            
             String persistenceId = PersistentUserActor.ENTITY_TYPE_KEY.name() + "|" + userId;
+            boolean useH2 = useH2Journal();
             
-            if (isIsolatedProfile && h2EventJournal != null) {
-                // Use H2 database for isolated profile
-                logger.info("Using H2 database for event journal in isolated profile");
-                
-                List<H2EventJournal.EventJournalEntry> journalEntries = 
-                    h2EventJournal.getEvents(persistenceId, fromSequenceNr, maxEvents);
-                
-                List<Map<String, Object>> events = journalEntries.stream()
-                    .map(entry -> {
-                        Map<String, Object> eventData = new HashMap<>();
-                        eventData.put("sequenceNr", entry.getSequenceNr());
-                        eventData.put("persistenceId", entry.getPersistenceId());
-                        eventData.put("timestamp", entry.getTimestamp());
-                        eventData.put("eventType", entry.getEventType());
-                        eventData.put("eventData", entry.getEventData());
-                        return eventData;
-                    })
-                    .toList();
-                
-                Map<String, Object> result = new HashMap<>();
-                result.put("userId", userId);
-                result.put("persistenceId", persistenceId);
-                result.put("events", events);
-                result.put("eventCount", events.size());
-                result.put("fromSequenceNr", fromSequenceNr);
-                result.put("journalType", "h2");
+            List<Map<String, Object>> events = streamUserEvents(userId, fromSequenceNr, maxEvents)
+                .runWith(Sink.seq(), actorSystem)
+                .toCompletableFuture()
+                .get();
+            
+            Map<String, Object> result = new HashMap<>();
+            result.put("userId", userId);
+            result.put("persistenceId", persistenceId);
+            result.put("events", events);
+            result.put("eventCount", events.size());
+            result.put("fromSequenceNr", fromSequenceNr);
+            result.put("journalType", useH2 ? "h2" : "leveldb");
+            if (useH2) {
                 result.put("message", "Events stored in H2 database");
-                
-                logger.info("Retrieved {} events for userId: {} from H2 journal", events.size(), userId);
-                return result;
-            } else {
-                // Use LevelDB journal for other profiles
-                LeveldbReadJournal readJournal = PersistenceQuery.get(actorSystem)
-                    .getReadJournalFor(LeveldbReadJournal.class, LeveldbReadJournal.Identifier());
-                
-                // Query events from the journal
-                CompletionStage<List<Map<String, Object>>> eventsFuture = readJournal
-                    .eventsByPersistenceId(persistenceId, fromSequenceNr, Long.MAX_VALUE)
-                    .take(maxEvents)
-                    .map(envelope -> {
-                        Map<String, Object> eventData = new HashMap<>();
-                        eventData.put("sequenceNr", envelope.sequenceNr());
-                        eventData.put("persistenceId", envelope.persistenceId());
-                        eventData.put("timestamp", envelope.timestamp());
-                        eventData.put("event", envelope.event());
-                        return eventData;
-                    })
-                    .runWith(Sink.seq(), actorSystem);
-                
-                List<Map<String, Object>> events = eventsFuture.toCompletableFuture().get();
-                
-                Map<String, Object> result = new HashMap<>();
-                result.put("userId", userId);
-                result.put("persistenceId", persistenceId);
-                result.put("events", events);
-                result.put("eventCount", events.size());
-                result.put("fromSequenceNr", fromSequenceNr);
-                result.put("journalType", "leveldb");
-                
-                logger.info("Retrieved {} events for userId: {} from LevelDB journal", events.size(), userId);
-                return result;
             }
             
+            logger.info("Retrieved {} events for userId: {} from {} journal", events.size(), userId, useH2 ? "H2" : "LevelDB");
+            return result;
+            
         } catch (Exception e) {
             logger.error("Error retrieving events for userId: {}", userId, e);
             throw new RuntimeException("Failed to retrieve events for user: " + userId, e);
@@ -123,12 +90,119 @@ public class EventJournalService {
     }
     
     /**
-     * Get current state for a specific user by asking the persistent actor.
+     * Streams the events currently stored for a user, starting at {@code fromSequenceNr}.
+     * H2 is read in keyset pages and LevelDB through its current-events query, so memory
+     * use does not depend on how many events the user has. The source completes at the
+     * last stored event.
+     */
+    public Source<Map<String, Object>, NotUsed> streamUserEvents(String userId, long fromSequenceNr, long maxEvents) {
+        String persistenceId = PersistentUserActor.ENTITY_TYPE_KEY.name() + "|" + userId;
+        
+        if (useH2Journal()) {
+            return h2EventJournal.streamEvents(persistenceId, fromSequenceNr, maxEvents, readPageSize)
+                .map(EventJournalService::toEventMap);
+        }
+        return leveldbReadJournal()
+            .currentEventsByPersistenceId(persistenceId, fromSequenceNr, Long.MAX_VALUE)
+            .take(maxEvents)
+            .map(envelope -> {
+                Map<String, Object> eventData = new HashMap<>();
+                eventData.put("sequenceNr", envelope.sequenceNr());
+                eventData.put("persistenceId", envelope.persistenceId());
+                eventData.put("timestamp", envelope.timestamp());
+                eventData.put("event", envelope.event());
+                return eventData;
+            });
+    }
+    
+    /**
+     * Keyset page of a user's events after {@code afterSequenceNr}. The result carries
+     * {@code nextCursor}, the sequence number to pass for the following page, or null
+     * once the last page has been read.
+     */
+    public Map<String, Object> getUserEventsPage(String userId, long afterSequenceNr, int limit) {
+        try {
+            List<Map<String, Object>> events = streamUserEvents(userId, afterSequenceNr + 1, limit)
+                .runWith(Sink.seq(), actorSystem)
+                .toCompletableFuture()
+                .get();
+            
+            Object nextCursor = events.size() < limit ? null : events.get(events.size() - 1).get("sequenceNr");
+            
+            Map<String, Object> result = new HashMap<>();
+            result.put("userId", userId);
+            result.put("events", events);
+            result.put("eventCount", events.size());
+            result.put("afterSequenceNr", afterSequenceNr);
+            result.put("nextCursor", nextCursor);
+            result.put("journalType", useH2Journal() ? "h2" : "leveldb");
+            return result;
+            
+        } catch (Exception e) {
+            logger.error("Error retrieving events page for userId: {} after {}", userId, afterSequenceNr, e);
+            throw new RuntimeException("Failed to retrieve events for user: " + userId, e);
+        }
+    }
+    
+    /**
+     * Streams the IDs of all users with events in the journal without loading them all.
+     * H2 returns them in order, one keyset page at a time.
+     */
+    public Source<String, NotUsed> streamUserIds() {
+        String prefix = PersistentUserActor.ENTITY_TYPE_KEY.name() + "|";
+        Source<String, NotUsed> persistenceIds = useH2Journal()
+            ? h2EventJournal.streamPersistenceIds(prefix, readPageSize)
+            : leveldbReadJournal().currentPersistenceIds().filter(id -> id.startsWith(prefix));
+        return persistenceIds.map(id -> id.substring(prefix.length()));
+    }
+    
+    private static Map<String, Object> toEventMap(H2EventJournal.EventJournalEntry entry) {
+        Map<String, Object> eventData = new HashMap<>();
+        eventData.put("sequenceNr", entry.getSequenceNr());
+        eventData.put("persistenceId", entry.getPersistenceId());
+        eventData.put("timestamp", entry.getTimestamp());
+        eventData.put("eventType", entry.getEventType());
+        eventData.put("eventData", entry.getEventData());
+        return eventData;
+    }
+    
+    private boolean useH2Journal() {
+        boolean isIsolatedProfile = java.util.Arrays.asList(environment.getActiveProfiles()).contains("isolated");
+        return isIsolatedProfile && h2EventJournal != null;
+    }
+    
+    private LeveldbReadJournal leveldbReadJournal() {
+        return PersistenceQuery.get(actorSystem)
+            .getReadJournalFor(LeveldbReadJournal.class, LeveldbReadJournal.Identifier());
+    }
+    
+    /**
+     * Get current state for a specific user. On the JDBC journal profiles the state is read
+     * from the user read model, which trails the journal by the projection lag; the
+     * persistent actor is only asked for users the projection has not seen yet.
      */
     public Map<String, Object> getUserState(String userId) {
         try {
             logger.info("Retrieving current state for userId: {}", userId);
             
+            if (userReadModelProjection != null) {
+                Optional<UserReadModel> readModel = userReadModelProjection.findUser(userId);
+                if (readModel.isPresent()) {
+                    UserReadModel model = readModel.get();
+                    Map<String, Object> result = new HashMap<>();
+                    result.put("userId", model.userId());
+                    result.put("totalEvents", model.totalEvents());
+                    result.put("eventTypeCounts", model.eventTypeCounts());
+                    result.put("lastUpdated", model.updatedAt());
+                    result.put("firstEventTime", model.firstEventTime());
+                    result.put("lastEventTime", model.lastEventTime());
+                    result.put("hasEvents", model.hasEvents());
+                    result.put("lastSequenceNr", model.lastSequenceNr());
+                    result.put("source", "read-model");
+                    return result;
+                }
+            }
+            
             // Check if cluster sharding is available
             if (clusterSharding == null) {
                 logger.warn("ClusterSharding not available - returning empty state for userId: {}", userId);
@@ -54,8 +54,6 @@ public class KafkaPekkoH2IntegrationService {
     @Autowired(required = false)
     private DashboardService dashboardService;
     
-    private long sequenceCounter = 1L;
-    
     /**
      * Process a streaming event through the complete pipeline:
      * Kafka -> Pekko -> H2 Event Journal
@@ -245,10 +243,13 @@ public class KafkaPekkoH2IntegrationService {
                 // Create a streaming metadata event
                 UserActorEvent.UserEventProcessed metadataEvent = UserActorEvent.UserEventProcessed.from(userEvent);
                 
-                long sequenceNr = getNextSequenceNr(persistenceId);
-                h2EventJournal.persistEvent(persistenceId, sequenceNr, metadataEvent);
-                
-                logger.debug("Stored streaming metadata for user: {} seq: {}", userEvent.getUserId(), sequenceNr);
+                h2EventJournal.appendEvent(persistenceId, metadataEvent).whenComplete((sequenceNr, error) -> {
+                    if (error != null) {
+                        logger.warn("Failed to store streaming metadata (non-critical): {}", error.getMessage());
+                    } else {
+                        logger.debug("Stored streaming metadata for user: {} seq: {}", userEvent.getUserId(), sequenceNr);
+                    }
+                });
             }
             
         } catch (Exception e) {
@@ -478,22 +479,6 @@ public class KafkaPekkoH2IntegrationService {
         }
     }
     
-    /**
-     * Get the next sequence number for a persistence ID.
-     */
-    private synchronized long getNextSequenceNr(String persistenceId) {
-        try {
-            if (h2EventJournal != null) {
-                long currentMax = h2EventJournal.getHighestSequenceNr(persistenceId);
-                return currentMax + 1;
-            }
-            return sequenceCounter++;
-        } catch (Exception e) {
-            logger.warn("Failed to get sequence number for {}, using counter: {}", persistenceId, e.getMessage());
-            return sequenceCounter++;
-        }
-    }
-    
     /**
      * Record pipeline event for dashboard tracking.
      */
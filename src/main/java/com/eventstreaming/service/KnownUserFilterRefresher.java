@@ -0,0 +1,97 @@
+package com.eventstreaming.service;
+
+import com.eventstreaming.actor.UserActorRegistry;
+import com.eventstreaming.projection.UserEventRollupProjection;
+import org.apache.pekko.NotUsed;
+import org.apache.pekko.stream.javadsl.Source;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically rebuilds the registry's known-user filter from the users that have data:
+ * the {@code user_event_rollup} table when the JDBC projection runs, the event journal's
+ * persistence IDs otherwise. Users created between rebuilds are added by the registry itself.
+ */
+@Component
+public class KnownUserFilterRefresher {
+
+    private static final Logger log = LoggerFactory.getLogger(KnownUserFilterRefresher.class);
+
+    private final UserActorRegistry userActorRegistry;
+
+    @Autowired(required = false)
+    private UserEventRollupProjection userEventRollupProjection;
+
+    @Autowired(required = false)
+    private EventJournalService eventJournalService;
+
+    @Value("${app.known-users.rebuild-interval:1h}")
+    private Duration rebuildInterval = Duration.ofHours(1);
+
+    @Value("${app.known-users.rebuild-timeout:10m}")
+    private Duration rebuildTimeout = Duration.ofMinutes(10);
+
+    @Value("${app.known-users.page-size:10000}")
+    private int pageSize = 10_000;
+
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public KnownUserFilterRefresher(UserActorRegistry userActorRegistry) {
+        this.userActorRegistry = userActorRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "known-user-filter-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::rebuildSafely, 0, rebuildInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Rebuilds the filter and waits for it. Returns the number of userIds read.
+     */
+    public long rebuild() throws Exception {
+        return userActorRegistry.rebuildKnownUsers(knownUserIds())
+            .toCompletableFuture()
+            .get(rebuildTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private Source<String, NotUsed> knownUserIds() {
+        if (userEventRollupProjection != null) {
+            return userEventRollupProjection.streamUserIds(pageSize);
+        }
+        if (eventJournalService != null) {
+            return eventJournalService.streamUserIds();
+        }
+        return Source.empty();
+    }
+
+    private void rebuildSafely() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("Failed to rebuild known-user filter, keeping the current one: {}", e.getMessage());
+        }
+    }
+}
@@ -1,18 +1,22 @@
 package com.eventstreaming.service;
 
 import com.eventstreaming.cluster.PersistentUserActor;
+import com.eventstreaming.cluster.SnapshotMetrics;
 import com.eventstreaming.cluster.UserActorEvent;
+import com.eventstreaming.cluster.UserEventDeliveryActor;
 import com.eventstreaming.model.CommunicationEvent;
 import com.eventstreaming.model.UserEvent;
 import com.eventstreaming.persistence.H2EventJournal;
 import org.apache.pekko.actor.typed.ActorRef;
 import org.apache.pekko.actor.typed.ActorSystem;
+import org.apache.pekko.actor.typed.Props;
 import org.apache.pekko.actor.typed.javadsl.AskPattern;
 import org.apache.pekko.cluster.sharding.typed.javadsl.ClusterSharding;
 import org.apache.pekko.cluster.sharding.typed.javadsl.EntityRef;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 
@@ -45,12 +49,38 @@ public class PersistentUserService {
     @Autowired
     private Environment environment;
     
-    private long sequenceCounter = 1L;
+    // "ask" sends each event with its own ask; "credit" uses tell+ack with per-user credits
+    @Value("${app.cluster.delivery.mode:ask}")
+    private String deliveryMode = "ask";
+    
+    @Value("${app.cluster.delivery.credits-per-user:32}")
+    private int creditsPerUser = 32;
+    
+    @Value("${app.cluster.delivery.ack-timeout:30s}")
+    private Duration ackTimeout = Duration.ofSeconds(30);
+    
+    private volatile ActorRef<UserEventDeliveryActor.Command> deliveryActor;
     
     /**
      * Process a CommunicationEvent by converting it to UserEvent and sending to PersistentUserActor.
+     * A failed ask completes with an unsuccessful response.
      */
     public CompletionStage<PersistentUserActor.ProcessUserEventResponse> processEvent(CommunicationEvent event) {
+        return storeEvent(event).exceptionally(throwable -> {
+            logger.error("Failed to process event for userId: {}", event.getUserId(), throwable);
+            return new PersistentUserActor.ProcessUserEventResponse(
+                event.getUserId(), event.getEventId() != null ? event.getEventId() : "unknown", false, 
+                "Processing failed: " + throwable.getMessage(), LocalDateTime.now()
+            );
+        });
+    }
+    
+    /**
+     * Sends the event to its PersistentUserActor like {@link #processEvent}, but a failed or
+     * timed-out ask fails the returned stage. An unsuccessful response therefore means the
+     * event was rejected, e.g. for a missing userId, and retrying it would not help.
+     */
+    public CompletionStage<PersistentUserActor.ProcessUserEventResponse> storeEvent(CommunicationEvent event) {
         if (event == null || event.getUserId() == null || event.getUserId().trim().isEmpty()) {
             return CompletableFuture.completedFuture(
                 new PersistentUserActor.ProcessUserEventResponse(
@@ -71,18 +101,11 @@ public class PersistentUserService {
             
             // Send the event to the persistent actor
             CompletionStage<PersistentUserActor.ProcessUserEventResponse> actorResponse = 
-                AskPattern.ask(userActor, 
+                isCreditDelivery() ? deliver(userEvent) : AskPattern.ask(userActor, 
                     (ActorRef<PersistentUserActor.ProcessUserEventResponse> replyTo) -> 
                         new PersistentUserActor.ProcessUserEvent(userEvent, replyTo),
                     ASK_TIMEOUT, 
-                    actorSystem.scheduler())
-                    .exceptionally(throwable -> {
-                        logger.error("Failed to process event for userId: {}", event.getUserId(), throwable);
-                        return new PersistentUserActor.ProcessUserEventResponse(
-                            event.getUserId(), userEvent.getEventId(), false, 
-                            "Processing failed: " + throwable.getMessage(), LocalDateTime.now()
-                        );
-                    });
+                    actorSystem.scheduler());
             
             // Also store in H2 if using isolated profile and H2 is available
             boolean isIsolatedProfile = java.util.Arrays.asList(environment.getActiveProfiles()).contains("isolated");
@@ -91,10 +114,13 @@ public class PersistentUserService {
                     String persistenceId = PersistentUserActor.ENTITY_TYPE_KEY.name() + "|" + event.getUserId();
                     UserActorEvent.UserEventProcessed h2Event = UserActorEvent.UserEventProcessed.from(userEvent);
                     
-                    long sequenceNr = getNextSequenceNr(persistenceId);
-                    h2EventJournal.persistEvent(persistenceId, sequenceNr, h2Event);
-                    
-                    logger.debug("Also stored event in H2 for isolated profile: {} seq={}", persistenceId, sequenceNr);
+                    h2EventJournal.appendEvent(persistenceId, h2Event).whenComplete((sequenceNr, error) -> {
+                        if (error != null) {
+                            logger.warn("Failed to store event in H2 (non-critical): {}", error.getMessage());
+                        } else {
+                            logger.debug("Also stored event in H2 for isolated profile: {} seq={}", persistenceId, sequenceNr);
+                        }
+                    });
                 } catch (Exception e) {
                     logger.warn("Failed to store event in H2 (non-critical): {}", e.getMessage());
                 }
@@ -103,13 +129,7 @@ public class PersistentUserService {
             return actorResponse;
                 
         } catch (Exception e) {
-            logger.error("Error processing event for userId: {}", event.getUserId(), e);
-            return CompletableFuture.completedFuture(
-                new PersistentUserActor.ProcessUserEventResponse(
-                    event.getUserId(), "unknown", false, 
-                    "Error: " + e.getMessage(), LocalDateTime.now()
-                )
-            );
+            return CompletableFuture.failedFuture(e);
         }
     }
     
@@ -160,6 +180,59 @@ public class PersistentUserService {
         }
     }
     
+    /**
+     * Statistics of credit-based delivery, or null when events are delivered with asks.
+     */
+    public CompletionStage<UserEventDeliveryActor.DeliveryStats> getDeliveryStats() {
+        if (!isCreditDelivery()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return AskPattern.ask(deliveryActor(), UserEventDeliveryActor.GetDeliveryStats::new, 
+            ASK_TIMEOUT, actorSystem.scheduler());
+    }
+    
+    /**
+     * Recovery duration distribution and snapshot write volume of this node's persistent user actors.
+     */
+    public SnapshotMetrics.Stats getPersistenceStats() {
+        return SnapshotMetrics.get(actorSystem).stats();
+    }
+    
+    private boolean isCreditDelivery() {
+        return "credit".equalsIgnoreCase(deliveryMode);
+    }
+    
+    /**
+     * Tells the event to its actor through the delivery actor, completing when the actor
+     * acknowledges it. While the user has no credit left the event waits, which slows
+     * callers such as the Kafka stream's mapAsync down to the actor's pace.
+     */
+    private CompletionStage<PersistentUserActor.ProcessUserEventResponse> deliver(UserEvent userEvent) {
+        CompletableFuture<PersistentUserActor.ProcessUserEventResponse> result = new CompletableFuture<>();
+        deliveryActor().tell(new UserEventDeliveryActor.Deliver(userEvent, result));
+        return result;
+    }
+    
+    private ActorRef<UserEventDeliveryActor.Command> deliveryActor() {
+        ActorRef<UserEventDeliveryActor.Command> actor = deliveryActor;
+        if (actor == null) {
+            synchronized (this) {
+                actor = deliveryActor;
+                if (actor == null) {
+                    actor = actorSystem.systemActorOf(
+                        UserEventDeliveryActor.create(
+                            userId -> clusterSharding.entityRefFor(PersistentUserActor.ENTITY_TYPE_KEY, userId),
+                            creditsPerUser, ackTimeout),
+                        "persistent-user-event-delivery",
+                        Props.empty());
+                    deliveryActor = actor;
+                    logger.info("Delivering events to PersistentUserActors with {} credits per user", creditsPerUser);
+                }
+            }
+        }
+        return actor;
+    }
+    
     /**
      * Convert CommunicationEvent to UserEvent.
      */
@@ -180,20 +253,4 @@ public class PersistentUserService {
         
         return userEvent;
     }
-    
-    /**
-     * Get the next sequence number for a persistence ID.
-     */
-    private synchronized long getNextSequenceNr(String persistenceId) {
-        try {
-            if (h2EventJournal != null) {
-                long currentMax = h2EventJournal.getHighestSequenceNr(persistenceId);
-                return currentMax + 1;
-            }
-            return sequenceCounter++;
-        } catch (Exception e) {
-            logger.warn("Failed to get sequence number for {}, using counter: {}", persistenceId, e.getMessage());
-            return sequenceCounter++;
-        }
-    }
 }
\ No newline at end of file
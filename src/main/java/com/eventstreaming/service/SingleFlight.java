@@ -0,0 +1,63 @@
+package com.eventstreaming.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key into one execution.
+ *
+ * The first caller for a key runs the work; callers arriving while it is in flight get the
+ * same result instead of running it again. The key is released as soon as the work
+ * completes, so later callers start a fresh execution and never see an old result.
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder executions = new LongAdder();
+
+    /**
+     * Runs {@code work} for {@code key} unless a call for it is already in flight, in which
+     * case that call's result is returned.
+     */
+    public CompletionStage<V> execute(K key, Supplier<? extends CompletionStage<V>> work) {
+        calls.increment();
+        CompletableFuture<V> leader = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, leader);
+        if (existing != null) {
+            return existing.copy();
+        }
+
+        executions.increment();
+        try {
+            work.get().whenComplete((value, throwable) -> {
+                inFlight.remove(key, leader);
+                if (throwable != null) {
+                    leader.completeExceptionally(throwable);
+                } else {
+                    leader.complete(value);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, leader);
+            leader.completeExceptionally(e);
+        }
+        return leader.copy();
+    }
+
+    public Stats getStats() {
+        long callCount = calls.sum();
+        long executionCount = executions.sum();
+        long coalesced = callCount - executionCount;
+        return new Stats(callCount, executionCount, coalesced,
+            callCount == 0 ? 0.0 : (double) coalesced / callCount, inFlight.size());
+    }
+
+    /**
+     * Calls made, executions actually run, and the share of calls that joined one in flight.
+     */
+    public record Stats(long calls, long executions, long coalesced, double coalescingRatio, int inFlight) {}
+}
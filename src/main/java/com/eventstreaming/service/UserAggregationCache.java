@@ -0,0 +1,359 @@
+package com.eventstreaming.service;
+
+import com.eventstreaming.actor.AggregationChangeListener;
+import com.eventstreaming.model.UserAggregations;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Two-tier cache for Walker's UserAggregations lookups: a bounded in-process tier in front
+ * of the shared Redis tier.
+ *
+ * UserActors push their aggregations here after every change, which replaces the local
+ * entry and queues the Redis key for deletion; queued keys are deleted in batches by a
+ * background flusher rather than once per event. Every entry carries a version from one
+ * counter. A load reserves its version before reading Redis or asking the actor, so a
+ * load that was overtaken by a pushed change is discarded instead of overwriting it.
+ *
+ * Local entries expire after {@code localTtl}, which bounds the staleness of values that
+ * were read from Redis, and the least recently read entries are evicted above
+ * {@code localMaxEntries}.
+ */
+@Component
+@Profile({"redis", "local-redis", "cluster-mysql", "isolated"})
+public class UserAggregationCache implements AggregationChangeListener {
+
+    private static final Logger log = LoggerFactory.getLogger(UserAggregationCache.class);
+
+    static final String REDIS_USER_PREFIX = "user_aggregations:";
+
+    private final RedisTemplate<String, UserAggregations> redisTemplate;
+
+    private final ConcurrentHashMap<String, CachedEntry> local = new ConcurrentHashMap<>();
+    private final AtomicLong versions = new AtomicLong();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    // Users whose Redis entry is stale and not deleted yet
+    private final Set<String> pendingRedisInvalidations = ConcurrentHashMap.newKeySet();
+    private final SingleFlight<String, UserAggregations> missLoads = new SingleFlight<>();
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder pushedUpdates = new LongAdder();
+    private final LongAdder discardedLoads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder localHitAgeMillis = new LongAdder();
+    private final AtomicLong maxLocalHitAgeMillis = new AtomicLong();
+
+    private ScheduledExecutorService flusher;
+
+    @Value("${app.walker.cache.local.max-entries:50000}")
+    private int localMaxEntries = 50_000;
+
+    @Value("${app.walker.cache.local.ttl:5m}")
+    private Duration localTtl = Duration.ofMinutes(5);
+
+    @Value("${app.walker.cache.redis.ttl:30m}")
+    private Duration redisTtl = Duration.ofMinutes(30);
+
+    @Value("${app.walker.cache.redis.invalidation-flush-interval:100ms}")
+    private Duration invalidationFlushInterval = Duration.ofMillis(100);
+
+    @Autowired
+    public UserAggregationCache(RedisTemplate<String, UserAggregations> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "aggregation-cache-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = invalidationFlushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flushSafely, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flushSafely();
+    }
+
+    /**
+     * Returns the locally cached aggregations of a user, without going to Redis.
+     */
+    public Optional<UserAggregations> getLocal(String userId) {
+        CachedEntry entry = local.get(userId);
+        if (entry == null || entry.aggregations == null) {
+            return Optional.empty();
+        }
+        long now = System.currentTimeMillis();
+        if (now - entry.storedAtMillis >= localTtl.toMillis()) {
+            local.remove(userId, entry);
+            return Optional.empty();
+        }
+        entry.lastReadMillis = now;
+        long age = now - entry.storedAtMillis;
+        localHits.increment();
+        localHitAgeMillis.add(age);
+        maxLocalHitAgeMillis.accumulateAndGet(age, Math::max);
+        return Optional.of(entry.aggregations);
+    }
+
+    /**
+     * Returns the aggregations of a user from the local tier, then Redis, then
+     * {@code loader}. Values found in Redis are kept locally and loaded values are stored in
+     * both tiers, unless a newer value was pushed while they were being read.
+     *
+     * Concurrent local misses for one user share a single Redis read and load, so a burst of
+     * requests for a hot user costs one actor ask and at most one Redis write.
+     */
+    public CompletionStage<UserAggregations> get(String userId, Supplier<CompletionStage<UserAggregations>> loader) {
+        Optional<UserAggregations> cached = getLocal(userId);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached.get());
+        }
+        return missLoads.execute(userId, () -> loadMiss(userId, loader));
+    }
+
+    private CompletionStage<UserAggregations> loadMiss(String userId, Supplier<CompletionStage<UserAggregations>> loader) {
+        long version = versions.incrementAndGet();
+        UserAggregations shared = readRedis(userId);
+        if (shared != null) {
+            redisHits.increment();
+            storeLocal(userId, shared, version);
+            return CompletableFuture.completedFuture(shared);
+        }
+
+        misses.increment();
+        return load(userId, loader, version);
+    }
+
+    /**
+     * Loads the aggregations of a user with {@code loader} and stores them in both tiers,
+     * whatever is cached.
+     */
+    public CompletionStage<UserAggregations> refresh(String userId, Supplier<CompletionStage<UserAggregations>> loader) {
+        return load(userId, loader, versions.incrementAndGet());
+    }
+
+    /**
+     * Drops a user from both tiers. Loads that started before the invalidation are
+     * discarded. Returns whether Redis held an entry.
+     */
+    public boolean invalidate(String userId) {
+        storeLocal(userId, null, versions.incrementAndGet());
+        pendingRedisInvalidations.remove(userId);
+        return Boolean.TRUE.equals(redisTemplate.delete(REDIS_USER_PREFIX + userId));
+    }
+
+    /**
+     * Called by the UserActor after each change: replaces the local entry and queues the
+     * stale Redis entry for deletion.
+     */
+    @Override
+    public void onAggregationsChanged(UserAggregations aggregations) {
+        String userId = aggregations.getUserId();
+        storeLocal(userId, aggregations, versions.incrementAndGet());
+        pushedUpdates.increment();
+        pendingRedisInvalidations.add(userId);
+    }
+
+    /**
+     * Deletes the queued stale Redis entries with one multi-key DEL and returns how many
+     * users were flushed. Failed users stay queued for the next flush.
+     */
+    public int flushRedisInvalidations() {
+        if (pendingRedisInvalidations.isEmpty()) {
+            return 0;
+        }
+        List<String> userIds = new ArrayList<>(pendingRedisInvalidations);
+        pendingRedisInvalidations.removeAll(userIds);
+        try {
+            redisTemplate.delete(userIds.stream().map(userId -> REDIS_USER_PREFIX + userId).toList());
+            return userIds.size();
+        } catch (RuntimeException e) {
+            pendingRedisInvalidations.addAll(userIds);
+            throw e;
+        }
+    }
+
+    public CacheStats getStats() {
+        long fromLocal = localHits.sum();
+        long fromRedis = redisHits.sum();
+        long missed = misses.sum();
+        long lookups = fromLocal + fromRedis + missed;
+        return new CacheStats(
+            fromLocal,
+            fromRedis,
+            missed,
+            lookups == 0 ? 0.0 : (double) (fromLocal + fromRedis) / lookups,
+            lookups == 0 ? 0.0 : (double) fromLocal / lookups,
+            local.size(),
+            pushedUpdates.sum(),
+            discardedLoads.sum(),
+            evictions.sum(),
+            fromLocal == 0 ? 0.0 : (double) localHitAgeMillis.sum() / fromLocal,
+            maxLocalHitAgeMillis.get(),
+            pendingRedisInvalidations.size(),
+            missLoads.getStats()
+        );
+    }
+
+    private CompletionStage<UserAggregations> load(String userId,
+                                                   Supplier<CompletionStage<UserAggregations>> loader,
+                                                   long version) {
+        return loader.get().thenApply(aggregations -> {
+            if (storeLocal(userId, aggregations, version)) {
+                writeRedis(userId, aggregations);
+            }
+            return aggregations;
+        });
+    }
+
+    /**
+     * Stores an entry unless a newer version is already held. A null value is a tombstone
+     * that only blocks older loads.
+     */
+    private boolean storeLocal(String userId, UserAggregations aggregations, long version) {
+        CachedEntry candidate = new CachedEntry(aggregations, version, System.currentTimeMillis());
+        CachedEntry stored = local.compute(userId, (key, current) ->
+            current != null && current.version > version ? current : candidate);
+        if (stored != candidate) {
+            discardedLoads.increment();
+            return false;
+        }
+        if (local.size() > localMaxEntries) {
+            evictLeastRecentlyRead();
+        }
+        return true;
+    }
+
+    /**
+     * Evicts expired entries and then the least recently read ones down to 90% of the
+     * limit, so eviction runs once per many inserts rather than on each one.
+     */
+    private void evictLeastRecentlyRead() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long expiredBefore = System.currentTimeMillis() - localTtl.toMillis();
+            List<Map.Entry<String, CachedEntry>> live = new ArrayList<>(local.size());
+            for (Map.Entry<String, CachedEntry> entry : local.entrySet()) {
+                if (entry.getValue().storedAtMillis <= expiredBefore) {
+                    if (local.remove(entry.getKey(), entry.getValue())) {
+                        evictions.increment();
+                    }
+                } else {
+                    live.add(entry);
+                }
+            }
+            int excess = live.size() - (int) (localMaxEntries * 0.9);
+            if (excess > 0) {
+                live.sort(Comparator.comparingLong(entry -> entry.getValue().lastReadMillis));
+                for (int i = 0; i < excess; i++) {
+                    Map.Entry<String, CachedEntry> entry = live.get(i);
+                    if (local.remove(entry.getKey(), entry.getValue())) {
+                        evictions.increment();
+                    }
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private UserAggregations readRedis(String userId) {
+        try {
+            return redisTemplate.opsForValue().get(REDIS_USER_PREFIX + userId);
+        } catch (Exception e) {
+            log.warn("Redis read failed for user {}, loading from actor", userId, e);
+            return null;
+        }
+    }
+
+    private void writeRedis(String userId, UserAggregations aggregations) {
+        try {
+            redisTemplate.opsForValue().set(REDIS_USER_PREFIX + userId, aggregations, redisTtl.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.warn("Redis write failed for user {}", userId, e);
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flushRedisInvalidations();
+        } catch (Exception e) {
+            log.warn("Failed to delete stale aggregations from Redis, will retry", e);
+        }
+    }
+
+    private static final class CachedEntry {
+        private final UserAggregations aggregations;
+        private final long version;
+        private final long storedAtMillis;
+        private volatile long lastReadMillis;
+
+        CachedEntry(UserAggregations aggregations, long version, long storedAtMillis) {
+            this.aggregations = aggregations;
+            this.version = version;
+            this.storedAtMillis = storedAtMillis;
+            this.lastReadMillis = storedAtMillis;
+        }
+    }
+
+    /**
+     * Hit ratios, how old locally served entries were, and how many local misses were
+     * coalesced. Redis hits and misses are counted once per coalesced load.
+     */
+    public record CacheStats(
+        long localHits,
+        long redisHits,
+        long misses,
+        double hitRatio,
+        double localHitRatio,
+        int localEntries,
+        long pushedUpdates,
+        long discardedStaleLoads,
+        long evictions,
+        double averageLocalHitAgeMillis,
+        long maxLocalHitAgeMillis,
+        int pendingRedisInvalidations,
+        SingleFlight.Stats missCoalescing
+    ) {}
+}
@@ -15,7 +15,8 @@ import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Service for aggregating user events by event type.
- * This service maintains in-memory aggregations and loads historical data from MySQL.
+ * This service maintains in-memory aggregations and loads historical data from the
+ * user_event_rollup projection table.
  */
 @Service
 public class UserEventAggregationService {
@@ -101,7 +102,9 @@ public class UserEventAggregationService {
     }
     
     /**
-     * Loads historical aggregations from MySQL event journal.
+     * Loads historical aggregations from the user_event_rollup table kept up to date by
+     * {@link com.eventstreaming.projection.UserEventRollupProjection}: one row per user and
+     * event type, so the cost does not grow with the number of journaled events.
      */
     private Map<String, UserEventAggregation> loadHistoricalAggregations() {
         Map<String, UserEventAggregation> historical = new HashMap<>();
@@ -112,48 +115,25 @@ public class UserEventAggregationService {
         }
         
         try {
-            String sql = "SELECT " +
-                "SUBSTRING_INDEX(persistence_id, '|', -1) as user_id, " +
-                "event_ser_manifest as event_type, " +
-                "COUNT(*) as event_count, " +
-                "MAX(write_timestamp) as last_updated " +
-                "FROM event_journal " +
-                "WHERE persistence_id LIKE 'PersistentUserActor|%' " +
-                "GROUP BY user_id, event_ser_manifest " +
-                "ORDER BY user_id, event_ser_manifest";
+            String sql = "SELECT user_id, event_type, event_count, last_ts FROM user_event_rollup";
             
             jdbcTemplate.query(sql, (rs) -> {
                 String userId = rs.getString("user_id");
-                String eventType = rs.getString("event_type");
-                long eventCount = rs.getLong("event_count");
-                long lastUpdatedMillis = rs.getLong("last_updated");
-                
                 UserEventAggregation agg = historical.computeIfAbsent(userId, UserEventAggregation::new);
-                
-                // Add event type count to aggregation
-                for (int i = 0; i < eventCount; i++) {
-                    UserEvent dummyEvent = new UserEvent();
-                    dummyEvent.setUserId(userId);
-                    dummyEvent.setEventType(eventType);
-                    agg.addEvent(dummyEvent);
-                }
-                
-                if (lastUpdatedMillis > 0) {
-                    agg.setLastUpdated(java.time.Instant.ofEpochMilli(lastUpdatedMillis).atZone(java.time.ZoneId.systemDefault()).toLocalDateTime());
-                }
+                addRollupRow(agg, rs);
             });
             
-            logger.info("Loaded {} historical user aggregations from MySQL", historical.size());
+            logger.info("Loaded {} historical user aggregations from user_event_rollup", historical.size());
             
         } catch (Exception e) {
-            logger.warn("Failed to load historical aggregations from MySQL: {}", e.getMessage());
+            logger.warn("Failed to load historical aggregations from user_event_rollup: {}", e.getMessage());
         }
         
         return historical;
     }
     
     /**
-     * Gets historical aggregation for a specific user.
+     * Gets historical aggregation for a specific user from user_event_rollup.
      */
     private UserEventAggregation getHistoricalAggregation(String userId) {
         if (jdbcTemplate == null) {
@@ -161,33 +141,12 @@ public class UserEventAggregationService {
         }
         
         try {
-            String sql = "SELECT " +
-                "event_ser_manifest as event_type, " +
-                "COUNT(*) as event_count, " +
-                "MAX(write_timestamp) as last_updated " +
-                "FROM event_journal " +
-                "WHERE persistence_id = ? " +
-                "GROUP BY event_ser_manifest";
+            String sql = "SELECT event_type, event_count, last_ts FROM user_event_rollup WHERE user_id = ?";
             
             UserEventAggregation agg = new UserEventAggregation(userId);
-            
-            jdbcTemplate.query(sql, new Object[]{"PersistentUserActor|" + userId}, (rs) -> {
-                String eventType = rs.getString("event_type");
-                long eventCount = rs.getLong("event_count");
-                long lastUpdatedMillis = rs.getLong("last_updated");
-                
-                // Add event type count to aggregation
-                for (int i = 0; i < eventCount; i++) {
-                    UserEvent dummyEvent = new UserEvent();
-                    dummyEvent.setUserId(userId);
-                    dummyEvent.setEventType(eventType);
-                    agg.addEvent(dummyEvent);
-                }
-                
-                if (lastUpdatedMillis > 0) {
-                    agg.setLastUpdated(java.time.Instant.ofEpochMilli(lastUpdatedMillis).atZone(java.time.ZoneId.systemDefault()).toLocalDateTime());
-                }
-            });
+            jdbcTemplate.query(sql, (rs) -> {
+                addRollupRow(agg, rs);
+            }, userId);
             
             return agg.getTotalEvents() > 0 ? agg : null;
             
@@ -197,6 +156,15 @@ public class UserEventAggregationService {
         }
     }
     
+    private static void addRollupRow(UserEventAggregation agg, java.sql.ResultSet rs) throws java.sql.SQLException {
+        agg.addEventTypeCount(rs.getString("event_type"), rs.getLong("event_count"));
+        
+        java.sql.Timestamp lastTs = rs.getTimestamp("last_ts");
+        if (lastTs != null && (agg.getLastUpdated() == null || lastTs.toLocalDateTime().isAfter(agg.getLastUpdated()))) {
+            agg.setLastUpdated(lastTs.toLocalDateTime());
+        }
+    }
+    
     /**
      * Clears session aggregations only (keeps historical data).
      */
@@ -1,6 +1,8 @@
 package com.eventstreaming.streams;
 
+import com.eventstreaming.actor.UserActor;
 import com.eventstreaming.actor.UserActorRegistry;
+import com.eventstreaming.kafka.ColonDelimitedEventParser;
 import com.eventstreaming.model.CommunicationEvent;
 import com.eventstreaming.monitoring.StreamProcessingMetrics;
 import com.eventstreaming.validation.EventSequenceValidator;
@@ -9,6 +11,9 @@ import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.pekko.Done;
 import org.apache.pekko.NotUsed;
 import org.apache.pekko.actor.typed.ActorSystem;
+import org.apache.pekko.japi.Pair;
+import org.apache.pekko.kafka.CommitterSettings;
+import org.apache.pekko.kafka.javadsl.Committer;
 import org.apache.pekko.kafka.javadsl.Consumer;
 import org.apache.pekko.stream.ActorAttributes;
 import org.apache.pekko.stream.Supervision;
@@ -22,6 +27,13 @@ import org.springframework.stereotype.Component;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 
 /**
@@ -53,6 +65,30 @@ public class EventProcessingPipeline {
     @Value("${app.streams.event-processing.retry-attempts:3}")
     private int retryAttempts;
     
+    @Value("${app.streams.event-processing.batch.max-size:100}")
+    private int batchMaxSize;
+    
+    @Value("${app.streams.event-processing.batch.max-wait:20ms}")
+    private Duration batchMaxWait;
+    
+    @Value("${app.streams.event-processing.reorder.enabled:true}")
+    private boolean reorderEnabled;
+    
+    @Value("${app.streams.event-processing.reorder.max-delay:1s}")
+    private Duration reorderMaxDelay;
+    
+    @Value("${app.streams.event-processing.reorder.max-hold:500ms}")
+    private Duration reorderMaxHold;
+    
+    @Value("${app.streams.event-processing.reorder.max-events-per-user:100}")
+    private int reorderMaxEventsPerUser;
+    
+    @Value("${app.streams.event-processing.commit.max-batch:1000}")
+    private long commitMaxBatch;
+    
+    @Value("${app.streams.event-processing.commit.max-interval:5s}")
+    private Duration commitMaxInterval;
+    
     @Value("${app.streams.event-processing.restart-settings.min-backoff:3s}")
     private Duration minBackoff;
     
@@ -92,6 +128,7 @@ public class EventProcessingPipeline {
         return eventConsumer.createUnifiedEventSource()
             .buffer(bufferSize, org.apache.pekko.stream.OverflowStrategy.backpressure())
             .via(createEventDeserializationFlow())
+            .via(createReorderFlow())
             .via(createSequenceValidationFlow())
             .via(createUserAffinityProcessingFlow())
             .withAttributes(ActorAttributes.supervisionStrategy(Supervision.resumingDecider()));
@@ -100,167 +137,323 @@ public class EventProcessingPipeline {
     /**
      * Creates flow for deserializing JSON events to CommunicationEvent objects.
      */
-    Flow<ConsumerRecord<String, String>, EventWithMetadata, NotUsed> createEventDeserializationFlow() {
-        return Flow.<ConsumerRecord<String, String>>create()
-            .map(record -> {
-                var deserializationTimer = metrics.startDeserializationTimer();
-                try {
-                    CommunicationEvent event = eventConsumer.deserializeEvent(record.value());
-                    metrics.recordDeserializationTime(deserializationTimer);
-                    
-                    return new EventWithMetadata(
-                        event,
-                        record.key(),
-                        record.topic(),
-                        record.partition(),
-                        record.offset(),
-                        Instant.now()
-                    );
-                } catch (Exception e) {
-                    metrics.recordDeserializationTime(deserializationTimer);
-                    metrics.incrementDeserializationErrors();
-                    
-                    log.error("Failed to deserialize event from topic {} partition {} offset {}: {}", 
-                             record.topic(), record.partition(), record.offset(), record.value(), e);
-                    throw new EventDeserializationException("Deserialization failed", e, record);
-                }
-            })
+    Flow<ConsumerRecord<String, byte[]>, EventWithMetadata, NotUsed> createEventDeserializationFlow() {
+        return Flow.<ConsumerRecord<String, byte[]>>create()
+            .map(this::deserializeRecord)
             .withAttributes(ActorAttributes.supervisionStrategy(Supervision.resumingDecider()));
     }
     
+    /**
+     * Deserializes a single Kafka record and attaches its metadata.
+     */
+    private EventWithMetadata deserializeRecord(ConsumerRecord<String, byte[]> record) {
+        var deserializationTimer = metrics.startDeserializationTimer();
+        try {
+            CommunicationEvent event = eventConsumer.deserializeEvent(record.value());
+            metrics.recordDeserializationTime(deserializationTimer);
+            
+            return new EventWithMetadata(
+                event,
+                record.key(),
+                record.topic(),
+                record.partition(),
+                record.offset(),
+                Instant.now()
+            );
+        } catch (Exception e) {
+            metrics.recordDeserializationTime(deserializationTimer);
+            metrics.incrementDeserializationErrors();
+            
+            log.error("Failed to deserialize event from topic {} partition {} offset {}: {}", 
+                     record.topic(), record.partition(), record.offset(),
+                     ColonDelimitedEventParser.toDisplayString(record.value()), e);
+            throw new EventDeserializationException("Deserialization failed", e, record);
+        }
+    }
+    
+    /**
+     * Creates flow that puts each user's events back in event-time order before
+     * validation, see {@link EventTimeReorderStage}. Events later than
+     * {@code reorder.max-delay} still reach the validator out of order and are handled as
+     * late events there.
+     */
+    Flow<EventWithMetadata, EventWithMetadata, NotUsed> createReorderFlow() {
+        if (!reorderEnabled) {
+            return Flow.create();
+        }
+        return EventTimeReorderStage.flow(
+            reorderMaxDelay,
+            reorderMaxHold,
+            reorderMaxEventsPerUser,
+            eventWithMetadata -> eventWithMetadata.event().getUserId(),
+            eventWithMetadata -> eventWithMetadata.event().getTimestamp());
+    }
+    
+    /**
+     * Creates the reorder stage of {@link #createReorderFlow} for elements that carry an
+     * offset context. A context is only passed on once all earlier records left the stage;
+     * events released ahead of a held one carry an empty context.
+     */
+    <Ctx> FlowWithContext<EventWithMetadata, Ctx, EventWithMetadata, Optional<Ctx>, NotUsed> createCommittableReorderFlow() {
+        if (!reorderEnabled) {
+            return FlowWithContext.<EventWithMetadata, Ctx>create().mapContext(Optional::of);
+        }
+        return EventTimeReorderStage.flowWithContext(
+            reorderMaxDelay,
+            reorderMaxHold,
+            reorderMaxEventsPerUser,
+            eventWithMetadata -> eventWithMetadata.event().getUserId(),
+            eventWithMetadata -> eventWithMetadata.event().getTimestamp());
+    }
+    
     /**
      * Creates flow for validating event sequences across sources.
      */
     Flow<EventWithMetadata, ValidatedEventWithMetadata, NotUsed> createSequenceValidationFlow() {
         return Flow.<EventWithMetadata>create()
-            .map(eventWithMetadata -> {
-                var validationTimer = metrics.startSequenceValidationTimer();
-                try {
-                    EventSequenceValidator.SequenceValidationResult validationResult = 
-                        sequenceValidator.validateSequence(eventWithMetadata.event());
-                    
-                    metrics.recordSequenceValidationTime(validationTimer);
-                    
-                    if (!validationResult.isValid()) {
-                        metrics.incrementSequenceValidationErrors();
-                        log.warn("Sequence validation failed for user {}: {} - Event: {}", 
-                                eventWithMetadata.event().getUserId(), 
-                                validationResult.getMessage(),
-                                eventWithMetadata.event().getEventId());
-                    }
-                    
-                    return new ValidatedEventWithMetadata(eventWithMetadata, validationResult);
-                } catch (Exception e) {
-                    metrics.recordSequenceValidationTime(validationTimer);
-                    metrics.incrementSequenceValidationErrors();
-                    throw e;
-                }
-            })
+            .map(this::validateEvent)
             .withAttributes(ActorAttributes.supervisionStrategy(Supervision.resumingDecider()));
     }
     
     /**
-     * Creates flow for processing events with user affinity routing.
+     * Validates the sequence of a single event.
+     */
+    private ValidatedEventWithMetadata validateEvent(EventWithMetadata eventWithMetadata) {
+        var validationTimer = metrics.startSequenceValidationTimer();
+        try {
+            EventSequenceValidator.SequenceValidationResult validationResult = 
+                sequenceValidator.validateSequence(eventWithMetadata.event());
+            
+            metrics.recordSequenceValidationTime(validationTimer);
+            
+            if (!validationResult.isValid()) {
+                metrics.incrementSequenceValidationErrors();
+                log.warn("Sequence validation failed for user {}: {} - Event: {}", 
+                        eventWithMetadata.event().getUserId(), 
+                        validationResult.getMessage(),
+                        eventWithMetadata.event().getEventId());
+            }
+            
+            return new ValidatedEventWithMetadata(eventWithMetadata, validationResult);
+        } catch (Exception e) {
+            metrics.recordSequenceValidationTime(validationTimer);
+            metrics.incrementSequenceValidationErrors();
+            throw e;
+        }
+    }
+    
+    /**
+     * Creates flow for processing events with user affinity routing. Events are collected
+     * for up to {@code batch.max-size} elements or {@code batch.max-wait}, and each user in
+     * a batch gets a single {@link UserActor.ProcessEventBatch} ask instead of one ask per
+     * event. Results are emitted one per event, in input order.
      */
-    private Flow<ValidatedEventWithMetadata, Object, NotUsed> createUserAffinityProcessingFlow() {
+    Flow<ValidatedEventWithMetadata, Object, NotUsed> createUserAffinityProcessingFlow() {
         return Flow.<ValidatedEventWithMetadata>create()
-            .mapAsync(processingParallelism, validatedEvent -> {
-                EventWithMetadata eventWithMetadata = validatedEvent.eventWithMetadata();
-                CommunicationEvent event = eventWithMetadata.event();
-                String userId = event.getUserId();
-                
-                log.debug("Processing {} event for user {}: {} from topic {} partition {} offset {}", 
-                         event.getEventType(), userId, event.getEventId(),
-                         eventWithMetadata.topic(), eventWithMetadata.partition(), eventWithMetadata.offset());
+            .groupedWithin(batchMaxSize, batchMaxWait)
+            .mapAsync(processingParallelism, this::processValidatedBatch)
+            .mapConcat(results -> results)
+            .withAttributes(ActorAttributes.supervisionStrategy(Supervision.resumingDecider()));
+    }
+    
+    /**
+     * Batched processing for elements that carry a stream context. Each result is paired
+     * with the context of the event it belongs to, so contexts leave in the order they came in.
+     */
+    private <Ctx> Flow<Pair<ValidatedEventWithMetadata, Ctx>, Pair<Object, Ctx>, NotUsed> createBatchedContextFlow() {
+        return Flow.<Pair<ValidatedEventWithMetadata, Ctx>>create()
+            .groupedWithin(batchMaxSize, batchMaxWait)
+            .mapAsync(processingParallelism, batch -> {
+                List<ValidatedEventWithMetadata> events = new ArrayList<>(batch.size());
+                for (Pair<ValidatedEventWithMetadata, Ctx> element : batch) {
+                    events.add(element.first());
+                }
                 
-                return processEventWithUserActor(event, eventWithMetadata, validatedEvent.validationResult())
-                    .thenApply(result -> (Object) result);
+                return processValidatedBatch(events).thenApply(results -> {
+                    List<Pair<Object, Ctx>> withContext = new ArrayList<>(results.size());
+                    for (int i = 0; i < results.size(); i++) {
+                        withContext.add(Pair.create(results.get(i), batch.get(i).second()));
+                    }
+                    return withContext;
+                });
             })
-            .withAttributes(ActorAttributes.supervisionStrategy(Supervision.resumingDecider()));
+            .mapConcat(results -> results);
+    }
+    
+    /**
+     * Sends a batch of validated events to their UserActors, one ask per distinct user.
+     * The returned list holds one result per input event in input order and never
+     * completes exceptionally.
+     */
+    private CompletionStage<List<Object>> processValidatedBatch(List<ValidatedEventWithMetadata> batch) {
+        // Split the batch per user, keeping each user's events in stream order
+        Map<String, List<Integer>> indexesByUser = new LinkedHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            String userId = batch.get(i).eventWithMetadata().event().getUserId();
+            indexesByUser.computeIfAbsent(userId, id -> new ArrayList<>()).add(i);
+        }
+        
+        Object[] results = new Object[batch.size()];
+        CompletableFuture<?>[] userBatches = new CompletableFuture<?>[indexesByUser.size()];
+        int userBatch = 0;
+        for (Map.Entry<String, List<Integer>> entry : indexesByUser.entrySet()) {
+            userBatches[userBatch++] = processUserBatch(entry.getKey(), entry.getValue(), batch, results)
+                .toCompletableFuture();
+        }
+        
+        return CompletableFuture.allOf(userBatches).thenApply(done -> Arrays.asList(results));
     }
     
     /**
-     * Processes an event using the appropriate UserActor with user affinity.
+     * Creates the committable variant of the pipeline. Kafka offsets travel with each
+     * element as stream context and are handed to the committer only after the UserActor
+     * has replied, so a restart resumes right after the last processed record.
+     * Commits are batched by {@code commit.max-batch} and {@code commit.max-interval}.
+     * An ask that fails or times out fails the stream before its offset reaches the
+     * committer; EventStreamingService then restarts the pipeline, which consumes the
+     * record again from the last committed offset.
      */
-    private CompletionStage<ProcessingResult> processEventWithUserActor(
-            CommunicationEvent event, 
-            EventWithMetadata metadata,
-            EventSequenceValidator.SequenceValidationResult validationResult) {
+    public RunnableGraph<Consumer.DrainingControl<Done>> createCommittableEventProcessingGraph() {
+        CommitterSettings committerSettings = CommitterSettings.create(actorSystem)
+            .withMaxBatch(commitMaxBatch)
+            .withMaxInterval(commitMaxInterval);
+        
+        return eventConsumer.createCommittableEventSource()
+            .via(createCommittableProcessingFlow())
+            .toMat(Committer.sinkWithOffsetContext(committerSettings), Consumer::createDrainingControl);
+    }
+    
+    /**
+     * Creates the processing stages for a source that carries an offset context.
+     * Events are reordered as in the plain pipeline, but only offsets below every event the
+     * reorder stage still holds are passed on, see {@link #createCommittableReorderFlow}.
+     * Batches are processed with an ordered mapAsync, so contexts reach the committer in offset order and
+     * an offset is never committed before the records preceding it were processed.
+     * Records that fail deserialization are dropped; their offsets are covered by the
+     * next commit. Events the UserActor rejected were acknowledged and are committed too,
+     * but an event whose ask failed fails the stream, see {@link #requireAcknowledged}.
+     */
+    <Ctx> FlowWithContext<ConsumerRecord<String, byte[]>, Ctx, Object, Ctx, NotUsed> createCommittableProcessingFlow() {
+        return FlowWithContext.<ConsumerRecord<String, byte[]>, Ctx>create()
+            .via(Flow.<Pair<ConsumerRecord<String, byte[]>, Ctx>>create()
+                .buffer(bufferSize, org.apache.pekko.stream.OverflowStrategy.backpressure()))
+            .map(this::deserializeRecord)
+            .via(this.<Ctx>createCommittableReorderFlow())
+            .map(this::validateEvent)
+            .via(this.<Optional<Ctx>>createBatchedContextFlow())
+            .map(result -> {
+                logProcessingResult(result);
+                return result;
+            })
+            .withAttributes(ActorAttributes.supervisionStrategy(Supervision.resumingDecider()))
+            // Outside the resuming scope: resuming would drop the element and commit past it
+            .map(this::requireAcknowledged)
+            // Results without an offset to commit are not passed to the committer
+            .via(Flow.<Pair<Object, Optional<Ctx>>>create()
+                .filter(resultAndOffset -> resultAndOffset.second().isPresent())
+                .map(resultAndOffset -> Pair.create(resultAndOffset.first(), resultAndOffset.second().get())));
+    }
+    
+    /**
+     * Passes on results of events the UserActor acknowledged, including events it rejected.
+     * A failed or timed-out ask throws, so neither its offset nor any later one is committed.
+     */
+    private Object requireAcknowledged(Object result) {
+        if (result instanceof ProcessingResult.Failed failed && failed.cause() != null) {
+            throw new EventNotAcknowledgedException(failed);
+        }
+        return result;
+    }
+    
+    /**
+     * Processes one user's events from a batch with a single UserActor ask and writes a
+     * result for each of them into {@code results}, at the event's batch index.
+     */
+    private CompletionStage<Void> processUserBatch(String userId, 
+                                                   List<Integer> indexes,
+                                                   List<ValidatedEventWithMetadata> batch,
+                                                   Object[] results) {
+        List<CommunicationEvent> events = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            events.add(batch.get(index).eventWithMetadata().event());
+        }
         
-        String userId = event.getUserId();
         Instant processingStartTime = Instant.now();
         var actorAskTimer = metrics.startActorAskTimer();
         
         return userActorRegistry.askUserActor(
             userId,
-            replyTo -> new com.eventstreaming.actor.UserActor.ProcessEvent(event, replyTo),
+            replyTo -> new UserActor.ProcessEventBatch(events, replyTo),
             askTimeout,
-            com.eventstreaming.actor.UserActor.ProcessEventResponse.class
-        ).thenApply(response -> {
+            UserActor.ProcessEventBatchResponse.class
+        ).thenAccept(response -> {
             metrics.recordActorAskTime(actorAskTimer);
             Instant processingEndTime = Instant.now();
             Duration processingDuration = Duration.between(processingStartTime, processingEndTime);
             
-            if (response instanceof com.eventstreaming.actor.UserActor.ProcessEventResponse.Success success) {
-                metrics.recordSuccessfulProcessing(event.getEventType().toString(), userId, processingDuration);
-                
-                log.debug("Successfully processed event {} for user {} in {}ms", 
-                         event.getEventId(), userId, processingDuration.toMillis());
-                
-                return new ProcessingResult.Success(
-                    event.getEventId(),
-                    userId,
-                    processingEndTime,
-                    processingDuration,
-                    success.aggregations(),
-                    metadata,
-                    validationResult
-                );
-            } else if (response instanceof com.eventstreaming.actor.UserActor.ProcessEventResponse.Failed failed) {
-                metrics.recordFailedProcessing(event.getEventType().toString(), failed.reason(), processingDuration);
-                
-                log.error("Failed to process event {} for user {}: {}", 
-                         event.getEventId(), userId, failed.reason());
-                
-                return new ProcessingResult.Failed(
-                    event.getEventId(),
-                    userId,
-                    failed.reason(),
-                    null,
-                    metadata
-                );
-            } else {
-                String reason = "Unknown response type: " + response.getClass().getSimpleName();
-                metrics.recordFailedProcessing(event.getEventType().toString(), reason, processingDuration);
-                
-                log.error("Unknown response type for event {} user {}: {}", 
-                         event.getEventId(), userId, response.getClass().getSimpleName());
+            String[] rejections = new String[indexes.size()];
+            for (UserActor.ProcessEventBatchResponse.RejectedEvent rejected : response.rejected()) {
+                rejections[rejected.index()] = rejected.reason();
+            }
+            
+            for (int i = 0; i < indexes.size(); i++) {
+                int index = indexes.get(i);
+                ValidatedEventWithMetadata validatedEvent = batch.get(index);
+                CommunicationEvent event = events.get(i);
                 
-                return new ProcessingResult.Failed(
-                    event.getEventId(),
-                    userId,
-                    reason,
-                    null,
-                    metadata
-                );
+                if (rejections[i] == null) {
+                    metrics.recordSuccessfulProcessing(event.getEventType().toString(), userId, processingDuration);
+                    
+                    log.debug("Successfully processed event {} for user {} in {}ms", 
+                             event.getEventId(), userId, processingDuration.toMillis());
+                    
+                    results[index] = new ProcessingResult.Success(
+                        event.getEventId(),
+                        userId,
+                        processingEndTime,
+                        processingDuration,
+                        response.aggregations(),
+                        validatedEvent.eventWithMetadata(),
+                        validatedEvent.validationResult()
+                    );
+                } else {
+                    metrics.recordFailedProcessing(event.getEventType().toString(), rejections[i], processingDuration);
+                    
+                    log.error("Failed to process event {} for user {}: {}", 
+                             event.getEventId(), userId, rejections[i]);
+                    
+                    results[index] = new ProcessingResult.Failed(
+                        event.getEventId(),
+                        userId,
+                        rejections[i],
+                        null,
+                        validatedEvent.eventWithMetadata()
+                    );
+                }
             }
         }).exceptionally(throwable -> {
             metrics.recordActorAskTime(actorAskTimer);
             
-            if (throwable instanceof java.util.concurrent.TimeoutException) {
+            if (throwable instanceof java.util.concurrent.TimeoutException
+                    || throwable.getCause() instanceof java.util.concurrent.TimeoutException) {
                 metrics.incrementActorTimeouts();
             }
             
             Duration processingDuration = Duration.between(processingStartTime, Instant.now());
-            metrics.recordFailedProcessing(event.getEventType().toString(), "Actor processing error", processingDuration);
-            
-            return new ProcessingResult.Failed(
-                event.getEventId(),
-                userId,
-                "Actor processing error: " + throwable.getMessage(),
-                throwable,
-                metadata
-            );
+            for (int i = 0; i < indexes.size(); i++) {
+                int index = indexes.get(i);
+                CommunicationEvent event = events.get(i);
+                metrics.recordFailedProcessing(event.getEventType().toString(), "Actor processing error", processingDuration);
+                
+                results[index] = new ProcessingResult.Failed(
+                    event.getEventId(),
+                    userId,
+                    "Actor processing error: " + throwable.getMessage(),
+                    throwable,
+                    batch.get(index).eventWithMetadata()
+                );
+            }
+            return null;
         });
     }
     
@@ -289,20 +482,22 @@ public class EventProcessingPipeline {
      * Creates a sink for processing results (logging, metrics, etc.).
      */
     public Sink<Object, CompletionStage<Done>> createProcessingResultSink() {
-        return Sink.foreach(result -> {
-            if (result instanceof ProcessingResult.Success success) {
-                log.debug("Event processing success: {} for user {} in {}ms", 
-                         success.eventId(), success.userId(), success.processingDuration().toMillis());
-            } else if (result instanceof ProcessingResult.Failed failed) {
-                log.error("Event processing failed: {} for user {} - {}", 
-                         failed.eventId(), failed.userId(), failed.reason());
-            } else if (result instanceof ProcessingResult.Retry retry) {
-                log.warn("Event processing retry: {} for user {} - attempt {} - {}", 
-                         retry.eventId(), retry.userId(), retry.attemptCount(), retry.reason());
-            } else {
-                log.debug("Processing result: {}", result);
-            }
-        });
+        return Sink.foreach(this::logProcessingResult);
+    }
+    
+    private void logProcessingResult(Object result) {
+        if (result instanceof ProcessingResult.Success success) {
+            log.debug("Event processing success: {} for user {} in {}ms", 
+                     success.eventId(), success.userId(), success.processingDuration().toMillis());
+        } else if (result instanceof ProcessingResult.Failed failed) {
+            log.error("Event processing failed: {} for user {} - {}", 
+                     failed.eventId(), failed.userId(), failed.reason());
+        } else if (result instanceof ProcessingResult.Retry retry) {
+            log.warn("Event processing retry: {} for user {} - attempt {} - {}", 
+                     retry.eventId(), retry.userId(), retry.attemptCount(), retry.reason());
+        } else {
+            log.debug("Processing result: {}", result);
+        }
     }
     
     /**
@@ -430,18 +625,35 @@ public class EventProcessingPipeline {
         }
     }
     
+    /**
+     * Fails the committable pipeline when an event was not acknowledged by its UserActor.
+     */
+    public static class EventNotAcknowledgedException extends RuntimeException {
+        private final ProcessingResult.Failed result;
+        
+        public EventNotAcknowledgedException(ProcessingResult.Failed result) {
+            super("Event " + result.eventId() + " for user " + result.userId() + " was not acknowledged: "
+                + result.reason(), result.cause());
+            this.result = result;
+        }
+        
+        public ProcessingResult.Failed getResult() {
+            return result;
+        }
+    }
+    
     /**
      * Exception for event deserialization failures.
      */
     public static class EventDeserializationException extends RuntimeException {
-        private final ConsumerRecord<String, String> record;
+        private final ConsumerRecord<String, byte[]> record;
         
-        public EventDeserializationException(String message, Throwable cause, ConsumerRecord<String, String> record) {
+        public EventDeserializationException(String message, Throwable cause, ConsumerRecord<String, byte[]> record) {
             super(message, cause);
             this.record = record;
         }
         
-        public ConsumerRecord<String, String> getRecord() {
+        public ConsumerRecord<String, byte[]> getRecord() {
             return record;
         }
     }
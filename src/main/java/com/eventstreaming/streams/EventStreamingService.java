@@ -42,6 +42,9 @@ public class EventStreamingService {
     @Value("${app.streams.event-processing.kafka-enabled:true}")
     private boolean kafkaEnabled;
     
+    @Value("${app.streams.event-processing.commit-offsets:true}")
+    private boolean commitOffsets;
+    
     @Autowired
     public EventStreamingService(ActorSystem<Void> actorSystem,
                                 EventProcessingPipeline processingPipeline) {
@@ -77,18 +80,27 @@ public class EventStreamingService {
         }
         
         try {
-            log.info("Starting event streaming pipeline...");
-            
-            var pipelineSource = processingPipeline.createEventProcessingPipeline();
-            var processingSink = processingPipeline.createProcessingResultSink();
-            
-            // Run the pipeline and capture control
-            var runnableGraph = pipelineSource.toMat(processingSink, (control, completion) -> {
-                this.streamControl = control;
-                return completion;
-            });
+            log.info("Starting event streaming pipeline (commitOffsets={})...", commitOffsets);
             
-            CompletionStage<Done> completion = runnableGraph.run(actorSystem);
+            CompletionStage<Done> completion;
+            if (commitOffsets) {
+                // At-least-once: offsets are committed in batches after processing
+                Consumer.DrainingControl<Done> drainingControl = 
+                    processingPipeline.createCommittableEventProcessingGraph().run(actorSystem);
+                this.streamControl = drainingControl;
+                completion = drainingControl.streamCompletion();
+            } else {
+                var pipelineSource = processingPipeline.createEventProcessingPipeline();
+                var processingSink = processingPipeline.createProcessingResultSink();
+                
+                // Run the pipeline and capture control
+                var runnableGraph = pipelineSource.toMat(processingSink, (control, streamCompletion) -> {
+                    this.streamControl = control;
+                    return streamCompletion;
+                });
+                
+                completion = runnableGraph.run(actorSystem);
+            }
             
             isRunning.set(true);
             log.info("Event streaming pipeline started successfully");
@@ -130,7 +142,12 @@ public class EventStreamingService {
         log.info("Stopping event streaming pipeline...");
         
         if (streamControl != null) {
-            return streamControl.shutdown()
+            // Draining lets in-flight events finish so their offsets are committed
+            CompletionStage<Done> shutdown = streamControl instanceof Consumer.DrainingControl<?> drainingControl
+                ? drainingControl.drainAndShutdown(actorSystem.executionContext()).thenApply(result -> Done.getInstance())
+                : streamControl.shutdown();
+            
+            return shutdown
                 .whenComplete((done, throwable) -> {
                     if (throwable != null) {
                         log.error("Error during event streaming shutdown", throwable);
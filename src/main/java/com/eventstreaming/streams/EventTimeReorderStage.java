@@ -0,0 +1,263 @@
+package com.eventstreaming.streams;
+
+import org.apache.pekko.NotUsed;
+import org.apache.pekko.japi.Pair;
+import org.apache.pekko.japi.function.Function;
+import org.apache.pekko.stream.Attributes;
+import org.apache.pekko.stream.FlowShape;
+import org.apache.pekko.stream.Inlet;
+import org.apache.pekko.stream.Outlet;
+import org.apache.pekko.stream.javadsl.Flow;
+import org.apache.pekko.stream.javadsl.FlowWithContext;
+import org.apache.pekko.stream.stage.AbstractInHandler;
+import org.apache.pekko.stream.stage.AbstractOutHandler;
+import org.apache.pekko.stream.stage.GraphStage;
+import org.apache.pekko.stream.stage.GraphStageLogic;
+import org.apache.pekko.stream.stage.TimerGraphStageLogic;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+
+/**
+ * Reorders each user's events by event time before they reach sequence validation.
+ *
+ * Every user has a small buffer ordered by event time and a watermark of
+ * {@code maxDelay} behind the latest event time seen for that user. Buffered events at or
+ * below the watermark are released in event-time order, so an event that arrives up to
+ * {@code maxDelay} late is slotted in before the later events it overtook. Events older
+ * than what was already released for the user are passed through at once and left to the
+ * sequence validator as late events.
+ *
+ * A user's buffer is also released in full once its first event has been held for
+ * {@code maxHold}, so quiet users are not delayed indefinitely, and its earliest event is
+ * released when it holds more than {@code maxEventsPerUser}. Released users are forgotten,
+ * so memory is bounded by the users active within {@code maxHold}.
+ */
+public final class EventTimeReorderStage<T> extends GraphStage<FlowShape<T, T>> {
+
+    private static final String FLUSH_TIMER = "flush-held-events";
+
+    private final Inlet<T> in = Inlet.create("EventTimeReorder.in");
+    private final Outlet<T> out = Outlet.create("EventTimeReorder.out");
+    private final FlowShape<T, T> shape = FlowShape.of(in, out);
+
+    private final long maxDelayMillis;
+    private final Duration maxHold;
+    private final int maxEventsPerUser;
+    private final Function<T, String> userIdExtractor;
+    private final Function<T, Instant> eventTimeExtractor;
+
+    public EventTimeReorderStage(Duration maxDelay,
+                                 Duration maxHold,
+                                 int maxEventsPerUser,
+                                 Function<T, String> userIdExtractor,
+                                 Function<T, Instant> eventTimeExtractor) {
+        if (maxEventsPerUser < 1) {
+            throw new IllegalArgumentException("maxEventsPerUser must be at least 1, got " + maxEventsPerUser);
+        }
+        this.maxDelayMillis = maxDelay.toMillis();
+        this.maxHold = maxHold;
+        this.maxEventsPerUser = maxEventsPerUser;
+        this.userIdExtractor = userIdExtractor;
+        this.eventTimeExtractor = eventTimeExtractor;
+    }
+
+    /**
+     * Creates a flow running this stage.
+     */
+    public static <T> Flow<T, T, NotUsed> flow(Duration maxDelay,
+                                                Duration maxHold,
+                                                int maxEventsPerUser,
+                                                Function<T, String> userIdExtractor,
+                                                Function<T, Instant> eventTimeExtractor) {
+        return Flow.fromGraph(new EventTimeReorderStage<>(
+            maxDelay, maxHold, maxEventsPerUser, userIdExtractor, eventTimeExtractor));
+    }
+
+    /**
+     * Creates a flow running this stage on elements that carry a context, such as a Kafka
+     * offset. Elements are reordered as in {@link #flow}, but a context only comes out once
+     * every element that arrived before its own has left the stage, so committing it never
+     * skips a held element. Elements released ahead of an earlier held one carry no context.
+     */
+    public static <T, Ctx> FlowWithContext<T, Ctx, T, Optional<Ctx>, NotUsed> flowWithContext(
+            Duration maxDelay,
+            Duration maxHold,
+            int maxEventsPerUser,
+            Function<T, String> userIdExtractor,
+            Function<T, Instant> eventTimeExtractor) {
+        return FlowWithContext.fromPairs(Flow.<Pair<T, Ctx>>create()
+            .zipWithIndex()
+            .via(flow(maxDelay, maxHold, maxEventsPerUser,
+                indexed -> userIdExtractor.apply(indexed.first().first()),
+                indexed -> eventTimeExtractor.apply(indexed.first().first())))
+            .statefulMap(
+                ReleasedPrefix<Ctx>::new,
+                (prefix, indexed) -> Pair.create(prefix,
+                    Pair.create(indexed.first().first(), prefix.released(indexed.second(), indexed.first().second()))),
+                prefix -> Optional.empty()));
+    }
+
+    @Override
+    public FlowShape<T, T> shape() {
+        return shape;
+    }
+
+    @Override
+    public GraphStageLogic createLogic(Attributes inheritedAttributes) {
+        return new TimerGraphStageLogic(shape) {
+
+            private final Map<String, UserBuffer<T>> buffers = new HashMap<>();
+            private long arrivals;
+
+            {
+                setHandler(in, new AbstractInHandler() {
+                    @Override
+                    public void onPush() throws Exception {
+                        List<T> ready = accept(grab(in));
+                        if (ready.isEmpty()) {
+                            pullIfNeeded();
+                        } else {
+                            emitMultiple(out, ready.iterator(), () -> pullIfNeeded());
+                        }
+                    }
+
+                    @Override
+                    public void onUpstreamFinish() {
+                        List<T> remaining = new ArrayList<>();
+                        buffers.values().forEach(buffer -> buffer.drainTo(remaining));
+                        buffers.clear();
+                        emitMultiple(out, remaining.iterator(), () -> completeStage());
+                    }
+                });
+
+                setHandler(out, new AbstractOutHandler() {
+                    @Override
+                    public void onPull() {
+                        pullIfNeeded();
+                    }
+                });
+            }
+
+            @Override
+            public void preStart() {
+                Duration tick = maxHold.dividedBy(2).isZero() ? Duration.ofMillis(1) : maxHold.dividedBy(2);
+                scheduleWithFixedDelay(FLUSH_TIMER, tick, tick);
+            }
+
+            @Override
+            public void onTimer(Object timerKey) {
+                long heldSince = System.nanoTime() - maxHold.toNanos();
+                List<T> expired = new ArrayList<>();
+                Iterator<UserBuffer<T>> iterator = buffers.values().iterator();
+                while (iterator.hasNext()) {
+                    UserBuffer<T> buffer = iterator.next();
+                    if (buffer.firstHeldAtNanos - heldSince <= 0) {
+                        buffer.drainTo(expired);
+                        iterator.remove();
+                    }
+                }
+                if (!expired.isEmpty()) {
+                    emitMultiple(out, expired.iterator());
+                }
+            }
+
+            private List<T> accept(T element) throws Exception {
+                String userId = userIdExtractor.apply(element);
+                Instant eventTime = eventTimeExtractor.apply(element);
+                if (userId == null || eventTime == null) {
+                    return List.of(element);
+                }
+
+                long eventMillis = eventTime.toEpochMilli();
+                UserBuffer<T> buffer = buffers.get(userId);
+                if (buffer == null) {
+                    buffer = new UserBuffer<>();
+                    buffers.put(userId, buffer);
+                } else if (eventMillis < buffer.releasedUpTo) {
+                    // Beyond the reorder horizon: pass it on for the validator's late-event handling
+                    return List.of(element);
+                }
+
+                if (buffer.size() == 0) {
+                    buffer.firstHeldAtNanos = System.nanoTime();
+                }
+                buffer.add(new Held<>(element, eventMillis, arrivals++));
+                List<T> ready = new ArrayList<>();
+                buffer.releaseUpTo(buffer.maxEventMillis - maxDelayMillis, ready);
+                while (buffer.size() > maxEventsPerUser) {
+                    buffer.releaseFirst(ready);
+                }
+                return ready;
+            }
+
+            private void pullIfNeeded() {
+                if (!isClosed(in) && !hasBeenPulled(in)) {
+                    pull(in);
+                }
+            }
+        };
+    }
+
+    private record Held<T>(T element, long eventMillis, long arrival) {}
+
+    // Contexts of released elements, handed out once all earlier arrivals were released
+    private static final class ReleasedPrefix<Ctx> {
+        private final Map<Long, Ctx> ahead = new HashMap<>();
+        private long nextArrival;
+
+        Optional<Ctx> released(long arrival, Ctx context) {
+            ahead.put(arrival, context);
+            Ctx latest = null;
+            Ctx next;
+            while ((next = ahead.remove(nextArrival)) != null) {
+                latest = next;
+                nextArrival++;
+            }
+            return Optional.ofNullable(latest);
+        }
+    }
+
+    private static final class UserBuffer<T> {
+        private final PriorityQueue<Held<T>> held = new PriorityQueue<>(
+            Comparator.<Held<T>>comparingLong(Held::eventMillis).thenComparingLong(Held::arrival));
+        private long maxEventMillis = Long.MIN_VALUE;
+        private long releasedUpTo = Long.MIN_VALUE;
+        private long firstHeldAtNanos;
+
+        void add(Held<T> event) {
+            held.add(event);
+            maxEventMillis = Math.max(maxEventMillis, event.eventMillis());
+        }
+
+        int size() {
+            return held.size();
+        }
+
+        void releaseUpTo(long watermark, List<T> ready) {
+            while (!held.isEmpty() && held.peek().eventMillis() <= watermark) {
+                releaseFirst(ready);
+            }
+        }
+
+        void releaseFirst(List<T> ready) {
+            Held<T> first = held.poll();
+            releasedUpTo = Math.max(releasedUpTo, first.eventMillis());
+            ready.add(first.element());
+        }
+
+        void drainTo(List<T> ready) {
+            while (!held.isEmpty()) {
+                releaseFirst(ready);
+            }
+        }
+    }
+}
@@ -3,20 +3,22 @@ package com.eventstreaming.streams;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 
 import com.eventstreaming.actor.UserActorRegistry;
+import com.eventstreaming.kafka.ColonDelimitedEventParser;
 import com.eventstreaming.model.CommunicationEvent;
-import com.eventstreaming.model.EventType;
 import com.eventstreaming.validation.EventSequenceValidator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.pekko.Done;
 import org.apache.pekko.actor.typed.ActorSystem;
+import org.apache.pekko.kafka.ConsumerMessage;
 import org.apache.pekko.kafka.ConsumerSettings;
 import org.apache.pekko.kafka.Subscriptions;
 import org.apache.pekko.kafka.javadsl.Consumer;
-// import org.apache.pekko.kafka.javadsl.Consumer.CommittableMessage;
 import org.apache.pekko.stream.javadsl.Source;
+import org.apache.pekko.stream.javadsl.SourceWithContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -68,143 +70,67 @@ public class UnifiedEventConsumer {
     
     /**
      * Creates a unified Kafka consumer source that subscribes to all event topics.
-     * Uses manual offset commits for exactly-once processing.
+     * Offsets are never committed on this source; use {@link #createCommittableEventSource()}
+     * for at-least-once processing.
      */
-    public Source<ConsumerRecord<String, String>, Consumer.Control> createUnifiedEventSource() {
-        ConsumerSettings<String, String> consumerSettings = 
-            ConsumerSettings.create(actorSystem, new StringDeserializer(), new StringDeserializer())
-                .withBootstrapServers(bootstrapServers)
-                .withGroupId(groupId)
-                .withProperty(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest")
-                .withProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false")
-                .withProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, "500")
-                .withProperty(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, "1024")
-                .withProperty(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, "30000")
-                .withProperty(ConsumerConfig.HEARTBEAT_INTERVAL_MS_CONFIG, "3000");
-        
+    public Source<ConsumerRecord<String, byte[]>, Consumer.Control> createUnifiedEventSource() {
         // Subscribe to all event topics
         return Consumer.plainSource(
-            consumerSettings,
+            createConsumerSettings(),
             Subscriptions.topics(emailEventsTopic, smsEventsTopic, callEventsTopic)
         );
     }
     
     /**
-     * Creates a committable source for exactly-once processing with manual offset management.
-     * Note: Simplified for now - committable functionality can be added later.
+     * Creates a committable source that carries each record's offset as stream context,
+     * so offsets can be committed once the record has been processed.
      */
-    public Source<ConsumerRecord<String, String>, Consumer.Control> createCommittableEventSource() {
-        return createUnifiedEventSource();
+    public SourceWithContext<ConsumerRecord<String, byte[]>, ConsumerMessage.CommittableOffset, Consumer.Control> createCommittableEventSource() {
+        return Consumer.sourceWithOffsetContext(
+            createConsumerSettings(),
+            Subscriptions.topics(emailEventsTopic, smsEventsTopic, callEventsTopic)
+        );
+    }
+    
+    // Values stay raw bytes and are parsed by deserializeEvent(byte[]) without decoding them first
+    private ConsumerSettings<String, byte[]> createConsumerSettings() {
+        return ConsumerSettings.create(actorSystem, new StringDeserializer(), new ByteArrayDeserializer())
+            .withBootstrapServers(bootstrapServers)
+            .withGroupId(groupId)
+            .withProperty(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest")
+            .withProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false")
+            .withProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, "500")
+            .withProperty(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, "1024")
+            .withProperty(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, "30000")
+            .withProperty(ConsumerConfig.HEARTBEAT_INTERVAL_MS_CONFIG, "3000");
     }
     
     /**
-     * Deserializes event string to CommunicationEvent.
+     * Deserializes raw record bytes (from {@code ByteArrayDeserializer}) to CommunicationEvent
+     * without decoding them to a String first.
      * Supports both JSON format and colon-delimited format.
      * Colon-delimited format: timestamp@hash:action:value1:value2
      */
-    public CommunicationEvent deserializeEvent(String eventString) {
+    public CommunicationEvent deserializeEvent(byte[] eventBytes) {
         try {
-            // Try JSON first
-            if (eventString.trim().startsWith("{")) {
-                return objectMapper.readValue(eventString, CommunicationEvent.class);
+            if (startsWithJsonObject(eventBytes)) {
+                return objectMapper.readValue(eventBytes, CommunicationEvent.class);
             }
             
-            // Parse colon-delimited format
-            return parseColonDelimitedEvent(eventString);
+            return ColonDelimitedEventParser.parseCommunicationEvent(eventBytes);
         } catch (Exception e) {
-            log.error("Failed to deserialize event: {}", eventString, e);
+            log.error("Failed to deserialize event: {}", ColonDelimitedEventParser.toDisplayString(eventBytes), e);
             throw new RuntimeException("Event deserialization failed", e);
         }
     }
     
-    /**
-     * Parses colon-delimited event format: timestamp@hash:action:value1:value2
-     */
-    private CommunicationEvent parseColonDelimitedEvent(String eventString) {
-        String[] parts = eventString.split(":");
-        if (parts.length < 2) {
-            throw new IllegalArgumentException("Invalid event format: " + eventString);
-        }
-        
-        // Extract timestamp and hash from first part
-        String[] timestampParts = parts[0].split("@");
-        String timestamp = timestampParts.length > 0 ? timestampParts[0] : "";
-        String hash = timestampParts.length > 1 ? timestampParts[1] : "";
-        
-        // Extract action
-        String action = parts.length > 1 ? parts[1] : "";
-        
-        // Map action to EventType
-        EventType eventType = mapActionToEventType(action);
-        
-        // Create appropriate event subclass based on action
-        CommunicationEvent event;
-        if (action.equalsIgnoreCase("DROP") || action.equalsIgnoreCase("ANSWER")) {
-            // Create CallEvent
-            com.eventstreaming.model.CallEvent callEvent = new com.eventstreaming.model.CallEvent();
-            callEvent.setCallResult(action.equalsIgnoreCase("DROP") ? "MISSED" : "COMPLETED");
-            event = callEvent;
-        } else {
-            // Create generic CallEvent for other types
-            event = new com.eventstreaming.model.CallEvent();
-        }
-        
-        event.setEventId(hash.substring(0, Math.min(20, hash.length()))); // Use part of hash as ID
-        event.setUserId(extractUserIdFromHash(hash)); // Extract user ID from hash
-        event.setEventType(eventType);
-        event.setTimestamp(parseTimestamp(timestamp));
-        event.setSource("kafka-colon-delimited");
-        
-        // Store additional data in metadata
-        event.setMetadata(java.util.Map.of(
-            "rawData", eventString,
-            "hash", hash,
-            "action", action
-        ));
-        
-        log.debug("Parsed colon-delimited event: action={}, timestamp={}, eventType={}", 
-                 action, timestamp, eventType);
-        
-        return event;
-    }
-    
-    /**
-     * Extracts user ID from hash (using first 10 characters as user ID).
-     */
-    private String extractUserIdFromHash(String hash) {
-        if (hash == null || hash.isEmpty()) {
-            return "unknown";
-        }
-        return "user_" + hash.substring(0, Math.min(10, hash.length()));
-    }
-    
-    /**
-     * Maps action string to EventType enum.
-     */
-    private EventType mapActionToEventType(String action) {
-        return switch (action.toUpperCase()) {
-            case "DROP" -> EventType.DROP;
-            case "ANSWER" -> EventType.CALL_ANSWERED;
-            case "PICKUP" -> EventType.PICKUP;
-            case "DELIVERY" -> EventType.DELIVERY;
-            case "SEND" -> EventType.SMS_DELIVERY;
-            case "RECEIVE" -> EventType.SMS_REPLY;
-            default -> EventType.DROP; // Default to DROP for unknown actions
-        };
-    }
-    
-    /**
-     * Parses timestamp string to Instant.
-     */
-    private java.time.Instant parseTimestamp(String timestamp) {
-        try {
-            // Try parsing as epoch milliseconds
-            long epochMilli = Long.parseLong(timestamp.replaceAll("[^0-9]", ""));
-            return java.time.Instant.ofEpochMilli(epochMilli);
-        } catch (Exception e) {
-            log.warn("Failed to parse timestamp: {}, using current time", timestamp);
-            return java.time.Instant.now();
+    private static boolean startsWithJsonObject(byte[] eventBytes) {
+        for (byte b : eventBytes) {
+            if (!Character.isWhitespace(b)) {
+                return b == '{';
+            }
         }
+        return false;
     }
     
 
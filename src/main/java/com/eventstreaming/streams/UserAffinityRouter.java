@@ -0,0 +1,45 @@
+package com.eventstreaming.streams;
+
+import org.apache.pekko.NotUsed;
+import org.apache.pekko.japi.function.Function;
+import org.apache.pekko.stream.javadsl.Flow;
+
+/**
+ * Routes stream elements onto a fixed number of lanes by hashing the userId.
+ * Every event of a user always lands on the same lane, so per-user ordering is kept,
+ * while the number of open substreams stays at {@code laneCount} no matter how many
+ * distinct users flow through the stream.
+ */
+public final class UserAffinityRouter {
+
+    private UserAffinityRouter() {
+    }
+
+    /**
+     * Creates a flow that hashes each element onto one of {@code laneCount} lanes and runs
+     * {@code laneFlow} independently on every lane.
+     *
+     * @param laneCount number of lanes (substreams) to open
+     * @param userIdExtractor extracts the userId used for lane selection
+     * @param laneFlow processing flow materialized once per lane
+     */
+    public static <In, Out> Flow<In, Out, NotUsed> route(int laneCount,
+                                                         Function<In, String> userIdExtractor,
+                                                         Flow<In, Out, NotUsed> laneFlow) {
+        if (laneCount < 1) {
+            throw new IllegalArgumentException("laneCount must be at least 1, got " + laneCount);
+        }
+
+        return Flow.<In>create()
+            .groupBy(laneCount, element -> laneFor(userIdExtractor.apply(element), laneCount))
+            .via(laneFlow)
+            .mergeSubstreams();
+    }
+
+    /**
+     * Returns the lane index for a userId.
+     */
+    public static int laneFor(String userId, int laneCount) {
+        return userId == null ? 0 : Math.floorMod(userId.hashCode(), laneCount);
+    }
+}
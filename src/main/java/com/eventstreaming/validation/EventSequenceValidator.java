@@ -7,16 +7,38 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Validates event sequencing across multiple sources to ensure chronological processing per user.
  * Uses Redis to store last processed timestamp for each user across all communication channels.
  * Only loads when Redis profiles are active.
+ *
+ * The last timestamp of each user is kept in a local near-cache, so Redis is only read when a
+ * user is not cached. The near-cache is an LRU bounded by {@code near-cache.max-entries}.
+ * Accepted timestamps are written behind: a flusher thread sends the dirty users in batches
+ * through one Lua script that only moves a user's timestamp forward, so nodes racing on the
+ * same user cannot move it backwards.
+ *
+ * A cached user is never re-read from Redis. Once another node advances that user, this node
+ * keeps validating against its own older time until the entry is evicted, so events that are
+ * out of order only across nodes go unnoticed.
  */
 @Component
 @Profile({"redis", "local-redis", "cluster-mysql", "isolated"})
@@ -25,9 +47,38 @@ public class EventSequenceValidator {
     private static final Logger log = LoggerFactory.getLogger(EventSequenceValidator.class);
     private static final String LAST_EVENT_TIME_PREFIX = "last_event_time:";
     private static final String SEQUENCE_VIOLATION_PREFIX = "sequence_violation:";
+    private static final long LAST_EVENT_TIME_TTL_SECONDS = TimeUnit.HOURS.toSeconds(24);
+    
+    // Sets each KEYS[i] to ARGV[i] (epoch millis) unless it already holds a later time, and
+    // refreshes the TTL given in the last ARGV. Non-numeric values from older versions are replaced.
+    private static final RedisScript<Long> ADVANCE_LAST_EVENT_TIME_SCRIPT = new DefaultRedisScript<>(
+        "local ttl = ARGV[#ARGV]\n" +
+        "for i, key in ipairs(KEYS) do\n" +
+        "  local current = tonumber(redis.call('GET', key))\n" +
+        "  if current == nil or current < tonumber(ARGV[i]) then\n" +
+        "    redis.call('SET', key, ARGV[i], 'EX', ttl)\n" +
+        "  else\n" +
+        "    redis.call('EXPIRE', key, ttl)\n" +
+        "  end\n" +
+        "end\n" +
+        "return #KEYS",
+        Long.class);
     
     private final RedisTemplate<String, String> redisTemplate;
     
+    // Last accepted event time per user, in epoch millis. Access-ordered so the least recently
+    // validated user is evicted first; guarded by its own monitor.
+    private final LinkedHashMap<String, Long> nearCache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > nearCacheMaxEntries;
+        }
+    };
+    // Users whose near-cache time has not been written to Redis yet
+    private final ConcurrentHashMap<String, Long> pendingWrites = new ConcurrentHashMap<>();
+    
+    private ScheduledExecutorService flusher;
+    
     @Value("${app.kafka.sequence.validation-enabled:true}")
     private boolean validationEnabled;
     
@@ -37,11 +88,43 @@ public class EventSequenceValidator {
     @Value("${app.kafka.sequence.store-last-timestamp:redis}")
     private String timestampStore;
     
+    @Value("${app.kafka.sequence.near-cache.max-entries:100000}")
+    private int nearCacheMaxEntries = 100_000;
+    
+    @Value("${app.kafka.sequence.write-behind.flush-interval:50ms}")
+    private Duration flushInterval = Duration.ofMillis(50);
+    
+    @Value("${app.kafka.sequence.write-behind.batch-size:500}")
+    private int flushBatchSize = 500;
+    
     @Autowired
     public EventSequenceValidator(RedisTemplate<String, String> redisTemplate) {
         this.redisTemplate = redisTemplate;
     }
     
+    @PostConstruct
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sequence-validator-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushSafely, flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    public void stop() {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flushSafely();
+    }
+    
     /**
      * Validates if the event is in correct chronological sequence for the user.
      * Allows minor timing differences due to network delays and clock skew.
@@ -58,38 +141,49 @@ public class EventSequenceValidator {
         
         String userId = event.getUserId();
         Instant eventTime = event.getTimestamp();
+        long eventMillis = eventTime.toEpochMilli();
         
         try {
-            // Get last processed timestamp for this user
-            String lastTimestampKey = LAST_EVENT_TIME_PREFIX + userId;
-            String lastTimestampStr = redisTemplate.opsForValue().get(lastTimestampKey);
+            boolean cached;
+            synchronized (nearCache) {
+                cached = nearCache.containsKey(userId);
+            }
+            if (!cached) {
+                loadIntoNearCache(userId);
+            }
             
-            if (lastTimestampStr != null) {
-                Instant lastEventTime = Instant.parse(lastTimestampStr);
-                
-                if (eventTime.isBefore(lastEventTime)) {
-                    Duration timeDiff = Duration.between(eventTime, lastEventTime);
-                    long diffMs = timeDiff.toMillis();
-                    
-                    log.warn("Out-of-sequence event detected for user {}: current={}, last={}, diff={}ms, source={}", 
-                            userId, eventTime, lastEventTime, diffMs, event.getSource());
-                    
-                    // Record sequence violation for monitoring
-                    recordSequenceViolation(event, lastEventTime, diffMs);
-                    
-                    if (diffMs > maxOutOfOrderMs) {
-                        return SequenceValidationResult.invalid(
-                            String.format("Event too far out of sequence: %dms > %dms", diffMs, maxOutOfOrderMs));
-                    } else {
-                        // Allow minor timing differences but log warning
-                        return SequenceValidationResult.validWithWarning(
-                            String.format("Minor sequence violation: %dms", diffMs));
+            // Compare and advance atomically; out-of-order events leave the time as is
+            long[] lastMillis = {Long.MIN_VALUE};
+            synchronized (nearCache) {
+                nearCache.compute(userId, (key, last) -> {
+                    if (last != null && eventMillis < last) {
+                        lastMillis[0] = last;
+                        return last;
                     }
-                }
+                    pendingWrites.merge(key, eventMillis, Math::max);
+                    return eventMillis;
+                });
             }
             
-            // Update last processed time with TTL (24 hours)
-            redisTemplate.opsForValue().set(lastTimestampKey, eventTime.toString(), 24, TimeUnit.HOURS);
+            if (lastMillis[0] != Long.MIN_VALUE) {
+                Instant lastEventTime = Instant.ofEpochMilli(lastMillis[0]);
+                long diffMs = lastMillis[0] - eventMillis;
+                
+                log.warn("Out-of-sequence event detected for user {}: current={}, last={}, diff={}ms, source={}", 
+                        userId, eventTime, lastEventTime, diffMs, event.getSource());
+                
+                // Record sequence violation for monitoring
+                recordSequenceViolation(event, lastEventTime, diffMs);
+                
+                if (diffMs > maxOutOfOrderMs) {
+                    return SequenceValidationResult.invalid(
+                        String.format("Event too far out of sequence: %dms > %dms", diffMs, maxOutOfOrderMs));
+                } else {
+                    // Allow minor timing differences but log warning
+                    return SequenceValidationResult.validWithWarning(
+                        String.format("Minor sequence violation: %dms", diffMs));
+                }
+            }
             
             return SequenceValidationResult.valid();
             
@@ -100,6 +194,93 @@ public class EventSequenceValidator {
         }
     }
     
+    /**
+     * Loads a user's last event time from Redis into the near-cache. Only called on a miss;
+     * a time still waiting to be flushed is newer than Redis and wins.
+     */
+    private void loadIntoNearCache(String userId) {
+        Long pending = pendingWrites.get(userId);
+        Long stored = parseMillis(redisTemplate.opsForValue().get(LAST_EVENT_TIME_PREFIX + userId));
+        // Redis holds every flushed time and pendingWrites the rest, so the LRU may evict freely
+        synchronized (nearCache) {
+            if (stored != null) {
+                nearCache.merge(userId, stored, Math::max);
+            }
+            if (pending != null) {
+                nearCache.merge(userId, pending, Math::max);
+            }
+        }
+    }
+    
+    /**
+     * Writes all pending last event times to Redis, {@code write-behind.batch-size} users per
+     * script call. Returns the number of users written.
+     */
+    public int flushPendingWrites() {
+        int written = 0;
+        List<String> keys = new ArrayList<>(flushBatchSize);
+        List<String> args = new ArrayList<>(flushBatchSize + 1);
+        Map<String, Long> batch = new HashMap<>();
+        for (String userId : pendingWrites.keySet()) {
+            Long millis = pendingWrites.remove(userId);
+            if (millis == null) {
+                continue;
+            }
+            batch.put(userId, millis);
+            keys.add(LAST_EVENT_TIME_PREFIX + userId);
+            args.add(String.valueOf(millis));
+            if (keys.size() == flushBatchSize) {
+                written += writeBatch(batch, keys, args);
+            }
+        }
+        if (!keys.isEmpty()) {
+            written += writeBatch(batch, keys, args);
+        }
+        return written;
+    }
+    
+    private int writeBatch(Map<String, Long> batch, List<String> keys, List<String> args) {
+        try {
+            args.add(String.valueOf(LAST_EVENT_TIME_TTL_SECONDS));
+            redisTemplate.execute(ADVANCE_LAST_EVENT_TIME_SCRIPT, keys, args.toArray());
+            return keys.size();
+        } catch (RuntimeException e) {
+            // Keep the times for the next flush unless newer ones arrived meanwhile
+            batch.forEach((userId, millis) -> pendingWrites.merge(userId, millis, Math::max));
+            throw e;
+        } finally {
+            batch.clear();
+            keys.clear();
+            args.clear();
+        }
+    }
+    
+    private void flushSafely() {
+        try {
+            flushPendingWrites();
+        } catch (Exception e) {
+            log.warn("Failed to flush {} last event times to Redis: {}", pendingWrites.size(), e.getMessage());
+        }
+    }
+    
+    int getPendingWriteCount() {
+        return pendingWrites.size();
+    }
+    
+    /**
+     * Parses a stored last event time: epoch millis, or an ISO-8601 instant written by
+     * earlier versions.
+     */
+    private static Long parseMillis(String value) {
+        if (value == null) {
+            return null;
+        }
+        if (!value.isEmpty() && value.chars().allMatch(Character::isDigit)) {
+            return Long.parseLong(value);
+        }
+        return Instant.parse(value).toEpochMilli();
+    }
+    
     /**
      * Records sequence violation for monitoring and analysis.
      */
@@ -125,8 +306,15 @@ public class EventSequenceValidator {
      */
     public Instant getLastProcessedTime(String userId) {
         try {
-            String lastTimestampStr = redisTemplate.opsForValue().get(LAST_EVENT_TIME_PREFIX + userId);
-            return lastTimestampStr != null ? Instant.parse(lastTimestampStr) : null;
+            Long cached;
+            synchronized (nearCache) {
+                cached = nearCache.get(userId);
+            }
+            if (cached != null) {
+                return Instant.ofEpochMilli(cached);
+            }
+            Long stored = parseMillis(redisTemplate.opsForValue().get(LAST_EVENT_TIME_PREFIX + userId));
+            return stored != null ? Instant.ofEpochMilli(stored) : null;
         } catch (Exception e) {
             log.error("Error getting last processed time for user {}: {}", userId, e.getMessage());
             return null;
@@ -139,8 +327,12 @@ public class EventSequenceValidator {
      */
     public void updateLastProcessedTime(String userId, Instant timestamp) {
         try {
+            pendingWrites.remove(userId);
+            synchronized (nearCache) {
+                nearCache.put(userId, timestamp.toEpochMilli());
+            }
             String lastTimestampKey = LAST_EVENT_TIME_PREFIX + userId;
-            redisTemplate.opsForValue().set(lastTimestampKey, timestamp.toString(), 24, TimeUnit.HOURS);
+            redisTemplate.opsForValue().set(lastTimestampKey, String.valueOf(timestamp.toEpochMilli()), 24, TimeUnit.HOURS);
         } catch (Exception e) {
             log.error("Error updating last processed time for user {}: {}", userId, e.getMessage());
         }
@@ -152,6 +344,10 @@ public class EventSequenceValidator {
      */
     public void clearUserSequenceData(String userId) {
         try {
+            pendingWrites.remove(userId);
+            synchronized (nearCache) {
+                nearCache.remove(userId);
+            }
             redisTemplate.delete(LAST_EVENT_TIME_PREFIX + userId);
             log.debug("Cleared sequence data for user: {}", userId);
         } catch (Exception e) {
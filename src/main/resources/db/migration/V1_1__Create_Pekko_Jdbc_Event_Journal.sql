@@ -0,0 +1,37 @@
+-- Event journal and tag tables written by the pekko-persistence-jdbc 1.1.0 jdbc-journal
+-- (schema/mysql/mysql-create-schema.sql of that release). The journal plugin is
+-- configured with tableName = "event_journal"; the legacy journal table in V1 is not
+-- written by it. Projections read event_journal and event_tag directly.
+
+-- Journal table for event sourcing
+CREATE TABLE IF NOT EXISTS event_journal (
+    ordering SERIAL,
+    deleted BOOLEAN DEFAULT false NOT NULL,
+    persistence_id VARCHAR(255) NOT NULL,
+    sequence_number BIGINT NOT NULL,
+    writer TEXT NOT NULL,
+    write_timestamp BIGINT NOT NULL,
+    adapter_manifest TEXT NOT NULL,
+    event_payload BLOB NOT NULL,
+    event_ser_id INTEGER NOT NULL,
+    event_ser_manifest TEXT NOT NULL,
+    meta_payload BLOB,
+    meta_ser_id INTEGER,
+    meta_ser_manifest TEXT,
+
+    PRIMARY KEY (persistence_id, sequence_number)
+);
+
+CREATE UNIQUE INDEX event_journal_ordering_idx ON event_journal (ordering);
+
+-- Tags of journal events for eventsByTag queries
+CREATE TABLE IF NOT EXISTS event_tag (
+    event_id BIGINT UNSIGNED NOT NULL,
+    tag VARCHAR(255) NOT NULL,
+
+    PRIMARY KEY (event_id, tag),
+    FOREIGN KEY (event_id) REFERENCES event_journal (ordering) ON DELETE CASCADE
+);
+
+ALTER TABLE event_journal COMMENT = 'Pekko Persistence JDBC event journal';
+ALTER TABLE event_tag COMMENT = 'Pekko Persistence JDBC event tags';
@@ -0,0 +1,14 @@
+-- Per-user event counts by event type, maintained by the user-event-rollup projection
+-- from the event journal. Its offset is kept in projection_offset_store.
+CREATE TABLE IF NOT EXISTS user_event_rollup (
+    user_id VARCHAR(255) NOT NULL,
+    event_type VARCHAR(64) NOT NULL,
+    event_count BIGINT DEFAULT 0 NOT NULL,
+    first_ts DATETIME(6) NOT NULL,
+    last_ts DATETIME(6) NOT NULL,
+    
+    PRIMARY KEY (user_id, event_type),
+    KEY user_event_rollup_last_ts_idx (last_ts)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+ALTER TABLE user_event_rollup COMMENT = 'Per-user event type counts projected from the event journal';
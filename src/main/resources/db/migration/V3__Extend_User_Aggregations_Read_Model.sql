@@ -0,0 +1,15 @@
+-- Denormalized per-user state maintained by the sliced user-read-model projection from
+-- eventsByTag, kept in the user_aggregations read model of V1. The event_journal and
+-- event_tag tables it reads come from V1_1. One offset per slice tag is kept in
+-- projection_offset_store.
+ALTER TABLE user_aggregations
+    ADD COLUMN (
+        slice INT DEFAULT NULL,
+        total_events BIGINT DEFAULT 0 NOT NULL,
+        event_type_counts TEXT DEFAULT NULL,
+        first_event_time DATETIME(6) DEFAULT NULL,
+        last_event_time DATETIME(6) DEFAULT NULL,
+        last_sequence_nr BIGINT DEFAULT 0 NOT NULL
+    );
+
+CREATE INDEX user_aggregations_last_event_time_idx ON user_aggregations (last_event_time);
@@ -0,0 +1,128 @@
+package com.eventstreaming.actor;
+
+import com.eventstreaming.model.EmailEvent;
+import com.eventstreaming.model.EventType;
+import com.eventstreaming.model.UserAggregations;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.actor.testkit.typed.javadsl.TestProbe;
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.stream.javadsl.Source;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the known-user bloom filter and the read-only aggregation lookup it gates in
+ * {@link UserActorRegistry}.
+ */
+class KnownUserFilterTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private ActorTestKit testKit;
+    private UserActorRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        testKit = ActorTestKit.create();
+        registry = new UserActorRegistry(testKit.system());
+    }
+
+    @AfterEach
+    void tearDown() {
+        testKit.shutdownTestKit();
+    }
+
+    @Test
+    void testFilterHasNoFalseNegativesAndBoundedFalsePositives() {
+        KnownUserFilter filter = new KnownUserFilter(100_000, 0.01);
+        IntStream.range(0, 100_000).forEach(i -> filter.add("user-" + i));
+
+        assertTrue(IntStream.range(0, 100_000).allMatch(i -> filter.mightContain("user-" + i)));
+        long falsePositives = IntStream.range(0, 100_000).filter(i -> filter.mightContain("unknown-" + i)).count();
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+        assertEquals(100_000, filter.approximateUserCount(), 2_000);
+        assertTrue(filter.sizeInBytes() < 150_000);
+    }
+
+    @Test
+    void testRegistrySizesFilterFromItsSettings() {
+        UserActorRegistry configured = new UserActorRegistry(testKit.system(), 10_000, 0.001);
+
+        UserActorRegistry.KnownUserStats stats = configured.getKnownUserStats();
+        assertEquals(0.001, stats.falsePositiveRate());
+        assertEquals(new KnownUserFilter(10_000, 0.001).sizeInBytes(), stats.filterBytes());
+        assertTrue(stats.filterBytes() < registry.getKnownUserStats().filterBytes());
+    }
+
+    @Test
+    void testUnknownUsersAreAnsweredWithoutCreatingActors() throws Exception {
+        for (int i = 0; i < 1_000; i++) {
+            UserAggregations aggregations = read("typo-" + i);
+            assertEquals("typo-" + i, aggregations.getUserId());
+            assertEquals(0L, aggregations.getTotalEvents());
+        }
+
+        assertEquals(0, registry.getActiveActorCount());
+        UserActorRegistry.KnownUserStats stats = registry.getKnownUserStats();
+        assertTrue(stats.unknownUserReads() > 990);
+    }
+
+    @Test
+    void testUsersWithActorsAreRead() throws Exception {
+        ActorRef<UserActor.Command> actor = registry.getOrCreateUserActor("user-1").toCompletableFuture().get();
+        TestProbe<UserActor.ProcessEventResponse> probe = testKit.createTestProbe();
+        actor.tell(new UserActor.ProcessEvent(emailOpen("user-1"), probe.ref()));
+        probe.expectMessageClass(UserActor.ProcessEventResponse.Success.class);
+
+        assertEquals(1L, read("user-1").getEmailOpens());
+        assertEquals(1, registry.getKnownUserStats().actorReads());
+    }
+
+    @Test
+    void testRebuildAddsJournalUsersAndKeepsLiveOnes() throws Exception {
+        registry.getOrCreateUserActor("live-user");
+        CompletableFuture<String> slowSource = new CompletableFuture<>();
+        CompletableFuture<Long> rebuild = registry.rebuildKnownUsers(
+            Source.from(List.of("journal-user-1", "journal-user-2")).concat(Source.completionStage(slowSource)))
+            .toCompletableFuture();
+
+        // Created while the rebuild runs: must survive the swap
+        registry.getOrCreateUserActor("new-user");
+        assertFalse(registry.isKnownUser("journal-user-1"));
+        assertTrue(registry.rebuildKnownUsers(Source.empty()).toCompletableFuture().isCompletedExceptionally());
+
+        slowSource.complete("journal-user-3");
+        assertEquals(3L, rebuild.get(5, TimeUnit.SECONDS));
+
+        assertTrue(registry.isKnownUser("journal-user-1"));
+        assertTrue(registry.isKnownUser("journal-user-3"));
+        assertTrue(registry.isKnownUser("live-user"));
+        assertTrue(registry.isKnownUser("new-user"));
+        registry.removeTerminatedActor("new-user");
+        assertTrue(registry.isKnownUser("new-user"));
+        assertFalse(registry.isKnownUser("typo-user"));
+    }
+
+    private UserAggregations read(String userId) throws Exception {
+        return registry.getAggregations(userId, TIMEOUT).toCompletableFuture().get(5, TimeUnit.SECONDS);
+    }
+
+    private static EmailEvent emailOpen(String userId) {
+        return EmailEvent.builder()
+            .userId(userId)
+            .eventId(userId + "-open")
+            .eventType(EventType.EMAIL_OPEN)
+            .timestamp(Instant.now())
+            .build();
+    }
+}
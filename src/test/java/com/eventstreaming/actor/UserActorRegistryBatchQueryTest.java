@@ -0,0 +1,172 @@
+package com.eventstreaming.actor;
+
+import com.eventstreaming.model.EmailEvent;
+import com.eventstreaming.model.EventType;
+import com.eventstreaming.model.UserAggregations;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.actor.testkit.typed.javadsl.TestProbe;
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.Behavior;
+import org.apache.pekko.actor.typed.javadsl.Behaviors;
+import org.apache.pekko.stream.javadsl.Sink;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the shard-grouped batch aggregation query of {@link UserActorRegistry} and checks it
+ * answers the same as one ask per user.
+ */
+class UserActorRegistryBatchQueryTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private ActorTestKit testKit;
+    private UserActorRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        testKit = ActorTestKit.create();
+        registry = new UserActorRegistry(testKit.system());
+    }
+
+    @AfterEach
+    void tearDown() {
+        testKit.shutdownTestKit();
+    }
+
+    @Test
+    void testAnswersKnownUsersWithoutCreatingActorsForUnknownOnes() throws Exception {
+        ActorRef<UserActor.Command> actor = registry.getOrCreateUserActor("user-1").toCompletableFuture().get();
+        TestProbe<UserActor.ProcessEventResponse> probe = testKit.createTestProbe();
+        actor.tell(new UserActor.ProcessEvent(emailOpen("user-1"), probe.ref()));
+        probe.expectMessageClass(UserActor.ProcessEventResponse.Success.class);
+
+        Map<String, UserAggregations> results = query(List.of("user-1", "user-2", "user-1", "user-3"), TIMEOUT);
+
+        assertEquals(3, results.size());
+        assertEquals(1L, results.get("user-1").getEmailOpens());
+        assertEquals(0L, results.get("user-2").getTotalEvents());
+        assertEquals(1, registry.getActiveActorCount());
+        assertFalse(registry.isActorActive("user-2"));
+    }
+
+    @Test
+    void testSendsOneMessagePerShardGroup() throws Exception {
+        ReflectionTestUtils.setField(registry, "queryShardCount", 4);
+        ReflectionTestUtils.setField(registry, "maxUsersPerMessage", 10);
+        UserActorRegistry spyRegistry = spy(registry);
+        Map<Integer, Integer> groupSizes = new HashMap<>();
+        List<String> userIds = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String userId = "user-" + i;
+            userIds.add(userId);
+            groupSizes.merge(registry.queryShardFor(userId), 1, Integer::sum);
+            registerActor(userId, testKit.spawn(answering(userId)));
+        }
+
+        List<UserAggregations> results = spyRegistry.queryAggregations(userIds, TIMEOUT)
+            .runWith(Sink.seq(), testKit.system())
+            .toCompletableFuture().get(10, TimeUnit.SECONDS);
+
+        int expectedMessages = groupSizes.values().stream().mapToInt(size -> (size + 9) / 10).sum();
+        verify(spyRegistry, times(expectedMessages)).queryShard(anyInt(), anyList(), any());
+        assertEquals(userIds.size(), results.stream().map(UserAggregations::getUserId).distinct().count());
+        assertEquals(4, ((Map<?, ?>) ReflectionTestUtils.getField(registry, "queryShards")).size());
+    }
+
+    @Test
+    void testUnansweredUsersAreReturnedEmptyAfterTimeout() throws Exception {
+        TestProbe<UserActor.Command> silent = testKit.createTestProbe();
+        registerActor("user-silent", silent.ref());
+        registry.getOrCreateUserActor("user-1").toCompletableFuture().get();
+
+        Map<String, UserAggregations> results = query(List.of("user-silent", "user-1"), Duration.ofMillis(200));
+
+        assertEquals(2, results.size());
+        assertEquals(0L, results.get("user-silent").getTotalEvents());
+        silent.expectMessageClass(UserActor.GetAggregations.class);
+    }
+
+    @Test
+    void testBatchQueryMatchesAskPerUser() throws Exception {
+        List<String> userIds = IntStream.range(0, 200).mapToObj(i -> "user-" + i).toList();
+        TestProbe<UserActor.ProcessEventResponse> probe = testKit.createTestProbe();
+        for (int i = 0; i < userIds.size(); i++) {
+            ActorRef<UserActor.Command> actor = registry.getOrCreateUserActor(userIds.get(i)).toCompletableFuture().get();
+            for (int j = 0; j < i % 3; j++) {
+                actor.tell(new UserActor.ProcessEvent(emailOpen(userIds.get(i)), probe.ref()));
+                probe.expectMessageClass(UserActor.ProcessEventResponse.Success.class);
+            }
+        }
+
+        List<CompletableFuture<UserAggregations>> asks = userIds.stream()
+            .map(userId -> registry.askUserActor(userId, UserActor.GetAggregations::new, TIMEOUT, UserAggregations.class)
+                .toCompletableFuture())
+            .toList();
+        CompletableFuture.allOf(asks.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+        Map<String, UserAggregations> results = query(userIds, TIMEOUT);
+
+        assertEquals(userIds.size(), results.size());
+        for (int i = 0; i < userIds.size(); i++) {
+            UserAggregations asked = asks.get(i).get();
+            assertEquals(i % 3, results.get(userIds.get(i)).getEmailOpens());
+            assertEquals(asked.getTotalEvents(), results.get(userIds.get(i)).getTotalEvents());
+        }
+    }
+
+    private Map<String, UserAggregations> query(List<String> userIds, Duration timeout) throws Exception {
+        return queryAsync(userIds, timeout).get(10, TimeUnit.SECONDS);
+    }
+
+    private CompletableFuture<Map<String, UserAggregations>> queryAsync(List<String> userIds, Duration timeout) {
+        return registry.queryAggregations(userIds, timeout)
+            .runWith(Sink.seq(), testKit.system())
+            .thenApply(aggregations -> {
+                Map<String, UserAggregations> byUser = new HashMap<>();
+                aggregations.forEach(userAggregations -> byUser.put(userAggregations.getUserId(), userAggregations));
+                return byUser;
+            })
+            .toCompletableFuture();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void registerActor(String userId, ActorRef<UserActor.Command> actor) {
+        ((Map<String, ActorRef<UserActor.Command>>) ReflectionTestUtils.getField(registry, "userActors")).put(userId, actor);
+    }
+
+    private static Behavior<UserActor.Command> answering(String userId) {
+        return Behaviors.receiveMessage(command -> {
+            if (command instanceof UserActor.GetAggregations get) {
+                get.replyTo().tell(new UserAggregations(userId));
+            }
+            return Behaviors.same();
+        });
+    }
+
+    private static EmailEvent emailOpen(String userId) {
+        return EmailEvent.builder()
+            .userId(userId)
+            .eventId(userId + "-open")
+            .eventType(EventType.EMAIL_OPEN)
+            .timestamp(Instant.now())
+            .build();
+    }
+}
@@ -0,0 +1,117 @@
+package com.eventstreaming.actor;
+
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.actor.testkit.typed.javadsl.TestProbe;
+import org.apache.pekko.actor.typed.ActorRef;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that user actors are spawned under hash-bucket parents, with per-bucket statistics
+ * and passivation of a whole bucket.
+ */
+class UserActorRegistryBucketTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private ActorTestKit testKit;
+    private UserActorRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        testKit = ActorTestKit.create();
+        registry = new UserActorRegistry(testKit.system());
+        ReflectionTestUtils.setField(registry, "bucketCount", 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        testKit.shutdownTestKit();
+    }
+
+    @Test
+    void testActorsAreSpawnedUnderTheirBucketParent() throws Exception {
+        ActorRef<UserActor.Command> actor = actorFor("user@example.com");
+
+        assertEquals("user-bucket-" + registry.bucketFor("user@example.com"), actor.path().parent().name());
+        assertTrue(actor.path().name().startsWith("user%40example.com-"));
+    }
+
+    @Test
+    void testBucketStatsCoverEveryActor() throws Exception {
+        spawnAll(IntStream.range(0, 200).mapToObj(i -> "user-" + i).toList());
+
+        List<UserActorGuardian.BucketStats> stats = registry.getBucketStats(TIMEOUT).toCompletableFuture().get();
+
+        assertEquals(8, stats.size());
+        assertEquals(200, stats.stream().mapToInt(UserActorGuardian.BucketStats::liveActors).sum());
+        assertEquals(200, stats.stream().mapToLong(UserActorGuardian.BucketStats::spawned).sum());
+        assertTrue(stats.stream().allMatch(bucket -> bucket.liveActors() > 0));
+    }
+
+    @Test
+    void testPassivateBucketStopsOnlyThatBucket() throws Exception {
+        List<String> userIds = IntStream.range(0, 100).mapToObj(i -> "user-" + i).toList();
+        spawnAll(userIds);
+        String victim = userIds.get(0);
+        int bucket = registry.bucketFor(victim);
+        long inBucket = userIds.stream().filter(userId -> registry.bucketFor(userId) == bucket).count();
+        ActorRef<UserActor.Command> victimActor = actorFor(victim);
+
+        int passivated = registry.passivateBucket(bucket, TIMEOUT).toCompletableFuture().get();
+
+        assertEquals(inBucket, passivated);
+        TestProbe<Object> probe = testKit.createTestProbe();
+        probe.expectTerminated(victimActor, TIMEOUT);
+        assertFalse(registry.isActorActive(victim));
+        assertEquals(100 - inBucket, registry.getActiveActorCount());
+        assertNotEquals(victimActor, actorFor(victim));
+        assertThrows(IllegalArgumentException.class, () -> registry.passivateBucket(8, TIMEOUT));
+    }
+
+    @Test
+    void testUsersSpreadOverSixtyFourBucketParents() throws Exception {
+        ReflectionTestUtils.setField(registry, "bucketCount", 64);
+        List<String> userIds = IntStream.range(0, 1_000).mapToObj(i -> "spread-" + i).toList();
+        spawnAll(userIds);
+
+        List<UserActorGuardian.BucketStats> stats = registry.getBucketStats(TIMEOUT).toCompletableFuture().get();
+
+        Map<Integer, Long> expected = userIds.stream()
+            .collect(Collectors.groupingBy(registry::bucketFor, Collectors.counting()));
+        // One parent per bucket that received a user, each holding exactly its users' actors
+        assertEquals(expected.size(), stats.size());
+        for (UserActorGuardian.BucketStats bucket : stats) {
+            assertEquals(expected.get(bucket.bucket()), (long) bucket.liveActors(), "bucket " + bucket.bucket());
+            assertEquals(expected.get(bucket.bucket()), bucket.spawned(), "bucket " + bucket.bucket());
+        }
+        assertEquals(userIds.size(), registry.getActiveActorCount());
+    }
+
+    private ActorRef<UserActor.Command> actorFor(String userId) throws Exception {
+        return registry.getOrCreateUserActor(userId).toCompletableFuture().get(5, TimeUnit.SECONDS);
+    }
+
+    private void spawnAll(List<String> userIds) throws Exception {
+        spawnAll(registry, userIds);
+    }
+
+    private static void spawnAll(UserActorRegistry target, List<String> userIds) throws Exception {
+        CompletableFuture<?>[] spawns = userIds.stream()
+            .map(userId -> target.getOrCreateUserActor(userId).toCompletableFuture())
+            .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(spawns).get(30, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,176 @@
+package com.eventstreaming.actor;
+
+import com.eventstreaming.model.CommunicationEvent;
+import com.eventstreaming.model.EmailEvent;
+import com.eventstreaming.model.EventType;
+import com.eventstreaming.model.UserAggregations;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.actor.testkit.typed.javadsl.TestProbe;
+import org.apache.pekko.actor.typed.ActorRef;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the registry drops actors when they terminate, passivates the least recently
+ * used actors over its limit, and retries asks against stopped actors without blocking or
+ * reordering a user's messages.
+ */
+class UserActorRegistryLifecycleTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private ActorTestKit testKit;
+    private UserActorRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        testKit = ActorTestKit.create();
+        registry = new UserActorRegistry(testKit.system());
+    }
+
+    @AfterEach
+    void tearDown() {
+        testKit.shutdownTestKit();
+    }
+
+    @Test
+    void testPassivatedActorsAreRemovedAndRecreated() throws Exception {
+        ActorRef<UserActor.Command> actor = actorFor("user-1");
+        TestProbe<Object> probe = testKit.createTestProbe();
+
+        actor.tell(UserActor.Passivate.INSTANCE);
+        probe.expectTerminated(actor, TIMEOUT);
+        probe.awaitAssert(() -> {
+            assertFalse(registry.isActorActive("user-1"));
+            return null;
+        });
+
+        ActorRef<UserActor.Command> recreated = actorFor("user-1");
+        assertNotEquals(actor, recreated);
+        UserActorRegistry.LifecycleStats stats = registry.getLifecycleStats();
+        assertEquals(1, stats.liveActors());
+        assertEquals(2, stats.spawned());
+        assertEquals(1, stats.terminated());
+    }
+
+    @Test
+    void testLeastRecentlyUsedActorsArePassivatedOverTheLimit() throws Exception {
+        ReflectionTestUtils.setField(registry, "maxLiveActors", 10);
+        List<ActorRef<UserActor.Command>> actors = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            actors.add(actorFor("user-" + i));
+            Thread.sleep(2);
+        }
+        // Touching user-0 leaves user-1 and user-2 as the least recently used
+        actorFor("user-0");
+
+        actorFor("user-10");
+
+        TestProbe<Object> probe = testKit.createTestProbe();
+        probe.expectTerminated(actors.get(1), TIMEOUT);
+        probe.expectTerminated(actors.get(2), TIMEOUT);
+        assertEquals(actors.get(0), actorFor("user-0"));
+        assertFalse(registry.isActorActive("user-1"));
+        assertFalse(registry.isActorActive("user-2"));
+        assertTrue(registry.isActorActive("user-10"));
+        UserActorRegistry.LifecycleStats stats = registry.getLifecycleStats();
+        assertEquals(2, stats.evicted());
+        assertEquals(9, stats.liveActors());
+    }
+
+    @Test
+    void testAskIsRetriedAgainstARecreatedActor() throws Exception {
+        ActorRef<UserActor.Command> actor = actorFor("user-1");
+        TestProbe<Object> probe = testKit.createTestProbe();
+        actor.tell(UserActor.Passivate.INSTANCE);
+        probe.expectTerminated(actor, TIMEOUT);
+        // Simulate a termination the registry has not heard about yet
+        registerActor("user-1", actor);
+
+        UserAggregations aggregations = registry
+            .askUserActor("user-1", UserActor.GetAggregations::new, Duration.ofMillis(500), UserAggregations.class)
+            .toCompletableFuture()
+            .get(5, TimeUnit.SECONDS);
+
+        assertEquals("user-1", aggregations.getUserId());
+        assertNotEquals(actor, actorFor("user-1"));
+        assertEquals(1, registry.getLifecycleStats().respawns());
+    }
+
+    @Test
+    void testBatchesKeepTheirOrderDuringARespawn() throws Exception {
+        ActorRef<UserActor.Command> actor = actorFor("user-1");
+        TestProbe<Object> probe = testKit.createTestProbe();
+        actor.tell(UserActor.Passivate.INSTANCE);
+        probe.expectTerminated(actor, TIMEOUT);
+        registerActor("user-1", actor);
+
+        // Both batches hit the dead actor and wait for the same replacement
+        CompletableFuture<UserActor.ProcessEventBatchResponse> first = sendBatch("user-1", 1);
+        CompletableFuture<UserActor.ProcessEventBatchResponse> second = sendBatch("user-1", 2);
+
+        // Each response carries the total after its batch, so the first batch was applied first
+        assertEquals(1L, first.get(5, TimeUnit.SECONDS).aggregations().getTotalEvents());
+        assertEquals(3L, second.get(5, TimeUnit.SECONDS).aggregations().getTotalEvents());
+        assertEquals(1, registry.getLifecycleStats().respawns());
+    }
+
+    @Test
+    void testBatchesKeepTheirOrderWhileTheActorIsCreated() throws Exception {
+        List<CompletableFuture<UserActor.ProcessEventBatchResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            responses.add(sendBatch("user-1", 1));
+        }
+
+        for (int i = 0; i < responses.size(); i++) {
+            assertEquals(i + 1L, responses.get(i).get(5, TimeUnit.SECONDS).aggregations().getTotalEvents());
+        }
+        assertEquals(1, registry.getLifecycleStats().spawned());
+    }
+
+    @Test
+    void testConcurrentRequestsShareOneActor() throws Exception {
+        CompletableFuture<ActorRef<UserActor.Command>> first = registry.getOrCreateUserActor("user-1").toCompletableFuture();
+        CompletableFuture<ActorRef<UserActor.Command>> second = registry.getOrCreateUserActor("user-1").toCompletableFuture();
+        assertEquals(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, registry.getLifecycleStats().spawned());
+    }
+
+    private CompletableFuture<UserActor.ProcessEventBatchResponse> sendBatch(String userId, int size) {
+        List<CommunicationEvent> events = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            events.add(EmailEvent.builder()
+                .userId(userId)
+                .eventId(UUID.randomUUID().toString())
+                .eventType(EventType.EMAIL_OPEN)
+                .timestamp(Instant.now())
+                .build());
+        }
+        return registry.askUserActor(userId, replyTo -> new UserActor.ProcessEventBatch(events, replyTo),
+                TIMEOUT, UserActor.ProcessEventBatchResponse.class)
+            .toCompletableFuture();
+    }
+
+    private ActorRef<UserActor.Command> actorFor(String userId) throws Exception {
+        return registry.getOrCreateUserActor(userId).toCompletableFuture().get(5, TimeUnit.SECONDS);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void registerActor(String userId, ActorRef<UserActor.Command> actor) {
+        ((Map<String, ActorRef<UserActor.Command>>) ReflectionTestUtils.getField(registry, "userActors"))
+            .put(userId, actor);
+    }
+}
@@ -0,0 +1,108 @@
+package com.eventstreaming.actor;
+
+import com.eventstreaming.model.ContactableStatus;
+import com.eventstreaming.model.EventType;
+import com.eventstreaming.model.UserAggregations;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the mutable counters used inside UserActor against the copy-on-write
+ * {@link UserAggregations} increments they replace: same snapshot, and no allocation
+ * per event, measured with the thread allocation counter.
+ */
+class UserAggregationCountersTest {
+
+    private static final int WARMUP_EVENTS = 200_000;
+    private static final int MEASURED_EVENTS = 200_000;
+
+    private static final EventType[] EVENT_TYPES = {
+        EventType.EMAIL_OPEN, EventType.EMAIL_CLICK, EventType.SMS_REPLY,
+        EventType.SMS_DELIVERY, EventType.CALL_COMPLETED, EventType.CALL_MISSED
+    };
+
+    private static volatile Object sink;
+
+    @Test
+    void testSnapshotMatchesImmutableAggregations() {
+        UserAggregationCounters counters = new UserAggregationCounters("user-1");
+        UserAggregations expected = new UserAggregations("user-1");
+
+        for (int i = 0; i < 1_000; i++) {
+            EventType eventType = EVENT_TYPES[(i * 7) % EVENT_TYPES.length];
+            counters.apply(eventType);
+            expected = increment(expected, eventType);
+        }
+        assertFalse(counters.apply(EventType.LOGIN));
+
+        Instant processingTime = Instant.now();
+        counters.updateContactableStatus(ContactableStatus.CONTACTABLE, "node-1", processingTime);
+        expected = expected.updateContactableStatus(ContactableStatus.CONTACTABLE, "node-1", processingTime);
+
+        UserAggregations snapshot = counters.snapshot();
+        assertEquals(expected.getEmailOpens(), snapshot.getEmailOpens());
+        assertEquals(expected.getEmailClicks(), snapshot.getEmailClicks());
+        assertEquals(expected.getSmsReplies(), snapshot.getSmsReplies());
+        assertEquals(expected.getSmsDeliveries(), snapshot.getSmsDeliveries());
+        assertEquals(expected.getCallsCompleted(), snapshot.getCallsCompleted());
+        assertEquals(expected.getCallsMissed(), snapshot.getCallsMissed());
+        assertEquals(expected.getEmailOpenRate(), snapshot.getEmailOpenRate(), 1e-9);
+        assertEquals(expected.getSmsResponseRate(), snapshot.getSmsResponseRate(), 1e-9);
+        assertEquals(expected.getCallCompletionRate(), snapshot.getCallCompletionRate(), 1e-9);
+        assertEquals(expected.getContactableStatus(), snapshot.getContactableStatus());
+        assertEquals(expected.getCurrentGraphNode(), snapshot.getCurrentGraphNode());
+        assertEquals(expected.getWalkerProcessingCount(), snapshot.getWalkerProcessingCount());
+        assertEquals(expected.getTotalEvents(), counters.totalEvents());
+
+        // Unchanged state hands out the cached snapshot
+        assertSame(snapshot, counters.snapshot());
+        counters.apply(EventType.EMAIL_OPEN);
+        assertNotSame(snapshot, counters.snapshot());
+    }
+
+    @Test
+    void testAllocationPerEvent() {
+        UserAggregationCounters counters = new UserAggregationCounters("user-1");
+        UserAggregations[] immutable = {new UserAggregations("user-1")};
+
+        double immutableBytes = allocatedBytesPerEvent(i ->
+            immutable[0] = increment(immutable[0], EVENT_TYPES[i % EVENT_TYPES.length]));
+        double counterBytes = allocatedBytesPerEvent(i ->
+            counters.apply(EVENT_TYPES[i % EVENT_TYPES.length]));
+        sink = immutable[0];
+
+        assertTrue(immutableBytes > 100, "Copy-on-write aggregations should allocate per event, got " + immutableBytes);
+        assertTrue(counterBytes < 1, "Counters should not allocate per event, got " + counterBytes);
+    }
+
+    private static double allocatedBytesPerEvent(java.util.function.IntConsumer applyEvent) {
+        for (int i = 0; i < WARMUP_EVENTS; i++) {
+            applyEvent.accept(i);
+        }
+
+        com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_EVENTS; i++) {
+            applyEvent.accept(i);
+        }
+        return (double) (threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore) / MEASURED_EVENTS;
+    }
+
+    private static UserAggregations increment(UserAggregations aggregations, EventType eventType) {
+        return switch (eventType) {
+            case EMAIL_OPEN -> aggregations.incrementEmailOpens();
+            case EMAIL_CLICK -> aggregations.incrementEmailClicks();
+            case SMS_REPLY -> aggregations.incrementSmsReplies();
+            case SMS_DELIVERY -> aggregations.incrementSmsDeliveries();
+            case CALL_COMPLETED -> aggregations.incrementCallsCompleted();
+            case CALL_MISSED -> aggregations.incrementCallsMissed();
+            default -> aggregations;
+        };
+    }
+}
@@ -0,0 +1,206 @@
+package com.eventstreaming.cluster;
+
+import ch.qos.logback.classic.Level;
+import com.eventstreaming.config.PekkoConfig;
+import com.eventstreaming.model.UserEvent;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.javadsl.AskPattern;
+import org.apache.pekko.stream.javadsl.Sink;
+import org.apache.pekko.stream.javadsl.Source;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the snapshot interval chosen by {@link AdaptiveSnapshotPolicy} and the recovery
+ * metrics. The "benchmark" group, which the default build excludes, also compares replay
+ * and snapshot volume with snapshots every 50 events for users with 10 to 100k events.
+ */
+class AdaptiveSnapshotPolicyTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    private static final AdaptiveSnapshotPolicy.Settings ADAPTIVE = AdaptiveSnapshotPolicy.Settings.DEFAULT;
+    private static final AdaptiveSnapshotPolicy.Settings EVERY_50 = AdaptiveSnapshotPolicy.Settings.fixed(50, 5);
+
+    private ActorTestKit testKit;
+    private Level persistentActorLevel;
+
+    @BeforeEach
+    void setUp() {
+        // The actor logs every event at INFO, which would dominate the benchmark
+        ch.qos.logback.classic.Logger actorLogger =
+            (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(PersistentUserActor.class);
+        persistentActorLevel = actorLogger.getLevel();
+        actorLogger.setLevel(Level.WARN);
+        testKit = ActorTestKit.create(persistenceConfig());
+    }
+
+    @AfterEach
+    void tearDown() {
+        testKit.shutdownTestKit();
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(PersistentUserActor.class)).setLevel(persistentActorLevel);
+    }
+
+    @Test
+    void testIntervalFollowsEventRateWithinBounds() {
+        // 20µs replay per event, 2ms per snapshot write, one recovery an hour
+        long quiet = AdaptiveSnapshotPolicy.snapshotInterval(ADAPTIVE, 0.01, 200, 20_000, 2_000_000);
+        long busy = AdaptiveSnapshotPolicy.snapshotInterval(ADAPTIVE, 1, 200, 20_000, 2_000_000);
+        long chatty = AdaptiveSnapshotPolicy.snapshotInterval(ADAPTIVE, 1_000, 200, 20_000, 2_000_000);
+
+        // Below the break-even of 100 events replaying beats reading a snapshot
+        assertEquals(100, quiet);
+        // sqrt(2 * 1/s * 2ms / (1/3600s * 20µs)) = 849
+        assertEquals(849, busy);
+        assertEquals(1_000, chatty);
+    }
+
+    @Test
+    void testRecoveryBudgetAndSnapshotSizeBoundTheInterval() {
+        // At 200µs per event only 250 events fit the 50ms recovery budget
+        assertEquals(250, AdaptiveSnapshotPolicy.snapshotInterval(ADAPTIVE, 1_000, 200, 200_000, 2_000_000));
+        // A 8KB state is worth snapshotting at most every 512 events
+        assertEquals(512, AdaptiveSnapshotPolicy.snapshotInterval(ADAPTIVE, 0.01, 8_192, 20_000, 2_000_000));
+        // The budget wins over the size bound
+        assertEquals(250, AdaptiveSnapshotPolicy.snapshotInterval(ADAPTIVE, 0.01, 8_192, 200_000, 2_000_000));
+        // A fixed policy ignores all measurements
+        assertEquals(50, AdaptiveSnapshotPolicy.snapshotInterval(EVERY_50, 1_000, 8_192, 200_000, 2_000_000));
+        assertEquals(50, AdaptiveSnapshotPolicy.snapshotInterval(EVERY_50, 0.01, 0, 1, 100_000_000));
+    }
+
+    @Test
+    void testPolicySnapshotsOnceTheIntervalIsReached() {
+        AdaptiveSnapshotPolicy policy = new AdaptiveSnapshotPolicy(ADAPTIVE, new SnapshotMetrics());
+        policy.recovered(0, 0, 1_000_000, 200);
+
+        assertFalse(policy.shouldSnapshot(99, 0.01));
+        assertTrue(policy.shouldSnapshot(100, 0.01));
+        assertFalse(policy.shouldSnapshot(150, 0.01));
+        assertTrue(policy.shouldSnapshot(200, 0.01));
+        // A retention snapshot at 1000 restarts the count
+        assertFalse(policy.shouldSnapshot(1_050, 0.01));
+        assertTrue(policy.shouldSnapshot(1_100, 0.01));
+    }
+
+    @Test
+    void testRecoveryMetricsAreRecorded() throws Exception {
+        String userId = "metrics-" + UUID.randomUUID();
+        // Expecting a recovery every second keeps the interval at its lower bounds
+        AdaptiveSnapshotPolicy.Settings settings = new AdaptiveSnapshotPolicy.Settings(
+            20, 1_000, 2, Duration.ofMillis(50), Duration.ofSeconds(1), 16);
+        ActorRef<PersistentUserActor.Command> actor = testKit.spawn(PersistentUserActor.create(userId, settings));
+        persist(actor, userId, 120);
+        testKit.stop(actor);
+        SnapshotMetrics.Stats before = SnapshotMetrics.get(testKit.system()).stats();
+
+        ActorRef<PersistentUserActor.Command> recovered = testKit.spawn(PersistentUserActor.create(userId, settings));
+        assertEquals(120L, totalEvents(recovered));
+
+        SnapshotMetrics.Stats after = SnapshotMetrics.get(testKit.system()).stats();
+        assertEquals(before.recoveries() + 1, after.recoveries());
+        // Only the events after the latest snapshot are replayed
+        long replayed = after.eventsReplayed() - before.eventsReplayed();
+        assertTrue(replayed < 120, "replayed " + replayed);
+        assertEquals(after.recoveries(), after.recoveryHistogram().values().stream().mapToLong(Long::longValue).sum());
+        assertTrue(after.snapshotsWritten() >= 1);
+        assertTrue(after.snapshotBytesWritten() > 0);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void testRecoveryTimeBenchmark() throws Exception {
+        for (int events : new int[] {10, 100, 1_000, 10_000, 100_000}) {
+            Result fixed = measure("every-50", EVERY_50, events);
+            Result adaptive = measure("adaptive", ADAPTIVE, events);
+
+            assertTrue(fixed.replayed() <= 50);
+            assertTrue(adaptive.replayed() <= ADAPTIVE.maxEvents());
+            assertTrue(adaptive.snapshots() <= fixed.snapshots());
+            if (events >= 1_000) {
+                assertTrue(adaptive.snapshotBytes() < fixed.snapshotBytes());
+            }
+        }
+    }
+
+    private record Result(long snapshots, long replayed, long snapshotBytes) {}
+
+    private Result measure(String name, AdaptiveSnapshotPolicy.Settings settings, int events) throws Exception {
+        SnapshotMetrics metrics = SnapshotMetrics.get(testKit.system());
+        String userId = name + "-" + events + "-" + UUID.randomUUID();
+
+        SnapshotMetrics.Stats beforeWrite = metrics.stats();
+        ActorRef<PersistentUserActor.Command> actor = testKit.spawn(PersistentUserActor.create(userId, settings));
+        persist(actor, userId, events);
+        testKit.stop(actor, TIMEOUT);
+        // The in-memory journal deletes events one sequence number at a time; a first
+        // recovery waits for the deletes after the last snapshot so they are not timed
+        ActorRef<PersistentUserActor.Command> warmUp = testKit.spawn(PersistentUserActor.create(userId, settings));
+        totalEvents(warmUp);
+        testKit.stop(warmUp, TIMEOUT);
+        SnapshotMetrics.Stats afterWrite = metrics.stats();
+
+        ActorRef<PersistentUserActor.Command> recovered = testKit.spawn(PersistentUserActor.create(userId, settings));
+        assertEquals((long) events, totalEvents(recovered));
+        testKit.stop(recovered, TIMEOUT);
+        SnapshotMetrics.Stats afterRecovery = metrics.stats();
+
+        return new Result(
+            afterWrite.snapshotsWritten() - beforeWrite.snapshotsWritten(),
+            afterRecovery.eventsReplayed() - afterWrite.eventsReplayed(),
+            afterWrite.snapshotBytesWritten() - beforeWrite.snapshotBytesWritten());
+    }
+
+    private void persist(ActorRef<PersistentUserActor.Command> actor, String userId, int count) throws Exception {
+        List<PersistentUserActor.ProcessUserEventResponse> responses = Source.range(1, count)
+            .mapAsync(64, i -> AskPattern.<PersistentUserActor.Command, PersistentUserActor.ProcessUserEventResponse>ask(
+                actor, replyTo -> new PersistentUserActor.ProcessUserEvent(event(userId, i), replyTo),
+                TIMEOUT, testKit.system().scheduler()))
+            .runWith(Sink.seq(), testKit.system())
+            .toCompletableFuture()
+            .get(300, TimeUnit.SECONDS);
+        assertTrue(responses.stream().allMatch(response -> response.success));
+    }
+
+    private long totalEvents(ActorRef<PersistentUserActor.Command> actor) throws Exception {
+        return AskPattern.<PersistentUserActor.Command, PersistentUserActor.UserStatsResponse>ask(
+                actor, PersistentUserActor.GetUserStats::new, TIMEOUT, testKit.system().scheduler())
+            .toCompletableFuture()
+            .get(30, TimeUnit.SECONDS)
+            .state.getTotalEvents();
+    }
+
+    private static UserEvent event(String userId, int i) {
+        UserEvent event = new UserEvent(userId, "EMAIL_OPEN", 1L, LocalDateTime.now(), null, "test");
+        event.setEventId(userId + "-event-" + i);
+        return event;
+    }
+
+    private static Config persistenceConfig() {
+        return ConfigFactory.parseString(
+            "pekko.loglevel = WARNING\n" +
+            "pekko.actor.provider = cluster\n" +
+            "pekko.actor {\n" +
+            "  allow-java-serialization = on\n" +
+            "  warn-about-java-serializer-usage = off\n" +
+            PekkoConfig.SERIALIZATION_CONFIG +
+            "}\n" +
+            "pekko.remote.artery.canonical.hostname = 127.0.0.1\n" +
+            "pekko.remote.artery.canonical.port = 0\n" +
+            "pekko.persistence.journal.plugin = \"pekko.persistence.journal.inmem\"\n" +
+            "pekko.persistence.snapshot-store.plugin = \"pekko.persistence.snapshot-store.local\"\n" +
+            "pekko.persistence.snapshot-store.local.dir = \"target/snapshots-" + UUID.randomUUID() + "\"\n");
+    }
+}
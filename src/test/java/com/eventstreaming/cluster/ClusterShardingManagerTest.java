@@ -0,0 +1,131 @@
+package com.eventstreaming.cluster;
+
+import com.eventstreaming.model.CommunicationEvent;
+import com.eventstreaming.model.EmailEvent;
+import com.eventstreaming.model.EventType;
+import com.typesafe.config.ConfigFactory;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.actor.testkit.typed.javadsl.TestProbe;
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.cluster.sharding.typed.javadsl.ClusterSharding;
+import org.apache.pekko.cluster.sharding.typed.javadsl.Entity;
+import org.apache.pekko.cluster.sharding.typed.javadsl.EntityRef;
+import org.apache.pekko.cluster.typed.Cluster;
+import org.apache.pekko.cluster.typed.Join;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests windowed delivery of a user's events through cluster sharding on a single-node
+ * cluster, and checks it leaves the same state as one ask per event.
+ */
+class ClusterShardingManagerTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private ActorTestKit testKit;
+    private ClusterShardingManager manager;
+
+    @BeforeEach
+    void setUp() {
+        testKit = ActorTestKit.create(ConfigFactory.parseString(
+            "pekko.actor.provider = cluster\n" +
+            "pekko.remote.artery.canonical.hostname = 127.0.0.1\n" +
+            "pekko.remote.artery.canonical.port = 0\n" +
+            "pekko.cluster.jmx.multi-mbeans-in-same-jvm = on\n" +
+            "pekko.loglevel = WARNING\n"));
+        Cluster cluster = Cluster.get(testKit.system());
+        cluster.manager().tell(Join.create(cluster.selfMember().address()));
+
+        ClusterSharding sharding = ClusterSharding.get(testKit.system());
+        sharding.init(Entity.of(ClusterUserActor.ENTITY_TYPE_KEY,
+            entityContext -> ClusterUserActor.create(entityContext.getEntityId())));
+        manager = new ClusterShardingManager(sharding, testKit.system());
+    }
+
+    @AfterEach
+    void tearDown() {
+        testKit.shutdownTestKit();
+    }
+
+    @Test
+    void testEventsAreDeliveredInWindows() throws Exception {
+        List<CommunicationEvent> events = new ArrayList<>(events("user-1", 250));
+        events.addAll(events("user-2", 30));
+
+        manager.processEvents(events).toCompletableFuture().get(30, TimeUnit.SECONDS);
+
+        assertEquals(250, stats("user-1").totalEvents);
+        assertEquals(30, stats("user-2").totalEvents);
+    }
+
+    @Test
+    void testBatchAcknowledgementCountsRejectedEvents() {
+        List<CommunicationEvent> window = new ArrayList<>(events("user-1", 3));
+        window.add(1, email("user-other", "other-1"));
+        TestProbe<ClusterUserActor.EventBatchProcessed> probe = testKit.createTestProbe();
+
+        manager.getUserActor("user-1").tell(new ClusterUserActor.ProcessEventBatch(window, 7, probe.getRef()));
+
+        ClusterUserActor.EventBatchProcessed ack = probe.receiveMessage(TIMEOUT);
+        assertEquals(7, ack.deliveryId);
+        assertEquals(3, ack.processed);
+        assertEquals(1, ack.failed);
+        assertEquals("Event userId mismatch", ack.message);
+    }
+
+    @Test
+    void testWindowedDeliveryMatchesAskPerEvent() throws Exception {
+        askPerEvent(events("user-ask", 1_000)).toCompletableFuture().get(60, TimeUnit.SECONDS);
+        manager.processEvents(events("user-window", 1_000)).toCompletableFuture().get(60, TimeUnit.SECONDS);
+
+        ClusterUserActor.UserStats asked = stats("user-ask");
+        ClusterUserActor.UserStats windowed = stats("user-window");
+        assertEquals(1_000, windowed.totalEvents);
+        assertEquals(asked.totalEvents, windowed.totalEvents);
+        assertEquals(asked.recentEventsCount, windowed.recentEventsCount);
+    }
+
+    // The sequential chain processUserEvents used before windowed delivery
+    private CompletionStage<Void> askPerEvent(List<CommunicationEvent> events) {
+        EntityRef<ClusterUserActor.Command> userActor = manager.getUserActor(events.get(0).getUserId());
+        CompletionStage<Void> result = CompletableFuture.completedFuture(null);
+        for (CommunicationEvent event : events) {
+            result = result.thenCompose(ignored -> userActor.ask(
+                (ActorRef<ClusterUserActor.EventProcessed> replyTo) -> new ClusterUserActor.ProcessEvent(event, replyTo),
+                TIMEOUT).thenApply(response -> null));
+        }
+        return result;
+    }
+
+    private ClusterUserActor.UserStats stats(String userId) throws Exception {
+        return manager.getUserStats(userId).toCompletableFuture().get(10, TimeUnit.SECONDS);
+    }
+
+    private static List<CommunicationEvent> events(String userId, int count) {
+        return IntStream.range(0, count)
+            .mapToObj(i -> (CommunicationEvent) email(userId, userId + "-" + i))
+            .toList();
+    }
+
+    private static EmailEvent email(String userId, String eventId) {
+        return EmailEvent.builder()
+            .userId(userId)
+            .eventId(eventId)
+            .eventType(EventType.EMAIL_OPEN)
+            .timestamp(Instant.now())
+            .build();
+    }
+}
@@ -0,0 +1,228 @@
+package com.eventstreaming.cluster;
+
+import com.eventstreaming.config.PekkoConfig;
+import com.eventstreaming.model.CallEvent;
+import com.eventstreaming.model.EmailEvent;
+import com.eventstreaming.model.EventType;
+import com.eventstreaming.model.UserEvent;
+import com.typesafe.config.ConfigFactory;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.actor.testkit.typed.javadsl.TestProbe;
+import org.apache.pekko.actor.typed.javadsl.Adapter;
+import org.apache.pekko.serialization.Serialization;
+import org.apache.pekko.serialization.SerializationExtension;
+import org.apache.pekko.serialization.Serializer;
+import org.apache.pekko.serialization.SerializerWithStringManifest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the binary serializer bound in {@link PekkoConfig#SERIALIZATION_CONFIG} and
+ * compares bytes per message with Java serialization.
+ */
+class EventStreamingSerializerTest {
+
+    private ActorTestKit testKit;
+    private Serialization serialization;
+
+    @BeforeEach
+    void setUp() {
+        testKit = ActorTestKit.create(ConfigFactory.parseString(
+            "pekko.actor {\n" +
+            "  allow-java-serialization = on\n" +
+            "  warn-about-java-serializer-usage = off\n" +
+            PekkoConfig.SERIALIZATION_CONFIG +
+            "}\n"));
+        serialization = SerializationExtension.get(Adapter.toClassic(testKit.system()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        testKit.shutdownTestKit();
+    }
+
+    @Test
+    void testBindingsSelectBinarySerializer() {
+        TestProbe<PersistentUserActor.ProcessUserEventResponse> probe = testKit.createTestProbe();
+        List<Object> messages = List.of(
+            processed(1),
+            new UserActorState("user-1"),
+            new PersistentUserActor.ProcessUserEvent(new UserEvent("user-1", "EMAIL_OPEN", 7L), probe.getRef()),
+            new PersistentUserActor.ProcessUserEventResponse("user-1", "e1", true, "ok", LocalDateTime.now()),
+            ClusterUserActor.PassivateUser.INSTANCE,
+            new ClusterUserActor.EventProcessed("user-1", true, "ok"),
+            new ClusterUserActor.EventBatchProcessed("user-1", 1, 1, 0, "ok"),
+            emailEvent()
+        );
+        for (Object message : messages) {
+            assertEquals(EventStreamingSerializer.IDENTIFIER, serialization.findSerializerFor(message).identifier(),
+                message.getClass().getName());
+        }
+    }
+
+    @Test
+    void testRoundTripsEventsStateAndMessages() {
+        UserActorEvent.UserEventProcessed event = processed(42);
+        UserActorEvent.UserEventProcessed restoredEvent = roundTrip(event);
+        assertEquals(event.toString(), restoredEvent.toString());
+
+        UserActorEvent.UserEventCountUpdated countUpdated = new UserActorEvent.UserEventCountUpdated(
+            "user-1", "DROP", 5L, null, LocalDateTime.now());
+        assertEquals(countUpdated.toString(), roundTrip(countUpdated).toString());
+
+        UserActorState state = new UserActorState("user-1").applyEvent(event).applyEvent(processed(43));
+        UserActorState restoredState = roundTrip(state);
+        assertEquals(state.getEventTypeCounts(), restoredState.getEventTypeCounts());
+        assertEquals(state.getTotalEvents(), restoredState.getTotalEvents());
+        assertEquals(state.getLastUpdated(), restoredState.getLastUpdated());
+        assertEquals(state.getFirstEventTime(), restoredState.getFirstEventTime());
+        assertEquals(state.getLastEventTime(), restoredState.getLastEventTime());
+
+        TestProbe<PersistentUserActor.ProcessUserEventResponse> probe = testKit.createTestProbe();
+        UserEvent userEvent = new UserEvent("user-1", "ANSWER", 99L, LocalDateTime.now(), "raw", "kafka");
+        userEvent.setEventId("event-1");
+        userEvent.setPartition(3);
+        userEvent.setOffset(1234L);
+        PersistentUserActor.ProcessUserEvent command = roundTrip(
+            new PersistentUserActor.ProcessUserEvent(userEvent, probe.getRef()));
+        assertEquals(userEvent, command.userEvent);
+        assertEquals("event-1", command.userEvent.getEventId());
+        assertEquals(3, command.userEvent.getPartition());
+        assertEquals(1234L, command.userEvent.getOffset());
+        assertEquals(probe.getRef(), command.replyTo);
+
+        PersistentUserActor.UserStatsResponse statsResponse = roundTrip(new PersistentUserActor.UserStatsResponse("user-1", state));
+        assertEquals(2L, statsResponse.state.getTotalEvents());
+
+        TestProbe<ClusterUserActor.EventProcessed> clusterProbe = testKit.createTestProbe();
+        EmailEvent email = emailEvent();
+        ClusterUserActor.ProcessEvent processEvent = roundTrip(new ClusterUserActor.ProcessEvent(email, clusterProbe.getRef()));
+        EmailEvent restoredEmail = assertInstanceOf(EmailEvent.class, processEvent.event);
+        assertEquals(email.toString(), restoredEmail.toString());
+        assertEquals(email.getSource(), restoredEmail.getSource());
+        assertEquals(email.getCampaignId(), restoredEmail.getCampaignId());
+        assertEquals(email.getMetadata(), restoredEmail.getMetadata());
+        assertEquals(clusterProbe.getRef(), processEvent.replyTo);
+
+        TestProbe<ClusterUserActor.EventBatchProcessed> batchProbe = testKit.createTestProbe();
+        ClusterUserActor.ProcessEventBatch batch = roundTrip(
+            new ClusterUserActor.ProcessEventBatch(List.of(email, emailEvent()), 12, batchProbe.getRef()));
+        assertEquals(2, batch.events.size());
+        assertEquals(email.toString(), batch.events.get(0).toString());
+        assertEquals(12, batch.deliveryId);
+        assertEquals(batchProbe.getRef(), batch.replyTo);
+        // The actor rejects null entries itself, so they must survive the trip
+        ClusterUserActor.ProcessEventBatch withNull = roundTrip(
+            new ClusterUserActor.ProcessEventBatch(Arrays.asList(email, null, emailEvent()), 13, batchProbe.getRef()));
+        assertEquals(3, withNull.events.size());
+        assertEquals(email.toString(), withNull.events.get(0).toString());
+        assertNull(withNull.events.get(1));
+        assertInstanceOf(EmailEvent.class, withNull.events.get(2));
+        assertEquals(13, withNull.deliveryId);
+        ClusterUserActor.EventBatchProcessed ack = roundTrip(new ClusterUserActor.EventBatchProcessed("user-1", 12, 99, 1, "mismatch"));
+        assertEquals(12, ack.deliveryId);
+        assertEquals(99, ack.processed);
+        assertEquals(1, ack.failed);
+        assertEquals("mismatch", ack.message);
+
+        CallEvent call = new CallEvent("user-1", "call-1", EventType.CALL_COMPLETED, Instant.now(),
+            "555-0100", Duration.ofSeconds(95), "INBOUND", "COMPLETED", Map.of("rawData", "1:2:ANSWER"));
+        CallEvent restoredCall = roundTrip(call);
+        assertEquals(call.getCallDuration(), restoredCall.getCallDuration());
+        assertEquals(call.getTimestamp(), restoredCall.getTimestamp());
+        assertEquals("call-center", restoredCall.getSource());
+        assertEquals(call.getMetadata(), restoredCall.getMetadata());
+
+        ClusterUserActor.UserStats stats = roundTrip(new ClusterUserActor.UserStats("user-1", 12, LocalDateTime.now(), 3));
+        assertEquals(12, stats.totalEvents);
+        assertEquals(3, stats.recentEventsCount);
+        assertSame(ClusterUserActor.PassivateUser.INSTANCE, roundTrip(ClusterUserActor.PassivateUser.INSTANCE));
+    }
+
+    @Test
+    void testSerializedSizeMatchesEncodedState() {
+        SerializerWithStringManifest serializer = binarySerializer();
+        UserActorState state = new UserActorState("user-ü");
+        assertEquals(serializer.toBinary(state).length, EventStreamingSerializer.serializedSize(state));
+        for (int i = 0; i < 300; i++) {
+            state = state.applyEvent(processed(i));
+        }
+        assertEquals(serializer.toBinary(state).length, EventStreamingSerializer.serializedSize(state));
+    }
+
+    @Test
+    void testRejectsNewerSchemaVersion() {
+        SerializerWithStringManifest serializer = binarySerializer();
+        byte[] bytes = serializer.toBinary(processed(1));
+
+        assertEquals("UEP:" + EventStreamingSerializer.SCHEMA_VERSION, serializer.manifest(processed(1)));
+        assertThrows(NotSerializableException.class,
+            () -> serializer.fromBinary(bytes, "UEP:" + (EventStreamingSerializer.SCHEMA_VERSION + 1)));
+        assertThrows(NotSerializableException.class, () -> serializer.fromBinary(bytes, "UEP"));
+        assertThrows(NotSerializableException.class, () -> serializer.fromBinary(bytes, "XYZ:1"));
+    }
+
+    @Test
+    void testSizeAgainstJavaSerialization() throws Exception {
+        UserActorEvent.UserEventProcessed event = processed(1);
+        UserActorState state = new UserActorState("user-1");
+        for (int i = 0; i < 50; i++) {
+            state = state.applyEvent(processed(i));
+        }
+        SerializerWithStringManifest binary = binarySerializer();
+
+        assertTrue(binary.toBinary(event).length < javaSerialize(event).length / 4);
+        assertTrue(binary.toBinary(state).length < javaSerialize(state).length / 4);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T roundTrip(T value) {
+        Serializer serializer = serialization.findSerializerFor(value);
+        byte[] bytes = serializer.toBinary(value);
+        String manifest = ((SerializerWithStringManifest) serializer).manifest(value);
+        return (T) serialization.deserialize(bytes, serializer.identifier(), manifest).get();
+    }
+
+    private SerializerWithStringManifest binarySerializer() {
+        return (SerializerWithStringManifest) serialization.serializerByIdentity()
+            .apply(EventStreamingSerializer.IDENTIFIER);
+    }
+
+    private static UserActorEvent.UserEventProcessed processed(int i) {
+        return new UserActorEvent.UserEventProcessed(
+            "user-1", i % 2 == 0 ? "EMAIL_OPEN" : "ANSWER", 1000L + i, "event-" + i, "kafka", LocalDateTime.now());
+    }
+
+    private static EmailEvent emailEvent() {
+        return EmailEvent.builder()
+            .userId("user-1")
+            .eventId("email-1")
+            .eventType(EventType.EMAIL_CLICK)
+            .timestamp(Instant.now())
+            .campaignId("campaign-7")
+            .linkUrl("https://example.com/offer")
+            .metadata(Map.of("attempt", 2, "score", 0.75, "tags", List.of("a", "b"), "flag", true))
+            .build();
+    }
+
+    private static byte[] javaSerialize(Object value) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,157 @@
+package com.eventstreaming.cluster;
+
+import com.eventstreaming.config.PekkoConfig;
+import com.eventstreaming.model.CommunicationEvent;
+import com.eventstreaming.model.EmailEvent;
+import com.eventstreaming.model.EventType;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.apache.kafka.clients.producer.internals.BuiltInPartitioner;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.actor.testkit.typed.javadsl.TestProbe;
+import org.apache.pekko.cluster.MemberStatus;
+import org.apache.pekko.cluster.sharding.ShardRegion;
+import org.apache.pekko.cluster.sharding.typed.GetShardRegionState;
+import org.apache.pekko.cluster.sharding.typed.ShardingEnvelope;
+import org.apache.pekko.cluster.sharding.typed.javadsl.ClusterSharding;
+import org.apache.pekko.cluster.sharding.typed.javadsl.Entity;
+import org.apache.pekko.cluster.typed.Cluster;
+import org.apache.pekko.cluster.typed.Join;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that user shards follow Kafka partitions: the extractor agrees with Kafka's keyed
+ * partitioner, and a partition assignment moves the shard to the assigned node.
+ */
+class KafkaPartitionShardAllocatorTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    private static final int PARTITIONS = 12;
+
+    @Test
+    void testShardIdIsTheKafkaPartitionOfTheUserId() {
+        KafkaPartitionMessageExtractor<ClusterUserActor.Command> extractor = new KafkaPartitionMessageExtractor<>(PARTITIONS);
+
+        for (int i = 0; i < 1_000; i++) {
+            String userId = "user-" + i;
+            int kafkaPartition = BuiltInPartitioner.partitionForKey(userId.getBytes(StandardCharsets.UTF_8), PARTITIONS);
+            assertEquals(String.valueOf(kafkaPartition), extractor.shardId(userId));
+        }
+        ShardingEnvelope<ClusterUserActor.Command> envelope = new ShardingEnvelope<>("user-1", ClusterUserActor.PassivateUser.INSTANCE);
+        assertEquals("user-1", extractor.entityId(envelope));
+        assertSame(ClusterUserActor.PassivateUser.INSTANCE, extractor.unwrapMessage(envelope));
+        assertThrows(IllegalArgumentException.class, () -> new KafkaPartitionMessageExtractor<>(0));
+    }
+
+    @Test
+    void testAssignedPartitionMovesItsShardToTheConsumingNode() throws Exception {
+        String name = "KafkaAligned" + UUID.randomUUID().toString().substring(0, 8);
+        ActorTestKit node1 = ActorTestKit.create(name, clusterConfig());
+        ActorTestKit node2 = ActorTestKit.create(name, clusterConfig());
+        try {
+            startCluster(node1, node2);
+            String userId = "user-42";
+            int partition = KafkaPartitionMessageExtractor.partitionFor(userId, PARTITIONS);
+            ClusterShardingManager manager1 = new ClusterShardingManager(ClusterSharding.get(node1.system()), node1.system());
+
+            // Node 1 consumes the partition first, so the shard starts there
+            KafkaPartitionShardAllocator allocator1 = new KafkaPartitionShardAllocator(node1.system());
+            allocator1.claim(Set.of(partition)).toCompletableFuture().get(10, TimeUnit.SECONDS);
+            manager1.processEvents(List.of(email(userId, "e1"))).toCompletableFuture().get(10, TimeUnit.SECONDS);
+            assertTrue(hostedShards(node1).contains(String.valueOf(partition)));
+            assertEquals(Set.of(partition), allocator1.getAssignedPartitions());
+
+            // Rebalance: the partition is revoked from node 1 and assigned to node 2
+            allocator1.onRevoke(Set.of(new TopicPartition("events", partition)), null);
+            new KafkaPartitionShardAllocator(node2.system())
+                .onAssign(Set.of(new TopicPartition("events", partition)), null);
+
+            TestProbe<Object> probe = node1.createTestProbe();
+            probe.awaitAssert(Duration.ofSeconds(30), () -> {
+                assertTrue(hostedShards(node2).contains(String.valueOf(partition)));
+                assertFalse(hostedShards(node1).contains(String.valueOf(partition)));
+                return null;
+            });
+            assertTrue(allocator1.getAssignedPartitions().isEmpty());
+
+            // Messages sent from node 1 now reach the entity restarted on node 2; ClusterUserActor
+            // keeps its counts in memory, so only the event after the handover is counted
+            manager1.processEvents(List.of(email(userId, "e2"))).toCompletableFuture().get(10, TimeUnit.SECONDS);
+            assertEquals(1, manager1.getUserStats(userId).toCompletableFuture().get(10, TimeUnit.SECONDS).totalEvents);
+        } finally {
+            node2.shutdownTestKit();
+            node1.shutdownTestKit();
+        }
+    }
+
+    private static Set<String> hostedShards(ActorTestKit node) {
+        TestProbe<ShardRegion.CurrentShardRegionState> probe = node.createTestProbe();
+        ClusterSharding.get(node.system()).shardState()
+            .tell(new GetShardRegionState(ClusterUserActor.ENTITY_TYPE_KEY, probe.getRef()));
+        return probe.receiveMessage(TIMEOUT).getShards().stream()
+            .map(ShardRegion.ShardState::shardId)
+            .collect(Collectors.toSet());
+    }
+
+    private static Config clusterConfig() {
+        return ConfigFactory.parseString(
+            "pekko.loglevel = WARNING\n" +
+            "pekko.actor.provider = cluster\n" +
+            "pekko.actor {\n" +
+            "  allow-java-serialization = on\n" +
+            "  warn-about-java-serializer-usage = off\n" +
+            PekkoConfig.SERIALIZATION_CONFIG +
+            "}\n" +
+            "pekko.remote.artery.canonical.hostname = 127.0.0.1\n" +
+            "pekko.remote.artery.canonical.port = 0\n" +
+            "pekko.cluster.jmx.multi-mbeans-in-same-jvm = on\n" +
+            // Rebalance quickly so the test sees the handover
+            "pekko.cluster.sharding.rebalance-interval = 1s\n");
+    }
+
+    private static void startCluster(ActorTestKit node1, ActorTestKit node2) {
+        Cluster cluster1 = Cluster.get(node1.system());
+        cluster1.manager().tell(Join.create(cluster1.selfMember().address()));
+        Cluster.get(node2.system()).manager().tell(Join.create(cluster1.selfMember().address()));
+        for (ActorTestKit node : List.of(node1, node2)) {
+            ClusterSharding.get(node.system()).init(KafkaPartitionShardAllocator.alignWithKafkaPartitions(
+                Entity.of(ClusterUserActor.ENTITY_TYPE_KEY, entityContext -> ClusterUserActor.create(entityContext.getEntityId())),
+                node.system(), PARTITIONS));
+        }
+        TestProbe<Object> probe = node1.createTestProbe();
+        probe.awaitAssert(Duration.ofSeconds(20), () -> {
+            for (ActorTestKit node : List.of(node1, node2)) {
+                List<org.apache.pekko.cluster.Member> up = new ArrayList<>();
+                Cluster.get(node.system()).state().getMembers().forEach(member -> {
+                    if (member.status() == MemberStatus.up()) {
+                        up.add(member);
+                    }
+                });
+                assertEquals(2, up.size());
+            }
+            return null;
+        });
+    }
+
+    private static CommunicationEvent email(String userId, String eventId) {
+        return EmailEvent.builder()
+            .userId(userId)
+            .eventId(eventId)
+            .eventType(EventType.EMAIL_OPEN)
+            .timestamp(Instant.now())
+            .build();
+    }
+}
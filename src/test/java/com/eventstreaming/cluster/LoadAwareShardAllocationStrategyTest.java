@@ -0,0 +1,269 @@
+package com.eventstreaming.cluster;
+
+import com.eventstreaming.config.PekkoConfig;
+import com.eventstreaming.model.CommunicationEvent;
+import com.eventstreaming.model.EmailEvent;
+import com.eventstreaming.model.EventType;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.actor.testkit.typed.javadsl.TestProbe;
+import org.apache.pekko.cluster.MemberStatus;
+import org.apache.pekko.cluster.sharding.ShardRegion;
+import org.apache.pekko.cluster.sharding.typed.GetShardRegionState;
+import org.apache.pekko.cluster.sharding.typed.javadsl.ClusterSharding;
+import org.apache.pekko.cluster.sharding.typed.javadsl.Entity;
+import org.apache.pekko.cluster.sharding.typed.javadsl.EntityRef;
+import org.apache.pekko.cluster.typed.Cluster;
+import org.apache.pekko.cluster.typed.Join;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests shard load telemetry and the rebalancing decisions of
+ * {@link LoadAwareShardAllocationStrategy}, including a hot shard moving to a node that
+ * joins a loaded cluster.
+ */
+class LoadAwareShardAllocationStrategyTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    private static final LoadAwareShardAllocationStrategy.Settings SETTINGS = LoadAwareShardAllocationStrategy.Settings.DEFAULT;
+
+    @Test
+    void testRebalanceMovesTheShardClosestToHalfTheGap() {
+        Map<String, List<String>> allocations = new LinkedHashMap<>();
+        allocations.put("node-1", List.of("a", "b", "c"));
+        allocations.put("node-2", List.of("d"));
+        Map<String, Double> rates = Map.of("a", 40.0, "b", 30.0, "c", 5.0, "d", 1.0);
+
+        List<LoadAwareShardAllocationStrategy.Move<String>> moves =
+            LoadAwareShardAllocationStrategy.planRebalance(allocations, rates, Set.of(), SETTINGS);
+
+        // Gap 74: moving a (40) leaves 35 vs 41, within 20% of the mean of 38
+        assertEquals(List.of(new LoadAwareShardAllocationStrategy.Move<>("a", "node-1", "node-2")), moves);
+    }
+
+    @Test
+    void testBalancedOrSingleHotShardRegionsAreLeftAlone() {
+        Map<String, List<String>> allocations = new LinkedHashMap<>();
+        allocations.put("node-1", List.of("hot"));
+        allocations.put("node-2", List.of("x", "y"));
+
+        // One shard hotter than everything else cannot be split, so it stays put
+        assertTrue(LoadAwareShardAllocationStrategy.planRebalance(
+            allocations, Map.of("hot", 100.0, "x", 1.0, "y", 1.0), Set.of(), SETTINGS).isEmpty());
+        assertTrue(LoadAwareShardAllocationStrategy.planRebalance(
+            allocations, Map.of("hot", 10.0, "x", 5.0, "y", 5.0), Set.of(), SETTINGS).isEmpty());
+        // Never plan while an earlier round is still moving shards
+        assertTrue(LoadAwareShardAllocationStrategy.planRebalance(
+            allocations, Map.of("hot", 1.0, "x", 50.0, "y", 50.0), Set.of("x"), SETTINGS).isEmpty());
+    }
+
+    @Test
+    void testNewShardsSpreadOverRegionsOfSimilarLoad() {
+        Map<String, List<String>> allocations = new LinkedHashMap<>();
+        allocations.put("node-1", new ArrayList<>(List.of("a")));
+        allocations.put("node-2", new ArrayList<>(List.of("b", "c")));
+        allocations.put("node-3", new ArrayList<>(List.of("d")));
+        Map<String, Double> rates = Map.of("a", 1.0, "b", 0.0, "c", 0.0, "d", 58.0);
+
+        // Mean 19.7: node 1 and 2 are within 3.9 of the coldest, node 3 is not
+        List<String> placed = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            String region = LoadAwareShardAllocationStrategy.chooseRegion(allocations, rates, SETTINGS);
+            allocations.get(region).add("new-" + i);
+            placed.add(region);
+        }
+
+        // Equal shard counts go to the lower load
+        assertEquals(List.of("node-1", "node-2", "node-1", "node-2", "node-1", "node-2"), placed);
+        assertEquals(4, allocations.get("node-1").size());
+        assertEquals(5, allocations.get("node-2").size());
+        assertEquals(1, allocations.get("node-3").size());
+    }
+
+    @Test
+    void testDecayingRateAppliesDecayPerTick() throws Exception {
+        ShardLoadTracker.DecayingRate rate = new ShardLoadTracker.DecayingRate();
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            writers[t] = new Thread(() -> IntStream.range(0, 15_000).forEach(i -> rate.record(1)));
+            writers[t].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        // Events since the last tick count fully: 60000 over the 60 second window
+        assertEquals(60_000, rate.total());
+        assertEquals(1_000, rate.perSecond(), 1e-9);
+        rate.decay(Math.exp(-1));
+        assertEquals(1_000, rate.perSecond(), 1e-9);
+        rate.decay(Math.exp(-1));
+        assertEquals(1_000 / Math.E, rate.perSecond(), 1e-9);
+        rate.record(60);
+        assertEquals(1_000 / Math.E + 1, rate.perSecond(), 1e-9);
+        assertEquals(60_060, rate.total());
+    }
+
+    @Test
+    void testTrackerReportsShardAndEntityRates() {
+        ActorTestKit testKit = ActorTestKit.create(clusterConfig());
+        try {
+            ShardLoadTracker tracker = ShardLoadTracker.get(testKit.system());
+            ShardLoadTracker.EntityHandle hot = tracker.entityStarted("UserActor", "7", "user-hot");
+            ShardLoadTracker.EntityHandle cold = tracker.entityStarted("UserActor", "7", "user-cold");
+            ShardLoadTracker.EntityHandle other = tracker.entityStarted("UserActor", "9", "user-other");
+            hot.recordEvents(600);
+            cold.recordEvents(6);
+            other.recordEvents(60);
+
+            List<ShardLoadTracker.ShardLoad> shards = tracker.shardLoads();
+            assertEquals(List.of("7", "9"), shards.stream().map(ShardLoadTracker.ShardLoad::shardId).toList());
+            assertEquals(606, shards.get(0).totalEvents());
+            assertEquals(2, shards.get(0).entities());
+            // 606 events just now read as about 10 per second over the 60 second window
+            assertEquals(10.1, shards.get(0).eventsPerSecond(), 0.1);
+            assertEquals("user-hot", tracker.hottestEntities(1).get(0).entityId());
+
+            other.stopped();
+            assertEquals(0, tracker.shardLoads().get(1).entities());
+            assertEquals(2, tracker.hottestEntities(10).size());
+        } finally {
+            testKit.shutdownTestKit();
+        }
+    }
+
+    @Test
+    void testHotShardMovesToJoiningNode() throws Exception {
+        String name = "LoadAware" + UUID.randomUUID().toString().substring(0, 8);
+        ActorTestKit node1 = ActorTestKit.create(name, clusterConfig());
+        ActorTestKit node2 = ActorTestKit.create(name, clusterConfig());
+        try {
+            Cluster cluster1 = Cluster.get(node1.system());
+            cluster1.manager().tell(Join.create(cluster1.selfMember().address()));
+            initSharding(node1);
+            awaitMembersUp(node1, 1);
+            ClusterSharding sharding = ClusterSharding.get(node1.system());
+
+            // All shards start on node 1: two hot users in different shards and some quiet ones
+            List<String> hotUsers = List.of("hot-user-1", "hot-user-2");
+            for (String userId : hotUsers) {
+                send(sharding, userId, 3_000);
+            }
+            for (int i = 0; i < 6; i++) {
+                send(sharding, "quiet-user-" + i, 10);
+            }
+            Map<String, String> hotShards = ShardLoadTracker.get(node1.system()).hottestEntities(2).stream()
+                .collect(Collectors.toMap(ShardLoadTracker.EntityLoad::entityId, ShardLoadTracker.EntityLoad::shardId));
+            assertEquals(Set.copyOf(hotUsers), hotShards.keySet());
+            assertNotEquals(hotShards.get(hotUsers.get(0)), hotShards.get(hotUsers.get(1)));
+
+            Cluster.get(node2.system()).manager().tell(Join.create(cluster1.selfMember().address()));
+            initSharding(node2);
+            awaitMembersUp(node1, 2);
+
+            TestProbe<Object> probe = node1.createTestProbe();
+            probe.awaitAssert(Duration.ofSeconds(30), Duration.ofMillis(500), () -> {
+                // Moved shards start again on the next message
+                hotUsers.forEach(userId -> send(sharding, userId, 1));
+                Set<String> onNode2 = hostedShards(node2);
+                long hotOnNode2 = hotShards.values().stream().filter(onNode2::contains).count();
+                assertEquals(1, hotOnNode2);
+                return null;
+            });
+            Set<String> onNode1 = hostedShards(node1);
+            List<String> stayed = hotUsers.stream().filter(userId -> onNode1.contains(hotShards.get(userId))).toList();
+            assertEquals(1, stayed.size());
+
+            ClusterMonitoringService.HotShards hot = new ClusterMonitoringService(cluster1, sharding, node1.system())
+                .getHotShards(2).toCompletableFuture().get(10, TimeUnit.SECONDS);
+            assertEquals(2, hot.reportingNodes);
+            assertEquals(Set.copyOf(hotShards.values()),
+                hot.shards.stream().map(ShardLoadTracker.ShardLoad::shardId).collect(Collectors.toSet()));
+            // The moved user's entity restarted on node 2 and builds up its rate again
+            assertEquals(stayed.get(0), hot.entities.get(0).entityId());
+            assertEquals(cluster1.selfMember().address().toString(), hot.entities.get(0).address());
+        } finally {
+            node2.shutdownTestKit();
+            node1.shutdownTestKit();
+        }
+    }
+
+    private static void initSharding(ActorTestKit node) {
+        ClusterSharding.get(node.system()).init(LoadAwareShardAllocationStrategy.withLoadAwareAllocation(
+            Entity.of(ClusterUserActor.ENTITY_TYPE_KEY, entityContext -> ClusterUserActor.create(entityContext.getEntityId())),
+            node.system(), SETTINGS));
+    }
+
+    private static void send(ClusterSharding sharding, String userId, int count) {
+        EntityRef<ClusterUserActor.Command> entity = sharding.entityRefFor(ClusterUserActor.ENTITY_TYPE_KEY, userId);
+        List<CommunicationEvent> events = IntStream.range(0, count)
+            .mapToObj(i -> (CommunicationEvent) EmailEvent.builder()
+                .userId(userId)
+                .eventId(userId + "-" + UUID.randomUUID())
+                .eventType(EventType.EMAIL_OPEN)
+                .timestamp(Instant.now())
+                .build())
+            .toList();
+        try {
+            entity.<ClusterUserActor.EventBatchProcessed>ask(
+                    replyTo -> new ClusterUserActor.ProcessEventBatch(events, 0, replyTo), TIMEOUT)
+                .toCompletableFuture().get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new AssertionError("Delivery to " + userId + " failed", e);
+        }
+    }
+
+    private static Set<String> hostedShards(ActorTestKit node) {
+        TestProbe<ShardRegion.CurrentShardRegionState> probe = node.createTestProbe();
+        ClusterSharding.get(node.system()).shardState()
+            .tell(new GetShardRegionState(ClusterUserActor.ENTITY_TYPE_KEY, probe.getRef()));
+        return probe.receiveMessage(TIMEOUT).getShards().stream()
+            .map(ShardRegion.ShardState::shardId)
+            .collect(Collectors.toSet());
+    }
+
+    private static void awaitMembersUp(ActorTestKit node, int members) {
+        TestProbe<Object> probe = node.createTestProbe();
+        probe.awaitAssert(Duration.ofSeconds(20), () -> {
+            List<org.apache.pekko.cluster.Member> up = new ArrayList<>();
+            Cluster.get(node.system()).state().getMembers().forEach(member -> {
+                if (member.status() == MemberStatus.up()) {
+                    up.add(member);
+                }
+            });
+            assertEquals(members, up.size());
+            return null;
+        });
+    }
+
+    private static Config clusterConfig() {
+        return ConfigFactory.parseString(
+            "pekko.loglevel = WARNING\n" +
+            "pekko.actor.provider = cluster\n" +
+            "pekko.actor {\n" +
+            "  allow-java-serialization = on\n" +
+            "  warn-about-java-serializer-usage = off\n" +
+            PekkoConfig.SERIALIZATION_CONFIG +
+            "}\n" +
+            "pekko.remote.artery.canonical.hostname = 127.0.0.1\n" +
+            "pekko.remote.artery.canonical.port = 0\n" +
+            "pekko.cluster.jmx.multi-mbeans-in-same-jvm = on\n" +
+            // Rebalance quickly so the test sees the handover
+            "pekko.cluster.sharding.rebalance-interval = 1s\n");
+    }
+}
@@ -0,0 +1,262 @@
+package com.eventstreaming.cluster;
+
+import com.eventstreaming.config.PekkoConfig;
+import com.eventstreaming.model.UserEvent;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.actor.testkit.typed.javadsl.TestProbe;
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.ActorSystem;
+import org.apache.pekko.actor.typed.javadsl.AskPattern;
+import org.apache.pekko.cluster.MemberStatus;
+import org.apache.pekko.cluster.sharding.typed.javadsl.ClusterSharding;
+import org.apache.pekko.cluster.sharding.typed.javadsl.Entity;
+import org.apache.pekko.cluster.typed.Cluster;
+import org.apache.pekko.cluster.typed.Join;
+import org.apache.pekko.stream.javadsl.Sink;
+import org.apache.pekko.stream.javadsl.Source;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests per-user credits and acknowledgements of {@link UserEventDeliveryActor}, and
+ * checks it leaves the same state as one ask per event on a two-node loopback cluster.
+ */
+class UserEventDeliveryActorTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private ActorTestKit testKit;
+
+    @BeforeEach
+    void setUp() {
+        testKit = ActorTestKit.create();
+    }
+
+    @AfterEach
+    void tearDown() {
+        testKit.shutdownTestKit();
+    }
+
+    @Test
+    void testEventsBeyondTheCreditsWaitForAcknowledgements() throws Exception {
+        TestProbe<PersistentUserActor.Command> entity = testKit.createTestProbe();
+        ActorRef<UserEventDeliveryActor.Command> delivery = testKit.spawn(
+            UserEventDeliveryActor.create(userId -> entity.getRef(), 2, TIMEOUT));
+
+        List<CompletableFuture<PersistentUserActor.ProcessUserEventResponse>> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            CompletableFuture<PersistentUserActor.ProcessUserEventResponse> result = new CompletableFuture<>();
+            delivery.tell(new UserEventDeliveryActor.Deliver(event("user-1", "e" + i), result));
+            results.add(result);
+        }
+
+        PersistentUserActor.ProcessUserEvent first = entity.expectMessageClass(PersistentUserActor.ProcessUserEvent.class);
+        PersistentUserActor.ProcessUserEvent second = entity.expectMessageClass(PersistentUserActor.ProcessUserEvent.class);
+        assertEquals("e0", first.userEvent.getEventId());
+        assertEquals("e1", second.userEvent.getEventId());
+        entity.expectNoMessage(Duration.ofMillis(200));
+        assertEquals(1, stats(delivery).waitingForCredit());
+
+        first.replyTo.tell(acknowledgement(first));
+        PersistentUserActor.ProcessUserEvent third = entity.expectMessageClass(PersistentUserActor.ProcessUserEvent.class);
+        assertEquals("e2", third.userEvent.getEventId());
+        assertTrue(results.get(0).get(5, TimeUnit.SECONDS).success);
+        assertFalse(results.get(1).isDone());
+
+        second.replyTo.tell(acknowledgement(second));
+        third.replyTo.tell(acknowledgement(third));
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        UserEventDeliveryActor.DeliveryStats stats = stats(delivery);
+        assertEquals(3, stats.acknowledged());
+        assertEquals(0, stats.inFlight());
+        assertEquals(0, stats.activeUsers());
+    }
+
+    @Test
+    void testUnacknowledgedEventsTimeOutAndReleaseTheirCredit() throws Exception {
+        TestProbe<PersistentUserActor.Command> entity = testKit.createTestProbe();
+        ActorRef<UserEventDeliveryActor.Command> delivery = testKit.spawn(
+            UserEventDeliveryActor.create(userId -> entity.getRef(), 1, Duration.ofMillis(200)));
+
+        CompletableFuture<PersistentUserActor.ProcessUserEventResponse> lost = new CompletableFuture<>();
+        CompletableFuture<PersistentUserActor.ProcessUserEventResponse> next = new CompletableFuture<>();
+        delivery.tell(new UserEventDeliveryActor.Deliver(event("user-1", "lost"), lost));
+        delivery.tell(new UserEventDeliveryActor.Deliver(event("user-1", "next"), next));
+        PersistentUserActor.ProcessUserEvent unanswered = entity.expectMessageClass(PersistentUserActor.ProcessUserEvent.class);
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> lost.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, failure.getCause());
+        PersistentUserActor.ProcessUserEvent sent = entity.expectMessageClass(PersistentUserActor.ProcessUserEvent.class);
+        assertEquals("next", sent.userEvent.getEventId());
+
+        unanswered.replyTo.tell(acknowledgement(unanswered));
+        sent.replyTo.tell(acknowledgement(sent));
+        assertTrue(next.get(5, TimeUnit.SECONDS).success);
+        UserEventDeliveryActor.DeliveryStats stats = stats(delivery);
+        assertEquals(1, stats.timedOut());
+        assertEquals(1, stats.lateAcks());
+    }
+
+    @Test
+    void testCreditDeliveryMatchesAskOnLoopbackCluster() throws Exception {
+        String name = "DeliveryCluster" + UUID.randomUUID().toString().substring(0, 8);
+        ActorTestKit node1 = ActorTestKit.create(name, clusterConfig());
+        ActorTestKit node2 = ActorTestKit.create(name, clusterConfig());
+        try {
+            ClusterSharding sharding = startCluster(node1, node2);
+            Function<String, org.apache.pekko.cluster.sharding.typed.javadsl.EntityRef<PersistentUserActor.Command>> entityFor =
+                userId -> sharding.entityRefFor(PersistentUserActor.ENTITY_TYPE_KEY, userId);
+            ActorRef<UserEventDeliveryActor.Command> delivery = node1.spawn(
+                UserEventDeliveryActor.create(userId -> entityFor.apply(userId), 32, TIMEOUT));
+            ActorSystem<Void> system = node1.system();
+
+            List<UserEvent> askEvents = events("ask", 100, 20);
+            run(system, askEvents, event -> ask(system, entityFor, event));
+            assertEquals(0, stats(delivery, node1).delivered());
+
+            List<UserEvent> creditEvents = events("credit", 100, 20);
+            run(system, creditEvents, event -> deliver(delivery, event));
+
+            UserEventDeliveryActor.DeliveryStats stats = stats(delivery, node1);
+            assertEquals(creditEvents.size(), stats.delivered());
+            assertEquals(creditEvents.size(), stats.acknowledged());
+            assertEquals(0, stats.timedOut());
+            assertEquals(0, stats.lateAcks());
+            assertEquals(0, stats.inFlight());
+            assertEquals(0, stats.waitingForCredit());
+            assertEquals(0, stats.activeUsers());
+            assertEquals(32, stats.creditsPerUser());
+            for (String userId : List.of("7", "42", "99")) {
+                assertEquals(20L, totalEvents(system, entityFor, "ask-" + userId));
+                assertEquals(20L, totalEvents(system, entityFor, "credit-" + userId));
+            }
+        } finally {
+            node2.shutdownTestKit();
+            node1.shutdownTestKit();
+        }
+    }
+
+    private static Config clusterConfig() {
+        return ConfigFactory.parseString(
+            "pekko.loglevel = WARNING\n" +
+            "pekko.actor.provider = cluster\n" +
+            "pekko.actor {\n" +
+            "  allow-java-serialization = on\n" +
+            "  warn-about-java-serializer-usage = off\n" +
+            PekkoConfig.SERIALIZATION_CONFIG +
+            "}\n" +
+            "pekko.remote.artery.canonical.hostname = 127.0.0.1\n" +
+            "pekko.remote.artery.canonical.port = 0\n" +
+            "pekko.cluster.jmx.multi-mbeans-in-same-jvm = on\n" +
+            "pekko.persistence.journal.plugin = \"pekko.persistence.journal.inmem\"\n" +
+            "pekko.persistence.snapshot-store.plugin = \"pekko.persistence.snapshot-store.local\"\n" +
+            "pekko.persistence.snapshot-store.local.dir = \"target/snapshots-" + UUID.randomUUID() + "\"\n");
+    }
+
+    private static ClusterSharding startCluster(ActorTestKit node1, ActorTestKit node2) {
+        Cluster cluster1 = Cluster.get(node1.system());
+        cluster1.manager().tell(Join.create(cluster1.selfMember().address()));
+        Cluster.get(node2.system()).manager().tell(Join.create(cluster1.selfMember().address()));
+        for (ActorTestKit node : List.of(node1, node2)) {
+            ClusterSharding.get(node.system()).init(Entity.of(PersistentUserActor.ENTITY_TYPE_KEY,
+                entityContext -> PersistentUserActor.create(entityContext.getEntityId())));
+        }
+        TestProbe<Object> probe = node1.createTestProbe();
+        probe.awaitAssert(Duration.ofSeconds(20), () -> {
+            for (ActorTestKit node : List.of(node1, node2)) {
+                List<org.apache.pekko.cluster.Member> up = new ArrayList<>();
+                Cluster.get(node.system()).state().getMembers().forEach(member -> {
+                    if (member.status() == MemberStatus.up()) {
+                        up.add(member);
+                    }
+                });
+                assertEquals(2, up.size());
+            }
+            return null;
+        });
+        return ClusterSharding.get(node1.system());
+    }
+
+    private static void run(ActorSystem<Void> system, List<UserEvent> events,
+                            Function<UserEvent, CompletionStage<PersistentUserActor.ProcessUserEventResponse>> send)
+            throws Exception {
+        List<PersistentUserActor.ProcessUserEventResponse> responses = Source.from(events)
+            .mapAsync(64, send::apply)
+            .runWith(Sink.seq(), system)
+            .toCompletableFuture()
+            .get(120, TimeUnit.SECONDS);
+        assertTrue(responses.stream().allMatch(response -> response.success));
+    }
+
+    private static CompletionStage<PersistentUserActor.ProcessUserEventResponse> ask(
+            ActorSystem<Void> system,
+            Function<String, org.apache.pekko.cluster.sharding.typed.javadsl.EntityRef<PersistentUserActor.Command>> entityFor,
+            UserEvent event) {
+        return AskPattern.ask(entityFor.apply(event.getUserId()),
+            (ActorRef<PersistentUserActor.ProcessUserEventResponse> replyTo) -> new PersistentUserActor.ProcessUserEvent(event, replyTo),
+            TIMEOUT, system.scheduler());
+    }
+
+    private static long totalEvents(
+            ActorSystem<Void> system,
+            Function<String, org.apache.pekko.cluster.sharding.typed.javadsl.EntityRef<PersistentUserActor.Command>> entityFor,
+            String userId) throws Exception {
+        PersistentUserActor.UserStatsResponse userStats = AskPattern.<PersistentUserActor.Command, PersistentUserActor.UserStatsResponse>ask(
+            entityFor.apply(userId), PersistentUserActor.GetUserStats::new, TIMEOUT, system.scheduler())
+            .toCompletableFuture().get(10, TimeUnit.SECONDS);
+        return userStats.state.getTotalEvents();
+    }
+
+    private static CompletionStage<PersistentUserActor.ProcessUserEventResponse> deliver(
+            ActorRef<UserEventDeliveryActor.Command> delivery, UserEvent event) {
+        CompletableFuture<PersistentUserActor.ProcessUserEventResponse> result = new CompletableFuture<>();
+        delivery.tell(new UserEventDeliveryActor.Deliver(event, result));
+        return result;
+    }
+
+    // Events interleaved across users, as they arrive from Kafka partitions
+    private static List<UserEvent> events(String prefix, int users, int eventsPerUser) {
+        return IntStream.range(0, users * eventsPerUser)
+            .mapToObj(i -> event(prefix + "-" + (i % users), prefix + "-event-" + i))
+            .toList();
+    }
+
+    private static UserEvent event(String userId, String eventId) {
+        UserEvent event = new UserEvent(userId, "EMAIL_OPEN", 1L, LocalDateTime.now(), null, "test");
+        event.setEventId(eventId);
+        return event;
+    }
+
+    private static PersistentUserActor.ProcessUserEventResponse acknowledgement(PersistentUserActor.ProcessUserEvent command) {
+        return new PersistentUserActor.ProcessUserEventResponse(
+            command.userEvent.getUserId(), command.userEvent.getEventId(), true, "ok", LocalDateTime.now());
+    }
+
+    private UserEventDeliveryActor.DeliveryStats stats(ActorRef<UserEventDeliveryActor.Command> delivery) {
+        return stats(delivery, testKit);
+    }
+
+    private static UserEventDeliveryActor.DeliveryStats stats(ActorRef<UserEventDeliveryActor.Command> delivery, ActorTestKit kit) {
+        TestProbe<UserEventDeliveryActor.DeliveryStats> probe = kit.createTestProbe();
+        delivery.tell(new UserEventDeliveryActor.GetDeliveryStats(probe.getRef()));
+        return probe.receiveMessage(TIMEOUT);
+    }
+}
@@ -0,0 +1,249 @@
+package com.eventstreaming.kafka;
+
+import com.eventstreaming.model.CallEvent;
+import com.eventstreaming.model.CommunicationEvent;
+import com.eventstreaming.model.EventType;
+import com.eventstreaming.model.UserEvent;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the single-pass byte[] parser with the split/replaceAll parsers it replaces in
+ * UnifiedEventConsumer, PekkoKafkaStreamingService and KafkaEventStreamingService (copied
+ * below without their logging). Checks that the byte parser produces the same events and,
+ * in the "benchmark" group that the default build excludes, that it allocates less per op.
+ */
+class ColonDelimitedEventParserBenchmarkTest {
+
+    private static final int WARMUP_ITERATIONS = Integer.getInteger("benchmark.warmup", 200_000);
+    private static final int MEASURED_ITERATIONS = Integer.getInteger("benchmark.iterations", 1_000_000);
+
+    private static final String KEY =
+        "TS1761078201761@aa806415340acc676593b725919ce29603e40aa1bb993f03057e8b962725a3eb:DROP:84214:12951617384";
+    private static final String HASH_KEY = "3f2a9c0d1e";
+
+    private static volatile Object sink;
+
+    @Test
+    void testUserEventMatchesLegacyParser() {
+        List<String[]> records = List.of(
+            new String[] {KEY, "payload"},
+            new String[] {HASH_KEY, KEY},
+            new String[] {null, "TS1@user-1:ANSWER:7"},
+            new String[] {"", "TS1@user-1:PICKUP:-7:x:y"},
+            new String[] {"no-structure", "plain text"},
+            new String[] {null, "TS1@:DROP:1"},
+            new String[] {null, "TS1@a@b:DROP:1"},
+            new String[] {null, "TS1@user:DROP:"},
+            new String[] {null, null}
+        );
+
+        for (String[] record : records) {
+            UserEvent expected = legacyParseUserEvent(record[0], record[1]);
+            UserEvent actual = ColonDelimitedEventParser.parseUserEvent(bytes(record[0]), bytes(record[1]));
+            if (expected == null) {
+                assertNull(actual, () -> "Expected no event for " + String.join(" / ", String.valueOf(record[0]), String.valueOf(record[1])));
+            } else {
+                assertNotNull(actual);
+                assertEquals(expected.getUserId(), actual.getUserId());
+                assertEquals(expected.getEventType(), actual.getEventType());
+                assertEquals(expected.getContactId(), actual.getContactId());
+                assertEquals(expected.getEventData(), actual.getEventData());
+            }
+        }
+
+        assertThrows(NumberFormatException.class,
+            () -> ColonDelimitedEventParser.parseUserEvent(null, bytes("TS1@user:DROP:abc")));
+    }
+
+    @Test
+    void testCommunicationEventMatchesLegacyParser() {
+        List<String> records = List.of(
+            KEY,
+            "TS1761078201761@aa806415340acc676593b725919ce29603e40aa1bb993f03057e8b962725a3eb:answer",
+            "1761078201761@abc:SEND:1",
+            "TS@short:RECEIVE:1",
+            "@@x:delivery",
+            "no-at:pickup:1",
+            "TS1@hash:UNKNOWN:1"
+        );
+
+        for (String record : records) {
+            CommunicationEvent expected = legacyParseCommunicationEvent(record);
+            CommunicationEvent actual = ColonDelimitedEventParser.parseCommunicationEvent(bytes(record));
+            assertEquals(expected.getEventId(), actual.getEventId(), record);
+            assertEquals(expected.getUserId(), actual.getUserId(), record);
+            assertEquals(expected.getEventType(), actual.getEventType(), record);
+            assertEquals(expected.getMetadata(), actual.getMetadata(), record);
+            assertEquals(((CallEvent) expected).getCallResult(), ((CallEvent) actual).getCallResult(), record);
+            // Without timestamp digits both parsers fall back to Instant.now()
+            if (record.split("[@:]")[0].matches(".*\\d.*")) {
+                assertEquals(expected.getTimestamp(), actual.getTimestamp(), record);
+            }
+        }
+
+        assertThrows(IllegalArgumentException.class,
+            () -> ColonDelimitedEventParser.parseCommunicationEvent(bytes("TS1@hash")));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void testBenchmarkAgainstLegacyParsers() {
+        byte[] keyBytes = bytes(HASH_KEY);
+        byte[] valueBytes = bytes(KEY);
+
+        Result unifiedLegacy = measure(() -> legacyParseCommunicationEvent(KEY));
+        Result pekkoLegacy = measure(() -> legacyParsePekkoWithMetrics(HASH_KEY, KEY));
+        Result springLegacy = measure(() -> legacyParseUserEvent(HASH_KEY, KEY));
+        Result communication = measure(() -> ColonDelimitedEventParser.parseCommunicationEvent(valueBytes));
+        Result userEvent = measure(() -> ColonDelimitedEventParser.parseUserEvent(keyBytes, valueBytes));
+
+        // The legacy parsers start from already decoded Strings, so the StringDeserializer
+        // allocation is not even counted against them here.
+        assertTrue(communication.bytesPerOp() < unifiedLegacy.bytesPerOp(), "byte parser should allocate less than split parser");
+        assertTrue(userEvent.bytesPerOp() < springLegacy.bytesPerOp(), "byte parser should allocate less than split parser");
+        assertTrue(userEvent.bytesPerOp() < pekkoLegacy.bytesPerOp(), "byte parser should allocate less than split parser");
+    }
+
+    private record Result(double nanosPerOp, double bytesPerOp) {}
+
+    private static Result measure(java.util.function.Supplier<Object> parser) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sink = parser.get();
+        }
+
+        com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            sink = parser.get();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        return new Result((double) elapsedNanos / MEASURED_ITERATIONS, (double) allocated / MEASURED_ITERATIONS);
+    }
+
+    private static byte[] bytes(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    // --- Legacy parsers, as they were before the shared byte[] parser ---
+
+    /**
+     * KafkaEventStreamingService / PekkoKafkaStreamingService parseKafkaMessage.
+     */
+    private static UserEvent legacyParseUserEvent(String key, String value) {
+        try {
+            String dataSource = null;
+            boolean useKeyForParsing = false;
+
+            if (key != null && !key.trim().isEmpty()) {
+                if (key.contains(":") && key.contains("@")) {
+                    String[] keyParts = key.split(":");
+                    if (keyParts.length >= 3 && keyParts[0].contains("@")) {
+                        dataSource = key;
+                        useKeyForParsing = true;
+                    }
+                }
+            }
+
+            if (dataSource == null && value != null && !value.trim().isEmpty()) {
+                if (value.contains(":") && value.contains("@")) {
+                    String[] valueParts = value.split(":");
+                    if (valueParts.length >= 3 && valueParts[0].contains("@")) {
+                        dataSource = value;
+                    }
+                }
+            }
+
+            if (dataSource == null) {
+                return null;
+            }
+
+            String[] dataParts = dataSource.split(":");
+            if (dataParts.length < 3) {
+                return null;
+            }
+
+            String[] timestampUser = dataParts[0].split("@");
+            if (timestampUser.length != 2) {
+                return null;
+            }
+
+            UserEvent userEvent = new UserEvent();
+            userEvent.setUserId(timestampUser[1]);
+            userEvent.setEventType(dataParts[1]);
+            userEvent.setContactId(Long.parseLong(dataParts[2]));
+            userEvent.setEventData(useKeyForParsing ? (value != null ? value : "") : dataSource);
+            return userEvent;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * PekkoKafkaStreamingService: logIncomingMessage re-parsed every record for metrics
+     * before parseKafkaMessage ran.
+     */
+    private static UserEvent legacyParsePekkoWithMetrics(String key, String value) {
+        String metricsSource = key != null && key.contains(":") ? key : value;
+        String eventType = metricsSource != null && metricsSource.contains(":") ? metricsSource.split(":")[1] : "UNKNOWN";
+        String userSource = key != null && key.contains("@") ? key : value;
+        String userId = userSource != null && userSource.contains("@") ? userSource.split("@")[1].split(":")[0] : "unknown-user";
+        sink = eventType + userId;
+        return legacyParseUserEvent(key, value);
+    }
+
+    /**
+     * UnifiedEventConsumer.parseColonDelimitedEvent.
+     */
+    private static CommunicationEvent legacyParseCommunicationEvent(String eventString) {
+        String[] parts = eventString.split(":");
+        if (parts.length < 2) {
+            throw new IllegalArgumentException("Invalid event format: " + eventString);
+        }
+
+        String[] timestampParts = parts[0].split("@");
+        String timestamp = timestampParts.length > 0 ? timestampParts[0] : "";
+        String hash = timestampParts.length > 1 ? timestampParts[1] : "";
+        String action = parts[1];
+
+        CallEvent event = new CallEvent();
+        if (action.equalsIgnoreCase("DROP") || action.equalsIgnoreCase("ANSWER")) {
+            event.setCallResult(action.equalsIgnoreCase("DROP") ? "MISSED" : "COMPLETED");
+        }
+
+        event.setEventId(hash.substring(0, Math.min(20, hash.length())));
+        event.setUserId(hash.isEmpty() ? "unknown" : "user_" + hash.substring(0, Math.min(10, hash.length())));
+        event.setEventType(switch (action.toUpperCase()) {
+            case "DROP" -> EventType.DROP;
+            case "ANSWER" -> EventType.CALL_ANSWERED;
+            case "PICKUP" -> EventType.PICKUP;
+            case "DELIVERY" -> EventType.DELIVERY;
+            case "SEND" -> EventType.SMS_DELIVERY;
+            case "RECEIVE" -> EventType.SMS_REPLY;
+            default -> EventType.DROP;
+        });
+        Instant parsedTimestamp;
+        try {
+            parsedTimestamp = Instant.ofEpochMilli(Long.parseLong(timestamp.replaceAll("[^0-9]", "")));
+        } catch (Exception e) {
+            parsedTimestamp = Instant.now();
+        }
+        event.setTimestamp(parsedTimestamp);
+        event.setSource("kafka-colon-delimited");
+        event.setMetadata(Map.of("rawData", eventString, "hash", hash, "action", action));
+        return event;
+    }
+}
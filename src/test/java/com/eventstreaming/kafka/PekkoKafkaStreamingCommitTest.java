@@ -0,0 +1,155 @@
+package com.eventstreaming.kafka;
+
+import com.eventstreaming.cluster.PersistentUserActor;
+import com.eventstreaming.model.CommunicationEvent;
+import com.eventstreaming.service.DashboardService;
+import com.eventstreaming.service.PersistentUserService;
+import com.eventstreaming.service.UserEventAggregationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.actor.typed.ActorSystem;
+import org.apache.pekko.japi.Pair;
+import org.apache.pekko.stream.javadsl.Sink;
+import org.apache.pekko.stream.javadsl.Source;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests that the committable Pekko Kafka stream only emits offsets of events the
+ * persistent actor acknowledged or rejected. Offsets are plain longs here, and the sink
+ * stands in for the committer.
+ */
+@ExtendWith(MockitoExtension.class)
+class PekkoKafkaStreamingCommitTest {
+
+    private ActorTestKit testKit;
+    private ActorSystem<Void> actorSystem;
+
+    @Mock
+    private KafkaConfigManager kafkaConfigManager;
+
+    @Mock
+    private UserEventAggregationService aggregationService;
+
+    @Mock
+    private PersistentUserService persistentUserService;
+
+    @Mock
+    private DashboardService dashboardService;
+
+    private PekkoKafkaStreamingService streamingService;
+
+    @BeforeEach
+    void setUp() {
+        testKit = ActorTestKit.create();
+        actorSystem = testKit.system();
+
+        // Like PersistentUserService: blank userIds are rejected, a failed ask fails the stage
+        when(persistentUserService.storeEvent(any(CommunicationEvent.class))).thenAnswer(invocation -> {
+            CommunicationEvent event = invocation.getArgument(0);
+            if (event.getUserId().equals("user-timeout")) {
+                return CompletableFuture.failedFuture(new TimeoutException("Ask timed out"));
+            }
+            boolean valid = !event.getUserId().isBlank();
+            return CompletableFuture.completedFuture(new PersistentUserActor.ProcessUserEventResponse(
+                event.getUserId(), event.getEventId(), valid,
+                valid ? "ok" : "Invalid event or userId", LocalDateTime.now()));
+        });
+
+        streamingService = new PekkoKafkaStreamingService(
+            actorSystem,
+            new ObjectMapper(),
+            kafkaConfigManager,
+            aggregationService,
+            persistentUserService,
+            dashboardService
+        );
+        ReflectionTestUtils.setField(streamingService, "processingParallelism", 4);
+        ReflectionTestUtils.setField(streamingService, "bufferSize", 16);
+    }
+
+    @AfterEach
+    void tearDown() {
+        testKit.shutdownTestKit();
+    }
+
+    @Test
+    void testUnacknowledgedEventDoesNotAdvanceCommittedOffset() {
+        List<String> users = IntStream.range(0, 10)
+            .mapToObj(i -> i == 6 ? "user-timeout" : "user-" + (i % 2))
+            .toList();
+        List<Long> committed = new CopyOnWriteArrayList<>();
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> run(users, committed));
+
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        assertInstanceOf(TimeoutException.class, failure.getCause().getCause());
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L, 5L), committed);
+    }
+
+    @Test
+    void testRejectedEventIsCommittedAndLaterRecordsProcessed() throws Exception {
+        // The parser never yields an empty userId, but a blank one reaches the service
+        List<String> users = IntStream.range(0, 10)
+            .mapToObj(i -> i == 4 ? " " : "user-" + (i % 2))
+            .toList();
+        List<Long> committed = new CopyOnWriteArrayList<>();
+
+        run(users, committed);
+
+        assertEquals(LongStream.range(0, 10).boxed().toList(), committed);
+        verify(persistentUserService, times(10)).storeEvent(any(CommunicationEvent.class));
+        verify(dashboardService).recordPipelineError(eq("dead-letter"), eq("Invalid event or userId"), any(), eq(" "));
+    }
+
+    @Test
+    void testUnparseableRecordsAreCommitted() throws Exception {
+        List<String> users = IntStream.range(0, 10)
+            .mapToObj(i -> i == 3 ? null : "user-" + (i % 2))
+            .toList();
+        List<Long> committed = new CopyOnWriteArrayList<>();
+
+        run(users, committed);
+
+        assertEquals(LongStream.range(0, 10).boxed().toList(), committed);
+    }
+
+    // A null user produces a record without the structured format
+    private void run(List<String> users, List<Long> committed) throws Exception {
+        List<Pair<ConsumerRecord<byte[], byte[]>, Long>> records = IntStream.range(0, users.size())
+            .mapToObj(i -> {
+                String key = users.get(i) != null ? "1700000000000@" + users.get(i) + ":EMAIL_OPEN:" + i : "not-structured";
+                return Pair.create(new ConsumerRecord<>("email-events", 0, (long) i,
+                    key.getBytes(StandardCharsets.UTF_8), "payload".getBytes(StandardCharsets.UTF_8)), (long) i);
+            })
+            .toList();
+
+        Source.from(records)
+            .via(streamingService.<Long>acknowledgedOffsets())
+            .runWith(Sink.foreach(committed::add), actorSystem)
+            .toCompletableFuture()
+            .get(10, TimeUnit.SECONDS);
+    }
+}
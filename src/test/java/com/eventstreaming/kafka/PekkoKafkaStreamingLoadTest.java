@@ -0,0 +1,166 @@
+package com.eventstreaming.kafka;
+
+import com.eventstreaming.cluster.PersistentUserActor;
+import com.eventstreaming.model.CommunicationEvent;
+import com.eventstreaming.model.UserEvent;
+import com.eventstreaming.service.DashboardService;
+import com.eventstreaming.service.PersistentUserService;
+import com.eventstreaming.service.UserEventAggregationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.typesafe.config.ConfigFactory;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.actor.typed.ActorSystem;
+import org.apache.pekko.stream.javadsl.Sink;
+import org.apache.pekko.stream.javadsl.Source;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests that the asynchronous processing stage of PekkoKafkaStreamingService keeps up to
+ * {@code parallelism} persistent actor round trips in flight on a single-threaded
+ * dispatcher, and still emits results in input order. The fake actor only replies when the
+ * test completes its pending futures.
+ */
+@ExtendWith(MockitoExtension.class)
+class PekkoKafkaStreamingLoadTest {
+
+    private static final int EVENT_COUNT = 100;
+    private static final long ACTOR_LATENCY_MS = 20;
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private ActorTestKit testKit;
+    private ActorSystem<Void> actorSystem;
+
+    @Mock
+    private KafkaConfigManager kafkaConfigManager;
+
+    @Mock
+    private UserEventAggregationService aggregationService;
+
+    @Mock
+    private PersistentUserService persistentUserService;
+
+    @Mock
+    private DashboardService dashboardService;
+
+    private PekkoKafkaStreamingService streamingService;
+
+    // Replies of the fake actor, in ask order, completed by the test
+    private final List<CompletableFuture<PersistentUserActor.ProcessUserEventResponse>> replies = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        testKit = ActorTestKit.create(ConfigFactory.parseString("""
+            pekko.actor.default-dispatcher {
+              executor = "thread-pool-executor"
+              thread-pool-executor.fixed-pool-size = 1
+            }
+            """));
+        actorSystem = testKit.system();
+
+        when(persistentUserService.storeEvent(any(CommunicationEvent.class))).thenAnswer(invocation -> {
+            CommunicationEvent event = invocation.getArgument(0);
+            CompletableFuture<PersistentUserActor.ProcessUserEventResponse> reply = new CompletableFuture<>();
+            replies.add(reply);
+            return reply.thenApply(done -> new PersistentUserActor.ProcessUserEventResponse(
+                event.getUserId(), event.getEventId(), true, "ok", LocalDateTime.now()));
+        });
+
+        streamingService = new PekkoKafkaStreamingService(
+            actorSystem,
+            new ObjectMapper(),
+            kafkaConfigManager,
+            aggregationService,
+            persistentUserService,
+            dashboardService
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        testKit.shutdownTestKit();
+    }
+
+    @Test
+    void testParallelismBoundsAsksInFlight() throws Exception {
+        List<PekkoKafkaStreamingService.ProcessingResult> results = process(32);
+
+        assertEquals(IntStream.range(0, EVENT_COUNT).mapToObj(i -> "event-" + i).toList(),
+            results.stream().map(PekkoKafkaStreamingService.ProcessingResult::eventId).toList());
+        assertTrue(results.stream().allMatch(r -> r instanceof PekkoKafkaStreamingService.ProcessingResult.Success));
+    }
+
+    @Test
+    void testSequentialStageKeepsOneAskInFlight() throws Exception {
+        assertEquals(EVENT_COUNT, process(1).size());
+    }
+
+    @Test
+    void testProcessingResultCarriesLatency() throws Exception {
+        CompletableFuture<List<PekkoKafkaStreamingService.ProcessingResult>> results = Source.single(userEvent(0))
+            .via(streamingService.createUserEventProcessingFlow(1))
+            .runWith(Sink.seq(), actorSystem)
+            .toCompletableFuture();
+        awaitReplies(1);
+        Thread.sleep(ACTOR_LATENCY_MS);
+        replies.get(0).complete(null);
+
+        assertEquals(1, results.get(5, TimeUnit.SECONDS).size());
+        var success = assertInstanceOf(PekkoKafkaStreamingService.ProcessingResult.Success.class, results.get().get(0));
+        assertTrue(success.processingDuration().toMillis() >= ACTOR_LATENCY_MS);
+    }
+
+    /**
+     * Processes EVENT_COUNT events, checking that exactly {@code parallelism} asks are in
+     * flight before any of them is answered; each round is answered in reverse order.
+     */
+    private List<PekkoKafkaStreamingService.ProcessingResult> process(int parallelism) throws Exception {
+        List<UserEvent> events = IntStream.range(0, EVENT_COUNT).mapToObj(this::userEvent).toList();
+        CompletableFuture<List<PekkoKafkaStreamingService.ProcessingResult>> results = Source.from(events)
+            .via(streamingService.createUserEventProcessingFlow(parallelism))
+            .runWith(Sink.seq(), actorSystem)
+            .toCompletableFuture();
+
+        int answered = 0;
+        while (answered < EVENT_COUNT) {
+            int expected = Math.min(answered + parallelism, EVENT_COUNT);
+            awaitReplies(expected);
+            assertEquals(expected, replies.size(), "asks in flight beyond the parallelism");
+            for (int i = expected - 1; i >= answered; i--) {
+                replies.get(i).complete(null);
+            }
+            answered = expected;
+        }
+        return results.get(5, TimeUnit.SECONDS);
+    }
+
+    private void awaitReplies(int count) {
+        testKit.createTestProbe().awaitAssert(TIMEOUT, Duration.ofMillis(5), () -> {
+            assertTrue(replies.size() >= count, replies.size() + " of " + count + " asks sent");
+            return null;
+        });
+    }
+
+    private UserEvent userEvent(int i) {
+        UserEvent event = new UserEvent("user-" + i, "EMAIL_OPEN", (long) i);
+        event.setEventId("event-" + i);
+        event.setSource("load-test");
+        return event;
+    }
+}
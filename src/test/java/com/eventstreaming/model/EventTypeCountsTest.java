@@ -0,0 +1,118 @@
+package com.eventstreaming.model;
+
+import com.eventstreaming.cluster.UserActorEvent;
+import com.eventstreaming.cluster.UserActorState;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the long[]-backed event type counter and its use in UserActorState and
+ * UserEventAggregation: increments without allocation, unchanged JSON shape, and
+ * Java-serialized snapshots smaller than the HashMap they replace.
+ */
+class EventTypeCountsTest {
+
+    private static final String[] EVENT_TYPES = {"EMAIL_OPEN", "SMS_REPLY", "CALL_MISSED", "DROP", "ANSWER"};
+
+    @Test
+    void testCountsKnownAndOverflowTypes() {
+        EventTypeCounts counts = new EventTypeCounts();
+        counts.increment("EMAIL_OPEN");
+        counts.increment(EventType.EMAIL_OPEN);
+        counts.increment("ANSWER");
+        counts.add("ANSWER", 2);
+        counts.increment((String) null);
+
+        assertEquals(2, counts.get(EventType.EMAIL_OPEN));
+        assertEquals(2, counts.get("EMAIL_OPEN"));
+        assertEquals(3, counts.get("ANSWER"));
+        assertEquals(1, counts.get(EventTypeCounts.UNKNOWN_TYPE));
+        assertEquals(0, counts.get("SMS_REPLY"));
+        assertEquals(6, counts.total());
+        assertEquals(Map.of("EMAIL_OPEN", 2L, "ANSWER", 3L, "UNKNOWN", 1L), counts.toMap());
+
+        EventTypeCounts merged = counts.copy();
+        merged.addAll(counts);
+        assertEquals(12, merged.total());
+        assertEquals(6, merged.get("ANSWER"));
+        assertEquals(3, counts.get("ANSWER"), "copy must not share overflow counters");
+    }
+
+    @Test
+    void testIncrementDoesNotAllocate() {
+        EventTypeCounts counts = new EventTypeCounts();
+        for (int i = 0; i < 100_000; i++) {
+            counts.increment(EVENT_TYPES[i % 4]);
+        }
+
+        com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 1_000_000; i++) {
+            counts.increment(EVENT_TYPES[i % 4]);
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue(allocated < 10_000, "Known event type increments should not allocate, got " + allocated + " bytes");
+    }
+
+    @Test
+    void testJsonKeepsMapShape() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        EventTypeCounts counts = EventTypeCounts.fromMap(Map.of("DROP", 4L, "ANSWER", 1L));
+
+        String json = objectMapper.writeValueAsString(counts);
+        assertEquals(Map.of("DROP", 4L, "ANSWER", 1L),
+            objectMapper.readValue(json, new TypeReference<Map<String, Long>>() {}));
+        assertEquals(counts, objectMapper.readValue(json, EventTypeCounts.class));
+
+        UserEventAggregation aggregation = new UserEventAggregation("user-1");
+        aggregation.setEventTypeCounts(Map.of("DROP", 4L, "ANSWER", 1L));
+        assertEquals(5L, aggregation.getTotalEvents());
+        assertEquals(4L, aggregation.getCountForEventType("DROP"));
+        assertTrue(objectMapper.valueToTree(aggregation.getEventTypeCounts()).has("ANSWER"));
+    }
+
+    @Test
+    void testSnapshotIsSmallerAndRoundTrips() throws Exception {
+        UserActorState state = new UserActorState("user-1");
+        Map<String, Long> legacyCounts = new HashMap<>();
+        for (int i = 0; i < 1_000; i++) {
+            String eventType = EVENT_TYPES[i % EVENT_TYPES.length];
+            state = state.applyEvent(new UserActorEvent.UserEventProcessed(
+                "user-1", eventType, (long) i, "event-" + i, "test", java.time.LocalDateTime.now()));
+            legacyCounts.merge(eventType, 1L, Long::sum);
+        }
+
+        byte[] stateBytes = serialize(state);
+        UserActorState restored = (UserActorState) new ObjectInputStream(new ByteArrayInputStream(stateBytes)).readObject();
+        assertEquals(state.getEventTypeCounts(), restored.getEventTypeCounts());
+        assertEquals(1_000L, restored.getTotalEvents());
+        assertEquals(200L, restored.getCountForEventType("ANSWER"));
+
+        int countsBytes = serialize(EventTypeCounts.fromMap(legacyCounts)).length;
+        int legacyCountsBytes = serialize(legacyCounts).length;
+        assertTrue(countsBytes < legacyCountsBytes,
+            "Serialized counts should be smaller than the HashMap: " + countsBytes + " vs " + legacyCountsBytes + " bytes");
+    }
+
+    private static byte[] serialize(Object value) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,121 @@
+package com.eventstreaming.persistence;
+
+import com.eventstreaming.cluster.UserActorEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.stream.javadsl.Sink;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests keyset-paginated journal reads and the Pekko sources built on them.
+ */
+class H2EventJournalStreamingTest {
+
+    private static final String PREFIX = "PersistentUserActor|";
+    private static final int EVENTS = 2_000;
+
+    private ActorTestKit testKit;
+    private H2EventJournal journal;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        testKit = ActorTestKit.create();
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:journal-stream-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+
+        journal = spy(new H2EventJournal());
+        ReflectionTestUtils.setField(journal, "jdbcTemplate", new JdbcTemplate(dataSource));
+        ReflectionTestUtils.setField(journal, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(journal, "writeQueueCapacity", EVENTS * 2);
+        ReflectionTestUtils.setField(journal, "writeBatchSize", 500);
+        ReflectionTestUtils.setField(journal, "writeFlushInterval", Duration.ofMillis(10));
+        journal.initializeSchema();
+
+        List<CompletableFuture<Long>> writes = new ArrayList<>();
+        for (int i = 0; i < EVENTS; i++) {
+            writes.add(journal.appendEvent(PREFIX + "user-1", event("user-1", i)));
+        }
+        for (int user = 0; user < 25; user++) {
+            writes.add(journal.appendEvent(PREFIX + "user-" + (100 + user), event("user-" + (100 + user), 0)));
+        }
+        writes.add(journal.appendEvent("StreamingMetadata|user-1", event("user-1", 0)));
+        CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        journal.shutdown();
+        testKit.shutdownTestKit();
+    }
+
+    @Test
+    void testStreamsAllEventsInOrderOnePageAtATime() throws Exception {
+        List<H2EventJournal.EventJournalEntry> events = journal.streamEvents(PREFIX + "user-1", 1, Long.MAX_VALUE, 128)
+            .runWith(Sink.seq(), testKit.system())
+            .toCompletableFuture().get(30, TimeUnit.SECONDS);
+
+        assertEquals(LongStream.rangeClosed(1, EVENTS).boxed().toList(),
+            events.stream().map(H2EventJournal.EventJournalEntry::getSequenceNr).toList());
+        // 2000 events in pages of 128: 15 full pages and one short page
+        verify(journal, times(16)).getEventsAfter(eq(PREFIX + "user-1"), anyLong(), eq(128));
+    }
+
+    @Test
+    void testStreamReadsOnlyThePagesItNeeds() throws Exception {
+        List<H2EventJournal.EventJournalEntry> events = journal.streamEvents(PREFIX + "user-1", 501, 150, 100)
+            .runWith(Sink.seq(), testKit.system())
+            .toCompletableFuture().get(30, TimeUnit.SECONDS);
+
+        assertEquals(150, events.size());
+        assertEquals(501L, events.get(0).getSequenceNr());
+        assertEquals(650L, events.get(149).getSequenceNr());
+        verify(journal, atMost(3)).getEventsAfter(anyString(), anyLong(), anyInt());
+    }
+
+    @Test
+    void testKeysetPagesContinueFromCursor() {
+        List<H2EventJournal.EventJournalEntry> first = journal.getEventsAfter(PREFIX + "user-1", 0, 10);
+        List<H2EventJournal.EventJournalEntry> second = journal.getEventsAfter(
+            PREFIX + "user-1", first.get(first.size() - 1).getSequenceNr(), 10);
+
+        assertEquals(10L, first.get(9).getSequenceNr());
+        assertEquals(11L, second.get(0).getSequenceNr());
+        assertTrue(journal.getEventsAfter(PREFIX + "user-1", EVENTS, 10).isEmpty());
+    }
+
+    @Test
+    void testStreamsPersistenceIdsWithPrefix() throws Exception {
+        List<String> persistenceIds = journal.streamPersistenceIds(PREFIX, 4)
+            .runWith(Sink.seq(), testKit.system())
+            .toCompletableFuture().get(30, TimeUnit.SECONDS);
+
+        assertEquals(26, persistenceIds.size());
+        assertTrue(persistenceIds.stream().allMatch(id -> id.startsWith(PREFIX)));
+        assertEquals(persistenceIds.stream().sorted().toList(), persistenceIds);
+        assertEquals(journal.getAllPersistenceIds().stream().filter(id -> id.startsWith(PREFIX)).toList(), persistenceIds);
+    }
+
+    private static UserActorEvent.UserEventProcessed event(String userId, int i) {
+        return new UserActorEvent.UserEventProcessed(userId, "EMAIL_OPEN", 1000L + i, "event-" + i, "test", LocalDateTime.now());
+    }
+}
@@ -0,0 +1,135 @@
+package com.eventstreaming.persistence;
+
+import com.eventstreaming.cluster.UserActorEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the write-behind H2 journal writer against an in-memory H2 database.
+ */
+class H2EventJournalWriteBehindTest {
+
+    private static final int USERS = 100;
+    private static final int BATCHED_EVENTS = 50_000;
+
+    private JdbcTemplate jdbcTemplate;
+    private ObjectMapper objectMapper;
+    private final List<H2EventJournal> journals = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:journal-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+    }
+
+    @AfterEach
+    void tearDown() {
+        journals.forEach(H2EventJournal::shutdown);
+    }
+
+    @Test
+    void testSequenceNumbersContinueAfterRestart() throws Exception {
+        H2EventJournal journal = startJournal(100);
+        journal.persistEvent("PersistentUserActor|user-1", 1, event("user-1", 1));
+        journal.persistEvent("PersistentUserActor|user-1", 2, event("user-1", 2));
+        assertEquals(3L, journal.appendEvent("PersistentUserActor|user-1", event("user-1", 3)).get(5, TimeUnit.SECONDS));
+        assertEquals(1L, journal.appendEvent("PersistentUserActor|user-2", event("user-2", 1)).get(5, TimeUnit.SECONDS));
+        journal.shutdown();
+
+        H2EventJournal restarted = startJournal(100);
+        assertEquals(4L, restarted.appendEvent("PersistentUserActor|user-1", event("user-1", 4)).get(5, TimeUnit.SECONDS));
+        assertEquals(2L, restarted.appendEvent("PersistentUserActor|user-2", event("user-2", 2)).get(5, TimeUnit.SECONDS));
+
+        List<H2EventJournal.EventJournalEntry> entries = restarted.getEvents("PersistentUserActor|user-1", 0, 10);
+        assertEquals(List.of(1L, 2L, 3L, 4L), entries.stream().map(H2EventJournal.EventJournalEntry::getSequenceNr).toList());
+    }
+
+    @Test
+    void testFutureCompletesAfterRowIsCommitted() throws Exception {
+        H2EventJournal journal = startJournal(500);
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            String userId = "user-" + (i % 10);
+            futures.add(journal.appendEvent("PersistentUserActor|" + userId, event(userId, i)));
+        }
+
+        futures.get(0).get(5, TimeUnit.SECONDS);
+        assertTrue(journal.getEventCount("PersistentUserActor|user-0") > 0);
+
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+        assertEquals(100L, journal.getEventCount("PersistentUserActor|user-9"));
+        assertEquals(100L, journal.getHighestSequenceNr("PersistentUserActor|user-9"));
+    }
+
+    @Test
+    void testDuplicateRowFailsOnlyItsOwnFuture() throws Exception {
+        H2EventJournal journal = startJournal(100);
+        // Occupy seq 2 behind the writer's back so the batched append of seq 2 collides
+        jdbcTemplate.update("""
+            INSERT INTO event_journal (persistence_id, sequence_nr, event_type, event_data, timestamp)
+            VALUES ('PersistentUserActor|user-1', 2, 'UserEventProcessed', '{}', CURRENT_TIMESTAMP)
+            """);
+
+        CompletableFuture<Long> first = journal.appendEvent("PersistentUserActor|user-1", event("user-1", 1));
+        CompletableFuture<Long> duplicate = journal.appendEvent("PersistentUserActor|user-1", event("user-1", 2));
+        CompletableFuture<Long> other = journal.appendEvent("PersistentUserActor|user-2", event("user-2", 1));
+
+        assertEquals(1L, first.get(5, TimeUnit.SECONDS));
+        assertEquals(1L, other.get(5, TimeUnit.SECONDS));
+        assertThrows(Exception.class, () -> duplicate.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testBatchedAppendsAssignContiguousSequenceNumbers() throws Exception {
+        H2EventJournal journal = startJournal(500);
+
+        List<CompletableFuture<Long>> futures = new ArrayList<>(BATCHED_EVENTS);
+        for (int i = 0; i < BATCHED_EVENTS; i++) {
+            futures.add(journal.appendEvent("Batched|user-" + (i % USERS), event("user-" + (i % USERS), i)));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(2, TimeUnit.MINUTES);
+
+        // Each user's appends got 1, 2, 3, ... in the order they were enqueued
+        List<Long> user0 = IntStream.range(0, BATCHED_EVENTS / USERS)
+            .mapToObj(i -> futures.get(i * USERS).join())
+            .toList();
+        assertEquals(LongStream.rangeClosed(1, BATCHED_EVENTS / USERS).boxed().toList(), user0);
+        assertEquals((long) BATCHED_EVENTS / USERS, journal.getHighestSequenceNr("Batched|user-0"));
+        assertEquals((long) BATCHED_EVENTS / USERS, journal.getEventCount("Batched|user-" + (USERS - 1)));
+    }
+
+    private H2EventJournal startJournal(int batchSize) {
+        H2EventJournal journal = new H2EventJournal();
+        ReflectionTestUtils.setField(journal, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(journal, "objectMapper", objectMapper);
+        // Large enough for the tests to enqueue everything up front
+        ReflectionTestUtils.setField(journal, "writeQueueCapacity", BATCHED_EVENTS);
+        ReflectionTestUtils.setField(journal, "writeBatchSize", batchSize);
+        ReflectionTestUtils.setField(journal, "writeFlushInterval", Duration.ofMillis(10));
+        journal.initializeSchema();
+        journals.add(journal);
+        return journal;
+    }
+
+    private static UserActorEvent.UserEventProcessed event(String userId, int i) {
+        return new UserActorEvent.UserEventProcessed(userId, "EMAIL_OPEN", 1000L + i, "event-" + i, "test", LocalDateTime.now());
+    }
+}
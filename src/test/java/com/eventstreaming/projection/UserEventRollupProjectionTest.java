@@ -0,0 +1,229 @@
+package com.eventstreaming.projection;
+
+import com.eventstreaming.cluster.UserActorEvent;
+import com.eventstreaming.config.PekkoConfig;
+import com.typesafe.config.ConfigFactory;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.actor.typed.javadsl.Adapter;
+import org.apache.pekko.serialization.Serialization;
+import org.apache.pekko.serialization.SerializationExtension;
+import org.apache.pekko.serialization.Serializer;
+import org.apache.pekko.serialization.SerializerWithStringManifest;
+import org.apache.pekko.stream.javadsl.Sink;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the rollup projection against an in-memory H2 database in MySQL mode with the
+ * pekko-persistence-jdbc journal and offset store tables.
+ */
+class UserEventRollupProjectionTest {
+
+    private static final String PREFIX = "PersistentUserActor|";
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private ActorTestKit testKit;
+    private Serialization serialization;
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private final Map<String, Long> sequenceNumbers = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        testKit = ActorTestKit.create(ConfigFactory.parseString(
+            "pekko.actor {\n" + PekkoConfig.SERIALIZATION_CONFIG + "}\n"));
+        serialization = SerializationExtension.get(Adapter.toClassic(testKit.system()));
+
+        dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:rollup-" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("""
+            CREATE TABLE event_journal (
+                ordering BIGINT NOT NULL PRIMARY KEY,
+                persistence_id VARCHAR(255) NOT NULL,
+                sequence_number BIGINT NOT NULL,
+                deleted BOOLEAN DEFAULT FALSE NOT NULL,
+                writer TEXT,
+                write_timestamp BIGINT,
+                adapter_manifest TEXT,
+                event_ser_id INTEGER NOT NULL,
+                event_ser_manifest TEXT NOT NULL,
+                event_payload BLOB NOT NULL,
+                meta_ser_id INTEGER,
+                meta_ser_manifest TEXT,
+                meta_payload BLOB
+            )
+            """);
+        jdbcTemplate.execute("""
+            CREATE TABLE projection_offset_store (
+                projection_name VARCHAR(255) NOT NULL,
+                projection_key VARCHAR(255) NOT NULL,
+                current_offset VARCHAR(255) NOT NULL,
+                manifest VARCHAR(32) NOT NULL,
+                mergeable BOOLEAN NOT NULL,
+                last_updated BIGINT,
+                PRIMARY KEY (projection_name, projection_key)
+            )
+            """);
+        jdbcTemplate.execute("""
+            CREATE TABLE user_event_rollup (
+                user_id VARCHAR(255) NOT NULL,
+                event_type VARCHAR(64) NOT NULL,
+                event_count BIGINT NOT NULL,
+                first_ts DATETIME(6) NOT NULL,
+                last_ts DATETIME(6) NOT NULL,
+                PRIMARY KEY (user_id, event_type)
+            )
+            """);
+    }
+
+    @AfterEach
+    void tearDown() {
+        testKit.shutdownTestKit();
+    }
+
+    @Test
+    void testCountsAndTimestampsPerUserAndType() {
+        journal(1, "user-1", "EMAIL_OPEN", 5);
+        journal(2, "user-1", "EMAIL_OPEN", 1);
+        journal(3, "user-1", "ANSWER", 3);
+        journal(4, "user-2", "EMAIL_OPEN", 2);
+        journal(5, "user-1", "EMAIL_OPEN", 9);
+
+        assertEquals(5, newProjection().processAvailableEvents());
+
+        assertEquals(3L, count("user-1", "EMAIL_OPEN"));
+        assertEquals(1L, count("user-1", "ANSWER"));
+        assertEquals(1L, count("user-2", "EMAIL_OPEN"));
+        assertEquals(BASE_TIME.plusMinutes(1), timestamp("first_ts", "user-1", "EMAIL_OPEN"));
+        assertEquals(BASE_TIME.plusMinutes(9), timestamp("last_ts", "user-1", "EMAIL_OPEN"));
+        assertEquals("5", offset());
+    }
+
+    @Test
+    void testResumesFromStoredOffsetWithoutDoubleCounting() {
+        for (int ordering = 1; ordering <= 25; ordering++) {
+            journal(ordering, "user-" + (ordering % 3), "EMAIL_OPEN", ordering);
+        }
+        UserEventRollupProjection projection = newProjection();
+        ReflectionTestUtils.setField(projection, "batchSize", 10);
+        assertEquals(25, projection.processAvailableEvents());
+        assertEquals(0, projection.processAvailableEvents());
+
+        journal(26, "user-0", "EMAIL_OPEN", 30);
+        journal(27, "user-9", "ANSWER", 31);
+        // A restarted node continues from the offset store, not from the start of the journal
+        assertEquals(2, newProjection().processAvailableEvents());
+
+        assertEquals(9L, count("user-0", "EMAIL_OPEN"));
+        assertEquals(9L, count("user-1", "EMAIL_OPEN"));
+        assertEquals(8L, count("user-2", "EMAIL_OPEN"));
+        assertEquals(1L, count("user-9", "ANSWER"));
+        assertEquals("27", offset());
+    }
+
+    @Test
+    void testSkipsOtherEntityTypes() {
+        journal(1, "user-1", "EMAIL_OPEN", 1);
+        insertRow(2, "StreamingMetadata|user-1", 1, processed("user-1", "EMAIL_OPEN", 2));
+
+        assertEquals(2, newProjection().processAvailableEvents());
+        assertEquals(1L, count("user-1", "EMAIL_OPEN"));
+        assertEquals("2", offset());
+    }
+
+    @Test
+    void testHoldsBackRecentGapUntilTimeout() {
+        journal(1, "user-1", "EMAIL_OPEN", 1);
+        journal(3, "user-1", "EMAIL_OPEN", 3);
+
+        UserEventRollupProjection projection = newProjection();
+        ReflectionTestUtils.setField(projection, "gapTimeout", Duration.ofMinutes(1));
+        assertEquals(1, projection.processAvailableEvents());
+        assertEquals("1", offset());
+
+        // Ordering 2 committed late: both rows are projected in order
+        journal(2, "user-1", "ANSWER", 2);
+        assertEquals(2, projection.processAvailableEvents());
+        assertEquals(2L, count("user-1", "EMAIL_OPEN"));
+        assertEquals(1L, count("user-1", "ANSWER"));
+
+        // A gap older than the timeout is a rolled back insert and is skipped
+        journal(5, "user-1", "EMAIL_OPEN", 5);
+        ReflectionTestUtils.setField(projection, "gapTimeout", Duration.ZERO);
+        assertEquals(1, projection.processAvailableEvents());
+        assertEquals("5", offset());
+    }
+
+    @Test
+    void testStreamsDistinctUserIdsInPages() throws Exception {
+        for (int i = 0; i < 7; i++) {
+            journal(i * 2 + 1, "user-" + i, "EMAIL_OPEN", i);
+            journal(i * 2 + 2, "user-" + i, "ANSWER", i);
+        }
+        UserEventRollupProjection projection = newProjection();
+        projection.processAvailableEvents();
+
+        List<String> userIds = projection.streamUserIds(3)
+            .runWith(Sink.seq(), testKit.system())
+            .toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        assertEquals(IntStream.range(0, 7).mapToObj(i -> "user-" + i).toList(), userIds);
+    }
+
+    private UserEventRollupProjection newProjection() {
+        return new UserEventRollupProjection(jdbcTemplate, new DataSourceTransactionManager(dataSource), testKit.system());
+    }
+
+    private void journal(long ordering, String userId, String eventType, int minute) {
+        long sequenceNr = sequenceNumbers.merge(userId, 1L, Long::sum);
+        insertRow(ordering, PREFIX + userId, sequenceNr, processed(userId, eventType, minute));
+    }
+
+    private void insertRow(long ordering, String persistenceId, long sequenceNr, Object event) {
+        Serializer serializer = serialization.findSerializerFor(event);
+        jdbcTemplate.update(
+            "INSERT INTO event_journal (ordering, persistence_id, sequence_number, write_timestamp, " +
+            "event_ser_id, event_ser_manifest, event_payload) VALUES (?, ?, ?, ?, ?, ?, ?)",
+            ordering, persistenceId, sequenceNr, System.currentTimeMillis(), serializer.identifier(),
+            ((SerializerWithStringManifest) serializer).manifest(event), serializer.toBinary(event));
+    }
+
+    private long count(String userId, String eventType) {
+        return jdbcTemplate.queryForObject(
+            "SELECT event_count FROM user_event_rollup WHERE user_id = ? AND event_type = ?",
+            Long.class, userId, eventType);
+    }
+
+    private LocalDateTime timestamp(String column, String userId, String eventType) {
+        return jdbcTemplate.queryForObject(
+            "SELECT " + column + " FROM user_event_rollup WHERE user_id = ? AND event_type = ?",
+            LocalDateTime.class, userId, eventType);
+    }
+
+    private String offset() {
+        return jdbcTemplate.queryForObject(
+            "SELECT current_offset FROM projection_offset_store WHERE projection_name = ?",
+            String.class, UserEventRollupProjection.PROJECTION_NAME);
+    }
+
+    private static UserActorEvent.UserEventProcessed processed(String userId, String eventType, int minute) {
+        return new UserActorEvent.UserEventProcessed(
+            userId, eventType, 1000L + minute, "event-" + minute, "kafka", BASE_TIME.plusMinutes(minute));
+    }
+}
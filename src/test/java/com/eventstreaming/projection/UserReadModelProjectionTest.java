@@ -0,0 +1,196 @@
+package com.eventstreaming.projection;
+
+import com.eventstreaming.cluster.PersistentUserActor;
+import com.eventstreaming.cluster.UserActorEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.persistence.query.EventEnvelope;
+import org.apache.pekko.persistence.query.Offset;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests how the sliced read model projection applies tagged envelopes and stores its
+ * offsets, against an in-memory H2 database in MySQL mode.
+ */
+class UserReadModelProjectionTest {
+
+    private static final String PREFIX = "PersistentUserActor|";
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private ActorTestKit testKit;
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private UserReadModelProjection projection;
+    private final Map<String, Long> sequenceNumbers = new HashMap<>();
+    private long ordering;
+
+    @BeforeEach
+    void setUp() {
+        testKit = ActorTestKit.create();
+        dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:read-model-" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("""
+            CREATE TABLE projection_offset_store (
+                projection_name VARCHAR(255) NOT NULL,
+                projection_key VARCHAR(255) NOT NULL,
+                current_offset VARCHAR(255) NOT NULL,
+                manifest VARCHAR(32) NOT NULL,
+                mergeable BOOLEAN NOT NULL,
+                last_updated BIGINT,
+                PRIMARY KEY (projection_name, projection_key)
+            )
+            """);
+        // user_aggregations as created by V1 and extended by V3
+        jdbcTemplate.execute("""
+            CREATE TABLE user_aggregations (
+                user_id VARCHAR(255) NOT NULL PRIMARY KEY,
+                email_opens BIGINT DEFAULT 0 NOT NULL,
+                email_clicks BIGINT DEFAULT 0 NOT NULL,
+                sms_replies BIGINT DEFAULT 0 NOT NULL,
+                sms_deliveries BIGINT DEFAULT 0 NOT NULL,
+                calls_completed BIGINT DEFAULT 0 NOT NULL,
+                calls_missed BIGINT DEFAULT 0 NOT NULL,
+                last_activity TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) NOT NULL,
+                email_open_rate DECIMAL(5,4) DEFAULT 0.0000 NOT NULL,
+                contactable_status VARCHAR(32) DEFAULT 'PENDING_REVIEW',
+                created_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) NOT NULL,
+                updated_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) NOT NULL
+            )
+            """);
+        jdbcTemplate.execute("""
+            ALTER TABLE user_aggregations
+                ADD COLUMN (
+                    slice INT DEFAULT NULL,
+                    total_events BIGINT DEFAULT 0 NOT NULL,
+                    event_type_counts TEXT DEFAULT NULL,
+                    first_event_time DATETIME(6) DEFAULT NULL,
+                    last_event_time DATETIME(6) DEFAULT NULL,
+                    last_sequence_nr BIGINT DEFAULT 0 NOT NULL
+                )
+            """);
+        projection = newProjection();
+    }
+
+    @AfterEach
+    void tearDown() {
+        testKit.shutdownTestKit();
+    }
+
+    @Test
+    void testSliceTagsPartitionUsers() {
+        List<String> tags = IntStream.range(0, 1_000)
+            .mapToObj(i -> PersistentUserActor.sliceTag("user-" + i))
+            .distinct()
+            .sorted()
+            .toList();
+
+        assertEquals(IntStream.range(0, PersistentUserActor.TAG_SLICES).mapToObj(PersistentUserActor::sliceTag).toList(), tags);
+        assertEquals(PersistentUserActor.sliceTag("user-42"), PersistentUserActor.sliceTag("user-42"));
+    }
+
+    @Test
+    void testBuildsUserStateFromTaggedEvents() {
+        List<EventEnvelope> envelopes = List.of(
+            envelope("user-1", "EMAIL_OPEN", 5),
+            envelope("user-1", "EMAIL_OPEN", 1),
+            envelope("user-1", "ANSWER", 9),
+            envelope("user-2", "DROP", 3));
+
+        assertEquals(4, projection.applyEnvelopes("slice", envelopes));
+
+        UserReadModel user = projection.findUser("user-1").orElseThrow();
+        assertEquals(3L, user.totalEvents());
+        assertEquals(Map.of("EMAIL_OPEN", 2L, "ANSWER", 1L), user.eventTypeCounts());
+        assertEquals(BASE_TIME.plusMinutes(1), user.firstEventTime());
+        assertEquals(BASE_TIME.plusMinutes(9), user.lastEventTime());
+        assertEquals(3L, user.lastSequenceNr());
+        assertEquals(1L, projection.findUser("user-2").orElseThrow().totalEvents());
+        assertTrue(projection.findUser("user-3").isEmpty());
+        assertEquals("4", offset("slice"));
+    }
+
+    @Test
+    void testExtendsExistingAggregationRow() {
+        jdbcTemplate.update(
+            "INSERT INTO user_aggregations (user_id, email_open_rate, contactable_status) VALUES (?, ?, ?)",
+            "user-1", 0.5, "CONTACTABLE");
+        assertFalse(projection.findUser("user-1").orElseThrow().hasEvents());
+
+        projection.applyEnvelopes("slice", List.of(
+            envelope("user-1", "EMAIL_OPEN", 1),
+            envelope("user-1", "EMAIL_OPEN", 2),
+            envelope("user-1", "CALL_MISSED", 3)));
+
+        assertEquals(3L, projection.findUser("user-1").orElseThrow().totalEvents());
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT * FROM user_aggregations WHERE user_id = 'user-1'");
+        assertEquals(2L, ((Number) row.get("EMAIL_OPENS")).longValue());
+        assertEquals(1L, ((Number) row.get("CALLS_MISSED")).longValue());
+        assertEquals(0L, ((Number) row.get("SMS_REPLIES")).longValue());
+        assertEquals(BASE_TIME.plusMinutes(3), ((java.sql.Timestamp) row.get("LAST_ACTIVITY")).toLocalDateTime());
+        // Columns owned by other writers are left alone
+        assertEquals(0.5, ((Number) row.get("EMAIL_OPEN_RATE")).doubleValue(), 1e-9);
+        assertEquals("CONTACTABLE", row.get("CONTACTABLE_STATUS"));
+    }
+
+    @Test
+    void testReplayedEnvelopesAreNotCountedTwice() {
+        List<EventEnvelope> first = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            first.add(envelope("user-" + (i % 2), "EMAIL_OPEN", i));
+        }
+        assertEquals(10, projection.applyEnvelopes("slice", first));
+
+        // A restarted stream resumes from an older offset and delivers part of the batch again
+        List<EventEnvelope> replay = new ArrayList<>(first.subList(6, 10));
+        replay.add(envelope("user-0", "ANSWER", 20));
+        assertEquals(1, newProjection().applyEnvelopes("slice", replay));
+
+        UserReadModel user = projection.findUser("user-0").orElseThrow();
+        assertEquals(6L, user.totalEvents());
+        assertEquals(Map.of("EMAIL_OPEN", 5L, "ANSWER", 1L), user.eventTypeCounts());
+        assertEquals(5L, projection.findUser("user-1").orElseThrow().totalEvents());
+        assertEquals("11", offset("slice"));
+    }
+
+    @Test
+    void testSlicesKeepSeparateOffsets() {
+        projection.applyEnvelopes("user-slice-0", List.of(envelope("user-a", "EMAIL_OPEN", 1)));
+        projection.applyEnvelopes("user-slice-1", List.of(envelope("user-b", "EMAIL_OPEN", 2)));
+
+        assertEquals("1", offset("user-slice-0"));
+        assertEquals("2", offset("user-slice-1"));
+    }
+
+    private UserReadModelProjection newProjection() {
+        return new UserReadModelProjection(jdbcTemplate, new DataSourceTransactionManager(dataSource),
+            testKit.system(), new ObjectMapper().findAndRegisterModules());
+    }
+
+    private EventEnvelope envelope(String userId, String eventType, int minute) {
+        long sequenceNr = sequenceNumbers.merge(userId, 1L, Long::sum);
+        UserActorEvent.UserEventProcessed event = new UserActorEvent.UserEventProcessed(
+            userId, eventType, 1000L + minute, "event-" + minute, "kafka", BASE_TIME.plusMinutes(minute));
+        return new EventEnvelope(Offset.sequence(++ordering), PREFIX + userId, sequenceNr, event, System.currentTimeMillis());
+    }
+
+    private String offset(String tag) {
+        return jdbcTemplate.queryForObject(
+            "SELECT current_offset FROM projection_offset_store WHERE projection_name = ? AND projection_key = ?",
+            String.class, UserReadModelProjection.PROJECTION_NAME, tag);
+    }
+}
@@ -0,0 +1,88 @@
+package com.eventstreaming.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that concurrent calls per key share one execution and that keys are released once
+ * the execution completes.
+ */
+class SingleFlightTest {
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @Test
+    void testConcurrentCallsShareOneExecution() {
+        CompletableFuture<String> work = new CompletableFuture<>();
+        List<CompletionStage<String>> results = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            results.add(singleFlight.execute("user-1", () -> {
+                executions.incrementAndGet();
+                return work;
+            }));
+        }
+        CompletionStage<String> other = singleFlight.execute("user-2", () -> {
+            executions.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+
+        work.complete("value");
+
+        results.forEach(result -> assertEquals("value", result.toCompletableFuture().join()));
+        assertEquals("other", other.toCompletableFuture().join());
+        assertEquals(2, executions.get());
+
+        SingleFlight.Stats stats = singleFlight.getStats();
+        assertEquals(101, stats.calls());
+        assertEquals(99, stats.coalesced());
+        assertEquals(99.0 / 101, stats.coalescingRatio(), 1e-9);
+        assertEquals(0, stats.inFlight());
+    }
+
+    @Test
+    void testCompletedKeysStartFreshExecutions() {
+        assertEquals("1", singleFlight.execute("user-1", this::next).toCompletableFuture().join());
+        assertEquals("2", singleFlight.execute("user-1", this::next).toCompletableFuture().join());
+    }
+
+    @Test
+    void testFailuresReachEveryCallerAndReleaseTheKey() {
+        CompletableFuture<String> work = new CompletableFuture<>();
+        CompletionStage<String> first = singleFlight.execute("user-1", () -> work);
+        CompletionStage<String> second = singleFlight.execute("user-1", this::next);
+
+        work.completeExceptionally(new IllegalStateException("actor timed out"));
+
+        assertThrows(CompletionException.class, () -> first.toCompletableFuture().join());
+        assertThrows(CompletionException.class, () -> second.toCompletableFuture().join());
+        assertThrows(CompletionException.class, () -> singleFlight.execute("user-2", () -> {
+            throw new IllegalStateException("no actor");
+        }).toCompletableFuture().join());
+        assertEquals("1", singleFlight.execute("user-1", this::next).toCompletableFuture().join());
+    }
+
+    @Test
+    void testCallersCannotCompleteTheSharedResult() {
+        CompletableFuture<String> work = new CompletableFuture<>();
+        CompletionStage<String> first = singleFlight.execute("user-1", () -> work);
+        CompletionStage<String> second = singleFlight.execute("user-1", () -> work);
+
+        first.toCompletableFuture().complete("tampered");
+        work.complete("value");
+
+        assertEquals("value", second.toCompletableFuture().join());
+    }
+
+    private CompletionStage<String> next() {
+        return CompletableFuture.completedFuture(String.valueOf(executions.incrementAndGet()));
+    }
+}
@@ -0,0 +1,279 @@
+package com.eventstreaming.service;
+
+import com.eventstreaming.actor.UserActor;
+import com.eventstreaming.model.ContactableStatus;
+import com.eventstreaming.model.EmailEvent;
+import com.eventstreaming.model.EventType;
+import com.eventstreaming.model.UserAggregations;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.actor.testkit.typed.javadsl.TestProbe;
+import org.apache.pekko.actor.typed.ActorRef;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the two-tier aggregation cache against an in-memory Redis stand-in with a simulated
+ * round trip, including the changes pushed by UserActors.
+ */
+class UserAggregationCacheTest {
+
+    private static final Duration ROUND_TRIP = Duration.ofMillis(1);
+    private static final String PREFIX = UserAggregationCache.REDIS_USER_PREFIX;
+
+    private ActorTestKit testKit;
+    private FakeRedisTemplate redisTemplate;
+    private UserAggregationCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        testKit = ActorTestKit.create();
+        redisTemplate = new FakeRedisTemplate();
+        cache = new UserAggregationCache(redisTemplate);
+    }
+
+    @AfterEach
+    void tearDown() {
+        testKit.shutdownTestKit();
+    }
+
+    @Test
+    void testServesRepeatedReadsFromLocalTier() throws Exception {
+        assertEquals(1L, get("user-1").getEmailOpens());
+        assertEquals(1L, get("user-1").getEmailOpens());
+        assertEquals(1L, get("user-1").getEmailOpens());
+
+        assertEquals(1, loads.get());
+        verify(redisTemplate.values, times(1)).get(PREFIX + "user-1");
+        assertNotNull(redisTemplate.store.get(PREFIX + "user-1"));
+
+        UserAggregationCache.CacheStats stats = cache.getStats();
+        assertEquals(2, stats.localHits());
+        assertEquals(1, stats.misses());
+        assertEquals(2.0 / 3, stats.localHitRatio(), 1e-9);
+    }
+
+    @Test
+    void testFallsBackToRedisWhenLocalTierMisses() throws Exception {
+        redisTemplate.store.put(PREFIX + "user-1", aggregations("user-1", 7));
+
+        assertEquals(7L, get("user-1").getEmailOpens());
+        assertEquals(7L, get("user-1").getEmailOpens());
+
+        assertEquals(0, loads.get());
+        assertEquals(1, cache.getStats().redisHits());
+        assertEquals(1, cache.getStats().localHits());
+    }
+
+    @Test
+    void testActorPushesReplaceLocalEntryAndInvalidateRedisInBatches() throws Exception {
+        get("user-1");
+        get("user-2");
+        ActorRef<UserActor.Command> actor = testKit.spawn(UserActor.create("user-1", cache));
+        TestProbe<UserActor.ProcessEventResponse> events = testKit.createTestProbe();
+        actor.tell(new UserActor.ProcessEventAndAggregate(emailOpen("user-1"), events.ref()));
+        events.expectMessageClass(UserActor.ProcessEventResponse.Success.class);
+
+        TestProbe<UserActor.UpdateContactableResponse> updates = testKit.createTestProbe();
+        actor.tell(new UserActor.UpdateContactable(ContactableStatus.CONTACTABLE, "node-a", Instant.now(), updates.ref()));
+        updates.expectMessageClass(UserActor.UpdateContactableResponse.Success.class);
+        cache.onAggregationsChanged(aggregations("user-2", 3));
+
+        UserAggregations pushed = cache.getLocal("user-1").orElseThrow();
+        assertEquals(ContactableStatus.CONTACTABLE, pushed.getContactableStatus());
+        assertEquals(1L, pushed.getEmailOpens());
+        assertEquals(3, cache.getStats().pushedUpdates());
+
+        assertEquals(2, cache.flushRedisInvalidations());
+        assertEquals(1, redisTemplate.multiDeletes.get());
+        assertFalse(redisTemplate.store.containsKey(PREFIX + "user-1"));
+        assertFalse(redisTemplate.store.containsKey(PREFIX + "user-2"));
+        assertEquals(0, cache.flushRedisInvalidations());
+    }
+
+    @Test
+    void testLoadOvertakenByPushIsDiscarded() throws Exception {
+        CompletableFuture<UserAggregations> slowLoad = new CompletableFuture<>();
+        CompletableFuture<UserAggregations> read = cache.get("user-1", () -> slowLoad).toCompletableFuture();
+
+        cache.onAggregationsChanged(aggregations("user-1", 5));
+        slowLoad.complete(aggregations("user-1", 4));
+
+        assertEquals(4L, read.get().getEmailOpens());
+        assertEquals(5L, cache.getLocal("user-1").orElseThrow().getEmailOpens());
+        assertFalse(redisTemplate.store.containsKey(PREFIX + "user-1"));
+        assertEquals(1, cache.getStats().discardedStaleLoads());
+    }
+
+    @Test
+    void testInvalidateDropsBothTiers() throws Exception {
+        get("user-1");
+
+        assertTrue(cache.invalidate("user-1"));
+        assertTrue(cache.getLocal("user-1").isEmpty());
+        get("user-1");
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testLocalTierIsBoundedBySizeAndTtl() throws Exception {
+        ReflectionTestUtils.setField(cache, "localMaxEntries", 100);
+        for (int i = 0; i < 250; i++) {
+            cache.onAggregationsChanged(aggregations("user-" + i, i));
+        }
+        assertTrue(cache.getStats().localEntries() <= 100);
+        assertTrue(cache.getLocal("user-249").isPresent());
+
+        ReflectionTestUtils.setField(cache, "localTtl", Duration.ofMillis(20));
+        Thread.sleep(30);
+        assertTrue(cache.getLocal("user-249").isEmpty());
+    }
+
+    @Test
+    void testConcurrentMissesShareOneLoadAndRedisWrite() throws Exception {
+        int workers = 200;
+        CompletableFuture<UserAggregations> actorReply = new CompletableFuture<>();
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        CountDownLatch ready = new CountDownLatch(workers);
+        List<Future<UserAggregations>> reads = new ArrayList<>();
+        try {
+            for (int i = 0; i < workers; i++) {
+                reads.add(executor.submit(() -> {
+                    ready.countDown();
+                    return cache.get("user-hot", () -> {
+                        loads.incrementAndGet();
+                        return actorReply;
+                    }).toCompletableFuture().get(5, TimeUnit.SECONDS);
+                }));
+            }
+            // Let the herd pile up behind the in-flight ask before the actor answers
+            assertTrue(ready.await(5, TimeUnit.SECONDS));
+            Thread.sleep(50);
+            actorReply.complete(aggregations("user-hot", 9));
+            for (Future<UserAggregations> read : reads) {
+                assertEquals(9L, read.get(5, TimeUnit.SECONDS).getEmailOpens());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+        verify(redisTemplate.values, times(1)).set(eq(PREFIX + "user-hot"), any(UserAggregations.class), anyLong(), any(TimeUnit.class));
+        SingleFlight.Stats coalescing = cache.getStats().missCoalescing();
+        assertEquals(1, coalescing.executions());
+        assertEquals(coalescing.calls() - 1, coalescing.coalesced());
+        UserAggregationCache.CacheStats stats = cache.getStats();
+        assertEquals(1, stats.misses());
+        assertEquals(0, stats.redisHits());
+        assertEquals(workers, stats.localHits() + coalescing.calls());
+    }
+
+    @Test
+    void testLocalHitsDoNotReadRedis() throws Exception {
+        int reads = 500;
+        get("user-1");
+
+        for (int i = 0; i < reads; i++) {
+            assertEquals(1L, get("user-1").getEmailOpens());
+        }
+
+        verify(redisTemplate.values, times(1)).get(PREFIX + "user-1");
+        UserAggregationCache.CacheStats stats = cache.getStats();
+        assertEquals(reads, stats.localHits());
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.missCoalescing().calls());
+        assertEquals((double) reads / (reads + 1), stats.localHitRatio(), 1e-9);
+    }
+
+    private UserAggregations get(String userId) throws Exception {
+        return cache.get(userId, () -> {
+            loads.incrementAndGet();
+            return CompletableFuture.completedFuture(aggregations(userId, 1));
+        }).toCompletableFuture().get(5, TimeUnit.SECONDS);
+    }
+
+    private static UserAggregations aggregations(String userId, long emailOpens) {
+        return new UserAggregations(userId, emailOpens, 0, 0, 0, 0, 0, Instant.now(), 0.0, 0.0, 0.0,
+            ContactableStatus.PENDING_REVIEW, null, null, 0);
+    }
+
+    private static EmailEvent emailOpen(String userId) {
+        return EmailEvent.builder()
+            .userId(userId)
+            .eventId(userId + "-open")
+            .eventType(EventType.EMAIL_OPEN)
+            .timestamp(Instant.now())
+            .build();
+    }
+
+    /**
+     * Redis stand-in: values live in a map and every command costs {@link #ROUND_TRIP}.
+     */
+    @SuppressWarnings("unchecked")
+    private static final class FakeRedisTemplate extends RedisTemplate<String, UserAggregations> {
+        final Map<String, UserAggregations> store = new ConcurrentHashMap<>();
+        final AtomicInteger multiDeletes = new AtomicInteger();
+        final ValueOperations<String, UserAggregations> values = mock(ValueOperations.class);
+
+        FakeRedisTemplate() {
+            when(values.get(anyString())).thenAnswer(invocation -> {
+                roundTrip();
+                return store.get(invocation.<String>getArgument(0));
+            });
+            doAnswer(invocation -> {
+                roundTrip();
+                store.put(invocation.getArgument(0), invocation.getArgument(1));
+                return null;
+            }).when(values).set(anyString(), any(UserAggregations.class), anyLong(), any(TimeUnit.class));
+        }
+
+        @Override
+        public ValueOperations<String, UserAggregations> opsForValue() {
+            return values;
+        }
+
+        @Override
+        public Boolean delete(String key) {
+            roundTrip();
+            return store.remove(key) != null;
+        }
+
+        @Override
+        public Long delete(Collection<String> keys) {
+            roundTrip();
+            multiDeletes.incrementAndGet();
+            return keys.stream().filter(key -> store.remove(key) != null).count();
+        }
+
+        private static void roundTrip() {
+            LockSupport.parkNanos(ROUND_TRIP.toNanos());
+        }
+    }
+}
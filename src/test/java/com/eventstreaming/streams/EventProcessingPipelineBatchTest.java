@@ -0,0 +1,171 @@
+package com.eventstreaming.streams;
+
+import com.eventstreaming.actor.UserActor;
+import com.eventstreaming.actor.UserActorRegistry;
+import com.eventstreaming.model.CommunicationEvent;
+import com.eventstreaming.model.EmailEvent;
+import com.eventstreaming.model.EventType;
+import com.eventstreaming.monitoring.StreamProcessingMetrics;
+import com.eventstreaming.validation.EventSequenceValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.typesafe.config.ConfigFactory;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.actor.testkit.typed.javadsl.TestProbe;
+import org.apache.pekko.actor.typed.ActorRef;
+import org.apache.pekko.actor.typed.ActorSystem;
+import org.apache.pekko.stream.javadsl.Sink;
+import org.apache.pekko.stream.javadsl.Source;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests micro-batched delivery from EventProcessingPipeline to UserActor, which sends each
+ * user's events of a batch with one ask instead of one ask per event.
+ */
+@ExtendWith(MockitoExtension.class)
+class EventProcessingPipelineBatchTest {
+
+    private static final int USERS = 10;
+    private static final int EVENT_COUNT = 20_000;
+    private static final int PARALLELISM = 8;
+
+    private ActorTestKit testKit;
+    private ActorSystem<Void> actorSystem;
+
+    @Mock
+    private UnifiedEventConsumer eventConsumer;
+
+    @Mock
+    private EventSequenceValidator sequenceValidator;
+
+    @Mock
+    private StreamProcessingMetrics metrics;
+
+    private UserActorRegistry userActorRegistry;
+    private EventProcessingPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        testKit = ActorTestKit.create(ConfigFactory.parseString("""
+            pekko.actor.default-dispatcher {
+              executor = "thread-pool-executor"
+              thread-pool-executor.fixed-pool-size = 1
+            }
+            """));
+        actorSystem = testKit.system();
+        userActorRegistry = spy(new UserActorRegistry(actorSystem));
+
+        pipeline = new EventProcessingPipeline(
+            actorSystem,
+            eventConsumer,
+            userActorRegistry,
+            sequenceValidator,
+            metrics,
+            new ObjectMapper()
+        );
+        ReflectionTestUtils.setField(pipeline, "processingParallelism", PARALLELISM);
+        ReflectionTestUtils.setField(pipeline, "askTimeout", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(pipeline, "batchMaxSize", 100);
+        ReflectionTestUtils.setField(pipeline, "batchMaxWait", Duration.ofMillis(20));
+    }
+
+    @AfterEach
+    void tearDown() {
+        testKit.shutdownTestKit();
+    }
+
+    @Test
+    void testBatchKeepsOrderAndAsksOncePerUserAndBatch() throws Exception {
+        List<EventProcessingPipeline.ValidatedEventWithMetadata> events = events(1_000);
+
+        List<Object> results = Source.from(events)
+            .via(pipeline.createUserAffinityProcessingFlow())
+            .runWith(Sink.seq(), actorSystem)
+            .toCompletableFuture().get(30, TimeUnit.SECONDS);
+
+        assertEquals(events.size(), results.size());
+        for (int i = 0; i < events.size(); i++) {
+            var success = assertInstanceOf(EventProcessingPipeline.ProcessingResult.Success.class, results.get(i));
+            assertEquals(events.get(i).eventWithMetadata().event().getEventId(), success.eventId());
+        }
+
+        // 1000 events in batches of up to 100 spread over 10 users: about 10 asks per batch
+        verify(userActorRegistry, atMost(events.size() / 5))
+            .askUserActor(anyString(), any(), any(), eq(UserActor.ProcessEventBatchResponse.class));
+
+        var last = (EventProcessingPipeline.ProcessingResult.Success) results.get(results.size() - 1);
+        assertEquals(events.size() / USERS, last.aggregations().getEmailOpens());
+    }
+
+    @Test
+    void testActorRejectsInvalidEventsInBatch() {
+        ActorRef<UserActor.Command> actor = testKit.spawn(UserActor.create("user-0"));
+        TestProbe<UserActor.ProcessEventBatchResponse> probe = testKit.createTestProbe();
+
+        actor.tell(new UserActor.ProcessEventBatch(List.of(
+            event("user-0", "e1"),
+            event("user-1", "e2"),
+            event("user-0", null),
+            event("user-0", "e4")
+        ), probe.getRef()));
+
+        UserActor.ProcessEventBatchResponse response = probe.receiveMessage();
+        assertEquals(2, response.aggregations().getEmailOpens());
+        assertEquals(List.of(1, 2), response.rejected().stream()
+            .map(UserActor.ProcessEventBatchResponse.RejectedEvent::index).toList());
+    }
+
+    @Test
+    void testBatchedDeliveryAsksOncePerUserBatch() throws Exception {
+        runBatched(events(EVENT_COUNT));
+
+        // One ask per event would be EVENT_COUNT asks
+        verify(userActorRegistry, atMost(EVENT_COUNT / 5))
+            .askUserActor(anyString(), any(), any(), eq(UserActor.ProcessEventBatchResponse.class));
+        verify(userActorRegistry, never())
+            .askUserActor(anyString(), any(), any(), eq(UserActor.ProcessEventResponse.class));
+    }
+
+    private void runBatched(List<EventProcessingPipeline.ValidatedEventWithMetadata> events) throws Exception {
+        List<Object> results = Source.from(events)
+            .via(pipeline.createUserAffinityProcessingFlow())
+            .runWith(Sink.seq(), actorSystem)
+            .toCompletableFuture().get(2, TimeUnit.MINUTES);
+        assertEquals(events.size(), results.size());
+    }
+
+    private List<EventProcessingPipeline.ValidatedEventWithMetadata> events(int count) {
+        return IntStream.range(0, count)
+            .mapToObj(i -> new EventProcessingPipeline.ValidatedEventWithMetadata(
+                new EventProcessingPipeline.EventWithMetadata(
+                    event("user-" + (i % USERS), "event-" + i), "user-" + (i % USERS), "email-events", 0, i, Instant.now()),
+                EventSequenceValidator.SequenceValidationResult.valid()))
+            .toList();
+    }
+
+    private static CommunicationEvent event(String userId, String eventId) {
+        return EmailEvent.builder()
+            .eventId(eventId)
+            .userId(userId)
+            .eventType(EventType.EMAIL_OPEN)
+            .timestamp(Instant.now())
+            .build();
+    }
+}
@@ -0,0 +1,179 @@
+package com.eventstreaming.streams;
+
+import com.eventstreaming.actor.UserActor;
+import com.eventstreaming.actor.UserActorRegistry;
+import com.eventstreaming.model.CommunicationEvent;
+import com.eventstreaming.model.EmailEvent;
+import com.eventstreaming.model.EventType;
+import com.eventstreaming.monitoring.StreamProcessingMetrics;
+import com.eventstreaming.validation.EventSequenceValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.actor.typed.ActorSystem;
+import org.apache.pekko.japi.Pair;
+import org.apache.pekko.stream.javadsl.Sink;
+import org.apache.pekko.stream.javadsl.Source;
+import org.apache.pekko.stream.javadsl.SourceWithContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests that the committable pipeline only hands offsets of acknowledged events to the
+ * committer, and none past an event the reorder stage still holds. Offsets are plain longs here, and the sink stands in for the committer.
+ */
+@ExtendWith(MockitoExtension.class)
+class EventProcessingPipelineCommitTest {
+
+    private static final Instant BASE_TIME = Instant.parse("2024-01-01T12:00:00Z");
+
+    private ActorTestKit testKit;
+    private ActorSystem<Void> actorSystem;
+
+    @Mock
+    private UnifiedEventConsumer eventConsumer;
+
+    @Mock
+    private EventSequenceValidator sequenceValidator;
+
+    @Mock
+    private StreamProcessingMetrics metrics;
+
+    private UserActorRegistry userActorRegistry;
+    private EventProcessingPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        testKit = ActorTestKit.create();
+        actorSystem = testKit.system();
+        userActorRegistry = spy(new UserActorRegistry(actorSystem));
+
+        // Record values are "userId:eventId[:eventTimeMillis]"; an empty eventId makes the UserActor reject the event
+        when(eventConsumer.deserializeEvent(any(byte[].class))).thenAnswer(invocation -> {
+            String[] parts = new String(invocation.<byte[]>getArgument(0), StandardCharsets.UTF_8).split(":", -1);
+            Instant timestamp = parts.length > 2 ? BASE_TIME.plusMillis(Long.parseLong(parts[2])) : Instant.now();
+            return event(parts[0], parts[1].isEmpty() ? null : parts[1], timestamp);
+        });
+        when(sequenceValidator.validateSequence(any()))
+            .thenReturn(EventSequenceValidator.SequenceValidationResult.valid());
+
+        pipeline = new EventProcessingPipeline(
+            actorSystem,
+            eventConsumer,
+            userActorRegistry,
+            sequenceValidator,
+            metrics,
+            new ObjectMapper()
+        );
+        ReflectionTestUtils.setField(pipeline, "processingParallelism", 4);
+        ReflectionTestUtils.setField(pipeline, "bufferSize", 16);
+        ReflectionTestUtils.setField(pipeline, "askTimeout", Duration.ofSeconds(5));
+        ReflectionTestUtils.setField(pipeline, "batchMaxSize", 4);
+        ReflectionTestUtils.setField(pipeline, "batchMaxWait", Duration.ofMillis(20));
+    }
+
+    @AfterEach
+    void tearDown() {
+        testKit.shutdownTestKit();
+    }
+
+    @Test
+    void testFailedAskDoesNotAdvanceCommittedOffset() {
+        // Lenient: asks for the other users go to the real registry
+        lenient().doReturn(CompletableFuture.failedFuture(new TimeoutException("Ask timed out")))
+            .when(userActorRegistry)
+            .askUserActor(eq("user-timeout"), any(), any(), eq(UserActor.ProcessEventBatchResponse.class));
+        List<String> values = IntStream.range(0, 10)
+            .mapToObj(i -> (i == 6 ? "user-timeout" : "user-" + (i % 2)) + ":event-" + i)
+            .toList();
+        List<Long> committed = new CopyOnWriteArrayList<>();
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> run(values, committed));
+
+        assertInstanceOf(EventProcessingPipeline.EventNotAcknowledgedException.class, failure.getCause());
+        // Offsets before the failed event may be committed, the failed one and later ones not
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L, 5L), committed);
+    }
+
+    @Test
+    void testRejectedEventsAreAcknowledgedAndCommitted() throws Exception {
+        List<String> values = IntStream.range(0, 10)
+            .mapToObj(i -> "user-" + (i % 2) + ":" + (i == 3 ? "" : "event-" + i))
+            .toList();
+        List<Long> committed = new CopyOnWriteArrayList<>();
+
+        run(values, committed);
+
+        assertEquals(LongStream.range(0, 10).boxed().toList(), committed);
+    }
+
+    @Test
+    void testReorderedEventsCommitOnlyOffsetsBelowHeldEvents() throws Exception {
+        ReflectionTestUtils.setField(pipeline, "reorderEnabled", true);
+        ReflectionTestUtils.setField(pipeline, "reorderMaxDelay", Duration.ofMillis(100));
+        ReflectionTestUtils.setField(pipeline, "reorderMaxHold", Duration.ofSeconds(10));
+        ReflectionTestUtils.setField(pipeline, "reorderMaxEventsPerUser", 100);
+        // user-0 arrives out of event-time order; user-1 moves on and is released first
+        List<String> values = List.of(
+            "user-0:event-0:50", "user-1:event-1:0", "user-1:event-2:200",
+            "user-0:event-3:0", "user-1:event-4:400", "user-0:event-5:300");
+        List<Long> committed = new CopyOnWriteArrayList<>();
+
+        run(values, committed);
+
+        // Offsets reach the committer in order and the last record's offset is committed
+        assertEquals(committed.stream().sorted().distinct().toList(), committed);
+        assertEquals(5L, committed.get(committed.size() - 1));
+        // event-1 and event-2 were released while event-0 was held, so their offsets are skipped
+        assertFalse(committed.contains(1L));
+        ArgumentCaptor<CommunicationEvent> validated = ArgumentCaptor.forClass(CommunicationEvent.class);
+        verify(sequenceValidator, times(6)).validateSequence(validated.capture());
+        assertEquals(List.of("event-3", "event-0", "event-5"), validated.getAllValues().stream()
+            .filter(event -> event.getUserId().equals("user-0")).map(CommunicationEvent::getEventId).toList());
+    }
+
+    private void run(List<String> values, List<Long> committed) throws Exception {
+        List<Pair<ConsumerRecord<String, byte[]>, Long>> records = IntStream.range(0, values.size())
+            .mapToObj(i -> Pair.create(new ConsumerRecord<>("email-events", 0, i, "key", values.get(i).getBytes(StandardCharsets.UTF_8)), (long) i))
+            .toList();
+
+        SourceWithContext.fromPairs(Source.from(records))
+            .via(pipeline.<Long>createCommittableProcessingFlow())
+            .asSource()
+            .runWith(Sink.foreach(resultAndOffset -> committed.add(resultAndOffset.second())), actorSystem)
+            .toCompletableFuture()
+            .get(10, TimeUnit.SECONDS);
+    }
+
+    private static CommunicationEvent event(String userId, String eventId, Instant timestamp) {
+        return EmailEvent.builder()
+            .eventId(eventId)
+            .userId(userId)
+            .eventType(EventType.EMAIL_OPEN)
+            .timestamp(timestamp)
+            .build();
+    }
+}
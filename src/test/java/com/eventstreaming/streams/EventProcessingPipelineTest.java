@@ -18,6 +18,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
@@ -99,15 +100,16 @@ class EventProcessingPipelineTest {
             .timestamp(Instant.parse("2024-01-01T10:00:00Z"))
             .build();
         
-        when(eventConsumer.deserializeEvent(eventJson)).thenReturn(expectedEvent);
+        byte[] eventBytes = eventJson.getBytes(StandardCharsets.UTF_8);
+        when(eventConsumer.deserializeEvent(eventBytes)).thenReturn(expectedEvent);
         
         // Create a test consumer record
         var testRecord = new org.apache.kafka.clients.consumer.ConsumerRecord<>(
-            "email-events", 0, 0L, "user123", eventJson
+            "email-events", 0, 0L, "user123", eventBytes
         );
         
         // When
-        Source<org.apache.kafka.clients.consumer.ConsumerRecord<String, String>, org.apache.pekko.NotUsed> testSource = 
+        Source<org.apache.kafka.clients.consumer.ConsumerRecord<String, byte[]>, org.apache.pekko.NotUsed> testSource = 
             Source.single(testRecord);
         
         var deserializationFlow = pipeline.createEventDeserializationFlow();
@@ -0,0 +1,159 @@
+package com.eventstreaming.streams;
+
+import org.apache.pekko.NotUsed;
+import org.apache.pekko.actor.ActorSystem;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.actor.typed.javadsl.Adapter;
+import org.apache.pekko.japi.Pair;
+import org.apache.pekko.stream.javadsl.Flow;
+import org.apache.pekko.stream.javadsl.Keep;
+import org.apache.pekko.stream.javadsl.Sink;
+import org.apache.pekko.stream.javadsl.Source;
+import org.apache.pekko.stream.testkit.TestPublisher;
+import org.apache.pekko.stream.testkit.TestSubscriber;
+import org.apache.pekko.stream.testkit.javadsl.TestSink;
+import org.apache.pekko.stream.testkit.javadsl.TestSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests per-user event-time reordering, watermark release and the hold and size limits.
+ */
+class EventTimeReorderStageTest {
+
+    private static final Instant BASE_TIME = Instant.parse("2024-01-01T12:00:00Z");
+
+    private ActorTestKit testKit;
+    private ActorSystem classicSystem;
+
+    @BeforeEach
+    void setUp() {
+        testKit = ActorTestKit.create();
+        classicSystem = Adapter.toClassic(testKit.system());
+    }
+
+    @AfterEach
+    void tearDown() {
+        testKit.shutdownTestKit();
+    }
+
+    @Test
+    void testReleasesEachUserInEventTimeOrder() throws Exception {
+        List<Event> input = List.of(
+            event("user-1", 300, "a"), event("user-2", 50, "b"), event("user-1", 100, "c"),
+            event("user-1", 200, "d"), event("user-2", 10, "e"), event("user-1", 200, "f"));
+
+        List<Event> output = Source.from(input)
+            .via(reorder(Duration.ofSeconds(1), Duration.ofSeconds(10), 100))
+            .runWith(Sink.seq(), testKit.system())
+            .toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("c", "d", "f", "a"), idsOf(output, "user-1"));
+        assertEquals(List.of("e", "b"), idsOf(output, "user-2"));
+    }
+
+    @Test
+    void testWatermarkReleasesEventsBeforeStreamEnds() {
+        Pair<TestPublisher.Probe<Event>, TestSubscriber.Probe<Event>> probes = run(Duration.ofMillis(100), Duration.ofSeconds(10), 100);
+        TestPublisher.Probe<Event> publisher = probes.first();
+        TestSubscriber.Probe<Event> subscriber = probes.second();
+        subscriber.request(10);
+
+        publisher.sendNext(event("user-1", 50, "late"));
+        publisher.sendNext(event("user-1", 0, "first"));
+        subscriber.expectNoMessage(Duration.ofMillis(100));
+
+        // Event time 200 moves the watermark to 100, releasing everything at or below it
+        publisher.sendNext(event("user-1", 200, "next"));
+        assertEquals("first", subscriber.expectNext().id());
+        assertEquals("late", subscriber.expectNext().id());
+        subscriber.expectNoMessage(Duration.ofMillis(100));
+
+        // Older than what was already released: passed through at once
+        publisher.sendNext(event("user-1", 10, "too-late"));
+        assertEquals("too-late", subscriber.expectNext().id());
+
+        publisher.sendComplete();
+        assertEquals("next", subscriber.expectNext().id());
+        subscriber.expectComplete();
+    }
+
+    @Test
+    void testQuietUsersAreReleasedAfterMaxHold() {
+        Pair<TestPublisher.Probe<Event>, TestSubscriber.Probe<Event>> probes = run(Duration.ofMinutes(1), Duration.ofMillis(200), 100);
+        probes.second().request(10);
+
+        probes.first().sendNext(event("user-1", 20, "b"));
+        probes.first().sendNext(event("user-1", 10, "a"));
+        probes.second().expectNoMessage(Duration.ofMillis(50));
+
+        assertEquals("a", probes.second().expectNext(Duration.ofSeconds(2)).id());
+        assertEquals("b", probes.second().expectNext().id());
+    }
+
+    @Test
+    void testReleasesEarliestEventWhenUserBufferIsFull() {
+        Pair<TestPublisher.Probe<Event>, TestSubscriber.Probe<Event>> probes = run(Duration.ofMinutes(1), Duration.ofSeconds(10), 2);
+        probes.second().request(10);
+
+        probes.first().sendNext(event("user-1", 30, "c"));
+        probes.first().sendNext(event("user-1", 10, "a"));
+        probes.first().sendNext(event("user-1", 20, "b"));
+
+        assertEquals("a", probes.second().expectNext().id());
+        probes.second().expectNoMessage(Duration.ofMillis(100));
+    }
+
+    @Test
+    void testContextsOnlyPassOnceEarlierEventsAreReleased() throws Exception {
+        List<Pair<Event, Long>> input = List.of(
+            Pair.create(event("user-1", 50, "a"), 0L), Pair.create(event("user-2", 0, "b"), 1L),
+            Pair.create(event("user-2", 200, "c"), 2L), Pair.create(event("user-1", 300, "d"), 3L));
+
+        List<Pair<Event, Optional<Long>>> output = Source.from(input)
+            .via(EventTimeReorderStage.<Event, Long>flowWithContext(
+                Duration.ofMillis(100), Duration.ofSeconds(10), 100, Event::userId, Event::time))
+            .runWith(Sink.seq(), testKit.system())
+            .toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        // b is released while a, which arrived first, is still held
+        assertEquals("b", output.get(0).first().id());
+        assertEquals(Optional.empty(), output.get(0).second());
+        assertEquals("a", output.get(1).first().id());
+        assertEquals(Optional.of(1L), output.get(1).second());
+        List<Long> contexts = output.stream().flatMap(pair -> pair.second().stream()).toList();
+        assertEquals(contexts.stream().sorted().distinct().toList(), contexts);
+        assertEquals(3L, contexts.get(contexts.size() - 1));
+    }
+
+    private Pair<TestPublisher.Probe<Event>, TestSubscriber.Probe<Event>> run(Duration maxDelay, Duration maxHold, int maxEventsPerUser) {
+        return TestSource.<Event>probe(classicSystem)
+            .via(reorder(maxDelay, maxHold, maxEventsPerUser))
+            .toMat(TestSink.probe(classicSystem), Keep.both())
+            .run(testKit.system());
+    }
+
+    private static Flow<Event, Event, NotUsed> reorder(
+            Duration maxDelay, Duration maxHold, int maxEventsPerUser) {
+        return EventTimeReorderStage.flow(maxDelay, maxHold, maxEventsPerUser, Event::userId, Event::time);
+    }
+
+    private static List<String> idsOf(List<Event> events, String userId) {
+        return events.stream().filter(event -> event.userId().equals(userId)).map(Event::id).toList();
+    }
+
+    private static Event event(String userId, long offsetMillis, String id) {
+        return new Event(userId, BASE_TIME.plusMillis(offsetMillis), id);
+    }
+
+    private record Event(String userId, Instant time, String id) {}
+}
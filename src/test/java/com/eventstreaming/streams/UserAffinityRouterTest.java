@@ -0,0 +1,114 @@
+package com.eventstreaming.streams;
+
+import org.apache.pekko.NotUsed;
+import org.apache.pekko.actor.testkit.typed.javadsl.ActorTestKit;
+import org.apache.pekko.actor.typed.ActorSystem;
+import org.apache.pekko.stream.javadsl.Flow;
+import org.apache.pekko.stream.javadsl.Sink;
+import org.apache.pekko.stream.javadsl.Source;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the bounded lane router: per-user ordering, stable lanes, and a number of
+ * substreams bounded by the lane count instead of growing with distinct userIds the way
+ * an unbounded groupBy per userId does.
+ */
+class UserAffinityRouterTest {
+
+    private static final int DISTINCT_USERS = 100_000;
+    private static final int LANES = 16;
+
+    private ActorTestKit testKit;
+    private ActorSystem<Void> actorSystem;
+
+    @BeforeEach
+    void setUp() {
+        testKit = ActorTestKit.create();
+        actorSystem = testKit.system();
+    }
+
+    @AfterEach
+    void tearDown() {
+        testKit.shutdownTestKit();
+    }
+
+    @Test
+    void testLanesKeepPerUserOrdering() throws Exception {
+        List<String> events = List.of("a:1", "b:1", "a:2", "c:1", "b:2", "a:3");
+
+        List<String> result = Source.from(events)
+            .via(UserAffinityRouter.route(2, e -> e.substring(0, 1), laneFlow()))
+            .runWith(Sink.seq(), actorSystem)
+            .toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        assertEquals(events.size(), result.size());
+        assertEquals(List.of("a:1", "a:2", "a:3"), result.stream().filter(e -> e.startsWith("a")).toList());
+        assertEquals(List.of("b:1", "b:2"), result.stream().filter(e -> e.startsWith("b")).toList());
+    }
+
+    @Test
+    void testLaneForIsStableAndBounded() {
+        for (int i = 0; i < 10_000; i++) {
+            String userId = "user-" + i;
+            int lane = UserAffinityRouter.laneFor(userId, LANES);
+            assertTrue(lane >= 0 && lane < LANES);
+            assertEquals(lane, UserAffinityRouter.laneFor(userId, LANES));
+        }
+        assertEquals(0, UserAffinityRouter.laneFor(null, LANES));
+    }
+
+    @Test
+    void testSubstreamsAreBoundedByLaneCount() throws Exception {
+        AtomicInteger laneSubstreams = new AtomicInteger();
+        int processed = run(UserAffinityRouter.route(LANES, userId -> userId, countingLaneFlow(laneSubstreams)),
+            DISTINCT_USERS);
+
+        assertEquals(DISTINCT_USERS, processed);
+        assertEquals(LANES, laneSubstreams.get());
+    }
+
+    @Test
+    void testGroupByUserIdGrowsWithCardinality() throws Exception {
+        // The approach the router replaces: one substream, and its buffers, per distinct user
+        int distinctUsers = 1_000;
+        AtomicInteger userSubstreams = new AtomicInteger();
+        int processed = run(Flow.<String>create()
+                .groupBy(Integer.MAX_VALUE, userId -> userId)
+                .via(countingLaneFlow(userSubstreams))
+                .mergeSubstreams(),
+            distinctUsers);
+
+        assertEquals(distinctUsers, processed);
+        assertEquals(distinctUsers, userSubstreams.get());
+    }
+
+    private Flow<String, String, NotUsed> laneFlow() {
+        return Flow.<String>create().mapAsync(4, CompletableFuture::completedFuture);
+    }
+
+    // Counts how often the lane flow is materialized, i.e. how many substreams exist
+    private Flow<String, String, NotUsed> countingLaneFlow(AtomicInteger materializations) {
+        return Flow.fromMaterializer((materializer, attributes) -> {
+            materializations.incrementAndGet();
+            return laneFlow();
+        }).mapMaterializedValue(ignored -> NotUsed.getInstance());
+    }
+
+    private int run(Flow<String, String, NotUsed> routing, int distinctUsers) throws Exception {
+        return Source.range(1, distinctUsers)
+            .map(i -> "user-" + i)
+            .via(routing)
+            .runFold(0, (count, element) -> count + 1, actorSystem)
+            .toCompletableFuture()
+            .get(1, TimeUnit.MINUTES);
+    }
+}
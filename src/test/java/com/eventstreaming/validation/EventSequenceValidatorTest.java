@@ -0,0 +1,211 @@
+package com.eventstreaming.validation;
+
+import com.eventstreaming.model.CommunicationEvent;
+import com.eventstreaming.model.EmailEvent;
+import com.eventstreaming.model.EventType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the near-cache and write-behind flushing of {@link EventSequenceValidator} against an
+ * in-memory Redis stand-in, counting the Redis calls it makes.
+ */
+class EventSequenceValidatorTest {
+
+    private static final int USERS = 20;
+    private static final int EVENTS = 1_000;
+    private static final Instant BASE_TIME = Instant.parse("2024-01-01T12:00:00Z");
+
+    private FakeRedisTemplate redisTemplate;
+    private EventSequenceValidator validator;
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate = new FakeRedisTemplate();
+        validator = newValidator(500);
+    }
+
+    @AfterEach
+    void tearDown() {
+        validator.stop();
+    }
+
+    @Test
+    void testReadsRedisOnlyOnNearCacheMiss() {
+        assertTrue(validator.validateSequence(event("user-1", 0)).isValid());
+        assertTrue(validator.validateSequence(event("user-1", 100)).isValid());
+
+        EventSequenceValidator.SequenceValidationResult minor = validator.validateSequence(event("user-1", -400));
+        assertTrue(minor.isValid());
+        assertTrue(minor.hasWarning());
+        assertFalse(validator.validateSequence(event("user-1", -5_000)).isValid());
+        assertTrue(validator.validateSequence(event("user-1", 200)).isValid());
+
+        verify(redisTemplate.values, times(1)).get("last_event_time:user-1");
+        verify(redisTemplate.values, never()).set(eq("last_event_time:user-1"), anyString(), anyLong(), any(TimeUnit.class));
+        assertEquals(BASE_TIME.plusMillis(200), validator.getLastProcessedTime("user-1"));
+    }
+
+    @Test
+    void testFlushesLatestTimesInScriptBatches() {
+        validator = newValidator(2);
+        for (int user = 0; user < 5; user++) {
+            validator.validateSequence(event("user-" + user, 10));
+            validator.validateSequence(event("user-" + user, 20));
+        }
+
+        assertEquals(5, validator.flushPendingWrites());
+        assertEquals(3, redisTemplate.scriptCalls.get());
+        assertEquals(String.valueOf(BASE_TIME.plusMillis(20).toEpochMilli()), redisTemplate.store.get("last_event_time:user-4"));
+        assertEquals(0, validator.getPendingWriteCount());
+        assertEquals(0, validator.flushPendingWrites());
+    }
+
+    @Test
+    void testScriptNeverMovesTimeBackwards() {
+        validator.validateSequence(event("user-1", 500));
+        // Another node wrote a later time for this user before our flush
+        redisTemplate.store.put("last_event_time:user-1", String.valueOf(BASE_TIME.plusMillis(900).toEpochMilli()));
+        validator.flushPendingWrites();
+
+        assertEquals(String.valueOf(BASE_TIME.plusMillis(900).toEpochMilli()), redisTemplate.store.get("last_event_time:user-1"));
+    }
+
+    @Test
+    void testMissUsesStoredIsoTimestampAndPendingWrites() {
+        redisTemplate.store.put("last_event_time:user-1", BASE_TIME.plusSeconds(10).toString());
+        assertFalse(validator.validateSequence(event("user-1", 0)).isValid());
+        assertTrue(validator.validateSequence(event("user-1", 10_000)).isValid());
+
+        // Entries evicted before their flush are recovered from the pending writes, not Redis
+        validator.validateSequence(event("user-2", 60_000));
+        ((Map<?, ?>) ReflectionTestUtils.getField(validator, "nearCache")).clear();
+        assertFalse(validator.validateSequence(event("user-2", 30_000)).isValid());
+    }
+
+    @Test
+    void testNearCacheEvictsLeastRecentlyUsedUser() {
+        ReflectionTestUtils.setField(validator, "nearCacheMaxEntries", 3);
+        for (int i = 0; i < 10; i++) {
+            validator.validateSequence(event("hot-user", i * 10L));
+            validator.validateSequence(event("cold-user-" + i, 0));
+        }
+
+        assertEquals(3, ((Map<?, ?>) ReflectionTestUtils.getField(validator, "nearCache")).size());
+        // The hot user stays cached while cold users come and go
+        verify(redisTemplate.values, times(1)).get("last_event_time:hot-user");
+        validator.validateSequence(event("cold-user-0", 10));
+        verify(redisTemplate.values, times(2)).get("last_event_time:cold-user-0");
+    }
+
+    @Test
+    void testFailedFlushKeepsPendingTimes() {
+        validator.validateSequence(event("user-1", 0));
+        redisTemplate.failScripts = true;
+        assertThrows(RuntimeException.class, () -> validator.flushPendingWrites());
+        assertEquals(1, validator.getPendingWriteCount());
+
+        redisTemplate.failScripts = false;
+        assertEquals(1, validator.flushPendingWrites());
+        assertEquals(String.valueOf(BASE_TIME.toEpochMilli()), redisTemplate.store.get("last_event_time:user-1"));
+    }
+
+    @Test
+    void testRedisCallsPerUserNotPerEvent() {
+        for (int i = 0; i < EVENTS; i++) {
+            assertTrue(validator.validateSequence(event("user-" + (i % USERS), i)).isValid());
+        }
+
+        // One read per user on its first event, nothing written until the flush
+        for (int user = 0; user < USERS; user++) {
+            verify(redisTemplate.values, times(1)).get("last_event_time:user-" + user);
+        }
+        verify(redisTemplate.values, never()).set(anyString(), anyString(), anyLong(), any(TimeUnit.class));
+        assertEquals(0, redisTemplate.scriptCalls.get());
+
+        // All users fit one batch of 500, so the flush is a single script call
+        assertEquals(USERS, validator.flushPendingWrites());
+        assertEquals(1, redisTemplate.scriptCalls.get());
+        assertEquals(String.valueOf(BASE_TIME.plusMillis(EVENTS - 1).toEpochMilli()),
+            redisTemplate.store.get("last_event_time:user-" + ((EVENTS - 1) % USERS)));
+    }
+
+    private EventSequenceValidator newValidator(int flushBatchSize) {
+        EventSequenceValidator newValidator = new EventSequenceValidator(redisTemplate);
+        ReflectionTestUtils.setField(newValidator, "validationEnabled", true);
+        ReflectionTestUtils.setField(newValidator, "maxOutOfOrderMs", 1000L);
+        ReflectionTestUtils.setField(newValidator, "flushBatchSize", flushBatchSize);
+        return newValidator;
+    }
+
+    private static CommunicationEvent event(String userId, long offsetMillis) {
+        return EmailEvent.builder()
+            .userId(userId)
+            .eventId(userId + "-" + offsetMillis)
+            .eventType(EventType.EMAIL_OPEN)
+            .timestamp(BASE_TIME.plusMillis(offsetMillis))
+            .build();
+    }
+
+    /**
+     * Redis stand-in: values live in a map and the script applies the same forward-only rule
+     * as the Lua script.
+     */
+    @SuppressWarnings("unchecked")
+    private static final class FakeRedisTemplate extends RedisTemplate<String, String> {
+        final Map<String, String> store = new ConcurrentHashMap<>();
+        final AtomicInteger scriptCalls = new AtomicInteger();
+        final ValueOperations<String, String> values = mock(ValueOperations.class);
+        volatile boolean failScripts;
+
+        FakeRedisTemplate() {
+            when(values.get(anyString())).thenAnswer(invocation -> store.get(invocation.<String>getArgument(0)));
+            doAnswer(invocation -> {
+                store.put(invocation.getArgument(0), invocation.getArgument(1));
+                return null;
+            }).when(values).set(anyString(), anyString(), anyLong(), any(TimeUnit.class));
+        }
+
+        @Override
+        public ValueOperations<String, String> opsForValue() {
+            return values;
+        }
+
+        @Override
+        public Boolean delete(String key) {
+            return store.remove(key) != null;
+        }
+
+        @Override
+        public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+            if (failScripts) {
+                throw new IllegalStateException("Redis unavailable");
+            }
+            scriptCalls.incrementAndGet();
+            for (int i = 0; i < keys.size(); i++) {
+                long millis = Long.parseLong((String) args[i]);
+                store.merge(keys.get(i), (String) args[i], (current, next) ->
+                    current.chars().allMatch(Character::isDigit) && Long.parseLong(current) >= millis ? current : next);
+            }
+            return (T) Long.valueOf(keys.size());
+        }
+    }
+}